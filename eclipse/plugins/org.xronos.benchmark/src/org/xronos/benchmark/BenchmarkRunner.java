@@ -0,0 +1,179 @@
+/* 
+ * XRONOS-EXELIXI
+ * 
+ * Copyright (C) 2011-2016 EPFL SCI STI MM
+ *
+ * This file is part of XRONOS-EXELIXI.
+ *
+ * XRONOS-EXELIXI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * XRONOS-EXELIXI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with XRONOS-EXELIXI. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Additional permission under GNU GPL version 3 section 7
+ * 
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with Eclipse (or a modified version of Eclipse or an Eclipse plugin or 
+ * an Eclipse library), containing parts covered by the terms of the 
+ * Eclipse Public License (EPL), the licensors of this Program grant you 
+ * additional permission to convey the resulting work.  Corresponding Source 
+ * for a non-source form of such a combination shall include the source code 
+ * for the parts of Eclipse libraries used as well as that of the covered work.
+ * 
+ */
+
+package org.xronos.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.xronos.benchmark.LimPipelineBenchmark.Pass;
+import org.xronos.openforge.app.PassProfiler;
+
+/**
+ * Runs the benchmarks of the LIM compile pipeline and prints, for every pass
+ * and actor size, its throughput in operations (runs of the pass) per second,
+ * its allocation rate in MB per second, and the mean CPU time and allocated
+ * bytes of one operation.
+ * <p>
+ * The runner is a plain Java application: launch it with "Run As > Java
+ * Application" from a workspace holding the Xronos and Orcc plug-ins, the
+ * launch configuration gets the class path of the required bundles. The
+ * optional arguments are, in order, the number of warmup iterations
+ * (default 5), the number of measured iterations (default 10) and a file the
+ * measures of every iteration are written to, as comma separated values.
+ * 
+ */
+public class BenchmarkRunner {
+
+	/**
+	 * A measure taken by the {@link PassProfiler} for every recorded pass.
+	 */
+	private enum Measure {
+		WALL_TIME {
+			@Override
+			long of(PassProfiler.Record record) {
+				return record.getWallTime();
+			}
+		},
+		CPU_TIME {
+			@Override
+			long of(PassProfiler.Record record) {
+				return record.getCpuTime();
+			}
+		},
+		ALLOCATED_BYTES {
+			@Override
+			long of(PassProfiler.Record record) {
+				return record.getAllocatedBytes();
+			}
+		};
+
+		/**
+		 * @return the value of this measure in the given record, or
+		 *         {@link PassProfiler#UNKNOWN}
+		 */
+		abstract long of(PassProfiler.Record record);
+	}
+
+	private static final double NANOS_PER_SECOND = 1e9;
+
+	private static final double BYTES_PER_MB = 1024 * 1024;
+
+	private static final int DEFAULT_WARMUP = 5;
+
+	private static final int DEFAULT_ITERATIONS = 10;
+
+	public static void main(String[] args) throws IOException {
+		int warmup = args.length > 0 ? Integer.parseInt(args[0])
+				: DEFAULT_WARMUP;
+		int iterations = args.length > 1 ? Integer.parseInt(args[1])
+				: DEFAULT_ITERATIONS;
+
+		File outputFolder = new File(System.getProperty("java.io.tmpdir"),
+				"xronos-benchmark");
+		outputFolder.mkdirs();
+
+		LimPipelineBenchmark benchmark = new LimPipelineBenchmark(outputFolder);
+		try {
+			System.out.println(String.format("%-18s %10s %12s %12s %12s %16s",
+					"pass", "operations", "ops/s", "alloc MB/s", "cpu ms/op",
+					"bytes/op"));
+			for (Pass pass : LimPipelineBenchmark.getPasses()) {
+				for (int operations : LimPipelineBenchmark.OPERATIONS) {
+					List<PassProfiler.Record> records = benchmark.measure(
+							pass, operations, warmup, iterations);
+					double wall = mean(records, Measure.WALL_TIME);
+					double cpu = mean(records, Measure.CPU_TIME);
+					double allocated = mean(records, Measure.ALLOCATED_BYTES);
+					System.out.println(String.format(
+							"%-18s %10d %12.3f %12.3f %12.3f %16.0f",
+							pass.getName(), operations,
+							perSecond(1, wall),
+							perSecond(allocated, wall) / BYTES_PER_MB,
+							cpu == PassProfiler.UNKNOWN ? cpu : cpu / 1e6,
+							allocated));
+				}
+			}
+			if (args.length > 2) {
+				benchmark.getProfiler().write(new File(args[2]));
+			}
+		} finally {
+			benchmark.dispose();
+		}
+	}
+
+	/**
+	 * Compute the rate of a quantity produced by one operation.
+	 * 
+	 * @param perOperation
+	 *            the mean quantity of one operation
+	 * @param wallTime
+	 *            the mean wall time of one operation, in nanoseconds
+	 * @return the quantity per second, or {@link PassProfiler#UNKNOWN} when
+	 *         either mean is not available
+	 */
+	private static double perSecond(double perOperation, double wallTime) {
+		if (perOperation == PassProfiler.UNKNOWN
+				|| wallTime == PassProfiler.UNKNOWN || wallTime <= 0) {
+			return PassProfiler.UNKNOWN;
+		}
+		return perOperation * NANOS_PER_SECOND / wallTime;
+	}
+
+	/**
+	 * Compute the mean of a measure of the given records.
+	 * 
+	 * @param records
+	 *            the records
+	 * @param measure
+	 *            the measure
+	 * @return the mean, or {@link PassProfiler#UNKNOWN} when the measure is not
+	 *         available
+	 */
+	private static double mean(List<PassProfiler.Record> records,
+			Measure measure) {
+		if (records.isEmpty()) {
+			return PassProfiler.UNKNOWN;
+		}
+		double sum = 0;
+		for (PassProfiler.Record record : records) {
+			long value = measure.of(record);
+			if (value == PassProfiler.UNKNOWN) {
+				return PassProfiler.UNKNOWN;
+			}
+			sum += value;
+		}
+		return sum / records.size();
+	}
+
+}
@@ -0,0 +1,160 @@
+/* 
+ * XRONOS-EXELIXI
+ * 
+ * Copyright (C) 2011-2016 EPFL SCI STI MM
+ *
+ * This file is part of XRONOS-EXELIXI.
+ *
+ * XRONOS-EXELIXI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * XRONOS-EXELIXI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with XRONOS-EXELIXI. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Additional permission under GNU GPL version 3 section 7
+ * 
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with Eclipse (or a modified version of Eclipse or an Eclipse plugin or 
+ * an Eclipse library), containing parts covered by the terms of the 
+ * Eclipse Public License (EPL), the licensors of this Program grant you 
+ * additional permission to convey the resulting work.  Corresponding Source 
+ * for a non-source form of such a combination shall include the source code 
+ * for the parts of Eclipse libraries used as well as that of the covered work.
+ * 
+ */
+
+package org.xronos.benchmark;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import net.sf.orcc.df.Actor;
+
+import org.xronos.openforge.app.Engine;
+import org.xronos.openforge.app.Forge;
+import org.xronos.openforge.app.GenericJob;
+import org.xronos.openforge.app.OptionRegistry;
+import org.xronos.openforge.lim.CodeLabel;
+import org.xronos.openforge.lim.Design;
+import org.xronos.openforge.lim.naming.LIMLogicalNamer;
+import org.xronos.openforge.optimize.Optimizer;
+import org.xronos.openforge.report.throughput.ThroughputAnalyzer;
+import org.xronos.openforge.schedule.Scheduler;
+import org.xronos.openforge.verilog.translate.PassThroughComponentRemover;
+import org.xronos.orcc.backend.XronosFlags;
+import org.xronos.orcc.backend.transform.XronosTransform;
+import org.xronos.orcc.forge.mapping.DesignActor;
+
+/**
+ * Builds the LIM designs of synthetic actors and brings them to a given stage
+ * of the LIM compile pipeline, following the order of
+ * {@link org.xronos.openforge.app.LIMCompiler#processLim(Design)}. A fixture
+ * owns a Forge job and an engine bound to the thread which created it, the
+ * designs must be built and compiled on that thread.
+ * 
+ */
+public class DesignFixture {
+
+	/**
+	 * The stages of the LIM compile pipeline, each one includes the previous
+	 * ones.
+	 */
+	public enum Stage {
+		/** The design is built from the actor */
+		BUILT,
+		/** The design has been optimized */
+		OPTIMIZED,
+		/** The design has been scheduled */
+		SCHEDULED,
+		/** The design has been named, it is ready to be translated */
+		NAMED
+	}
+
+	private final Engine engine;
+
+	private final GenericJob job;
+
+	private final Map<String, Object> options = new HashMap<String, Object>();
+
+	/**
+	 * Create a fixture with the Forge flags used for the actor instances.
+	 * 
+	 * @param outputFolder
+	 *            the folder of the files written by Forge
+	 */
+	public DesignFixture(File outputFolder) {
+		XronosFlags flags = new XronosFlags(outputFolder.getAbsolutePath(),
+				"benchmark");
+		String[] instanceFlags = flags.getStringFlag();
+		// Keep the measures free of the verbose compilation messages
+		String[] xronosArgs = new String[instanceFlags.length + 1];
+		System.arraycopy(instanceFlags, 0, xronosArgs, 0, instanceFlags.length);
+		xronosArgs[instanceFlags.length] = "-q";
+
+		job = new GenericJob();
+		job.setOptionValues(xronosArgs);
+		job.getOption(OptionRegistry.XILINX_PART).setValue(CodeLabel.UNSCOPED,
+				"xc2vp30-7-ff1152");
+		new Forge().preprocess(job);
+
+		engine = new Engine(job) {
+			@Override
+			public Design buildLim() {
+				return null;
+			}
+		};
+	}
+
+	/**
+	 * Build the design of a synthetic actor and compile it up to the given
+	 * stage.
+	 * 
+	 * @param operations
+	 *            the number of operations of the actor
+	 * @param stage
+	 *            the last stage to run
+	 * @return the design
+	 */
+	public Design build(int operations, Stage stage) {
+		engine.updateJobThread();
+
+		Actor actor = SyntheticActor.create("synthetic_" + operations,
+				operations);
+		XronosTransform.transformActor(actor, options, false, null);
+		Design design = new DesignActor().doSwitch(actor);
+		job.getOption(OptionRegistry.PE_NAME).setValue(CodeLabel.UNSCOPED,
+				design.showIDLogical());
+
+		if (stage.compareTo(Stage.OPTIMIZED) >= 0) {
+			design = (Design) new Optimizer().optimize(design);
+		}
+
+		if (stage.compareTo(Stage.SCHEDULED) >= 0) {
+			design = Scheduler.schedule(design);
+			design.accept(new ThroughputAnalyzer());
+		}
+
+		if (stage.compareTo(Stage.NAMED) >= 0) {
+			LIMLogicalNamer.setNames(design, false);
+			design.accept(new PassThroughComponentRemover());
+		}
+
+		return design;
+	}
+
+	/**
+	 * Release the engine of this fixture.
+	 */
+	public void dispose() {
+		engine.kill();
+	}
+
+}
@@ -0,0 +1,193 @@
+/* 
+ * XRONOS-EXELIXI
+ * 
+ * Copyright (C) 2011-2016 EPFL SCI STI MM
+ *
+ * This file is part of XRONOS-EXELIXI.
+ *
+ * XRONOS-EXELIXI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * XRONOS-EXELIXI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with XRONOS-EXELIXI. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Additional permission under GNU GPL version 3 section 7
+ * 
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with Eclipse (or a modified version of Eclipse or an Eclipse plugin or 
+ * an Eclipse library), containing parts covered by the terms of the 
+ * Eclipse Public License (EPL), the licensors of this Program grant you 
+ * additional permission to convey the resulting work.  Corresponding Source 
+ * for a non-source form of such a combination shall include the source code 
+ * for the parts of Eclipse libraries used as well as that of the covered work.
+ * 
+ */
+
+package org.xronos.benchmark;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.xronos.benchmark.DesignFixture.Stage;
+import org.xronos.openforge.app.PassProfiler;
+import org.xronos.openforge.lim.Design;
+import org.xronos.openforge.lim.naming.LIMLogicalNamer;
+import org.xronos.openforge.optimize.Optimizer;
+import org.xronos.openforge.schedule.Scheduler;
+import org.xronos.openforge.verilog.translate.VerilogTranslator;
+
+/**
+ * Measures the passes of the LIM compile pipeline separately. Each pass
+ * modifies the design it runs over, so every iteration gets a fresh design
+ * built and compiled up to the stage preceding the measured pass, only the
+ * pass itself is measured. The measures are taken by a {@link PassProfiler},
+ * which reads the wall time, the CPU time and the bytes allocated by the
+ * benchmark thread around each pass.
+ * 
+ */
+public class LimPipelineBenchmark {
+
+	/**
+	 * A pass of the LIM compile pipeline together with the stage its design
+	 * must be compiled to before it runs.
+	 */
+	public abstract static class Pass {
+
+		private final String name;
+
+		private final Stage stage;
+
+		protected Pass(String name, Stage stage) {
+			this.name = name;
+			this.stage = stage;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public Stage getStage() {
+			return stage;
+		}
+
+		/**
+		 * Run the pass over the given design.
+		 * 
+		 * @param design
+		 *            a design compiled up to the stage of this pass
+		 */
+		public abstract void run(Design design);
+	}
+
+	/** The numbers of operations of the measured synthetic actors */
+	public static final int[] OPERATIONS = { 16, 128, 512 };
+
+	/**
+	 * @return the measured passes, in pipeline order
+	 */
+	public static List<Pass> getPasses() {
+		List<Pass> passes = new ArrayList<Pass>();
+		passes.add(new Pass("optimize", Stage.BUILT) {
+			@Override
+			public void run(Design design) {
+				new Optimizer().optimize(design);
+			}
+		});
+		passes.add(new Pass("schedule", Stage.OPTIMIZED) {
+			@Override
+			public void run(Design design) {
+				Scheduler.schedule(design);
+			}
+		});
+		passes.add(new Pass("setNames", Stage.SCHEDULED) {
+			@Override
+			public void run(Design design) {
+				LIMLogicalNamer.setNames(design, false);
+			}
+		});
+		passes.add(new Pass("translateVerilog", Stage.NAMED) {
+			@Override
+			public void run(Design design) {
+				VerilogTranslator translator = new VerilogTranslator(design);
+				translator.writeDocument(new StringWriter());
+			}
+		});
+		return Collections.unmodifiableList(passes);
+	}
+
+	private final DesignFixture fixture;
+
+	private final PassProfiler profiler = new PassProfiler();
+
+	/**
+	 * Create a benchmark whose designs are compiled on the calling thread.
+	 * 
+	 * @param outputFolder
+	 *            the folder of the files written by Forge
+	 */
+	public LimPipelineBenchmark(File outputFolder) {
+		fixture = new DesignFixture(outputFolder);
+	}
+
+	/**
+	 * Release the fixture of this benchmark.
+	 */
+	public void dispose() {
+		fixture.dispose();
+	}
+
+	/**
+	 * @return the profiler holding the measures of every measured iteration
+	 */
+	public PassProfiler getProfiler() {
+		return profiler;
+	}
+
+	/**
+	 * Run a pass over fresh designs of a synthetic actor. The warmup
+	 * iterations are run the same way as the measured ones but are not
+	 * recorded.
+	 * 
+	 * @param pass
+	 *            the pass
+	 * @param operations
+	 *            the number of operations of the synthetic actor
+	 * @param warmup
+	 *            the number of iterations which are not recorded
+	 * @param iterations
+	 *            the number of recorded iterations
+	 * @return the records of the recorded iterations
+	 */
+	public List<PassProfiler.Record> measure(Pass pass, int operations,
+			int warmup, int iterations) {
+		for (int i = 0; i < warmup; i++) {
+			pass.run(fixture.build(operations, pass.getStage()));
+		}
+
+		String recordName = pass.getName() + "/" + operations;
+		List<PassProfiler.Record> measured = new ArrayList<PassProfiler.Record>();
+		for (int i = 0; i < iterations; i++) {
+			Design design = fixture.build(operations, pass.getStage());
+			profiler.start(recordName, design);
+			try {
+				pass.run(design);
+			} finally {
+				profiler.stop(design);
+			}
+			List<PassProfiler.Record> records = profiler.getRecords();
+			measured.add(records.get(records.size() - 1));
+		}
+		return measured;
+	}
+
+}
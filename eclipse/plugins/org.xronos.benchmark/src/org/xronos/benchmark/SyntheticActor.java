@@ -0,0 +1,376 @@
+/* 
+ * XRONOS-EXELIXI
+ * 
+ * Copyright (C) 2011-2016 EPFL SCI STI MM
+ *
+ * This file is part of XRONOS-EXELIXI.
+ *
+ * XRONOS-EXELIXI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * XRONOS-EXELIXI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with XRONOS-EXELIXI. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Additional permission under GNU GPL version 3 section 7
+ * 
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with Eclipse (or a modified version of Eclipse or an Eclipse plugin or 
+ * an Eclipse library), containing parts covered by the terms of the 
+ * Eclipse Public License (EPL), the licensors of this Program grant you 
+ * additional permission to convey the resulting work.  Corresponding Source 
+ * for a non-source form of such a combination shall include the source code 
+ * for the parts of Eclipse libraries used as well as that of the covered work.
+ * 
+ */
+
+package org.xronos.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.sf.orcc.df.Action;
+import net.sf.orcc.df.Actor;
+import net.sf.orcc.df.DfFactory;
+import net.sf.orcc.df.Pattern;
+import net.sf.orcc.df.Port;
+import net.sf.orcc.ir.BlockBasic;
+import net.sf.orcc.ir.BlockIf;
+import net.sf.orcc.ir.BlockWhile;
+import net.sf.orcc.ir.Expression;
+import net.sf.orcc.ir.IrFactory;
+import net.sf.orcc.ir.OpBinary;
+import net.sf.orcc.ir.Procedure;
+import net.sf.orcc.ir.Type;
+import net.sf.orcc.ir.Var;
+
+/**
+ * Builds synthetic actors whose size is given by the number of operations of
+ * their actions. Each action reads one token, runs its operations and writes
+ * one token. The operations are arithmetic, logic and shift operations mixed
+ * with state scalar and state array accesses, split in segments which are in
+ * turn straight-line code, an if-then-else whose branches run different
+ * operations and a loop over the state array, so that the LIM passes see
+ * control flow as well as the data paths of real action bodies.
+ * 
+ */
+public class SyntheticActor {
+
+	/** The maximum number of operations of a single action */
+	public static final int OPERATIONS_PER_ACTION = 64;
+
+	/**
+	 * The number of operations of a segment of an action. The segments of an
+	 * action are in turn straight-line code, an if-then-else and a loop.
+	 */
+	public static final int OPERATIONS_PER_SEGMENT = 8;
+
+	/** The number of iterations of the loops */
+	public static final int LOOP_TRIP_COUNT = 4;
+
+	/** The depth of the state array of the actor */
+	public static final int TABLE_DEPTH = 32;
+
+	private static DfFactory dfFactory = DfFactory.eINSTANCE;
+
+	private static IrFactory irFactory = IrFactory.eINSTANCE;
+
+	/** The operations of the chain, used in turn */
+	private static final OpBinary[] OPERATORS = { OpBinary.PLUS,
+			OpBinary.TIMES, OpBinary.BITXOR, OpBinary.SHIFT_RIGHT,
+			OpBinary.MINUS, OpBinary.BITAND };
+
+	/**
+	 * Create an actor with the given number of operations, split in actions of
+	 * at most {@link #OPERATIONS_PER_ACTION} operations.
+	 * 
+	 * @param name
+	 *            the name of the actor
+	 * @param operations
+	 *            the total number of operations
+	 * @return a new actor
+	 */
+	public static Actor create(String name, int operations) {
+		Actor actor = dfFactory.createActor();
+		actor.setName(name);
+		actor.setLabel(name);
+
+		Port input = dfFactory.createPort(irFactory.createTypeInt(32), "I");
+		actor.getInputs().add(input);
+		Port output = dfFactory.createPort(irFactory.createTypeInt(32), "O");
+		actor.getOutputs().add(output);
+
+		Var acc = irFactory.createVar(0, irFactory.createTypeInt(32), "acc",
+				true, irFactory.createExprInt(0));
+		actor.getStateVars().add(acc);
+		Var table = irFactory.createVar(0, irFactory.createTypeList(
+				TABLE_DEPTH, irFactory.createTypeInt(32)), "table", true, null);
+		actor.getStateVars().add(table);
+
+		int remaining = Math.max(operations, 1);
+		int index = 0;
+		while (remaining > 0) {
+			int actionOperations = Math.min(remaining, OPERATIONS_PER_ACTION);
+			Action action = createAction(actor, "compute_" + index, input,
+					output, acc, table, actionOperations);
+			actor.getActions().add(action);
+			actor.getActionsOutsideFsm().add(action);
+			remaining -= actionOperations;
+			index++;
+		}
+
+		return actor;
+	}
+
+	private static Action createAction(Actor actor, String name, Port input,
+			Port output, Var acc, Var table, int operations) {
+		Pattern inputPattern = createPattern(input);
+		Pattern outputPattern = createPattern(output);
+		Pattern peekedPattern = dfFactory.createPattern();
+
+		Procedure scheduler = createScheduler(name);
+		Procedure body = irFactory.createProcedure();
+		body.setName(name);
+
+		BlockBasic block = irFactory.createBlockBasic();
+		body.getBlocks().add(block);
+
+		// Read the input token
+		Var current = createLocal(body, "x");
+		block.add(irFactory.createInstLoad(current,
+				inputPattern.getVariable(input), indexes(0)));
+
+		// Read the accumulator
+		Var accLocal = createLocal(body, "acc_local");
+		block.add(irFactory.createInstLoad(accLocal, acc));
+
+		int segment = 0;
+		for (int first = 0; first < operations; first += OPERATIONS_PER_SEGMENT) {
+			int count = Math.min(OPERATIONS_PER_SEGMENT, operations - first);
+			if (segment % 3 == 0) {
+				current = createChain(body, block, "t_", current, accLocal,
+						table, first, count);
+			} else {
+				if (segment % 3 == 1) {
+					current = createBranch(body, current, accLocal, table,
+							segment, first, count);
+				} else {
+					current = createLoop(body, current, accLocal, table,
+							segment, first, count);
+				}
+				block = irFactory.createBlockBasic();
+				body.getBlocks().add(block);
+			}
+			segment++;
+		}
+
+		// Update the accumulator and write the output token
+		block.add(irFactory.createInstStore(acc, current));
+		block.add(irFactory.createInstStore(outputPattern.getVariable(output),
+				indexes(0), current));
+
+		return dfFactory.createAction(name, inputPattern, outputPattern,
+				peekedPattern, scheduler, body);
+	}
+
+	/**
+	 * Create an if-then-else whose branches run different chains of
+	 * operations, the branch is chosen by the lowest bit of the current value.
+	 * 
+	 * @return the variable holding the result of the taken branch
+	 */
+	private static Var createBranch(Procedure body, Var current, Var accLocal,
+			Var table, int segment, int first, int count) {
+		Var result = createLocal(body, "b_" + segment);
+
+		Expression lowBit = irFactory.createExprBinary(
+				irFactory.createExprVar(current), OpBinary.BITAND,
+				irFactory.createExprInt(1), irFactory.createTypeInt(32));
+		Expression condition = irFactory.createExprBinary(lowBit, OpBinary.EQ,
+				irFactory.createExprInt(0), irFactory.createTypeBool());
+
+		BlockBasic thenBlock = irFactory.createBlockBasic();
+		Var thenResult = createChain(body, thenBlock, "t_", current, accLocal,
+				table, first, count);
+		thenBlock.add(irFactory.createInstAssign(result,
+				irFactory.createExprVar(thenResult)));
+
+		// The else branch starts the operator sequence one step further
+		BlockBasic elseBlock = irFactory.createBlockBasic();
+		Var elseResult = createChain(body, elseBlock, "e_", current, accLocal,
+				table, first + 1, count);
+		elseBlock.add(irFactory.createInstAssign(result,
+				irFactory.createExprVar(elseResult)));
+
+		BlockIf blockIf = irFactory.createBlockIf();
+		blockIf.setCondition(condition);
+		blockIf.getThenBlocks().add(thenBlock);
+		blockIf.getElseBlocks().add(elseBlock);
+		blockIf.setJoinBlock(irFactory.createBlockBasic());
+		body.getBlocks().add(blockIf);
+
+		return result;
+	}
+
+	/**
+	 * Create a chain of operations starting from the given value. Every eighth
+	 * operation goes through the state array.
+	 * 
+	 * @return the variable holding the last value of the chain
+	 */
+	private static Var createChain(Procedure body, BlockBasic block,
+			String prefix, Var current, Var accLocal, Var table, int first,
+			int count) {
+		for (int i = first; i < first + count; i++) {
+			Var target = createLocal(body, prefix + i);
+			block.add(irFactory.createInstAssign(target,
+					createOperation(i, irFactory.createExprVar(current),
+							accLocal)));
+			current = target;
+
+			if (i % 8 == 7) {
+				int address = i % TABLE_DEPTH;
+				block.add(irFactory.createInstStore(table, indexes(address),
+						current));
+				Var loaded = createLocal(body, "m_" + prefix + i);
+				block.add(irFactory.createInstLoad(loaded, table,
+						indexes((address + 1) % TABLE_DEPTH)));
+				current = loaded;
+			}
+		}
+		return current;
+	}
+
+	private static Var createLocal(Procedure body, String name) {
+		Var local = irFactory.createVar(irFactory.createTypeInt(32), name,
+				true, 0);
+		body.getLocals().add(local);
+		return local;
+	}
+
+	/**
+	 * Create a loop of {@link #LOOP_TRIP_COUNT} iterations which folds the
+	 * first entries of the state array into a running value, through a chain
+	 * of operations, and writes the running value back into the array.
+	 * 
+	 * @return the variable holding the running value after the loop
+	 */
+	private static Var createLoop(Procedure body, Var current, Var accLocal,
+			Var table, int segment, int first, int count) {
+		Var counter = createLocal(body, "i_" + segment);
+		Var running = createLocal(body, "r_" + segment);
+
+		BlockBasic init = irFactory.createBlockBasic();
+		init.add(irFactory.createInstAssign(counter,
+				irFactory.createExprInt(0)));
+		init.add(irFactory.createInstAssign(running,
+				irFactory.createExprVar(current)));
+		body.getBlocks().add(init);
+
+		BlockBasic loopBlock = irFactory.createBlockBasic();
+		Var entry = createLocal(body, "l_" + segment);
+		loopBlock.add(irFactory.createInstLoad(entry, table,
+				variableIndexes(counter)));
+		loopBlock.add(irFactory.createInstAssign(running, irFactory
+				.createExprBinary(irFactory.createExprVar(running),
+						OpBinary.PLUS, irFactory.createExprVar(entry),
+						irFactory.createTypeInt(32))));
+		for (int i = first; i < first + count; i++) {
+			loopBlock.add(irFactory.createInstAssign(running,
+					createOperation(i, irFactory.createExprVar(running),
+							accLocal)));
+		}
+		loopBlock.add(irFactory.createInstStore(table,
+				variableIndexes(counter), running));
+		loopBlock.add(irFactory.createInstAssign(counter, irFactory
+				.createExprBinary(irFactory.createExprVar(counter),
+						OpBinary.PLUS, irFactory.createExprInt(1),
+						irFactory.createTypeInt(32))));
+
+		Expression condition = irFactory.createExprBinary(
+				irFactory.createExprVar(counter), OpBinary.LT,
+				irFactory.createExprInt(LOOP_TRIP_COUNT),
+				irFactory.createTypeBool());
+		BlockWhile blockWhile = irFactory.createBlockWhile();
+		blockWhile.setCondition(condition);
+		blockWhile.getBlocks().add(loopBlock);
+		blockWhile.setJoinBlock(irFactory.createBlockBasic());
+		body.getBlocks().add(blockWhile);
+
+		return running;
+	}
+
+	/**
+	 * Create the i-th operation of a chain, the operators are used in turn.
+	 */
+	private static Expression createOperation(int i, Expression value,
+			Var accLocal) {
+		OpBinary op = OPERATORS[i % OPERATORS.length];
+		Expression operand;
+		if (op == OpBinary.SHIFT_RIGHT) {
+			operand = irFactory.createExprInt(1 + i % 3);
+		} else if (op == OpBinary.BITXOR) {
+			operand = irFactory.createExprVar(accLocal);
+		} else {
+			operand = irFactory.createExprInt(3 + 2 * i);
+		}
+		return irFactory.createExprBinary(value, op, operand,
+				irFactory.createTypeInt(32));
+	}
+
+	/**
+	 * Create a single token pattern on the given port
+	 */
+	private static Pattern createPattern(Port port) {
+		Pattern pattern = dfFactory.createPattern();
+		Type portVarType = irFactory.createTypeList(1,
+				irFactory.createTypeInt(32));
+		pattern.setNumTokens(port, 1);
+		pattern.setVariable(port,
+				irFactory.createVar(portVarType, port.getName(), true, 0));
+		return pattern;
+	}
+
+	/**
+	 * Create a scheduler which always fires its action
+	 */
+	private static Procedure createScheduler(String actionName) {
+		Procedure scheduler = irFactory.createProcedure();
+		scheduler.setName("isSchedulable_" + actionName);
+		scheduler.setReturnType(irFactory.createTypeBool());
+
+		Var result = irFactory.createVar(irFactory.createTypeBool(), "result",
+				true, 0);
+		scheduler.getLocals().add(result);
+
+		BlockBasic block = irFactory.createBlockBasic();
+		block.add(irFactory.createInstAssign(result,
+				irFactory.createExprBool(true)));
+		block.add(irFactory.createInstReturn(irFactory.createExprVar(result)));
+		scheduler.getBlocks().add(block);
+
+		return scheduler;
+	}
+
+	private static List<Expression> indexes(int index) {
+		List<Expression> indexes = new ArrayList<Expression>();
+		indexes.add(irFactory.createExprInt(index));
+		return indexes;
+	}
+
+	private static List<Expression> variableIndexes(Var index) {
+		List<Expression> indexes = new ArrayList<Expression>();
+		indexes.add(irFactory.createExprVar(index));
+		return indexes;
+	}
+
+	private SyntheticActor() {
+	}
+
+}
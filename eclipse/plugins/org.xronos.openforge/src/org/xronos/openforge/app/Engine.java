@@ -84,6 +84,9 @@ public abstract class Engine extends Stoppable.Adapter implements Runnable {
 
 	private final GenericJob gj;
 
+	/** The context binding this Engine to the threads compiling it */
+	private final EngineContext context = new EngineContext(this);
+
 	protected JobHandler jobHandler;
 
 	protected volatile int status = STOPPED;
@@ -225,6 +228,13 @@ public abstract class Engine extends Stoppable.Adapter implements Runnable {
 		return design;
 	}
 
+	/**
+	 * Get the context binding this Engine to its threads.
+	 */
+	EngineContext getContext() {
+		return context;
+	}
+
 	/**
 	 * Get the Generic Job being processed by this Engine.
 	 * 
@@ -234,6 +244,10 @@ public abstract class Engine extends Stoppable.Adapter implements Runnable {
 		return gj;
 	}
 
+	/**
+	 * Stops this Engine and releases its context, the Engine is no longer
+	 * reachable from any thread.
+	 */
 	public void kill() {
 		status = STOPPED;
 		EngineThread.removeJob(this);
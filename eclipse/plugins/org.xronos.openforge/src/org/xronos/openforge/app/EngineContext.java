@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright 2002-2009  Xilinx Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package org.xronos.openforge.app;
+
+/**
+ * An EngineContext holds the {@link Engine} of a single compilation. Each
+ * Engine owns exactly one context, which is bound to the threads working on
+ * that compilation by {@link EngineThread}. Closing the context detaches the
+ * Engine from every thread that is bound to it, including the worker threads
+ * that inherited it.
+ * 
+ */
+final class EngineContext {
+	private volatile Engine engine;
+
+	EngineContext(Engine engine) {
+		this.engine = engine;
+	}
+
+	/**
+	 * Detach the Engine from this context.
+	 */
+	void close() {
+		engine = null;
+	}
+
+	/**
+	 * @return the Engine of this context, or null if the context has been
+	 *         closed
+	 */
+	Engine getEngine() {
+		return engine;
+	}
+}
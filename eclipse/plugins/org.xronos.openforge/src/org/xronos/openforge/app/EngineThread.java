@@ -20,101 +20,66 @@
  */
 package org.xronos.openforge.app;
 
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.Map.Entry;
-
 /**
  * A EngineThread is used to interact with a thread or runnable object. It also
  * has static methods to manipulate the mapping of Thread :: Job [1 :: 1]
+ * <p>
+ * The mapping is kept as a per compilation {@link EngineContext} confined to
+ * the threads working on it. The context is inherited by the threads created
+ * from a bound thread, so worker threads see the Engine of their parent, and
+ * several Engines can compile concurrently in the same JVM.
  * 
  * @author <a href="cschanck@xilinx.com">CRSS</a>
  * @version $Id: EngineThread.java 2 2005-06-09 20:00:48Z imiller $
  */
 public class EngineThread {
-	private static Map<Thread, Engine> threadToJob = new HashMap<Thread, Engine>();
+	private static final InheritableThreadLocal<EngineContext> threadToJob = new InheritableThreadLocal<EngineContext>();
 
 	// statc class -- don't create any instances!
 	private EngineThread() {
 	}
 
 	/**
-	 * Add the relationship of a thread to an engine. This will overwrite a
-	 * previously added relationship for this thread.
-	 * 
-	 * @param thread
-	 *            a value of type 'Thread'
-	 * @param engine
-	 *            a value of type 'Engine'
-	 */
-	public static void addThread(Thread thread, Engine engine) {
-		synchronized (threadToJob) {
-			threadToJob.put(thread, engine);
-		}
-	}
-
-	/**
-	 * Adds a relationship from the current thread to the specified engine
+	 * Binds the current thread to the context of the specified engine. This
+	 * will overwrite a previously added relationship for this thread.
 	 * 
 	 * @param engine
 	 *            a value of type 'Engine'
 	 */
 	public static void addThread(Engine engine) {
-		addThread(Thread.currentThread(), engine);
+		threadToJob.set(engine.getContext());
 	}
 
 	/**
-	 * Remove the relationship of a thread to an engine.
-	 * 
-	 * @param thread
-	 *            a value of type 'Thread'
+	 * Remove the relationship of the current thread to its engine.
 	 */
-	public static void removeThread(Thread thread) {
-		synchronized (threadToJob) {
-			threadToJob.remove(thread);
-		}
+	public static void removeThread() {
+		threadToJob.remove();
 	}
 
 	/**
-	 * Remove the relationship of a thread to an engine.
+	 * Remove the relationship of all threads to an engine. The context of the
+	 * engine is closed so that the threads which inherited it no longer see
+	 * the engine.
 	 * 
-	 * @param thread
-	 *            a value of type 'Thread'
+	 * @param engine
+	 *            a value of type 'Engine'
 	 */
 	public static void removeJob(Engine engine) {
-		synchronized (threadToJob) {
-			for (Iterator<Entry<Thread, Engine>> it = threadToJob.entrySet()
-					.iterator(); it.hasNext();) {
-				Entry<Thread, Engine> entry = it.next();
-				Engine e = entry.getValue();
-				if (e.equals(engine))
-					it.remove();
-			}
+		EngineContext context = engine.getContext();
+		context.close();
+		if (threadToJob.get() == context) {
+			threadToJob.remove();
 		}
 	}
 
 	/**
-	 * check if a thread has a known engine
+	 * check if the current thread has a known engine
 	 * 
-	 * @param thread
-	 *            a value of type 'Thread'
 	 * @return a value of type 'boolean'
 	 */
-	public static final boolean isKnownThread(Thread thread) {
-
-		return threadToJob.containsKey(thread);
-	}
-
-	/**
-	 * Get the Engine for specific engine
-	 * 
-	 * @param thread
-	 *            a value of type 'Thread'
-	 * @return a value of type 'Engine'
-	 */
-	public static final Engine getEngine(Thread thread) {
-		return threadToJob.get(thread);
+	public static final boolean isKnownThread() {
+		return getEngine() != null;
 	}
 
 	/**
@@ -122,12 +87,13 @@ public class EngineThread {
 	 * 
 	 */
 	public static final Engine getEngine() {
-		return getEngine(Thread.currentThread());
+		EngineContext context = threadToJob.get();
+		return context == null ? null : context.getEngine();
 	}
 
-	public static final GenericJob getGenericJob(Thread t) {
+	public static final GenericJob getGenericJob() {
 
-		Engine e = getEngine(t);
+		Engine e = getEngine();
 
 		if (e != null) {
 
@@ -137,10 +103,6 @@ public class EngineThread {
 		return null;
 	}
 
-	public static final GenericJob getGenericJob() {
-		return getGenericJob(Thread.currentThread());
-	}
-
 	public static void info(Object token, String s) {
 		getGenericJob().getLogger().getRawLogger()
 				.log(java.util.logging.Level.INFO, s, token);
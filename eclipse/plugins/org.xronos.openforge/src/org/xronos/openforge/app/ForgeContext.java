@@ -35,7 +35,7 @@ public class ForgeContext {
 	/**
 	 * Constructs whatever instances various pieces of Forge expect to exist.
 	 */
-	public static void initialize() {
+	public static synchronized void initialize() {
 		gj = new GenericJob();
 
 		gj.setOptionValues(new String[] { "-q", "-nolog" });
@@ -58,7 +58,7 @@ public class ForgeContext {
 	 * 
 	 * @return
 	 */
-	public static GenericJob getJob() {
+	public static synchronized GenericJob getJob() {
 		if (gj == null)
 			initialize();
 		return gj;
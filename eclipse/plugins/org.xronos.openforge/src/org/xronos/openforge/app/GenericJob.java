@@ -37,6 +37,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.StringTokenizer;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Handler;
 
 import org.xronos.openforge.app.logging.ForgeLogger;
@@ -47,6 +49,7 @@ import org.xronos.openforge.app.project.OptionBoolean;
 import org.xronos.openforge.app.project.OptionIntUnit;
 import org.xronos.openforge.app.project.OptionList;
 import org.xronos.openforge.app.project.OptionMultiFile;
+import org.xronos.openforge.app.project.OptionSnapshot;
 import org.xronos.openforge.app.project.SearchLabel;
 import org.xronos.openforge.lim.CodeLabel;
 import org.xronos.openforge.util.FileUtils;
@@ -74,6 +77,21 @@ public class GenericJob implements NewJob {
 
 	private final ForgeFileHandler fileHandler = new ForgeFileHandler(this);
 
+	/** Created on demand when the pass profile has been requested */
+	private PassProfiler passProfiler = null;
+
+	/** The resolved option values, by scope, see {@link #getOptionSnapshot} */
+	private final Map<SearchLabel, OptionSnapshot> snapshots = new WeakHashMap<SearchLabel, OptionSnapshot>();
+
+	/** Counts the value changes of the options of this job */
+	private final AtomicInteger optionModifications = new AtomicInteger();
+
+	/** The option modification count at which the snapshots were taken */
+	private int snapshotsModificationCount = -1;
+
+	/** Whether updateLoggers gives the standard streams to this job */
+	private boolean redirectingStandardStreams = true;
+
 	/*
 	 * The full resolved (absolute) path name to the forge.h file that can be
 	 * used during gcc compilation of the users source.
@@ -85,6 +103,9 @@ public class GenericJob implements NewJob {
 	public GenericJob() {
 		optionsMap = new HashMap<OptionKey, Option>();
 		optionsMap = OptionRegistry.getDefaults();
+		for (Option option : optionsMap.values()) {
+			option.setModificationCounter(optionModifications);
+		}
 		primMapper = PrimitiveMapper.getInstance();
 	}
 
@@ -383,8 +404,32 @@ public class GenericJob implements NewJob {
 	public boolean getUnscopedBooleanOptionValue(OptionKey key) {
 		assert key != null;
 		Option opt = getOption(key);
-		assert opt != null;
-		return ((OptionBoolean) opt).getValueAsBoolean(CodeLabel.UNSCOPED);
+		assert opt instanceof OptionBoolean;
+		return getOptionSnapshot(CodeLabel.UNSCOPED).getBoolean(key);
+	}
+
+	/**
+	 * Gets the option values resolved at the scope of a label. The snapshot is
+	 * shared by all the callers asking for the same label until any option
+	 * value changes, so the passes which query options for every component do
+	 * not walk the scopes and parse the values each time.
+	 * 
+	 * @param slabel
+	 *            the scope, typically the search label of a component
+	 * @return a non-null OptionSnapshot
+	 */
+	public synchronized OptionSnapshot getOptionSnapshot(SearchLabel slabel) {
+		final int modificationCount = optionModifications.get();
+		if (modificationCount != snapshotsModificationCount) {
+			snapshots.clear();
+			snapshotsModificationCount = modificationCount;
+		}
+		OptionSnapshot snapshot = snapshots.get(slabel);
+		if (snapshot == null) {
+			snapshot = new OptionSnapshot(optionsMap, slabel);
+			snapshots.put(slabel, snapshot);
+		}
+		return snapshot;
 	}
 
 	/**
@@ -397,7 +442,11 @@ public class GenericJob implements NewJob {
 	 */
 	@Override
 	public void addOption(OptionKey key, Option opt) {
+		opt.setModificationCounter(optionModifications);
 		optionsMap.put(key, opt);
+		synchronized (this) {
+			snapshots.clear();
+		}
 	}
 
 	public void updateLoggers() {
@@ -426,10 +475,24 @@ public class GenericJob implements NewJob {
 				lev);
 
 		// log appropriately
-		System.setOut(new SystemLogger(logger, "info"));
-		System.setErr(new SystemLogger(logger, "warn"));
+		if (redirectingStandardStreams) {
+			System.setOut(new SystemLogger(logger, "info"));
+			System.setErr(new SystemLogger(logger, "warn"));
+		}
 	} // updateLoggers()
 
+	/**
+	 * Sets whether {@link #updateLoggers()} replaces System.out and System.err
+	 * with the logger of this job. Jobs which run concurrently in the same VM
+	 * must not, since the streams are shared by all of them.
+	 * 
+	 * @param redirecting
+	 *            true (the default) to redirect the standard streams
+	 */
+	public void setRedirectingStandardStreams(boolean redirecting) {
+		redirectingStandardStreams = redirecting;
+	}
+
 	public PrimitiveMapper getPrimitiveMapper() {
 		return primMapper;
 	}
@@ -641,6 +704,20 @@ public class GenericJob implements NewJob {
 		return this.fileHandler;
 	}
 
+	/**
+	 * Returns the {@link PassProfiler} recording the passes of this job.
+	 * 
+	 * @return the profiler, or null if {@link OptionRegistry#PASS_PROFILE} is
+	 *         not set
+	 */
+	public PassProfiler getPassProfiler() {
+		if (passProfiler == null
+				&& getUnscopedBooleanOptionValue(OptionRegistry.PASS_PROFILE)) {
+			passProfiler = new PassProfiler();
+		}
+		return passProfiler;
+	}
+
 	/**
 	 * Returns the base name that is to be used for output files of this
 	 * compilation. By default this is taken from the name of the first input
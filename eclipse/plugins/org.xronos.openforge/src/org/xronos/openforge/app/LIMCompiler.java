@@ -40,6 +40,9 @@ import org.xronos.openforge.backend.OutputEngine;
 import org.xronos.openforge.backend.edk.ForgeCoreDescriptor;
 import org.xronos.openforge.backend.hdl.TestBenchEngine;
 import org.xronos.openforge.backend.hdl.VerilogTranslateEngine;
+import org.xronos.openforge.backend.sim.CycleSimulator;
+import org.xronos.openforge.backend.sim.FifoTraceReplay;
+import org.xronos.openforge.backend.sim.SimulationException;
 import org.xronos.openforge.backend.sysgen.SysgenSimApi;
 import org.xronos.openforge.backend.timedc.CycleCTranslateEngine;
 import org.xronos.openforge.forge.api.internal.Core;
@@ -245,20 +248,41 @@ public class LIMCompiler {
 					new ForgeFileKey("report dir"), "report");
 		}
 
+		// Null unless the pass profile has been requested
+		final PassProfiler profiler = gj.getPassProfiler();
+
 		Engine.breathe();
 
 		/*
 		 * Optimize.
 		 */
 		Optimizer optimizer = new Optimizer();
-		design = (Design) optimizer.optimize(design);
+		if (profiler != null) {
+			profiler.start("Optimizer", design);
+		}
+		try {
+			design = (Design) optimizer.optimize(design);
+		} finally {
+			if (profiler != null) {
+				profiler.stop(design);
+			}
+		}
 
 		Engine.breathe();
 
 		/*
 		 * Schedule.
 		 */
-		design = Scheduler.schedule(design);
+		if (profiler != null) {
+			profiler.start("Scheduler", design);
+		}
+		try {
+			design = Scheduler.schedule(design);
+		} finally {
+			if (profiler != null) {
+				profiler.stop(design);
+			}
+		}
 
 		Engine.breathe();
 
@@ -289,7 +313,17 @@ public class LIMCompiler {
 		 * Apply naming to all LIM components. Must Come after LimDRC because it
 		 * relies on a well-connected LIM graph.
 		 */
-		org.xronos.openforge.lim.naming.LIMLogicalNamer.setNames(design, false);
+		if (profiler != null) {
+			profiler.start("LIMLogicalNamer", design);
+		}
+		try {
+			org.xronos.openforge.lim.naming.LIMLogicalNamer.setNames(design,
+					false);
+		} finally {
+			if (profiler != null) {
+				profiler.stop(design);
+			}
+		}
 
 		Engine.breathe();
 
@@ -328,7 +362,16 @@ public class LIMCompiler {
 
 		for (OutputEngine engine : outputEngines) {
 			try {
-				engine.translate(design);
+				if (profiler != null) {
+					profiler.start(engine.getOutputPhaseId(), design);
+				}
+				try {
+					engine.translate(design);
+				} finally {
+					if (profiler != null) {
+						profiler.stop(design);
+					}
+				}
 			} catch (IOException ioe) {
 				gj.fatalError("Error generating files during "
 						+ engine.getOutputPhaseId());
@@ -337,6 +380,10 @@ public class LIMCompiler {
 
 		reportDesignCharacteristics(design);
 
+		if (profiler != null) {
+			writePassProfile(design, profiler);
+		}
+
 		if (gj.getUnscopedBooleanOptionValue(OptionRegistry.ENABLE_XFLOW)) {
 			xflow(design);
 			Engine.breathe();
@@ -350,6 +397,30 @@ public class LIMCompiler {
 		return design;
 	}
 
+	/**
+	 * Writes the passes recorded while compiling this design into the report
+	 * directory.
+	 * 
+	 * @param design
+	 *            a {@link Design}
+	 * @param profiler
+	 *            the profiler of the job
+	 */
+	private void writePassProfile(Design design, PassProfiler profiler) {
+		GenericJob gj = EngineThread.getGenericJob();
+		if (!this.reportDirectory.exists()) {
+			this.reportDirectory.mkdirs();
+		}
+		final File passReportFile = new File(this.reportDirectory,
+				design.showIDLogical() + "_passes.csv");
+		gj.info("writing " + passReportFile.getAbsolutePath());
+		try {
+			profiler.write(passReportFile);
+		} catch (IOException ioe) {
+			gj.warn("could not write pass profile: " + ioe.getMessage());
+		}
+	}
+
 	/**
 	 * Generates reports for this design.
 	 * 
@@ -477,7 +548,9 @@ public class LIMCompiler {
 
 	/**
 	 * <code>simulate</code> performs a cycle accurate simulation of the LIM
-	 * data structure.
+	 * data structure, replaying the fifo traces found in the directory given
+	 * by the -sim_traces option. The traces of a design are the files whose
+	 * prefix is the simple name of its actor, as written by the testbenches.
 	 * 
 	 * @see Design
 	 * 
@@ -485,12 +558,52 @@ public class LIMCompiler {
 	 *            a <code>Design</code> value
 	 */
 	private void simulate(Design design) {
-		EngineThread
-				.getGenericJob()
-				.warn("Forge data model simulation not available.  -sim command line argument is deprecated.");
-		/*
-		 * Simulator simulator = new Simulator(design); simulator.simulate();
-		 */
+		final GenericJob gj = EngineThread.getGenericJob();
+		final String traces = gj.getOption(OptionRegistry.SIM_TRACES)
+				.getValue(CodeLabel.UNSCOPED).toString();
+		if (traces.length() == 0) {
+			gj.warn("No fifo traces given (-sim_traces), skipping simulation");
+			return;
+		}
+
+		// The top module name is the qualified name of the actor
+		String actorName = gj.getOption(OptionRegistry.TOP_MODULE_NAME)
+				.getValue(design.getSearchLabel()).toString();
+		if (actorName.length() == 0) {
+			actorName = gj.getOutputBaseName();
+		}
+		actorName = actorName.substring(actorName.lastIndexOf('.') + 1);
+
+		gj.info("Simulating design ...");
+		gj.inc();
+		try {
+			final CycleSimulator simulator = new CycleSimulator(design);
+			gj.verbose(simulator.toString());
+			final FifoTraceReplay replay = new FifoTraceReplay(gj, simulator,
+					design.getFifoInterfaces(), new File(traces), actorName);
+			final long hangCycles = Integer.parseInt(
+					gj.getOption(OptionRegistry.HANG_TIMER)
+							.getValue(CodeLabel.UNSCOPED).toString(), 10);
+
+			final long start = System.nanoTime();
+			final boolean passed = replay.run(hangCycles);
+			final double seconds = Math.max(System.nanoTime() - start, 1) / 1e9;
+
+			final long cycles = simulator.getCycleCount();
+			gj.info("Simulated " + cycles + " cycles, "
+					+ replay.getTokenCount() + " tokens, "
+					+ replay.getErrorCount() + " errors ("
+					+ Math.round(cycles / seconds) + " cycles/s)");
+			if (!passed) {
+				gj.warn("Simulation did not reproduce the fifo traces");
+			}
+		} catch (IOException ioe) {
+			gj.warn("Could not read the fifo traces: " + ioe.getMessage());
+		} catch (SimulationException se) {
+			gj.warn("Could not simulate the design: " + se.getMessage());
+		} finally {
+			gj.dec();
+		}
 	} // simulate()
 
 	private void xflow(Design design) {
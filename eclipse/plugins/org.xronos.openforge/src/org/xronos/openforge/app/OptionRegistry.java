@@ -138,6 +138,9 @@ public class OptionRegistry {
 	public static final OptionKey SHOULD_SIMULATE = new OptionKey(PREFIX
 			+ "should_simulate", "sim",
 			"A simulation of the design should be conducted.");
+	public static final OptionKey SIM_TRACES = new OptionKey(PREFIX
+			+ "sim_traces", "sim_traces",
+			"Directory of the fifo traces replayed by the simulation of the design.");
 	public static final OptionKey SUPPRESS_APP_MODULE = new OptionKey(PREFIX
 			+ "suppress_app_module", "noapp",
 			"The top-level application module should not be produced for the design.");
@@ -237,6 +240,12 @@ public class OptionRegistry {
 	public static final OptionKey SUPPRESS_DUAL_PORT_RAM = new OptionKey(MEMORY
 			+ "suppress_dual_port_ram", "nodpram",
 			"Prevent the creation of dual port read-write memories.");
+	public static final OptionKey ARRAY_PARTITION = new OptionKey(MEMORY
+			+ "array_partition", "array_partition",
+			"Partition each array into banks of elements (none, cyclic, block or complete) so that its accesses can proceed in parallel. Each bank holds its share of the elements, and the bank of an access whose index is only known at run time is selected by decoding logic.");
+	public static final OptionKey ARRAY_PARTITION_FACTOR = new OptionKey(
+			MEMORY + "array_partition_factor", "partition_factor",
+			"Number of banks of a cyclic or block array partitioning.");
 
 	// Translation settings
 	public static final String TRANSLATE = PREFIX + "translation.";
@@ -261,6 +270,9 @@ public class OptionRegistry {
 	public static final OptionKey NO_INCLUDE_FILES = new OptionKey(TRANSLATE
 			+ "no_include_files", "noinclude",
 			"Suppresses generation of the standard _sim and _synth HDL include files.");
+	public static final OptionKey GO_DONE_PORTS = new OptionKey(TRANSLATE
+			+ "go_done_ports", "go_done_ports",
+			"Publishes the observed go and done signals of the called tasks as output ports of the top level Verilog module.");
 
 	// Output SysGen core settings
 	public static final OptionKey SYSGEN = new OptionKey(PREFIX + "do_sysgen",
@@ -325,6 +337,10 @@ public class OptionRegistry {
 	public static final OptionKey REPORT = new OptionKey(PREFIX + "report",
 			"report", "Generate report.");
 
+	public static final OptionKey PASS_PROFILE = new OptionKey(PREFIX
+			+ "pass_profile", "pass_profile",
+			"Record the time, allocations and design size of every compiler pass into a report file.");
+
 	// naming related options
 	public static final String NAMING = PREFIX + "naming.";
 	public static final OptionKey SIMPLE_MODULE_NAMES = new OptionKey(
@@ -336,6 +352,9 @@ public class OptionRegistry {
 			"Include signature (based on parameter type) in module names.");
 
 	// Random other (debug) stuff
+	public static final OptionKey XLIM_STAGE_DUMPS = new OptionKey(PREFIX
+			+ "xlim_stage_dumps", "xlim_stage_dumps",
+			"Write the document produced by each XLIM to SLIM transformation into the slim output directory.");
 	public static final OptionKey DEBUG_MEM_LOCATIONS = new OptionKey(PREFIX
 			+ "debug_memory_locations", "debugmemlocations",
 			"Add memory location debug information to Verilog output.");
@@ -398,6 +417,10 @@ public class OptionRegistry {
 	public static final OptionKey LOOP_UNROLLING_LIMIT = new OptionKey(
 			LOOP_UNROLLING + "limit", "loopcount",
 			"Maximum iteration count considered for unrolling.");
+	public static final OptionKey LOOP_UNROLLING_FACTOR = new OptionKey(
+			LOOP_UNROLLING + "factor",
+			"unrollfactor",
+			"Number of iterations merged into each iteration of a loop that is not unrolled completely.  Zero or one disables partial unrolling.");
 	public static final OptionKey MULTIPLY_DECOMP_LIMIT = new OptionKey(
 			PREFIX + "multiply_decomp_limit",
 			"multdecomplimit",
@@ -445,6 +468,10 @@ public class OptionRegistry {
 	public static final OptionKey BLOCK_NOUNNESTING = new OptionKey(PREFIX
 			+ "block_nounnesting", "nounnest", "Don't unnest blocks.");
 
+	public static final OptionKey OPTIMIZE_NO_WORKLIST = new OptionKey(PREFIX
+			+ "optimize_no_worklist", "no_worklist",
+			"When set to true, every optimization pass is run over the whole design until no pass modifies it, instead of only revisiting the modified modules.");
+
 	public static final OptionKey WRITE_ONLY_INPUT_PARAM_OPT = new OptionKey(
 			PREFIX + "write_only_parameter_optimize",
 			"woparamopt",
@@ -527,6 +554,7 @@ public class OptionRegistry {
 		OPTION_KEYS.add(LITTLE_ENDIAN); // little_endian
 		OPTION_KEYS.add(LOG); // log
 		OPTION_KEYS.add(LOOP_UNROLLING_LIMIT); // loopcount
+		OPTION_KEYS.add(LOOP_UNROLLING_FACTOR); // unrollfactor
 		OPTION_KEYS.add(MULTIPLY_DECOMP_LIMIT); // multdecomplimit
 		OPTION_KEYS.add(SRL_COMPACT_LENGTH); // minsrllength
 		OPTION_KEYS.add(MAX_LUT_BYTES); // max_lut_bytes
@@ -569,6 +597,7 @@ public class OptionRegistry {
 		OPTION_KEYS.add(ENABLE_SPEED);
 		OPTION_KEYS.add(TARGET);
 		OPTION_KEYS.add(SHOULD_SIMULATE);
+		OPTION_KEYS.add(SIM_TRACES);
 		OPTION_KEYS.add(SUPPRESS_APP_MODULE);
 		OPTION_KEYS.add(SHOULD_TIME_STAMP);
 		OPTION_KEYS.add(NO_IOB_OPTS);
@@ -590,6 +619,8 @@ public class OptionRegistry {
 		OPTION_KEYS.add(COMBINATIONAL_LUT_MEM);
 		OPTION_KEYS.add(ALLOW_DUAL_PORT_LUT);
 		OPTION_KEYS.add(SUPPRESS_DUAL_PORT_RAM);
+		OPTION_KEYS.add(ARRAY_PARTITION);
+		OPTION_KEYS.add(ARRAY_PARTITION_FACTOR);
 		OPTION_KEYS.add(SIMPLE_STATE_ARBITRATION);
 		OPTION_KEYS.add(SHOULD_NOT_TRANSLATE);
 		OPTION_KEYS.add(TSIM_OPTION);
@@ -598,10 +629,12 @@ public class OptionRegistry {
 		OPTION_KEYS.add(BITGEN_OPTIONS);
 		OPTION_KEYS.add(UCF_ONLY);
 		OPTION_KEYS.add(REPORT);
+		OPTION_KEYS.add(PASS_PROFILE);
 		OPTION_KEYS.add(RUN_DATE); // rundate
 		OPTION_KEYS.add(SIMPLE_MODULE_NAMES);
 		OPTION_KEYS.add(SIGNATURE_IN_NAMES);
 		OPTION_KEYS.add(DEBUG_MEM_LOCATIONS);
+		OPTION_KEYS.add(XLIM_STAGE_DUMPS);
 		OPTION_KEYS.add(SCHEDULE_PIPELINE_ENABLE);
 		OPTION_KEYS.add(SCHEDULE_PIPELINE_GATE_DEPTH);
 		OPTION_KEYS.add(SCHEDULE_PIPELINE_NO_BOUNDRY_DEPTH);
@@ -609,9 +642,11 @@ public class OptionRegistry {
 		OPTION_KEYS.add(OPERATOR_REPLACEMENT_MAX_LEVEL);
 		OPTION_KEYS.add(FORCE_SINGLE_PORT_ROMS);
 		OPTION_KEYS.add(BLOCK_NOUNNESTING);
+		OPTION_KEYS.add(OPTIMIZE_NO_WORKLIST);
 		OPTION_KEYS.add(WRITE_ONLY_INPUT_PARAM_OPT);
 		OPTION_KEYS.add(LONG_VERILOG_NAMES);
 		OPTION_KEYS.add(NO_INCLUDE_FILES);
+		OPTION_KEYS.add(GO_DONE_PORTS);
 		OPTION_KEYS.add(XENABLE_MPRINTER); // Xmprinter
 		OPTION_KEYS.add(XMPRINTER_ONLY); // Xmprinter_only
 		OPTION_KEYS.add(X_WRITE_CYCLE_C_VPGEN); // Xxlat_c_vpgen
@@ -746,6 +781,10 @@ public class OptionRegistry {
 				false, // default value
 				true // hidden?
 				));
+		defaults.put(SIM_TRACES, new OptionString(SIM_TRACES, // key
+				"", // default value
+				true // hidden?
+				));
 		defaults.put(SHOULD_NOT_TRANSLATE, new OptionBoolean(
 				SHOULD_NOT_TRANSLATE, // key
 				false, // default value
@@ -772,6 +811,10 @@ public class OptionRegistry {
 				false, // default value
 				false // hidden?
 				));
+		defaults.put(GO_DONE_PORTS, new OptionBoolean(GO_DONE_PORTS, // key
+				false, // default value
+				true // hidden?
+				));
 
 		defaults.put(SUPPRESS_APP_MODULE, new OptionBoolean(
 				SUPPRESS_APP_MODULE, // key
@@ -811,6 +854,17 @@ public class OptionRegistry {
 				false, // default value
 				false // hidden?
 				));
+		defaults.put(ARRAY_PARTITION, new OptionPickOne(ARRAY_PARTITION, // key
+				"none", // default value
+				new String[] { "none", "cyclic", "block", "complete" }, // possible
+																		// values
+				false // hidden?
+				));
+		defaults.put(ARRAY_PARTITION_FACTOR, new OptionInt(
+				ARRAY_PARTITION_FACTOR, // key
+				2, // default value
+				false // hidden?
+				));
 		defaults.put(ALLOW_DUAL_PORT_LUT, new OptionBoolean(
 				ALLOW_DUAL_PORT_LUT, // key
 				false, // default value
@@ -900,10 +954,18 @@ public class OptionRegistry {
 				false, // default value
 				true // hidden?
 				));
+		defaults.put(PASS_PROFILE, new OptionBoolean(PASS_PROFILE, // key
+				false, // default value
+				true // hidden?
+				));
 		defaults.put(RUN_DATE, new OptionString(RUN_DATE, // key
 				"", // default value
 				true // hidden?
 				));
+		defaults.put(XLIM_STAGE_DUMPS, new OptionBoolean(XLIM_STAGE_DUMPS, // key
+				false, // default value
+				true // hidden?
+				));
 		defaults.put(DEBUG_MEM_LOCATIONS, new OptionBoolean(
 				DEBUG_MEM_LOCATIONS, // key
 				false, // default value
@@ -1048,6 +1110,11 @@ public class OptionRegistry {
 				1, // default value
 				false // hidden?
 				));
+		defaults.put(LOOP_UNROLLING_FACTOR, new OptionInt(
+				LOOP_UNROLLING_FACTOR, // key
+				0, // default value
+				false // hidden?
+				));
 		defaults.put(MULTIPLY_DECOMP_LIMIT, new OptionInt(
 				MULTIPLY_DECOMP_LIMIT, // key
 				5, // default value
@@ -1087,6 +1154,11 @@ public class OptionRegistry {
 				false, // default value
 				true // hidden?
 				));
+		defaults.put(OPTIMIZE_NO_WORKLIST, new OptionBoolean(
+				OPTIMIZE_NO_WORKLIST, // key
+				false, // default value
+				true // hidden?
+				));
 		defaults.put(WRITE_ONLY_INPUT_PARAM_OPT, new OptionBoolean(
 				WRITE_ONLY_INPUT_PARAM_OPT, // key
 				false, // default value
@@ -0,0 +1,300 @@
+/*******************************************************************************
+ * Copyright 2002-2009  Xilinx Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package org.xronos.openforge.app;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.xronos.openforge.lim.Component;
+import org.xronos.openforge.lim.FilteredVisitor;
+import org.xronos.openforge.lim.Visitable;
+
+/**
+ * PassProfiler records, for every compiler pass it is told about, the wall
+ * time, the CPU time and the bytes allocated by the compiling thread together
+ * with the size of the design before and after the pass. For LIM passes the
+ * size is the number of LIM components, front end passes may use any other
+ * measure of the IR they transform. Passes may be nested, each record keeps
+ * its nesting depth.
+ * <p>
+ * A profiler is owned by the {@link GenericJob} of a compilation and is only
+ * created when the {@link OptionRegistry#PASS_PROFILE} option is set, see
+ * {@link GenericJob#getPassProfiler()}. The records are written as comma
+ * separated values next to the other reports of the design.
+ * 
+ */
+public class PassProfiler {
+
+	/** Used for every measure which is not available */
+	public static final long UNKNOWN = -1;
+
+	/**
+	 * The measures of a single pass.
+	 */
+	public static class Record {
+		private final String pass;
+		private final int depth;
+		private final long sizeBefore;
+		private long sizeAfter = UNKNOWN;
+		private final long wallStart;
+		private long wallTime = UNKNOWN;
+		private final long cpuStart;
+		private long cpuTime = UNKNOWN;
+		private final long allocStart;
+		private long allocated = UNKNOWN;
+
+		private Record(String pass, int depth, long sizeBefore) {
+			this.pass = pass;
+			this.depth = depth;
+			this.sizeBefore = sizeBefore;
+			allocStart = allocatedBytes();
+			cpuStart = cpuTime();
+			wallStart = System.nanoTime();
+		}
+
+		private void stop() {
+			wallTime = System.nanoTime() - wallStart;
+			final long cpu = cpuTime();
+			if (cpu != UNKNOWN && cpuStart != UNKNOWN) {
+				cpuTime = cpu - cpuStart;
+			}
+			final long alloc = allocatedBytes();
+			if (alloc != UNKNOWN && allocStart != UNKNOWN) {
+				allocated = alloc - allocStart;
+			}
+		}
+
+		/**
+		 * Sets the size of the design after the pass, which is measured once
+		 * the clocks of the pass have been read.
+		 * 
+		 * @param sizeAfter
+		 *            the size, or {@link PassProfiler#UNKNOWN}
+		 */
+		public void setSizeAfter(long sizeAfter) {
+			this.sizeAfter = sizeAfter;
+		}
+
+		public long getAllocatedBytes() {
+			return allocated;
+		}
+
+		public long getCpuTime() {
+			return cpuTime;
+		}
+
+		public int getDepth() {
+			return depth;
+		}
+
+		public String getPass() {
+			return pass;
+		}
+
+		public long getSizeAfter() {
+			return sizeAfter;
+		}
+
+		public long getSizeBefore() {
+			return sizeBefore;
+		}
+
+		public long getWallTime() {
+			return wallTime;
+		}
+	}
+
+	/** The header line of the written report */
+	private static final String HEADER = "pass,depth,wall_ns,cpu_ns,allocated_bytes,size_before,size_after";
+
+	private static final ThreadMXBean threadBean = ManagementFactory
+			.getThreadMXBean();
+
+	/**
+	 * The allocation counter is an extension of the HotSpot
+	 * com.sun.management.ThreadMXBean, it is looked up reflectively so that
+	 * other virtual machines simply report {@link #UNKNOWN}.
+	 */
+	private static final Method allocatedBytesMethod = findAllocatedBytesMethod();
+
+	private static long allocatedBytes() {
+		if (allocatedBytesMethod == null) {
+			return UNKNOWN;
+		}
+		try {
+			return (Long) allocatedBytesMethod.invoke(threadBean, Thread
+					.currentThread().getId());
+		} catch (Exception e) {
+			return UNKNOWN;
+		}
+	}
+
+	/**
+	 * Counts the components of the given LIM.
+	 * 
+	 * @param target
+	 *            a design or any part of it
+	 * @return the number of components reached by a {@link FilteredVisitor}
+	 */
+	public static long countComponents(Visitable target) {
+		final long[] count = new long[1];
+		target.accept(new FilteredVisitor() {
+			@Override
+			public void filterAny(Component c) {
+				count[0]++;
+			}
+		});
+		return count[0];
+	}
+
+	private static long cpuTime() {
+		if (!threadBean.isCurrentThreadCpuTimeSupported()) {
+			return UNKNOWN;
+		}
+		return threadBean.getCurrentThreadCpuTime();
+	}
+
+	private static Method findAllocatedBytesMethod() {
+		try {
+			final Method method = Class.forName(
+					"com.sun.management.ThreadMXBean").getMethod(
+					"getThreadAllocatedBytes", long.class);
+			if (method.getDeclaringClass().isInstance(threadBean)) {
+				return method;
+			}
+		} catch (Exception e) {
+			// Not a HotSpot virtual machine
+		}
+		return null;
+	}
+
+	/** The passes which have been started and not stopped yet */
+	private final LinkedList<Record> running = new LinkedList<Record>();
+
+	/** Every started pass, in start order */
+	private final List<Record> records = new ArrayList<Record>();
+
+	/**
+	 * @return the records of every started pass, in start order
+	 */
+	public List<Record> getRecords() {
+		return records;
+	}
+
+	/**
+	 * Starts measuring a pass.
+	 * 
+	 * @param pass
+	 *            the name of the pass
+	 * @param sizeBefore
+	 *            the size of the design before the pass, or {@link #UNKNOWN}
+	 */
+	public void start(String pass, long sizeBefore) {
+		final Record record = new Record(pass, running.size(), sizeBefore);
+		running.addLast(record);
+		records.add(record);
+	}
+
+	/**
+	 * Starts measuring a pass over a LIM.
+	 * 
+	 * @param pass
+	 *            the name of the pass
+	 * @param target
+	 *            the LIM the pass runs over
+	 */
+	public void start(String pass, Visitable target) {
+		start(pass, countComponents(target));
+	}
+
+	/**
+	 * Stops the clocks of the innermost running pass. The size of the design
+	 * after the pass is left to be set on the returned record, so that it is
+	 * not counted in the measures of the pass.
+	 * 
+	 * @return the record of the stopped pass
+	 */
+	public Record stop() {
+		final Record record = running.removeLast();
+		record.stop();
+		return record;
+	}
+
+	/**
+	 * Stops measuring the innermost running pass.
+	 * 
+	 * @param sizeAfter
+	 *            the size of the design after the pass, or {@link #UNKNOWN}
+	 */
+	public void stop(long sizeAfter) {
+		stop().setSizeAfter(sizeAfter);
+	}
+
+	/**
+	 * Stops measuring the innermost running pass over a LIM. The components
+	 * are counted after the clocks are read. This may be called from a finally
+	 * block, when the pass has failed the LIM may not be countable and its
+	 * size is left {@link #UNKNOWN}.
+	 * 
+	 * @param target
+	 *            the LIM the pass ran over
+	 */
+	public void stop(Visitable target) {
+		final Record record = stop();
+		try {
+			record.setSizeAfter(countComponents(target));
+		} catch (RuntimeException e) {
+			record.setSizeAfter(UNKNOWN);
+		}
+	}
+
+	/**
+	 * Writes the records of every started pass as comma separated values.
+	 * 
+	 * @param file
+	 *            the report file
+	 * @throws IOException
+	 *             if the file can not be written
+	 */
+	public void write(File file) throws IOException {
+		final PrintStream ps = new PrintStream(new FileOutputStream(file));
+		try {
+			ps.println(HEADER);
+			for (Record record : records) {
+				ps.println(record.getPass().replace(',', ';') + ","
+						+ record.getDepth() + ","
+						+ record.getWallTime() + "," + record.getCpuTime()
+						+ "," + record.getAllocatedBytes() + ","
+						+ record.getSizeBefore() + ","
+						+ record.getSizeAfter());
+			}
+		} finally {
+			ps.close();
+		}
+		if (ps.checkError()) {
+			throw new IOException("could not write " + file.getAbsolutePath());
+		}
+	}
+}
@@ -51,6 +51,7 @@ public class ForgeLogger {
 	private final String indentionString = "		";
 	private final Logger logger;
 	private final LinkedList<String> prefaces = new LinkedList<String>();
+	/** Handlers shared by every job, guarded by the ForgeLogger class */
 	private static Map<Object, Handler> allocatedHandlers = new HashMap<Object, Handler>();
 
 	public ForgeLogger(String name) {
@@ -86,7 +87,7 @@ public class ForgeLogger {
 		allocatedHandlers.put(key, h);
 	}
 
-	public static Handler getStreamHandler(OutputStream os) {
+	public static synchronized Handler getStreamHandler(OutputStream os) {
 		Handler h = getCachedHandler(os);
 		if (h == null) {
 			h = new ForgeStreamHandler(os, new ForgeLogFormatter());
@@ -95,7 +96,7 @@ public class ForgeLogger {
 		return h;
 	}
 
-	public static Handler getFileOutputHandler(String filename) {
+	public static synchronized Handler getFileOutputHandler(String filename) {
 		Handler h = getCachedHandler(filename);
 		if (h == null) {
 			try {
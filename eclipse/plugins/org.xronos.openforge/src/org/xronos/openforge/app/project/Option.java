@@ -23,6 +23,7 @@ package org.xronos.openforge.app.project;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.xronos.openforge.app.OptionKey;
 import org.xronos.openforge.lim.CodeLabel;
@@ -41,6 +42,12 @@ import org.xronos.openforge.util.IndentWriter;
  */
 public abstract class Option {
 
+	/**
+	 * Counts the value changes of the options of the owning job, see
+	 * {@link #setModificationCounter}
+	 */
+	private AtomicInteger modifications = null;
+
 	private final OptionKey optionKey;
 	private final String default_value;
 	private boolean hidden = false;
@@ -171,6 +178,9 @@ public abstract class Option {
 		if (isFirstTime)
 			isFirstTime = false;
 		localMap.put(slabel.getSearchList().get(0).toString(), value);
+		if (modifications != null) {
+			modifications.incrementAndGet();
+		}
 	}
 
 	/**
@@ -184,7 +194,18 @@ public abstract class Option {
 	 * @return Object - value of the option
 	 */
 	public Object getValue(SearchLabel slabel) {
-		List<String> labelList = slabel.getSearchList();
+		return getValue(slabel.getSearchList());
+	}
+
+	/**
+	 * Gets the value associated with the option for an already built list of
+	 * scopes, searched in order. This method NEVER returns null.
+	 * 
+	 * @param labelList
+	 *            the scopes to search, most specific first
+	 * @return Object - value of the option
+	 */
+	public Object getValue(List<String> labelList) {
 		String retval = localMap.get(unscoped).toString();
 		for (String s : labelList) {
 			if (localMap.containsKey(s)) {
@@ -227,6 +248,22 @@ public abstract class Option {
 		if (isFirstTime)
 			isFirstTime = false;
 		localMap.put(slabel.getSearchList().get(0).toString(), value);
+		if (modifications != null) {
+			modifications.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Sets the counter incremented each time the value of this option is set or
+	 * replaced. The job which owns the option shares one counter among all its
+	 * options, so that the values it derived from them can tell when they are
+	 * stale.
+	 * 
+	 * @param counter
+	 *            the counter of the owning job, or null to stop counting
+	 */
+	public void setModificationCounter(AtomicInteger counter) {
+		modifications = counter;
 	}
 
 	/**
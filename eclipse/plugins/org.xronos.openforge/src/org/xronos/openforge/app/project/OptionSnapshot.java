@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright 2002-2009  Xilinx Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+/*
+ * 
+ *
+ * 
+ */
+
+package org.xronos.openforge.app.project;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.xronos.openforge.app.OptionKey;
+
+/**
+ * OptionSnapshot gives the typed values of a set of options at a single scope.
+ * The search list of the scope is built once, and each value is parsed the
+ * first time it is asked for, so that the passes which query an option for
+ * every component pay for a map lookup instead of a label walk and a parse. A
+ * snapshot does not follow later changes of the option values; it is up to its
+ * owner to discard it when the counter given to
+ * {@link Option#setModificationCounter} moves.
+ */
+public class OptionSnapshot {
+
+	private final Map<OptionKey, Option> options;
+	private final List<String> searchList;
+	private final Map<OptionKey, Object> values = new HashMap<OptionKey, Object>();
+
+	/**
+	 * Constructs an empty snapshot of the given options.
+	 * 
+	 * @param options
+	 *            the options of the job, by key
+	 * @param slabel
+	 *            the scope at which the values are resolved
+	 */
+	public OptionSnapshot(Map<OptionKey, Option> options, SearchLabel slabel) {
+		this.options = options;
+		searchList = new ArrayList<String>(slabel.getSearchList());
+	}
+
+	/**
+	 * Gets the value of a boolean option, as
+	 * {@link OptionBoolean#getValueAsBoolean(SearchLabel)} would.
+	 */
+	public synchronized boolean getBoolean(OptionKey key) {
+		Boolean value = (Boolean) values.get(key);
+		if (value == null) {
+			value = Boolean.valueOf(resolve(key));
+			values.put(key, value);
+		}
+		return value.booleanValue();
+	}
+
+	/**
+	 * Gets the value of an integer option, as
+	 * {@link OptionInt#getValueAsInt(SearchLabel)} would.
+	 */
+	public synchronized int getInt(OptionKey key) {
+		Integer value = (Integer) values.get(key);
+		if (value == null) {
+			value = Integer.valueOf(Integer.parseInt(resolve(key)));
+			values.put(key, value);
+		}
+		return value.intValue();
+	}
+
+	private String resolve(OptionKey key) {
+		final Option option = options.get(key);
+		assert option != null : "Unknown option " + key;
+		return option.getValue(searchList).toString();
+	}
+
+}
@@ -21,9 +21,12 @@
 
 package org.xronos.openforge.backend.hdl;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 
 import org.xronos.openforge.app.EngineThread;
 import org.xronos.openforge.app.ForgeFileHandler;
@@ -70,6 +73,9 @@ public class VerilogTranslateEngine implements OutputEngine {
 	public static final ForgeFileKey SYNPRIMINCL = new ForgeFileKey(
 			"Verilog HDL synthesis includes");
 
+	/** The number of chars buffered before writing to the Verilog file */
+	private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
 	@Override
 	public void initEnvironment() {
 		ForgeFileHandler fileHandler = EngineThread.getGenericJob()
@@ -143,10 +149,15 @@ public class VerilogTranslateEngine implements OutputEngine {
 		if (!vFile.getParentFile().exists()) {
 			vFile.getParentFile().mkdirs();
 		}
-		FileOutputStream vFos = new FileOutputStream(vFile);
 
-		vt.writeDocument(vFos);
-		vFos.close();
+		// The tokens are written one at a time, so buffer them in large
+		// chunks on their way to the file. The Verilog file is written
+		// before the include files since writing the user IP cores
+		// collects the unisims that the simulation include file lists.
+		final Writer vWriter = new BufferedWriter(new OutputStreamWriter(
+				new FileOutputStream(vFile)), WRITE_BUFFER_SIZE);
+		vt.writeDocument(vWriter);
+		vWriter.close();
 
 		if (fileHandler.isRegistered(SIMINCL)) {
 			FileOutputStream simFos = new FileOutputStream(
@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright 2002-2009  Xilinx Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+/*
+ * 
+ *
+ * 
+ */
+package org.xronos.openforge.backend.sim;
+
+import org.xronos.openforge.lim.Design;
+import org.xronos.openforge.lim.io.SimplePin;
+
+/**
+ * CycleSimulator is a cycle accurate simulator of a {@link Design} which runs
+ * directly in the compiler, without generating and compiling a C or HDL model.
+ * The design is compiled once into a flat {@link SimProgram} whose state is a
+ * pair of arrays, so that each cycle is a fixed sequence of array operations.
+ * The semantics are those of the cycle accurate C model: each cycle the
+ * environment sets the input pins, {@link #update()} propagates the
+ * combinational logic until it settles, the output pins are sampled and
+ * {@link #clockEdge()} advances the state.
+ */
+public class CycleSimulator {
+
+	private final SimTranslator translator;
+
+	private final SimProgram program;
+
+	/** The current value of every net */
+	private long[] nets;
+
+	/** The current contents of every memory */
+	private byte[][] memories;
+
+	/** Scratch space for the settling of the feedback nets */
+	private final long[] previous;
+
+	private long cycles;
+
+	private long passes;
+
+	/**
+	 * Compiles a design into a new simulator, in its reset state.
+	 * 
+	 * @param design
+	 *            a design which has been scheduled
+	 * @throws SimulationException
+	 *             if the design contains a component which cannot be simulated
+	 */
+	public CycleSimulator(Design design) {
+		translator = new SimTranslator(design);
+		program = translator.translate();
+		previous = new long[program.getFeedbackCount()];
+		reset();
+	}
+
+	/**
+	 * Restores the initial state of every flop, register and memory.
+	 */
+	public void reset() {
+		nets = program.createNets();
+		memories = program.createMemories();
+		cycles = 0;
+		passes = 0;
+	}
+
+	/**
+	 * Propagates the current inputs and state through the combinational logic
+	 * of the design.
+	 * 
+	 * @throws SimulationException
+	 *             if the logic does not settle
+	 */
+	public void update() {
+		passes += program.update(nets, memories, previous);
+	}
+
+	/**
+	 * Applies a rising clock edge.
+	 */
+	public void clockEdge() {
+		program.tick(nets, memories);
+		cycles++;
+	}
+
+	/**
+	 * Runs a complete cycle with the current inputs.
+	 */
+	public void cycle() {
+		update();
+		clockEdge();
+	}
+
+	/**
+	 * Gets the number of clock edges since the last reset.
+	 */
+	public long getCycleCount() {
+		return cycles;
+	}
+
+	/**
+	 * Gets the average number of passes over the logic needed for it to
+	 * settle, 1 when the design has no combinational feedback.
+	 */
+	public double getAveragePasses() {
+		return cycles == 0 ? 0 : (double) passes / cycles;
+	}
+
+	/**
+	 * Tests whether a pin is driven or sampled by the simulation.
+	 */
+	public boolean isSimulated(SimplePin pin) {
+		return translator.getPinNet(pin) >= 0;
+	}
+
+	/**
+	 * Gets the value of a pin, as of the last {@link #update()} for the pins
+	 * driven by the design.
+	 */
+	public long getPinValue(SimplePin pin) {
+		return nets[getNet(pin)];
+	}
+
+	/**
+	 * Sets the value of an input pin, truncated to the width of the pin.
+	 */
+	public void setPinValue(SimplePin pin, long value) {
+		program.set(nets, getNet(pin), value);
+	}
+
+	private int getNet(SimplePin pin) {
+		final int net = translator.getPinNet(pin);
+		if (net < 0) {
+			throw new IllegalArgumentException("Pin " + pin.getName()
+					+ " is not simulated");
+		}
+		return net;
+	}
+
+	@Override
+	public String toString() {
+		return "CycleSimulator[nets=" + program.getNetCount()
+				+ ", instructions=" + program.getInstructionCount()
+				+ ", feedback=" + program.getFeedbackCount() + "]";
+	}
+
+}
@@ -0,0 +1,280 @@
+/*******************************************************************************
+ * Copyright 2002-2009  Xilinx Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+/*
+ * 
+ *
+ * 
+ */
+package org.xronos.openforge.backend.sim;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.xronos.openforge.app.GenericJob;
+import org.xronos.openforge.lim.io.FifoIF;
+import org.xronos.openforge.lim.io.FifoInput;
+import org.xronos.openforge.lim.io.FifoOutput;
+import org.xronos.openforge.lim.io.SimplePin;
+
+/**
+ * FifoTraceReplay drives a {@link CycleSimulator} with the fifo traces
+ * recorded for the testbenches, <code>&lt;actor&gt;_&lt;port&gt;.txt</code>
+ * files holding one token per line. Each input fifo offers its tokens in
+ * order, each output fifo is always ready and every token it sends is compared
+ * with the next token of its trace. The replay ends when every output trace
+ * has been produced, or when the design makes no progress for a given number
+ * of cycles.
+ */
+public class FifoTraceReplay {
+
+	/** The number of mismatches which are reported individually */
+	private static final int MAX_REPORTED = 10;
+
+	/** A fifo of the design and its trace */
+	private static class Channel {
+		private final FifoIF fifo;
+		private final long[] tokens;
+		private int index = 0;
+
+		private Channel(FifoIF fifo, long[] tokens) {
+			this.fifo = fifo;
+			this.tokens = tokens;
+		}
+
+		private boolean isComplete() {
+			return index >= tokens.length;
+		}
+	}
+
+	private final GenericJob gj;
+
+	private final CycleSimulator simulator;
+
+	private final List<Channel> inputs = new ArrayList<Channel>();
+
+	private final List<Channel> outputs = new ArrayList<Channel>();
+
+	private int errors = 0;
+
+	private long tokens = 0;
+
+	/**
+	 * Loads the traces of the fifos of a design.
+	 * 
+	 * @param gj
+	 *            the job, for reporting
+	 * @param simulator
+	 *            the simulator of the design
+	 * @param fifos
+	 *            the fifo interfaces of the design
+	 * @param traceDir
+	 *            the directory of the trace files
+	 * @param actorName
+	 *            the prefix of the trace files of the design
+	 * @throws IOException
+	 *             if a trace file cannot be read
+	 */
+	public FifoTraceReplay(GenericJob gj, CycleSimulator simulator,
+			Iterable<FifoIF> fifos, File traceDir, String actorName)
+			throws IOException {
+		this.gj = gj;
+		this.simulator = simulator;
+		for (FifoIF fifo : fifos) {
+			final String port = fifo.getPortBaseName();
+			File trace = new File(traceDir, actorName + "_" + port + ".txt");
+			if (!trace.isFile()) {
+				trace = new File(traceDir, port + ".txt");
+			}
+			if (!trace.isFile()) {
+				gj.warn("No trace for fifo " + port + " in " + traceDir);
+				continue;
+			}
+			final Channel channel = new Channel(fifo, readTrace(trace));
+			if (fifo.isInput()) {
+				inputs.add(channel);
+			} else {
+				outputs.add(channel);
+			}
+		}
+	}
+
+	/**
+	 * Runs the simulation until every output trace has been produced, or
+	 * every input consumed when the design has no traced output.
+	 * 
+	 * @param hangCycles
+	 *            the number of cycles without any token transfer after which
+	 *            the design is considered hung
+	 * @return true if all the traces were replayed without mismatch
+	 */
+	public boolean run(long hangCycles) {
+		long idle = 0;
+		while (!isComplete()) {
+			for (Channel in : inputs) {
+				final FifoInput fifo = (FifoInput) in.fifo;
+				final boolean send = !in.isComplete();
+				set(fifo.getDataPin(), send ? in.tokens[in.index] : 0);
+				set(fifo.getSendPin(), send ? 1 : 0);
+				final SimplePin count = getCountPin(fifo);
+				if (count != null) {
+					final long max = count.getWidth() < 63 ? (1L << count
+							.getWidth()) - 1 : Long.MAX_VALUE;
+					set(count, Math.min(in.tokens.length - in.index, max));
+				}
+			}
+			for (Channel out : outputs) {
+				final FifoOutput fifo = (FifoOutput) out.fifo;
+				set(fifo.getAckPin(), 1);
+				set(fifo.getReadyPin(), 1);
+			}
+
+			simulator.update();
+
+			boolean progress = false;
+			for (Channel in : inputs) {
+				final FifoInput fifo = (FifoInput) in.fifo;
+				if (!in.isComplete() && get(fifo.getAckPin()) != 0) {
+					in.index++;
+					tokens++;
+					progress = true;
+				}
+			}
+			for (Channel out : outputs) {
+				final FifoOutput fifo = (FifoOutput) out.fifo;
+				if (get(fifo.getSendPin()) != 0) {
+					check(out, get(fifo.getDataPin()),
+							fifo.getDataPin().getWidth());
+					out.index++;
+					tokens++;
+					progress = true;
+				}
+			}
+
+			simulator.clockEdge();
+
+			idle = progress ? 0 : idle + 1;
+			if (idle > hangCycles) {
+				gj.warn("Simulation hung after " + simulator.getCycleCount()
+						+ " cycles");
+				for (Channel channel : outputs) {
+					if (!channel.isComplete()) {
+						gj.warn("\tfifo " + channel.fifo.getPortBaseName()
+								+ " produced " + channel.index + " of "
+								+ channel.tokens.length + " tokens");
+					}
+				}
+				return false;
+			}
+		}
+		return errors == 0;
+	}
+
+	/**
+	 * Gets the number of tokens transferred so far.
+	 */
+	public long getTokenCount() {
+		return tokens;
+	}
+
+	/**
+	 * Gets the number of produced tokens which did not match their trace.
+	 */
+	public int getErrorCount() {
+		return errors;
+	}
+
+	private boolean isComplete() {
+		final List<Channel> channels = outputs.isEmpty() ? inputs : outputs;
+		for (Channel channel : channels) {
+			if (!channel.isComplete()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void check(Channel out, long value, int width) {
+		final String port = out.fifo.getPortBaseName();
+		if (out.isComplete()) {
+			report("fifo " + port + " produced an unexpected token " + value);
+			return;
+		}
+		final long expected = out.tokens[out.index];
+		final long mask = width < 64 ? (1L << width) - 1 : -1L;
+		if (((value ^ expected) & mask) != 0) {
+			report("fifo " + port + " token " + out.index + " is "
+					+ (value & mask) + ", expected " + (expected & mask));
+		}
+	}
+
+	private void report(String message) {
+		if (errors++ < MAX_REPORTED) {
+			gj.warn("Simulation cycle " + simulator.getCycleCount() + ": "
+					+ message);
+		}
+	}
+
+	private long get(SimplePin pin) {
+		return pin != null && simulator.isSimulated(pin) ? simulator
+				.getPinValue(pin) : 0;
+	}
+
+	private void set(SimplePin pin, long value) {
+		if (pin != null && simulator.isSimulated(pin)) {
+			simulator.setPinValue(pin, value);
+		}
+	}
+
+	private static SimplePin getCountPin(FifoIF fifo) {
+		for (SimplePin pin : fifo.getPins()) {
+			if (pin.getName().toLowerCase().contains("count")) {
+				return pin;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Reads a trace, skipping empty lines and comments.
+	 */
+	private static long[] readTrace(File file) throws IOException {
+		final List<Long> values = new ArrayList<Long>();
+		final BufferedReader reader = new BufferedReader(new FileReader(file));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				line = line.trim();
+				if (line.length() == 0 || line.startsWith("/")) {
+					continue;
+				}
+				values.add(new BigInteger(line).longValue());
+			}
+		} finally {
+			reader.close();
+		}
+		final long[] trace = new long[values.size()];
+		for (int i = 0; i < trace.length; i++) {
+			trace[i] = values.get(i);
+		}
+		return trace;
+	}
+
+}
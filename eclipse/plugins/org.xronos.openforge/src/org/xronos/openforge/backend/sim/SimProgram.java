@@ -0,0 +1,731 @@
+/*******************************************************************************
+ * Copyright 2002-2009  Xilinx Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+/*
+ * 
+ *
+ * 
+ */
+package org.xronos.openforge.backend.sim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * SimProgram is the flat evaluation schedule of a {@link CycleSimulator}. Every
+ * {@link org.xronos.openforge.lim.Bus} of the design and every piece of
+ * sequential state (flop outputs and next values, register enables, memory
+ * port state) is given a net, an index in a <code>long</code> array which holds
+ * its current value normalized to the width and signedness of the bus. The
+ * behavior of the design is then compiled into three instruction streams over
+ * those nets:
+ * <ul>
+ * <li><b>pre</b>, run once at the start of each cycle to clear the wired-or
+ * outputs and derive the reset</li>
+ * <li><b>update</b>, the combinational logic in data flow order, repeated
+ * until every feedback net has settled</li>
+ * <li><b>tick</b>, the clock edge, which moves the next state of each flop,
+ * register, shift register and memory into its current state</li>
+ * </ul>
+ * Each instruction is {@link #STRIDE} ints: an opcode followed by the nets it
+ * reads and writes, so that a cycle is a tight interpretation loop over int
+ * arrays without any allocation or map lookup. Memories are modeled as byte
+ * arrays laid out as in the cycle accurate C model, so that an access of n
+ * bytes reads the n bytes at its address rounded down to a multiple of n, least
+ * significant byte first.
+ */
+final class SimProgram {
+
+	/** The number of ints of an instruction */
+	static final int STRIDE = 7;
+
+	/** The maximum number of update passes before giving up on settling */
+	static final int MAX_PASSES = 256;
+
+	// Combinational instructions: op d a b c e f
+	static final int MOV = 0;
+	static final int ADD = 1;
+	static final int SUB = 2;
+	static final int MUL = 3;
+	static final int DIV = 4;
+	static final int MOD = 5;
+	static final int AND = 6;
+	static final int OR = 7;
+	static final int XOR = 8;
+	static final int SHL = 9;
+	static final int SHR = 10;
+	/** d = (a as an unsigned value of b bits) >>> c */
+	static final int USHR = 11;
+	static final int EQ = 12;
+	static final int NE = 13;
+	static final int LT = 14;
+	static final int LE = 15;
+	static final int GT = 16;
+	static final int GE = 17;
+	static final int LAND = 18;
+	static final int LOR = 19;
+	static final int NEG = 20;
+	static final int COMPL = 21;
+	static final int LNOT = 22;
+	/** d = a != 0 */
+	static final int FLAG = 23;
+	/** d = AND of the b nets of the argument list at a */
+	static final int ANDN = 24;
+	/** d = OR of the b nets of the argument list at a */
+	static final int ORN = 25;
+	/** d = a ? b : c */
+	static final int MUX = 26;
+	/** d = the c-th of the b nets of the argument list at a, or 0 */
+	static final int ENCMUX = 27;
+	/** d = c ? 0 : e ? -1 : (b is not enabled) ? f : a */
+	static final int REG = 28;
+	/** if (a) d = b */
+	static final int SET_IF = 29;
+	/** if (a) d = 1 */
+	static final int ONE_IF = 30;
+	/** if (a) d |= b */
+	static final int OR_IF = 31;
+	/** d = 0 */
+	static final int CLEAR = 32;
+	/** d = (a < b) where b is an immediate */
+	static final int RESET = 33;
+	/** d = the b bytes at the current address of memory port a */
+	static final int MEM_READ = 34;
+	/**
+	 * if (b) start an access of f bytes on memory port a at address c, a
+	 * write of e when e is a net
+	 */
+	static final int MEM_ACCESS = 35;
+
+	// Clock edge instructions
+	/** d = a */
+	static final int COPY = 40;
+	/** if (a) d = b; a = 0 */
+	static final int LOAD_IF = 41;
+	/** commit the pending access of memory port a */
+	static final int MEM_TICK = 42;
+	/** if (e) shift c into the b nets of the argument list at a */
+	static final int SHIFT = 43;
+	/** if (d < b) d++ where b is an immediate */
+	static final int COUNT = 44;
+
+	// Offsets of the state nets of a memory port
+	static final int ADDR_NEXT = 0;
+	static final int ADDR_CURRENT = 1;
+	static final int DATA_NEXT = 2;
+	static final int ENABLE = 3;
+	static final int WRITE_ENABLE = 4;
+	static final int SIZE = 5;
+	static final int PORT_NETS = 6;
+
+	/** Growable instruction stream */
+	private static class Code {
+		private int[] ops = new int[STRIDE * 64];
+		private int size = 0;
+
+		void add(int op, int d, int a, int b, int c, int e, int f) {
+			if (size + STRIDE > ops.length) {
+				ops = Arrays.copyOf(ops, ops.length * 2);
+			}
+			ops[size++] = op;
+			ops[size++] = d;
+			ops[size++] = a;
+			ops[size++] = b;
+			ops[size++] = c;
+			ops[size++] = e;
+			ops[size++] = f;
+		}
+
+		int[] toArray() {
+			return Arrays.copyOf(ops, size);
+		}
+	}
+
+	private final Code preCode = new Code();
+	private final Code updateCode = new Code();
+	private final Code tickCode = new Code();
+
+	/** Net lists referenced by the n-ary instructions */
+	private int[] args = new int[64];
+	private int argCount = 0;
+
+	/** The initial value of each net */
+	private long[] initial = new long[256];
+
+	/** The left shift which normalizes the value of each net */
+	private byte[] shifts = new byte[256];
+
+	/** Whether each net is sign extended */
+	private boolean[] signed = new boolean[256];
+
+	private int netCount = 0;
+
+	/** The initial contents of each memory */
+	private final List<byte[]> memoryInits = new ArrayList<byte[]>();
+
+	/** The memory and the first state net of each memory port */
+	private int[] portMemory = new int[8];
+	private int[] portBase = new int[8];
+	private int portCount = 0;
+
+	// The sealed program
+	private int[] pre;
+	private int[] update;
+	private int[] tick;
+	private int[] feedback;
+
+	/**
+	 * Allocates a new net.
+	 * 
+	 * @param width
+	 *            the number of bits of the net, 64 bits are kept when the
+	 *            width is not between 1 and 63
+	 * @param isSigned
+	 *            true if the value of the net is sign extended
+	 * @param value
+	 *            the initial value of the net
+	 * @return the new net
+	 */
+	int makeNet(int width, boolean isSigned, long value) {
+		if (netCount == initial.length) {
+			final int length = netCount * 2;
+			initial = Arrays.copyOf(initial, length);
+			shifts = Arrays.copyOf(shifts, length);
+			signed = Arrays.copyOf(signed, length);
+		}
+		final int net = netCount++;
+		shifts[net] = (byte) (width > 0 && width < 64 ? 64 - width : 0);
+		signed[net] = isSigned;
+		initial[net] = normalize(net, value);
+		return net;
+	}
+
+	/**
+	 * Sets the initial value of a net.
+	 */
+	void setInitial(int net, long value) {
+		initial[net] = normalize(net, value);
+	}
+
+	/**
+	 * Gets the width of a net.
+	 */
+	int getWidth(int net) {
+		return 64 - shifts[net];
+	}
+
+	/**
+	 * Tests whether a net is sign extended.
+	 */
+	boolean isSigned(int net) {
+		return signed[net];
+	}
+
+	/**
+	 * Sets the value of a net of a simulation.
+	 */
+	void set(long[] n, int net, long value) {
+		n[net] = normalize(net, value);
+	}
+
+	/**
+	 * Stores a list of nets for an n-ary instruction.
+	 * 
+	 * @return the offset of the list
+	 */
+	int addArgs(int[] nets) {
+		while (argCount + nets.length > args.length) {
+			args = Arrays.copyOf(args, args.length * 2);
+		}
+		final int offset = argCount;
+		System.arraycopy(nets, 0, args, offset, nets.length);
+		argCount += nets.length;
+		return offset;
+	}
+
+	/**
+	 * Adds a memory.
+	 * 
+	 * @param contents
+	 *            the initial value of each byte of the memory
+	 * @return the index of the memory
+	 */
+	int addMemory(byte[] contents) {
+		memoryInits.add(contents);
+		return memoryInits.size() - 1;
+	}
+
+	/**
+	 * Adds a port to a memory, with its own address and write state.
+	 * 
+	 * @return the index of the port
+	 */
+	int addMemoryPort(int memory) {
+		if (portCount == portMemory.length) {
+			portMemory = Arrays.copyOf(portMemory, portCount * 2);
+			portBase = Arrays.copyOf(portBase, portCount * 2);
+		}
+		portMemory[portCount] = memory;
+		portBase[portCount] = makeNet(64, false, 0);
+		for (int i = 1; i < PORT_NETS; i++) {
+			makeNet(64, false, 0);
+		}
+		return portCount++;
+	}
+
+	void pre(int op, int d, int a, int b) {
+		preCode.add(op, d, a, b, -1, -1, -1);
+	}
+
+	void update(int op, int d, int a, int b) {
+		update(op, d, a, b, -1, -1, -1);
+	}
+
+	void update(int op, int d, int a, int b, int c) {
+		update(op, d, a, b, c, -1, -1);
+	}
+
+	void update(int op, int d, int a, int b, int c, int e, int f) {
+		updateCode.add(op, d, a, b, c, e, f);
+	}
+
+	void tick(int op, int d, int a, int b) {
+		tick(op, d, a, b, -1, -1);
+	}
+
+	void tick(int op, int d, int a, int b, int c, int e) {
+		tickCode.add(op, d, a, b, c, e, -1);
+	}
+
+	/**
+	 * Freezes the instruction streams and finds the feedback nets, those read
+	 * by the update stream before their last write, which must settle before
+	 * the cycle is complete.
+	 */
+	void seal() {
+		pre = preCode.toArray();
+		update = updateCode.toArray();
+		tick = tickCode.toArray();
+
+		final int[] lastWrite = new int[netCount];
+		Arrays.fill(lastWrite, -1);
+		for (int pc = 0; pc < update.length; pc += STRIDE) {
+			for (int net : getWrites(update, pc)) {
+				lastWrite[net] = pc;
+			}
+		}
+		final boolean[] isFeedback = new boolean[netCount];
+		int count = 0;
+		for (int pc = 0; pc < update.length; pc += STRIDE) {
+			for (int net : getReads(update, pc)) {
+				if (lastWrite[net] > pc && !isFeedback[net]) {
+					isFeedback[net] = true;
+					count++;
+				}
+			}
+		}
+		feedback = new int[count];
+		count = 0;
+		for (int net = 0; net < netCount; net++) {
+			if (isFeedback[net]) {
+				feedback[count++] = net;
+			}
+		}
+	}
+
+	private int[] getWrites(int[] code, int pc) {
+		switch (code[pc]) {
+		case MEM_ACCESS:
+			final int base = portBase[code[pc + 2]];
+			return new int[] { base + ADDR_NEXT, base + DATA_NEXT,
+					base + ENABLE, base + WRITE_ENABLE, base + SIZE };
+		default:
+			return new int[] { code[pc + 1] };
+		}
+	}
+
+	private int[] getReads(int[] code, int pc) {
+		final int op = code[pc];
+		switch (op) {
+		case ANDN:
+		case ORN:
+			return Arrays.copyOfRange(args, code[pc + 2], code[pc + 2]
+					+ code[pc + 3]);
+		case ENCMUX:
+			final int[] reads = Arrays.copyOfRange(args, code[pc + 2],
+					code[pc + 2] + code[pc + 3] + 1);
+			reads[reads.length - 1] = code[pc + 4];
+			return reads;
+		case USHR:
+			return new int[] { code[pc + 2], code[pc + 4] };
+		case LNOT:
+		case NEG:
+		case COMPL:
+		case FLAG:
+		case MOV:
+			return new int[] { code[pc + 2] };
+		case MEM_READ:
+			return new int[] { portBase[code[pc + 2]] + ADDR_CURRENT };
+		case OR_IF:
+			return new int[] { code[pc + 1], code[pc + 2], code[pc + 3] };
+		case CLEAR:
+		case RESET:
+			return new int[0];
+		case ONE_IF:
+			return new int[] { code[pc + 2] };
+		case MEM_ACCESS:
+			return code[pc + 5] < 0 ? new int[] { code[pc + 3], code[pc + 4] }
+					: new int[] { code[pc + 3], code[pc + 4], code[pc + 5] };
+		default:
+			final List<Integer> nets = new ArrayList<Integer>(STRIDE);
+			for (int i = 2; i < STRIDE; i++) {
+				if (code[pc + i] >= 0) {
+					nets.add(code[pc + i]);
+				}
+			}
+			final int[] result = new int[nets.size()];
+			for (int i = 0; i < result.length; i++) {
+				result[i] = nets.get(i);
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Creates the nets of a new simulation in their initial state.
+	 */
+	long[] createNets() {
+		return Arrays.copyOf(initial, netCount);
+	}
+
+	/**
+	 * Creates the memories of a new simulation with their initial contents.
+	 */
+	byte[][] createMemories() {
+		final byte[][] memories = new byte[memoryInits.size()][];
+		for (int i = 0; i < memories.length; i++) {
+			memories[i] = memoryInits.get(i).clone();
+		}
+		return memories;
+	}
+
+	int getNetCount() {
+		return netCount;
+	}
+
+	int getInstructionCount() {
+		return (pre.length + update.length + tick.length) / STRIDE;
+	}
+
+	int getFeedbackCount() {
+		return feedback.length;
+	}
+
+	/**
+	 * Propagates the combinational logic of one cycle.
+	 * 
+	 * @param n
+	 *            the nets
+	 * @param memories
+	 *            the memories
+	 * @param previous
+	 *            scratch space of at least {@link #getFeedbackCount()} longs
+	 * @return the number of update passes needed to settle
+	 * @throws SimulationException
+	 *             if the logic does not settle
+	 */
+	int update(long[] n, byte[][] memories, long[] previous) {
+		execute(pre, n, memories);
+		final int[] fb = feedback;
+		for (int i = 0; i < fb.length; i++) {
+			previous[i] = n[fb[i]];
+		}
+		int passes = 0;
+		boolean changed;
+		do {
+			if (++passes > MAX_PASSES) {
+				throw new SimulationException(
+						"combinational logic did not settle after "
+								+ MAX_PASSES + " passes");
+			}
+			execute(update, n, memories);
+			changed = false;
+			for (int i = 0; i < fb.length; i++) {
+				final long value = n[fb[i]];
+				if (value != previous[i]) {
+					previous[i] = value;
+					changed = true;
+				}
+			}
+		} while (changed);
+		return passes;
+	}
+
+	/**
+	 * Applies the clock edge.
+	 */
+	void tick(long[] n, byte[][] memories) {
+		execute(tick, n, memories);
+	}
+
+	private long normalize(int net, long value) {
+		final int shift = shifts[net];
+		return signed[net] ? (value << shift) >> shift
+				: (value << shift) >>> shift;
+	}
+
+	private static boolean isTrue(long value) {
+		return value != 0;
+	}
+
+	private static long bool(boolean value) {
+		return value ? 1 : 0;
+	}
+
+	private void execute(int[] code, long[] n, byte[][] memories) {
+		final int[] args = this.args;
+		for (int pc = 0; pc < code.length; pc += STRIDE) {
+			final int d = code[pc + 1];
+			final int a = code[pc + 2];
+			final int b = code[pc + 3];
+			final int c = code[pc + 4];
+			long value;
+			switch (code[pc]) {
+			case MOV:
+				value = n[a];
+				break;
+			case ADD:
+				value = n[a] + n[b];
+				break;
+			case SUB:
+				value = n[a] - n[b];
+				break;
+			case MUL:
+				value = n[a] * n[b];
+				break;
+			case DIV:
+				value = n[b] == 0 ? 0 : n[a] / n[b];
+				break;
+			case MOD:
+				value = n[b] == 0 ? 0 : n[a] % n[b];
+				break;
+			case AND:
+				value = n[a] & n[b];
+				break;
+			case OR:
+				value = n[a] | n[b];
+				break;
+			case XOR:
+				value = n[a] ^ n[b];
+				break;
+			case SHL:
+				value = n[b] < 0 || n[b] >= 64 ? 0 : n[a] << n[b];
+				break;
+			case SHR:
+				value = n[b] < 0 || n[b] >= 64 ? n[a] >> 63 : n[a] >> n[b];
+				break;
+			case USHR:
+				value = b > 0 && b < 64 ? n[a] & ((1L << b) - 1) : n[a];
+				value = n[c] < 0 || n[c] >= 64 ? 0 : value >>> n[c];
+				break;
+			case EQ:
+				value = bool(n[a] == n[b]);
+				break;
+			case NE:
+				value = bool(n[a] != n[b]);
+				break;
+			case LT:
+				value = bool(n[a] < n[b]);
+				break;
+			case LE:
+				value = bool(n[a] <= n[b]);
+				break;
+			case GT:
+				value = bool(n[a] > n[b]);
+				break;
+			case GE:
+				value = bool(n[a] >= n[b]);
+				break;
+			case LAND:
+				value = bool(isTrue(n[a]) && isTrue(n[b]));
+				break;
+			case LOR:
+				value = bool(isTrue(n[a]) || isTrue(n[b]));
+				break;
+			case NEG:
+				value = -n[a];
+				break;
+			case COMPL:
+				value = ~n[a];
+				break;
+			case LNOT:
+				value = bool(!isTrue(n[a]));
+				break;
+			case FLAG:
+				value = bool(isTrue(n[a]));
+				break;
+			case ANDN:
+				value = -1;
+				for (int i = a; i < a + b; i++) {
+					value &= n[args[i]];
+				}
+				break;
+			case ORN:
+				value = 0;
+				for (int i = a; i < a + b; i++) {
+					value |= n[args[i]];
+				}
+				break;
+			case MUX:
+				value = isTrue(n[a]) ? n[b] : n[c];
+				break;
+			case ENCMUX: {
+				final long select = n[c];
+				value = select >= 0 && select < b ? n[args[a + (int) select]]
+						: 0;
+				break;
+			}
+			case REG: {
+				final int e = code[pc + 5];
+				final int f = code[pc + 6];
+				if (c >= 0 && isTrue(n[c])) {
+					value = 0;
+				} else if (e >= 0 && isTrue(n[e])) {
+					value = -1;
+				} else if (b >= 0 && !isTrue(n[b])) {
+					value = n[f];
+				} else {
+					value = n[a];
+				}
+				break;
+			}
+			case SET_IF:
+				if (!isTrue(n[a])) {
+					continue;
+				}
+				value = n[b];
+				break;
+			case ONE_IF:
+				if (!isTrue(n[a])) {
+					continue;
+				}
+				value = 1;
+				break;
+			case OR_IF:
+				if (!isTrue(n[a])) {
+					continue;
+				}
+				value = n[d] | n[b];
+				break;
+			case CLEAR:
+				value = 0;
+				break;
+			case RESET:
+				value = bool(n[a] < b);
+				break;
+			case MEM_READ:
+				value = read(memories, a, n[portBase[a] + ADDR_CURRENT], b);
+				break;
+			case MEM_ACCESS: {
+				if (isTrue(n[b])) {
+					final int base = portBase[a];
+					final int e = code[pc + 5];
+					n[base + ADDR_NEXT] = n[c];
+					n[base + ENABLE] = 1;
+					n[base + WRITE_ENABLE] = bool(e >= 0);
+					n[base + SIZE] = code[pc + 6];
+					if (e >= 0) {
+						n[base + DATA_NEXT] = n[e];
+					}
+				}
+				continue;
+			}
+			case COPY:
+				n[d] = n[a];
+				continue;
+			case LOAD_IF:
+				if (isTrue(n[a])) {
+					n[d] = n[b];
+					n[a] = 0;
+				}
+				continue;
+			case MEM_TICK: {
+				final int base = portBase[a];
+				n[base + ADDR_CURRENT] = n[base + ADDR_NEXT];
+				if (isTrue(n[base + WRITE_ENABLE]) && isTrue(n[base + ENABLE])) {
+					write(memories, a, n[base + ADDR_CURRENT],
+							(int) n[base + SIZE], n[base + DATA_NEXT]);
+				}
+				n[base + ENABLE] = 0;
+				n[base + WRITE_ENABLE] = 0;
+				n[base + SIZE] = 0;
+				continue;
+			}
+			case SHIFT:
+				if (isTrue(n[code[pc + 5]])) {
+					for (int i = a + b - 1; i > a; i--) {
+						n[args[i]] = n[args[i - 1]];
+					}
+					n[args[a]] = n[c];
+				}
+				continue;
+			case COUNT:
+				if (n[d] < b) {
+					n[d]++;
+				}
+				continue;
+			default:
+				throw new SimulationException("unknown instruction "
+						+ code[pc]);
+			}
+			n[d] = normalize(d, value);
+		}
+	}
+
+	/**
+	 * Reads the bytes of a memory access, the first byte being the least
+	 * significant one. Bytes outside the memory read as zero.
+	 */
+	private long read(byte[][] memories, int port, long address, int bytes) {
+		final byte[] memory = memories[portMemory[port]];
+		final long base = address / bytes * bytes;
+		long value = 0;
+		for (int i = 0; i < bytes; i++) {
+			final long index = base + i;
+			if (index >= 0 && index < memory.length) {
+				value |= (memory[(int) index] & 0xFFL) << (8 * i);
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Writes the bytes of a memory access, the first byte receiving the least
+	 * significant bits. Bytes outside the memory are dropped.
+	 */
+	private void write(byte[][] memories, int port, long address, int bytes,
+			long value) {
+		final byte[] memory = memories[portMemory[port]];
+		final long base = address / bytes * bytes;
+		for (int i = 0; i < bytes; i++) {
+			final long index = base + i;
+			if (index >= 0 && index < memory.length) {
+				memory[(int) index] = (byte) (value >>> (8 * i));
+			}
+		}
+	}
+
+}
@@ -0,0 +1,892 @@
+/*******************************************************************************
+ * Copyright 2002-2009  Xilinx Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+/*
+ * 
+ *
+ * 
+ */
+package org.xronos.openforge.backend.sim;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.xronos.openforge.app.EngineThread;
+import org.xronos.openforge.app.ForgeFileTyper;
+import org.xronos.openforge.app.GenericJob;
+import org.xronos.openforge.app.OptionRegistry;
+import org.xronos.openforge.lim.Bus;
+import org.xronos.openforge.lim.Call;
+import org.xronos.openforge.lim.Component;
+import org.xronos.openforge.lim.DataFlowVisitor;
+import org.xronos.openforge.lim.Design;
+import org.xronos.openforge.lim.Exit;
+import org.xronos.openforge.lim.GlobalReset;
+import org.xronos.openforge.lim.IPCoreCall;
+import org.xronos.openforge.lim.InBuf;
+import org.xronos.openforge.lim.OutBuf;
+import org.xronos.openforge.lim.PinRead;
+import org.xronos.openforge.lim.PinReferee;
+import org.xronos.openforge.lim.PinStateChange;
+import org.xronos.openforge.lim.PinWrite;
+import org.xronos.openforge.lim.Port;
+import org.xronos.openforge.lim.PriorityMux;
+import org.xronos.openforge.lim.Register;
+import org.xronos.openforge.lim.RegisterGateway;
+import org.xronos.openforge.lim.RegisterRead;
+import org.xronos.openforge.lim.RegisterReferee;
+import org.xronos.openforge.lim.RegisterWrite;
+import org.xronos.openforge.lim.Task;
+import org.xronos.openforge.lim.TriBuf;
+import org.xronos.openforge.lim.UnexpectedVisitationException;
+import org.xronos.openforge.lim.io.FifoIF;
+import org.xronos.openforge.lim.io.SimpleInternalPin;
+import org.xronos.openforge.lim.io.SimplePin;
+import org.xronos.openforge.lim.io.SimplePinRead;
+import org.xronos.openforge.lim.io.SimplePinWrite;
+import org.xronos.openforge.lim.memory.AddressStridePolicy;
+import org.xronos.openforge.lim.memory.AddressableUnit;
+import org.xronos.openforge.lim.memory.EndianSwapper;
+import org.xronos.openforge.lim.memory.LogicalMemory;
+import org.xronos.openforge.lim.memory.LogicalMemoryPort;
+import org.xronos.openforge.lim.memory.MemoryAccess;
+import org.xronos.openforge.lim.memory.MemoryBank;
+import org.xronos.openforge.lim.memory.MemoryGateway;
+import org.xronos.openforge.lim.memory.MemoryRead;
+import org.xronos.openforge.lim.memory.MemoryReferee;
+import org.xronos.openforge.lim.memory.MemoryWrite;
+import org.xronos.openforge.lim.memory.StructuralMemory;
+import org.xronos.openforge.lim.op.AddOp;
+import org.xronos.openforge.lim.op.AndOp;
+import org.xronos.openforge.lim.op.CastOp;
+import org.xronos.openforge.lim.op.ComplementOp;
+import org.xronos.openforge.lim.op.ConditionalAndOp;
+import org.xronos.openforge.lim.op.ConditionalOrOp;
+import org.xronos.openforge.lim.op.DivideOp;
+import org.xronos.openforge.lim.op.EqualsOp;
+import org.xronos.openforge.lim.op.GreaterThanEqualToOp;
+import org.xronos.openforge.lim.op.GreaterThanOp;
+import org.xronos.openforge.lim.op.LeftShiftOp;
+import org.xronos.openforge.lim.op.LessThanEqualToOp;
+import org.xronos.openforge.lim.op.LessThanOp;
+import org.xronos.openforge.lim.op.MinusOp;
+import org.xronos.openforge.lim.op.ModuloOp;
+import org.xronos.openforge.lim.op.MultiplyOp;
+import org.xronos.openforge.lim.op.NoOp;
+import org.xronos.openforge.lim.op.NotEqualsOp;
+import org.xronos.openforge.lim.op.NotOp;
+import org.xronos.openforge.lim.op.NumericPromotionOp;
+import org.xronos.openforge.lim.op.OrOp;
+import org.xronos.openforge.lim.op.OrOpMulti;
+import org.xronos.openforge.lim.op.PlusOp;
+import org.xronos.openforge.lim.op.ReductionOrOp;
+import org.xronos.openforge.lim.op.RightShiftOp;
+import org.xronos.openforge.lim.op.RightShiftUnsignedOp;
+import org.xronos.openforge.lim.op.ShortcutIfElseOp;
+import org.xronos.openforge.lim.op.SubtractOp;
+import org.xronos.openforge.lim.op.TimingOp;
+import org.xronos.openforge.lim.op.XorOp;
+import org.xronos.openforge.lim.primitive.And;
+import org.xronos.openforge.lim.primitive.EncodedMux;
+import org.xronos.openforge.lim.primitive.Mux;
+import org.xronos.openforge.lim.primitive.Not;
+import org.xronos.openforge.lim.primitive.Or;
+import org.xronos.openforge.lim.primitive.Reg;
+import org.xronos.openforge.lim.primitive.SRL16;
+
+/**
+ * SimTranslator compiles a {@link Design} into a {@link SimProgram}. The
+ * traversal and the behavior of each component follow the cycle accurate C
+ * model of {@link org.xronos.openforge.backend.timedc.CycleCTranslator}, but
+ * instead of writing C statements each component emits the instructions which
+ * compute its output nets. Buses which simply forward a value (in bufs, out
+ * bufs, call boundaries) share the net of their source whenever possible, so
+ * the compiled program only contains the operations of the design.
+ */
+class SimTranslator extends DataFlowVisitor {
+
+	private final Design design;
+
+	private final SimProgram program = new SimProgram();
+
+	/** The net carrying the value of each bus */
+	private final Map<Bus, Integer> nets = new HashMap<Bus, Integer>();
+
+	/** The net of each constant valued bus */
+	private final Map<Bus, Integer> constants = new HashMap<Bus, Integer>();
+
+	/** Correlates the procedure ports and buses to those of their call */
+	private final Map<Port, Port> callPorts = new HashMap<Port, Port>();
+	private final Map<Bus, Bus> callBuses = new HashMap<Bus, Bus>();
+
+	/** The net of each pin */
+	private final Map<SimplePin, Integer> pinNets = new HashMap<SimplePin, Integer>();
+
+	/** The pins which are cleared at the start of each cycle */
+	private final Set<SimplePin> clearedPins = new HashSet<SimplePin>();
+
+	private final Map<LogicalMemory, Integer> memories = new HashMap<LogicalMemory, Integer>();
+	private final Map<LogicalMemoryPort, Integer> memoryPorts = new HashMap<LogicalMemoryPort, Integer>();
+
+	/** The current, next and enable nets of each register */
+	private final Map<Register, int[]> registers = new HashMap<Register, int[]>();
+
+	SimTranslator(Design design) {
+		setRunForward(true);
+		this.design = design;
+	}
+
+	/**
+	 * Compiles the design.
+	 * 
+	 * @return the sealed program of the design
+	 */
+	SimProgram translate() {
+		// Every fifo pin gets a net, even if the logic does not use
+		// it, so that the simulation can drive and sample it.
+		for (FifoIF fifo : design.getFifoInterfaces()) {
+			for (SimplePin pin : fifo.getPins()) {
+				getPinNet(pin, false);
+			}
+		}
+		design.accept(this);
+		program.seal();
+		return program;
+	}
+
+	/**
+	 * Gets the net of a pin of the design.
+	 * 
+	 * @return the net, or -1 if the pin is not simulated
+	 */
+	int getPinNet(SimplePin pin) {
+		final Integer net = pinNets.get(pin);
+		return net == null ? -1 : net;
+	}
+
+	@Override
+	public void visit(Design design) {
+		final GenericJob gj = EngineThread.getGenericJob();
+		final int delay = ForgeFileTyper.isXLIMSource(gj.getTargetFiles()[0]
+				.getName()) ? 10 : 5;
+		for (GlobalReset grst : design.getResetPins()) {
+			// Reset is asserted for the first 'delay' cycles
+			final int count = program.makeNet(8, false, 0);
+			program.pre(SimProgram.RESET, getNet(grst.getBus()), count, delay);
+			program.tick(SimProgram.COUNT, count, -1, delay + 2);
+		}
+
+		final List<Call> taskCalls = new ArrayList<Call>();
+		for (Task task : design.getTasks()) {
+			taskCalls.add(task.getCall());
+		}
+		for (Component comp : design.getDesignModule().getComponents()) {
+			if (!taskCalls.contains(comp)) {
+				try {
+					comp.accept(this);
+				} catch (UnexpectedVisitationException uve) {
+					// Not part of the simulated logic
+				}
+			}
+		}
+		for (Task task : design.getTasks()) {
+			task.accept(this);
+		}
+	}
+
+	@Override
+	public void visit(Call call) {
+		for (Port port : call.getPorts()) {
+			callPorts.put(call.getProcedurePort(port), port);
+		}
+		for (Bus bus : call.getBuses()) {
+			callBuses.put(call.getProcedureBus(bus), bus);
+		}
+		super.visit(call);
+	}
+
+	@Override
+	public void visit(InBuf ib) {
+		final List<Bus> buses = new ArrayList<Bus>();
+		buses.add(ib.getGoBus());
+		buses.add(ib.getResetBus());
+		buses.addAll(ib.getDataBuses());
+		for (Bus ibBus : buses) {
+			if (ibBus.getTag() == Component.SIDEBAND) {
+				continue;
+			}
+			Bus source = ibBus.getPeer().getBus();
+			if (source == null && callPorts.containsKey(ibBus.getPeer())) {
+				source = callPorts.get(ibBus.getPeer()).getBus();
+			}
+			if (source != null) {
+				connect(ibBus, getRValue(source));
+			} else if (ibBus.isUsed() && ibBus.getPeer().isUsed()) {
+				throw new SimulationException("null source for " + ib + " "
+						+ ibBus);
+			}
+		}
+	}
+
+	@Override
+	public void visit(OutBuf ob) {
+		for (Port port : ob.getPorts()) {
+			if (port.getTag() == Component.SIDEBAND) {
+				continue;
+			}
+			final Bus source = port.getBus();
+			final Bus target = port.getPeer();
+			if (source != null) {
+				connect(target, getRValue(source));
+				final Bus peer = callBuses.get(target);
+				if (peer != null) {
+					connect(peer, getNet(target));
+				}
+			} else if (port.isUsed() && target.isUsed()) {
+				throw new SimulationException("null source for " + ob + " "
+						+ port);
+			}
+		}
+	}
+
+	@Override
+	public void visit(Reg reg) {
+		final int out = getNet(reg.getResultBus());
+		final int next = makeNet(reg.getResultBus());
+		if (reg.getInitialValue() != null) {
+			program.setInitial(out, reg.getInitialValue().toNumber()
+					.numberValue().longValue());
+		}
+		final int data = getRValue(reg.getDataPort().getBus());
+		switch (reg.getType()) {
+		case Reg.REG:
+			program.update(SimProgram.MOV, next, data, -1);
+			break;
+		case Reg.REGE:
+			program.update(SimProgram.REG, next, data,
+					getRValue(reg.getEnablePort().getBus()), -1, -1, out);
+			break;
+		case Reg.REGR:
+			program.update(SimProgram.REG, next, data, -1,
+					getRValue(reg.getInternalResetPort().getBus()), -1, -1);
+			break;
+		case Reg.REGRE:
+			program.update(SimProgram.REG, next, data,
+					getRValue(reg.getEnablePort().getBus()),
+					getRValue(reg.getInternalResetPort().getBus()), -1, out);
+			break;
+		case Reg.REGRS:
+			program.update(SimProgram.REG, next, data, -1,
+					getRValue(reg.getInternalResetPort().getBus()),
+					getRValue(reg.getSetPort().getBus()), -1);
+			break;
+		default:
+			throw new SimulationException("Unknown type for " + reg + " "
+					+ reg.getType());
+		}
+		program.tick(SimProgram.COPY, out, next, -1);
+	}
+
+	@Override
+	public void visit(EncodedMux m) {
+		final int count = m.getDataPorts().size();
+		final int[] data = new int[count];
+		for (int i = 0; i < count; i++) {
+			data[i] = getRValue(m.getDataPort(i).getBus());
+		}
+		program.update(SimProgram.ENCMUX, getNet(m.getResultBus()),
+				program.addArgs(data), count,
+				getRValue(m.getSelectPort().getBus()));
+	}
+
+	@Override
+	public void visit(Mux m) {
+		assert m.getGoPorts().size() == 2 : "Mux with "
+				+ m.getGoPorts().size() + " ports";
+		final Port select = m.getGoPorts().get(0);
+		final Bus d1 = m.getDataPort(select).getBus();
+		final Bus d2 = m.getDataPort(m.getGoPorts().get(1)).getBus();
+		program.update(SimProgram.MUX, getNet(m.getResultBus()),
+				getRValue(select.getBus()), getRValue(d1), getRValue(d2));
+	}
+
+	@Override
+	public void visit(MemoryRead memRead) {
+		final int port = getMemoryPort(memRead.getMemoryPort());
+		final int result = getNet(memRead.getResultBus());
+		program.update(SimProgram.MEM_READ, result, port,
+				getAccessBytes(memRead));
+		startAccess(memRead, port, -1);
+
+		// The containing module reads the value from the physical
+		// implementation of the read
+		if (memRead.hasPhysicalComponent()) {
+			connect(memRead.getPhysicalComponent().getExit(Exit.DONE)
+					.getDataBuses().get(0), result);
+		}
+	}
+
+	@Override
+	public void visit(MemoryWrite memWrite) {
+		final int port = getMemoryPort(memWrite.getMemoryPort());
+		startAccess(memWrite, port, getRValue(memWrite.getDataPort().getBus()));
+	}
+
+	@Override
+	public void visit(RegisterRead regRead) {
+		final int[] state = getRegister((Register) regRead.getReferenceable());
+		connect(regRead.getResultBus(), state[0]);
+	}
+
+	@Override
+	public void visit(RegisterWrite regWrite) {
+		final int[] state = getRegister((Register) regWrite.getReferenceable());
+		final int go = getRValue(regWrite.getGoPort().getBus());
+		program.update(SimProgram.SET_IF, state[1], go,
+				getRValue(regWrite.getDataPort().getBus()));
+		program.update(SimProgram.ONE_IF, state[2], go, -1);
+		addPending(regWrite.getExit(Exit.DONE).getDoneBus(), go);
+	}
+
+	@Override
+	public void visit(OrOp or) {
+		// The OrOpMulti only merges gateway and pin accesses, which
+		// are simulated at the access itself
+		if (!(or instanceof OrOpMulti)) {
+			writeNaryOp(or, SimProgram.ORN);
+		}
+	}
+
+	@Override
+	public void visit(Or o) {
+		writeNaryOp(o, SimProgram.ORN);
+	}
+
+	@Override
+	public void visit(And a) {
+		writeNaryOp(a, SimProgram.ANDN);
+	}
+
+	@Override
+	public void visit(ReductionOrOp reducedOr) {
+		program.update(SimProgram.FLAG, getNet(reducedOr.getResultBus()),
+				getRValue(reducedOr.getDataPort().getBus()), -1);
+	}
+
+	@Override
+	public void visit(SRL16 srl16) {
+		final Bus result = srl16.getResultBus();
+		final int depth = srl16.getStages();
+		final int[] stages = new int[depth];
+		for (int i = 0; i < depth - 1; i++) {
+			stages[i] = makeNet(result);
+		}
+		stages[depth - 1] = getNet(result);
+		final int next = makeNet(result);
+		final int enable;
+		if (srl16.getEnablePort().isUsed()) {
+			enable = program.makeNet(1, false, 0);
+			program.update(SimProgram.FLAG, enable,
+					getRValue(srl16.getEnablePort().getBus()), -1);
+		} else {
+			enable = program.makeNet(1, false, 1);
+		}
+		program.update(SimProgram.MOV, next,
+				getRValue(srl16.getInDataPort().getBus()), -1);
+		program.tick(SimProgram.SHIFT, -1, program.addArgs(stages), depth,
+				next, enable);
+	}
+
+	@Override
+	public void visit(SimplePin pin) {
+		getPinNet(pin, false);
+	}
+
+	@Override
+	public void visit(SimplePinRead comp) {
+		connect(comp.getResultBus(),
+				getPinNet((SimplePin) comp.getReferenceable(), false));
+	}
+
+	/**
+	 * External pins are the wired-or of their masked writes, internal pins
+	 * hold the value of their last enabled write within the cycle.
+	 */
+	@Override
+	public void visit(SimplePinWrite comp) {
+		final SimplePin pin = (SimplePin) comp.getReferenceable();
+		final int net = getPinNet(pin, true);
+		final int data = getRValue(comp.getDataPort().getBus());
+		final int enable = getRValue(comp.getGoPort().getBus());
+		program.update(pin instanceof SimpleInternalPin ? SimProgram.SET_IF
+				: SimProgram.OR_IF, net, enable, data);
+	}
+
+	@Override
+	public void visit(AddOp add) {
+		writeBinaryOp(add, SimProgram.ADD);
+	}
+
+	@Override
+	public void visit(AndOp andOp) {
+		writeBinaryOp(andOp, SimProgram.AND);
+	}
+
+	@Override
+	public void visit(CastOp cast) {
+		writeUnaryOp(cast, SimProgram.MOV);
+	}
+
+	@Override
+	public void visit(ComplementOp comp) {
+		writeUnaryOp(comp, SimProgram.COMPL);
+	}
+
+	@Override
+	public void visit(ConditionalAndOp cand) {
+		writeBinaryOp(cand, SimProgram.LAND);
+	}
+
+	@Override
+	public void visit(ConditionalOrOp cor) {
+		writeBinaryOp(cor, SimProgram.LOR);
+	}
+
+	@Override
+	public void visit(DivideOp divide) {
+		writeBinaryOp(divide, SimProgram.DIV);
+	}
+
+	@Override
+	public void visit(EqualsOp equals) {
+		writeBinaryOp(equals, SimProgram.EQ);
+	}
+
+	@Override
+	public void visit(GreaterThanEqualToOp gte) {
+		writeBinaryOp(gte, SimProgram.GE);
+	}
+
+	@Override
+	public void visit(GreaterThanOp gt) {
+		writeBinaryOp(gt, SimProgram.GT);
+	}
+
+	@Override
+	public void visit(LeftShiftOp leftShift) {
+		writeBinaryOp(leftShift, SimProgram.SHL);
+	}
+
+	@Override
+	public void visit(LessThanEqualToOp lte) {
+		writeBinaryOp(lte, SimProgram.LE);
+	}
+
+	@Override
+	public void visit(LessThanOp lt) {
+		writeBinaryOp(lt, SimProgram.LT);
+	}
+
+	@Override
+	public void visit(MinusOp minus) {
+		writeUnaryOp(minus, SimProgram.NEG);
+	}
+
+	@Override
+	public void visit(ModuloOp modulo) {
+		writeBinaryOp(modulo, SimProgram.MOD);
+	}
+
+	@Override
+	public void visit(MultiplyOp multiply) {
+		writeBinaryOp(multiply, SimProgram.MUL);
+	}
+
+	@Override
+	public void visit(NotEqualsOp notEquals) {
+		writeBinaryOp(notEquals, SimProgram.NE);
+	}
+
+	@Override
+	public void visit(NotOp not) {
+		writeUnaryOp(not, SimProgram.LNOT);
+	}
+
+	@Override
+	public void visit(PlusOp plus) {
+		writeUnaryOp(plus, SimProgram.MOV);
+	}
+
+	@Override
+	public void visit(SubtractOp subtract) {
+		writeBinaryOp(subtract, SimProgram.SUB);
+	}
+
+	@Override
+	public void visit(XorOp xor) {
+		writeBinaryOp(xor, SimProgram.XOR);
+	}
+
+	@Override
+	public void visit(Not n) {
+		writeUnaryOp(n, SimProgram.LNOT);
+	}
+
+	@Override
+	public void visit(RightShiftOp rightShift) {
+		writeBinaryOp(rightShift, SimProgram.SHR);
+	}
+
+	@Override
+	public void visit(RightShiftUnsignedOp rightShiftUnsigned) {
+		assert rightShiftUnsigned.getDataPorts().size() == 2;
+		final Bus bus1 = rightShiftUnsigned.getDataPorts().get(0).getBus();
+		final Bus bus2 = rightShiftUnsigned.getDataPorts().get(1).getBus();
+		// The left operand is shifted as an unsigned value of its size
+		program.update(SimProgram.USHR, getNet(getResultBus(rightShiftUnsigned)),
+				getRValue(bus1), getSize(bus1), getRValue(bus2));
+	}
+
+	/*
+	 * Skip the gateway and referee objects, they are only related to sideband
+	 * data movement which we ignore since our memory read and memory write
+	 * objects access memory directly.
+	 */
+	@Override
+	public void visit(RegisterGateway regGateway) {
+	}
+
+	@Override
+	public void visit(MemoryReferee memReferee) {
+	}
+
+	@Override
+	public void visit(MemoryGateway memGateway) {
+	}
+
+	@Override
+	public void visit(RegisterReferee vis) {
+	}
+
+	@Override
+	public void visit(PinReferee vis) {
+	}
+
+	@Override
+	public void visit(EndianSwapper vis) {
+	}
+
+	/*
+	 * These we expect to not traverse
+	 */
+	@Override
+	public void visit(MemoryBank vis) {
+		throw new SimulationException("unexpected traversal of " + vis);
+	}
+
+	@Override
+	public void visit(NoOp vis) {
+		throw new SimulationException("unexpected traversal of " + vis);
+	}
+
+	/*
+	 * These are expected to be obsolete
+	 */
+	@Override
+	public void visit(IPCoreCall vis) {
+		throw new SimulationException("obsolete component " + vis);
+	}
+
+	@Override
+	public void visit(TimingOp vis) {
+		throw new SimulationException("obsolete component " + vis);
+	}
+
+	@Override
+	public void visit(PinRead vis) {
+		throw new SimulationException("obsolete component " + vis);
+	}
+
+	@Override
+	public void visit(PinWrite vis) {
+		throw new SimulationException("obsolete component " + vis);
+	}
+
+	@Override
+	public void visit(PinStateChange vis) {
+		throw new SimulationException("obsolete component " + vis);
+	}
+
+	@Override
+	public void visit(TriBuf vis) {
+		throw new SimulationException("obsolete component " + vis);
+	}
+
+	@Override
+	public void visit(ShortcutIfElseOp vis) {
+		throw new SimulationException("obsolete component " + vis);
+	}
+
+	@Override
+	public void visit(NumericPromotionOp vis) {
+		throw new SimulationException("obsolete component " + vis);
+	}
+
+	@Override
+	public void visit(PriorityMux vis) {
+		throw new SimulationException("obsolete component " + vis);
+	}
+
+	/**
+	 * Emits the request of a memory access: the address (and data of a
+	 * write) are latched on go and the access is done one cycle later.
+	 */
+	private void startAccess(MemoryAccess access, int port, int data) {
+		final int go = getRValue(access.getGoPort().getBus());
+		program.update(SimProgram.MEM_ACCESS, -1, port, go,
+				getRValue(access.getAddressPort().getBus()), data,
+				getAccessBytes(access));
+		addPending(access.getExit(Exit.DONE).getDoneBus(), go);
+	}
+
+	/**
+	 * Makes the done bus follow the go of the previous cycle.
+	 */
+	private void addPending(Bus done, int go) {
+		final int pending = program.makeNet(1, false, 0);
+		program.update(SimProgram.FLAG, pending, go, -1);
+		program.tick(SimProgram.COPY, getNet(done), pending, -1);
+	}
+
+	private void writeUnaryOp(Component op, int opcode) {
+		program.update(opcode, getNet(getResultBus(op)), getRValue(op
+				.getDataPorts().get(0).getBus()), -1);
+	}
+
+	private void writeBinaryOp(Component op, int opcode) {
+		assert op.getDataPorts().size() == 2 : "Not 2 ports on " + op + " "
+				+ op.getDataPorts().size();
+		program.update(opcode, getNet(getResultBus(op)), getRValue(op
+				.getDataPorts().get(0).getBus()), getRValue(op.getDataPorts()
+				.get(1).getBus()));
+	}
+
+	private void writeNaryOp(Component op, int opcode) {
+		final List<Port> ports = op.getDataPorts();
+		final int[] inputs = new int[ports.size()];
+		int i = 0;
+		for (Iterator<Port> iter = ports.iterator(); iter.hasNext();) {
+			inputs[i++] = getRValue(iter.next().getBus());
+		}
+		program.update(opcode, getNet(getResultBus(op)),
+				program.addArgs(inputs), inputs.length);
+	}
+
+	private static Bus getResultBus(Component op) {
+		return op.getExit(Exit.DONE).getDataBuses().get(0);
+	}
+
+	/**
+	 * Drives a bus with a net. The bus shares the net when it has not been
+	 * read yet and carries the same kind of value, otherwise the value is
+	 * copied.
+	 */
+	private void connect(Bus bus, int source) {
+		final Integer net = nets.get(bus);
+		if (net == null && program.getWidth(source) == getSize(bus)
+				&& program.isSigned(source) == isSigned(bus)) {
+			nets.put(bus, source);
+		} else {
+			program.update(SimProgram.MOV, getNet(bus), source, -1);
+		}
+	}
+
+	/**
+	 * Gets the net read for the value of a bus, constant values being read
+	 * from a net which is never written.
+	 */
+	private int getRValue(Bus bus) {
+		if (bus.getValue() != null && bus.getValue().isConstant()) {
+			Integer net = constants.get(bus);
+			if (net == null) {
+				net = program.makeNet(getSize(bus), isSigned(bus), bus
+						.getValue().isDontCare() ? 0 : bus.getValue()
+						.getValueMask());
+				constants.put(bus, net);
+			}
+			return net;
+		}
+		return getNet(bus);
+	}
+
+	/**
+	 * Gets the net of a bus, allocating it on its first use.
+	 */
+	private int getNet(Bus bus) {
+		Integer net = nets.get(bus);
+		if (net == null) {
+			net = makeNet(bus);
+			nets.put(bus, net);
+		}
+		return net;
+	}
+
+	private int makeNet(Bus bus) {
+		return program.makeNet(getSize(bus), isSigned(bus), 0);
+	}
+
+	private static int getSize(Bus bus) {
+		return bus.getValue() == null ? 64 : bus.getValue().getSize();
+	}
+
+	private static boolean isSigned(Bus bus) {
+		return bus.getValue() != null && bus.getValue().isSigned();
+	}
+
+	/**
+	 * Gets the net of a pin. Internal pins are wires, carried by the source
+	 * of the pin, which are cleared at the start of each cycle as are the
+	 * wired-or external pins which are written.
+	 */
+	private int getPinNet(SimplePin pin, boolean written) {
+		Integer net = pinNets.get(pin);
+		if (net == null) {
+			if (pin instanceof SimpleInternalPin) {
+				net = getNet(pin.getXLatData().getSource());
+				written = true;
+			} else {
+				net = program.makeNet(pin.getWidth(), false, 0);
+			}
+			pinNets.put(pin, net);
+		}
+		if (written && clearedPins.add(pin)) {
+			program.pre(SimProgram.CLEAR, net, -1, -1);
+		}
+		return net;
+	}
+
+	private int[] getRegister(Register register) {
+		int[] state = registers.get(register);
+		if (state == null) {
+			final int width = register.getInitWidth();
+			final int out = program.makeNet(width, Register.isSigned(),
+					getValue(register.getInitialValue().getRep(),
+							AddressStridePolicy.BYTE_ADDRESSING));
+			final int next = program.makeNet(width, Register.isSigned(), 0);
+			final int enable = program.makeNet(1, false, 0);
+			state = new int[] { out, next, enable };
+			registers.put(register, state);
+			program.tick(SimProgram.LOAD_IF, out, enable, next);
+		}
+		return state;
+	}
+
+	private int getMemoryPort(LogicalMemoryPort memoryPort) {
+		Integer port = memoryPorts.get(memoryPort);
+		if (port == null) {
+			port = program.addMemoryPort(getMemory(memoryPort
+					.getLogicalMemory()));
+			memoryPorts.put(memoryPort, port);
+			program.tick(SimProgram.MEM_TICK, -1, port, -1);
+		}
+		return port;
+	}
+
+	/**
+	 * Gets the memory of a logical memory, whose contents are the initial
+	 * values of its banks, row by row, each bank word being stored least
+	 * significant byte first.
+	 */
+	private int getMemory(LogicalMemory memory) {
+		Integer index = memories.get(memory);
+		if (index == null) {
+			final StructuralMemory sm = memory.getStructuralMemory();
+			final int size = sm.getAddressableLocations();
+			final AddressStridePolicy addressPolicy = memory
+					.getAddressStridePolicy();
+			final int stride = addressPolicy.getStride();
+			if (!(stride == 8 || stride == 16 || stride == 32 || stride == 64)
+					&& stride != sm.getDataWidth()) {
+				throw new SimulationException(
+						"Cannot simulate memory with stride of " + stride
+								+ " and width of " + sm.getDataWidth());
+			}
+
+			final List<MemoryBank> banks = sm.getBanks();
+			final int numBanks = banks.size();
+			final int mbWidth = banks.get(0).getWidth();
+			final int numLines = (int) Math.ceil((double) size
+					/ (double) (mbWidth * numBanks));
+			final int wordBytes = getBytes(mbWidth);
+
+			final byte[] contents = new byte[numLines * numBanks * wordBytes];
+			int offset = 0;
+			for (int row = 0; row < numLines; row++) {
+				for (MemoryBank mb : banks) {
+					final long value = getValue(mb.getInitValues()[row],
+							addressPolicy);
+					for (int i = 0; i < wordBytes; i++) {
+						contents[offset++] = (byte) (value >>> (8 * i));
+					}
+				}
+			}
+			index = program.addMemory(contents);
+			memories.put(memory, index);
+		}
+		return index;
+	}
+
+	/**
+	 * Gets the number of bytes of the C type which holds a value.
+	 */
+	private static int getBytes(int width) {
+		if (width <= 8) {
+			return 1;
+		} else if (width <= 16) {
+			return 2;
+		} else if (width <= 32) {
+			return 4;
+		}
+		return 8;
+	}
+
+	private static int getAccessBytes(MemoryAccess access) {
+		return getBytes(access.getWidth());
+	}
+
+	/**
+	 * Gets the value of a representation for the endianness of the
+	 * compilation.
+	 */
+	private static long getValue(AddressableUnit[] rep,
+			AddressStridePolicy policy) {
+		final boolean isLittleEndian = EngineThread.getGenericJob()
+				.getUnscopedBooleanOptionValue(OptionRegistry.LITTLE_ENDIAN);
+		AddressableUnit[] theRep = rep;
+		if (!isLittleEndian) {
+			theRep = new AddressableUnit[rep.length];
+			for (int i = 0; i < rep.length; i++) {
+				theRep[i] = rep[rep.length - 1 - i];
+			}
+		}
+		return AddressableUnit.getCompositeValue(theRep, policy).longValue();
+	}
+
+}
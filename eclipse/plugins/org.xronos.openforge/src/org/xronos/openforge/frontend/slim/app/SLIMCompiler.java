@@ -25,11 +25,6 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-
-
 import org.w3c.dom.Document;
 import org.xronos.openforge.app.GenericJob;
 import org.xronos.openforge.app.NewJob;
@@ -40,6 +35,7 @@ import org.xronos.openforge.lim.Design;
 import org.xronos.openforge.lim.naming.LIMLogicalNamer;
 import org.xronos.openforge.optimize.Optimizer;
 import org.xronos.openforge.schedule.Scheduler;
+import org.xronos.openforge.util.xml.CompactDocumentBuilder;
 import org.xronos.openforge.verilog.translate.PassThroughComponentRemover;
 import org.xronos.openforge.verilog.translate.VerilogNaming;
 import org.xronos.openforge.verilog.translate.VerilogTranslator;
@@ -64,15 +60,8 @@ public class SLIMCompiler {
 		final File input = targetFiles[0];
 		Document document = null;
 		try {
-			DocumentBuilderFactory domFactory = DocumentBuilderFactory
-					.newInstance();
-			DocumentBuilder domBuilder = domFactory.newDocumentBuilder();
 			System.out.println("RUN A SCHEMA ON ME!");
-			document = domBuilder.parse(input);
-		} catch (ParserConfigurationException pce) {
-			throw new SLIMBuilderException("error in configuration " + pce);
-		} catch (org.xml.sax.SAXException saxe) {
-			throw new SLIMBuilderException("sax error " + saxe);
+			document = CompactDocumentBuilder.read(input);
 		} catch (IOException ioe) {
 			throw new SLIMBuilderException("io error " + ioe);
 		}
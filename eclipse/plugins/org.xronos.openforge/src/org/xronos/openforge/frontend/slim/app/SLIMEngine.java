@@ -19,17 +19,13 @@ package org.xronos.openforge.frontend.slim.app;
 import java.io.File;
 import java.io.IOException;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-
-
 import org.w3c.dom.Document;
 import org.xronos.openforge.app.Engine;
 import org.xronos.openforge.app.GenericJob;
 import org.xronos.openforge.frontend.slim.builder.SLIMBuilder;
 import org.xronos.openforge.frontend.slim.builder.SLIMBuilderException;
 import org.xronos.openforge.lim.Design;
+import org.xronos.openforge.util.xml.CompactDocumentBuilder;
 
 /**
  * SLIMEngine is a stub class that extends the Engine class and is used to
@@ -58,15 +54,8 @@ public class SLIMEngine extends Engine {
 		final File input = targetFiles[0];
 		Document document = null;
 		try {
-			DocumentBuilderFactory domFactory = DocumentBuilderFactory
-					.newInstance();
-			DocumentBuilder domBuilder = domFactory.newDocumentBuilder();
 			System.out.println("RUN A SCHEMA ON ME!");
-			document = domBuilder.parse(input);
-		} catch (ParserConfigurationException pce) {
-			throw new SLIMBuilderException("error in configuration " + pce);
-		} catch (org.xml.sax.SAXException saxe) {
-			throw new SLIMBuilderException("sax error " + saxe);
+			document = CompactDocumentBuilder.read(input);
 		} catch (IOException ioe) {
 			throw new SLIMBuilderException("io error " + ioe);
 		}
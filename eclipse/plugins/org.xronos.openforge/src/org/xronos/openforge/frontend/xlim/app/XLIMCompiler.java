@@ -25,16 +25,9 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-
-
-import org.w3c.dom.Document;
 import org.xronos.openforge.app.GenericJob;
 import org.xronos.openforge.app.NewJob;
 import org.xronos.openforge.app.OptionRegistry;
-import org.xronos.openforge.frontend.slim.builder.SLIMBuilderException;
 import org.xronos.openforge.frontend.xlim.builder.XLIMBuilder;
 import org.xronos.openforge.lim.Design;
 import org.xronos.openforge.lim.naming.LIMLogicalNamer;
@@ -62,22 +55,8 @@ public class XLIMCompiler {
 				+ targetFiles.length;
 
 		final File input = targetFiles[0];
-		Document document = null;
-		try {
-			DocumentBuilderFactory domFactory = DocumentBuilderFactory
-					.newInstance();
-			DocumentBuilder domBuilder = domFactory.newDocumentBuilder();
-			System.out.println("RUN A SCHEMA ON ME!");
-			document = domBuilder.parse(input);
-		} catch (ParserConfigurationException pce) {
-			throw new SLIMBuilderException("error in configuration " + pce);
-		} catch (org.xml.sax.SAXException saxe) {
-			throw new SLIMBuilderException("sax error " + saxe);
-		} catch (IOException ioe) {
-			throw new SLIMBuilderException("io error " + ioe);
-		}
 
-		Design design = new XLIMBuilder().build(document);
+		Design design = new XLIMBuilder().build(input);
 
 		System.out.println("Optimizing");
 		(new Optimizer()).optimize(design);
@@ -22,17 +22,9 @@
 package org.xronos.openforge.frontend.xlim.app;
 
 import java.io.File;
-import java.io.IOException;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-
-
-import org.w3c.dom.Document;
 import org.xronos.openforge.app.Engine;
 import org.xronos.openforge.app.GenericJob;
-import org.xronos.openforge.frontend.slim.builder.SLIMBuilderException;
 import org.xronos.openforge.frontend.xlim.builder.XLIMBuilder;
 import org.xronos.openforge.lim.Design;
 
@@ -62,22 +54,8 @@ public class XLIMEngine extends Engine {
 				+ targetFiles.length;
 
 		final File input = targetFiles[0];
-		Document document = null;
-		try {
-			DocumentBuilderFactory domFactory = DocumentBuilderFactory
-					.newInstance();
-			DocumentBuilder domBuilder = domFactory.newDocumentBuilder();
-			System.out.println("RUN A SCHEMA ON ME!");
-			document = domBuilder.parse(input);
-		} catch (ParserConfigurationException pce) {
-			throw new SLIMBuilderException("error in configuration " + pce);
-		} catch (org.xml.sax.SAXException saxe) {
-			throw new SLIMBuilderException("sax error " + saxe);
-		} catch (IOException ioe) {
-			throw new SLIMBuilderException("io error " + ioe);
-		}
 		long t0 = System.currentTimeMillis();
-		Design design = new XLIMBuilder().build(document);
+		Design design = new XLIMBuilder().build(input);
 		long t1 = System.currentTimeMillis();
 		System.out.println("XLIM Builder took: "
 				+ ((float) (t1 - t0) / (float) 1000) + "s\n");
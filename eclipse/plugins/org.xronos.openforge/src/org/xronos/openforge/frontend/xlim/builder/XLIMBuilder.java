@@ -18,16 +18,26 @@ package org.xronos.openforge.frontend.xlim.builder;
 
 import static org.xronos.openforge.util.xml.Util.xpathEvalNode;
 
-import javax.xml.transform.Transformer;
+import java.io.File;
+import java.io.IOException;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import org.xronos.openforge.app.EngineThread;
+import org.xronos.openforge.app.OptionRegistry;
 import org.xronos.openforge.frontend.slim.builder.SLIMBuilder;
+import org.xronos.openforge.frontend.slim.builder.SLIMBuilderException;
 import org.xronos.openforge.frontend.slim.builder.SLIMConstants;
 import org.xronos.openforge.lim.Design;
 import org.xronos.openforge.util.io.ClassLoaderStreamLocator;
+import org.xronos.openforge.util.io.StreamLocator;
+import org.xronos.openforge.util.xml.CompactDocumentBuilder;
 import org.xronos.openforge.util.xml.Util;
 
 /**
@@ -56,6 +66,38 @@ public class XLIMBuilder extends org.xml.sax.helpers.DefaultHandler {
 
 	}
 
+	/**
+	 * Builds the design of an XLIM file. Unless the intermediate documents
+	 * are dumped, the file is read by the first XLIM to SLIM transformation,
+	 * the following ones run one at a time on the document of the previous
+	 * one, and the SLIM result is built by a {@link CompactDocumentBuilder}.
+	 * 
+	 * @param xlimFile
+	 *            the XLIM input
+	 * @return a non-null Design
+	 */
+	public Design build(File xlimFile) {
+		if (stageDumps()) {
+			final Document document;
+			try {
+				document = CompactDocumentBuilder.read(xlimFile);
+			} catch (IOException ioe) {
+				throw new SLIMBuilderException("io error " + ioe);
+			}
+			return build(document);
+		}
+
+		final CompactDocumentBuilder slim = new CompactDocumentBuilder();
+		try {
+			Util.applyTransforms(new StreamSource(xlimFile),
+					getTemplates(), Util.getSaxonImplementation(), xlimLocator,
+					new SAXResult(slim));
+		} catch (Exception e) {
+			throw new RuntimeException("Error generating SLIM from XLIM.", e);
+		}
+		return slimBuilder.build(slim.getDocument().getDocumentElement());
+	}
+
 	public Design build(Node design) {
 
 		Node n = null;
@@ -73,7 +115,25 @@ public class XLIMBuilder extends org.xml.sax.helpers.DefaultHandler {
 	}
 
 	public Node xlim2slim(Node n) throws Exception {
-		return Util.applyTransforms(n, xlimTransforms);
+		if (stageDumps()) {
+			// Every intermediate document is written out, so transform
+			// the DOM tree stage by stage
+			return Util.applyTransforms(n, Util.getTransformersAsResources(
+					xlimTransformPaths, Util.getSaxonImplementation(),
+					xlimLocator));
+		}
+		return Util.applyTransformsAsResources(n, xlimTransformPaths,
+				Util.getSaxonImplementation(), xlimLocator);
+	}
+
+	private Templates[] getTemplates() {
+		return Util.getTemplatesAsResources(xlimTransformPaths,
+				Util.getSaxonImplementation(), xlimLocator);
+	}
+
+	private static boolean stageDumps() {
+		return EngineThread.getGenericJob().getUnscopedBooleanOptionValue(
+				OptionRegistry.XLIM_STAGE_DUMPS);
 	}
 
 	private final SLIMBuilder slimBuilder;
@@ -97,8 +157,6 @@ public class XLIMBuilder extends org.xml.sax.helpers.DefaultHandler {
 			"org/xronos/openforge/frontend/xlim/transforms/XLIMTagify.xslt",
 			"org/xronos/openforge/frontend/xlim/transforms/XLIMAddControlDeps.xslt" };
 
-	private final Transformer[] xlimTransforms = Util
-			.getTransformersAsResources(xlimTransformPaths, Util
-					.getSaxonImplementation(), new ClassLoaderStreamLocator(
-					XLIMBuilder.class.getClassLoader()));
+	private final StreamLocator xlimLocator = new ClassLoaderStreamLocator(
+			XLIMBuilder.class.getClassLoader());
 }
@@ -49,7 +49,9 @@ class AbsoluteLatency extends Latency implements Cloneable {
 
 	@Override
 	public boolean isGE(Latency latency) {
-		if (latency.isOpen()) {
+		if (latency == this) {
+			return true;
+		} else if (latency.isOpen()) {
 			return false;
 		} else if (equals(latency)) {
 			return true;
@@ -75,7 +77,9 @@ class AbsoluteLatency extends Latency implements Cloneable {
 
 	@Override
 	public boolean equals(Object object) {
-		if (object instanceof AbsoluteLatency) {
+		if (object == this) {
+			return true;
+		} else if (object instanceof AbsoluteLatency) {
 			AbsoluteLatency latency = (AbsoluteLatency) object;
 			return (getMinClocks() == latency.getMinClocks()
 					&& getMaxClocks() == latency.getMaxClocks() && getKey() == latency
@@ -124,7 +128,7 @@ class AbsoluteLatency extends Latency implements Cloneable {
 		if (minClocks == 0 && maxClocks == 0) {
 			return this;
 		} else {
-			return new AbsoluteLatency(getMinClocks() + minClocks,
+			return Latency.getAbsolute(getMinClocks() + minClocks,
 					getMaxClocks() + maxClocks);
 		}
 	}
@@ -148,7 +152,7 @@ class AbsoluteLatency extends Latency implements Cloneable {
 	 */
 	@Override
 	public Object clone() throws CloneNotSupportedException {
-		if (this == Latency.ZERO || this == Latency.ONE) {
+		if (Latency.isShared(this)) {
 			return this;
 		}
 		return super.clone();
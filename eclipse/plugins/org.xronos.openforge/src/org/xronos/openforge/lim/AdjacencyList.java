@@ -0,0 +1,251 @@
+/*******************************************************************************
+ * Copyright 2002-2009  Xilinx Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+/*
+ * 
+ *
+ * 
+ */
+package org.xronos.openforge.lim;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * AdjacencyList is a compact, array backed list of the {@link Port Ports},
+ * {@link Bus Buses}, {@link Exit Exits} or {@link Dependency Dependencies}
+ * connected to a LIM object. It is read by the visitors through
+ * {@link #view()}, an unmodifiable {@link RandomAccess} list which is created
+ * once and then shared until the next modification, so that reading the
+ * connectivity of the graph does not allocate.
+ * <p>
+ * A view is a snapshot: the array it wraps is never written again, the list
+ * copies its array on the first modification after a view was handed out.
+ * Thus the graph may be modified while iterating over a view, as was the case
+ * with the lists which were copied on every call.
+ * <p>
+ * Only the LIM classes modify an AdjacencyList.
+ */
+public final class AdjacencyList<E> {
+
+	private static final Object[] EMPTY = {};
+
+	/** The elements, only the first size are valid */
+	private Object[] elements = EMPTY;
+
+	/** The number of elements */
+	private int size = 0;
+
+	/** The view of the current elements, null if none was handed out */
+	private View<E> view = null;
+
+	/**
+	 * Constructs an empty list.
+	 */
+	AdjacencyList() {
+	}
+
+	/**
+	 * Constructs an empty list with room for the given number of elements.
+	 */
+	AdjacencyList(int capacity) {
+		if (capacity > 0) {
+			elements = new Object[capacity];
+		}
+	}
+
+	/**
+	 * Gets the number of elements.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Tests whether this list is empty.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Gets the element at the given index.
+	 */
+	@SuppressWarnings("unchecked")
+	public E get(int index) {
+		if (index >= size) {
+			throw new IndexOutOfBoundsException("index " + index + " size "
+					+ size);
+		}
+		return (E) elements[index];
+	}
+
+	/**
+	 * Gets the index of the first element equal to the given object.
+	 * 
+	 * @return the index, or -1 if not found
+	 */
+	public int indexOf(Object o) {
+		for (int i = 0; i < size; i++) {
+			if (o == null ? elements[i] == null : o.equals(elements[i])) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Tests whether an element is equal to the given object.
+	 */
+	public boolean contains(Object o) {
+		return indexOf(o) >= 0;
+	}
+
+	/**
+	 * Gets an unmodifiable view of the current elements. The same view is
+	 * returned until this list is modified.
+	 * 
+	 * @return a random access list of the elements
+	 */
+	public List<E> view() {
+		if (view == null) {
+			view = new View<E>(elements, size);
+		}
+		return view;
+	}
+
+	/**
+	 * Appends an element.
+	 */
+	void add(E element) {
+		writable(size + 1)[size++] = element;
+	}
+
+	/**
+	 * Appends an element unless an equal one is already present, as a set
+	 * would.
+	 * 
+	 * @return true if the element was added
+	 */
+	boolean addAbsent(E element) {
+		if (contains(element)) {
+			return false;
+		}
+		add(element);
+		return true;
+	}
+
+	/**
+	 * Inserts an element at the given index.
+	 */
+	void add(int index, E element) {
+		if (index > size) {
+			throw new IndexOutOfBoundsException("index " + index + " size "
+					+ size);
+		}
+		final Object[] array = writable(size + 1);
+		System.arraycopy(array, index, array, index + 1, size - index);
+		array[index] = element;
+		size++;
+	}
+
+	/**
+	 * Removes the first element equal to the given object.
+	 * 
+	 * @return true if an element was removed
+	 */
+	boolean remove(Object o) {
+		final int index = indexOf(o);
+		if (index < 0) {
+			return false;
+		}
+		remove(index);
+		return true;
+	}
+
+	/**
+	 * Removes the element at the given index.
+	 * 
+	 * @return the removed element
+	 */
+	E remove(int index) {
+		final E removed = get(index);
+		final Object[] array = writable(size);
+		System.arraycopy(array, index + 1, array, index, size - index - 1);
+		array[--size] = null;
+		return removed;
+	}
+
+	/**
+	 * Removes all the elements.
+	 */
+	void clear() {
+		elements = EMPTY;
+		size = 0;
+		view = null;
+	}
+
+	/**
+	 * Gets an array which may be written and holds at least the given number
+	 * of elements, copying the elements if they are shared with a view or if
+	 * the array is too small.
+	 */
+	private Object[] writable(int capacity) {
+		if (view != null || capacity > elements.length) {
+			final Object[] array = new Object[Math.max(capacity,
+					elements.length < 4 ? 4 : elements.length * 2)];
+			System.arraycopy(elements, 0, array, 0, size);
+			elements = array;
+			view = null;
+		}
+		return elements;
+	}
+
+	@Override
+	public String toString() {
+		return view().toString();
+	}
+
+	/**
+	 * An unmodifiable snapshot of the elements.
+	 */
+	private static final class View<E> extends AbstractList<E> implements
+			RandomAccess {
+		private final Object[] elements;
+		private final int size;
+
+		View(Object[] elements, int size) {
+			this.elements = elements;
+			this.size = size;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public E get(int index) {
+			if (index >= size) {
+				throw new IndexOutOfBoundsException("index " + index
+						+ " size " + size);
+			}
+			return (E) elements[index];
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+
+}
@@ -45,6 +45,9 @@ class AndLatency extends Latency {
 	 */
 	private boolean openState;
 
+	/** Cached hash code, since the constituents never change */
+	private final int hash;
+
 	public Set<Latency> __getSet() {
 		return latencies;
 	}
@@ -162,7 +165,7 @@ class AndLatency extends Latency {
 	public int hashCode() {
 		// See note in equals method.
 		// return latencies.hashCode() + getKey().hashCode();
-		return latencies.hashCode();
+		return hash;
 	}
 
 	@Override
@@ -199,6 +202,7 @@ class AndLatency extends Latency {
 		super(getMinClocks(lats), getMaxClocks(lats), key);
 
 		latencies = flatten(lats);
+		hash = latencies.hashCode();
 
 		// Cache the 'open' state
 		openState = false;
@@ -63,11 +63,11 @@ public class Bus extends ID {
 	 */
 	private Port peer = null;
 
-	/** Collection of Ports; accessed directly by Port */
-	Collection<Port> ports;// = new HashSet<Port>(3);
+	/** Set of Ports; accessed directly by Port */
+	AdjacencyList<Port> ports;
 
-	/** Collection of Dependencys; accessed directly by Dependency */
-	Collection<Dependency> logicalDependents;// = new HashSet<Dependency>(3);
+	/** Set of Dependencys; accessed directly by Dependency */
+	AdjacencyList<Dependency> logicalDependents;
 
 	/** True if significant, false if ignorable */
 	private boolean isUsed = false;
@@ -376,8 +376,8 @@ public class Bus extends ID {
 	 */
 	public Bus(Exit owner) {
 		this.owner = owner;
-		this.ports = new HashSet<Port>(3);
-		this.logicalDependents = new HashSet<Dependency>(3);
+		this.ports = new AdjacencyList<Port>();
+		this.logicalDependents = new AdjacencyList<Dependency>();
 	}
 
 	/**
@@ -405,14 +405,14 @@ public class Bus extends ID {
 	 *         to a Port are not returned
 	 */
 	public Collection<Dependency> getLogicalDependents() {
-		return logicalDependents;
+		return logicalDependents.view();
 	}
 
 	/**
 	 * Tests whether this bus is connected to at least one port or not.
 	 */
 	public boolean isConnected() {
-		return !getPorts().isEmpty();
+		return !ports.isEmpty();
 	}
 
 	/**
@@ -421,7 +421,7 @@ public class Bus extends ID {
 	 * @return a collection of Ports
 	 */
 	public Collection<Port> getPorts() {
-		return ports;
+		return ports.view();
 	}
 
 	/**
@@ -23,9 +23,7 @@ package org.xronos.openforge.lim;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -82,13 +80,32 @@ public abstract class Component extends ID implements Visitable, Cloneable,
 	private Port thisPort;
 
 	/** List of argument Ports */
-	protected List<Port> dataPorts;// = new LinkedList<Port>();
+	protected AdjacencyList<Port> dataPorts;
 
 	/** Entry */
 	protected List<Entry> entries;// = new LinkedList<Entry>();
 
-	/** Map of Exit.Tag to Exit */
-	Map<Exit.Tag, Exit> exits;// = new HashMap<Exit.Tag, Exit>();
+	/** List of Exits, each with a unique Exit.Tag */
+	AdjacencyList<Exit> exits;
+
+	/**
+	 * The ports as returned by {@link #getPorts()}, rebuilt when null after a
+	 * port has been added or removed.
+	 */
+	private AdjacencyList<Port> portList;
+
+	/**
+	 * The data ports including the 'this' port, rebuilt when null after a port
+	 * has been added or removed.
+	 */
+	private AdjacencyList<Port> dataPortList;
+
+	/**
+	 * The buses and data buses of all exits, rebuilt when null after an exit
+	 * or a bus has been added or removed.
+	 */
+	private AdjacencyList<Bus> busList;
+	private AdjacencyList<Bus> dataBusList;
 
 	/** Natural log of 2 */
 	private static final double LN_2 = Math.log(2);
@@ -158,7 +175,7 @@ public abstract class Component extends ID implements Visitable, Cloneable,
 		resetPort.setUsed(false);
 		goPort.setUsed(false);
 		entries = new LinkedList<Entry>();
-		exits = new HashMap<Exit.Tag, Exit>();
+		exits = new AdjacencyList<Exit>(1);
 		cloneListeners = Collections.emptyList();
 		attributes = Collections.emptyList();
 		schedCallbacks = Collections.emptyList();
@@ -167,13 +184,9 @@ public abstract class Component extends ID implements Visitable, Cloneable,
 			throw new IllegalArgumentException("negative dataCount");
 		}
 
-		if (dataCount > 0) {
-			dataPorts = new LinkedList<Port>();
-			for (int i = 0; i < dataCount; i++) {
-				makeDataPort();
-			}
-		} else {
-			dataPorts = new LinkedList<Port>();
+		dataPorts = new AdjacencyList<Port>(dataCount);
+		for (int i = 0; i < dataCount; i++) {
+			makeDataPort();
 		}
 	}
 
@@ -388,17 +401,20 @@ public abstract class Component extends ID implements Visitable, Cloneable,
 	 * @return a Collection of {@link Port Ports}
 	 */
 	public List<Port> getPorts() {
-		// The 'this' port is included in the ports returned from the
-		// data ports.
-		List<Port> dataPortsList = getDataPorts();
-
-		int portCount = dataPortsList.size() + 3;
-		List<Port> list = new ArrayList<Port>(portCount);
-		list.add(getClockPort());
-		list.add(getResetPort());
-		list.add(getGoPort());
-		list.addAll(dataPortsList);
-		return list;
+		if (portList == null) {
+			// The 'this' port is included in the ports returned from the
+			// data ports.
+			List<Port> dataPortsList = getDataPorts();
+
+			portList = new AdjacencyList<Port>(dataPortsList.size() + 3);
+			portList.add(getClockPort());
+			portList.add(getResetPort());
+			portList.add(getGoPort());
+			for (int i = 0; i < dataPortsList.size(); i++) {
+				portList.add(dataPortsList.get(i));
+			}
+		}
+		return portList.view();
 	}
 
 	/**
@@ -446,13 +462,24 @@ public abstract class Component extends ID implements Visitable, Cloneable,
 	 */
 	public List<Port> getDataPorts() {
 		if (getThisPort() == null) {
-			return dataPorts;
-		} else {
-			ArrayList<Port> dpList = new ArrayList<Port>(dataPorts.size() + 1);
-			dpList.add(getThisPort());
-			dpList.addAll(dataPorts);
-			return dpList;
+			return dataPorts.view();
 		}
+		if (dataPortList == null) {
+			dataPortList = new AdjacencyList<Port>(dataPorts.size() + 1);
+			dataPortList.add(getThisPort());
+			for (int i = 0; i < dataPorts.size(); i++) {
+				dataPortList.add(dataPorts.get(i));
+			}
+		}
+		return dataPortList.view();
+	}
+
+	/**
+	 * Discards the port lists after a port has been added or removed.
+	 */
+	private void portsChanged() {
+		portList = null;
+		dataPortList = null;
 	}
 
 	/**
@@ -461,11 +488,15 @@ public abstract class Component extends ID implements Visitable, Cloneable,
 	 * @return a collection of {@link Bus buses}
 	 */
 	public Collection<Bus> getDataBuses() {
-		List<Bus> list = new LinkedList<Bus>();
-		for (Exit exit : exits.values()) {
-			list.addAll(exit.getDataBuses());
+		if (dataBusList == null) {
+			dataBusList = new AdjacencyList<Bus>();
+			for (int i = 0; i < exits.size(); i++) {
+				for (Bus bus : exits.get(i).getDataBuses()) {
+					dataBusList.add(bus);
+				}
+			}
 		}
-		return list;
+		return dataBusList.view();
 	}
 
 	/**
@@ -474,11 +505,24 @@ public abstract class Component extends ID implements Visitable, Cloneable,
 	 * @return a list of {@link Bus Buses}
 	 */
 	public Collection<Bus> getBuses() {
-		List<Bus> list = new LinkedList<Bus>();
-		for (Exit exit : exits.values()) {
-			list.addAll(exit.getBuses());
+		if (busList == null) {
+			busList = new AdjacencyList<Bus>();
+			for (int i = 0; i < exits.size(); i++) {
+				for (Bus bus : exits.get(i).getBuses()) {
+					busList.add(bus);
+				}
+			}
 		}
-		return list;
+		return busList.view();
+	}
+
+	/**
+	 * Discards the bus lists after an {@link Exit} or one of its buses has been
+	 * added or removed.
+	 */
+	void busesChanged() {
+		busList = null;
+		dataBusList = null;
 	}
 
 	/**
@@ -487,7 +531,7 @@ public abstract class Component extends ID implements Visitable, Cloneable,
 	 * @return a collection of Exit objects
 	 */
 	public Collection<Exit> getExits() {
-		return new ArrayList<Exit>(exits.values());
+		return exits.view();
 	}
 
 	/**
@@ -519,7 +563,13 @@ public abstract class Component extends ID implements Visitable, Cloneable,
 	 * @return the specified exit, or null if not found
 	 */
 	public Exit getExit(Exit.Tag tag) {
-		return exits.get(tag);
+		for (int i = 0; i < exits.size(); i++) {
+			final Exit exit = exits.get(i);
+			if (exit.getTag().equals(tag)) {
+				return exit;
+			}
+		}
+		return null;
 	}
 
 	/**
@@ -564,12 +614,20 @@ public abstract class Component extends ID implements Visitable, Cloneable,
 	public Exit makeExit(int dataCount, Exit.Type type, String label) {
 		Exit exit = createExit(dataCount, type, label);
 		exit.setLatency(Latency.ZERO);
-		assert !exits.containsKey(exit.getTag()) : "Duplicate Exit tag: "
-				+ exit.getTag();
-		exits.put(exit.getTag(), exit);
+		addExit(exit);
 		return exit;
 	}
 
+	/**
+	 * Adds a new {@link Exit} to the exits of this component.
+	 */
+	void addExit(Exit exit) {
+		assert getExit(exit.getTag()) == null : "Duplicate Exit tag: "
+				+ exit.getTag();
+		exits.add(exit);
+		busesChanged();
+	}
+
 	/**
 	 * Makes a new unlabeled {@link Exit} for this component. The
 	 * {@link Latency} of the new {@link Exit} will be {@link Latency#ZERO}.
@@ -587,8 +645,9 @@ public abstract class Component extends ID implements Visitable, Cloneable,
 	 * Removes a specified {@link Exit} from this component.
 	 */
 	public void removeExit(Exit exit) {
-		assert exits.containsKey(exit.getTag());
-		exits.remove(exit.getTag());
+		assert getExit(exit.getTag()) != null;
+		exits.remove(getExit(exit.getTag()));
+		busesChanged();
 	}
 
 	/**
@@ -664,6 +723,7 @@ public abstract class Component extends ID implements Visitable, Cloneable,
 			if (thisPort == port) {
 				thisPort = null;
 			}
+			portsChanged();
 
 			if (port.getPeer() != null) {
 				Bus peer = port.getPeer();
@@ -724,10 +784,8 @@ public abstract class Component extends ID implements Visitable, Cloneable,
 		Port port = new Port(this);
 		port.tag(tag);
 		port.setUsed(true); // ABK -- data ports should always be used.
-		if (dataPorts == Collections.EMPTY_LIST) {
-			dataPorts = new LinkedList<Port>();
-		}
 		dataPorts.add(port);
+		portsChanged();
 		return port;
 	}
 
@@ -765,6 +823,7 @@ public abstract class Component extends ID implements Visitable, Cloneable,
 		assert getThisPort() == null : "Cannot create 'this' port multiple times";
 		Port port = new Port(this);
 		thisPort = port;
+		portsChanged();
 		port.setUsed(true);
 		return port;
 	}
@@ -1231,11 +1290,12 @@ public abstract class Component extends ID implements Visitable, Cloneable,
 		clone.resetPort = clonePort(clone, resetPort);
 		clone.goPort = clonePort(clone, goPort);
 		clone.thisPort = null;
+		clone.portsChanged();
 		if (getThisPort() != null) {
 			clone.makeThisPort().copyAttributes(getThisPort());
 		}
-		clone.dataPorts = new LinkedList<Port>();
-		for (Port port : dataPorts) {
+		clone.dataPorts = new AdjacencyList<Port>(dataPorts.size());
+		for (Port port : dataPorts.view()) {
 			Port clonePort = clone.makeDataPort();
 			clonePort.copyAttributes(port);
 		}
@@ -1248,9 +1308,9 @@ public abstract class Component extends ID implements Visitable, Cloneable,
 		/*
 		 * Duplicate the Exits.
 		 */
-		clone.exits = new LinkedHashMap<Exit.Tag, Exit>();
-		for (Map.Entry<Exit.Tag, Exit> mapEntry : exits.entrySet()) {
-			Exit exit = mapEntry.getValue();
+		clone.exits = new AdjacencyList<Exit>(exits.size());
+		clone.busesChanged();
+		for (Exit exit : exits.view()) {
 			cloneExit(clone, exit);
 		}
 
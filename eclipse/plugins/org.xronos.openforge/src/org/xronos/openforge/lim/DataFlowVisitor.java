@@ -21,7 +21,6 @@
 
 package org.xronos.openforge.lim;
 
-import java.util.Collection;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
@@ -438,24 +437,24 @@ public abstract class DataFlowVisitor implements Visitor {
 			// Ensure that all consumers have been processed.
 			boolean isReady = true;
 			for (Bus bus : comp.getBuses()) {
-				Collection<Port> ports;
-				if (bus.getPorts().size() > 0) {
-					ports = new HashSet<Port>(bus.getPorts());
+				// The bus ports and dependents are read in place, they
+				// hold no duplicates and the requeueing is idempotent.
+				final boolean connected = bus.isConnected();
+				for (Port port : bus.getPorts()) {
+					if (!processed.contains(port.getOwner())) {
+						isReady = false;
+						queue.remove(port.getOwner());
+						queue.addFirst(port.getOwner());
+					}
+				}
+				for (Dependency dep : bus.getLogicalDependents()) {
 					// Pick up any resource dependencies as well to
 					// guarantee correct data flow ordering through
 					// global resources.
-					for (Dependency dep : bus.getLogicalDependents()) {
-						if (dep instanceof ResourceDependency) {
-							ports.add(dep.getPort());
-						}
+					if (connected && !(dep instanceof ResourceDependency)) {
+						continue;
 					}
-				} else {
-					ports = new LinkedList<Port>();
-					for (Dependency dependency : bus.getLogicalDependents()) {
-						ports.add(dependency.getPort());
-					}
-				}
-				for (Port port : ports) {
+					final Port port = dep.getPort();
 					if (!processed.contains(port.getOwner())) {
 						isReady = false;
 						queue.remove(port.getOwner());
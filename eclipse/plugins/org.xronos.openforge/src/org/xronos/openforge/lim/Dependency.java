@@ -117,7 +117,7 @@ public abstract class Dependency implements Cloneable {
 		logicalBus = bus;
 
 		if (bus != null && getPort() != null) {
-			bus.logicalDependents.add(this);
+			bus.logicalDependents.addAbsent(this);
 		}
 	}
 
@@ -213,7 +213,7 @@ public abstract class Dependency implements Cloneable {
 	private void addToBuses() {
 		Bus lbus = getLogicalBus();
 		if (lbus != null) {
-			lbus.logicalDependents.add(this);
+			lbus.logicalDependents.addAbsent(this);
 		}
 	}
 
@@ -53,6 +53,7 @@ import org.xronos.openforge.lim.io.actor.ActorNativeScalarOutput;
 import org.xronos.openforge.lim.io.actor.ActorScalarInput;
 import org.xronos.openforge.lim.io.actor.ActorScalarOutput;
 import org.xronos.openforge.lim.memory.LogicalMemory;
+import org.xronos.openforge.util.DenseIndex;
 import org.xronos.openforge.util.naming.ID;
 
 /**
@@ -238,6 +239,9 @@ public class Design extends ID implements Visitable, Cloneable {
 
 	private final DesignModule designModule;
 
+	/** Numbers the components, exits and buses for the scheduling tables */
+	private final DenseIndex scheduleIndex = new DenseIndex();
+
 	public Design() {
 		super();
 		apiClockNameToLIMClockMap.clear();
@@ -1000,6 +1004,15 @@ public class Design extends ID implements Visitable, Cloneable {
 		return apiResetNameToLIMResetMap.values();
 	}
 
+	/**
+	 * Gets the {@link DenseIndex} used while scheduling this design. It is
+	 * cleared once {@link org.xronos.openforge.schedule.Scheduler#schedule}
+	 * finishes.
+	 */
+	public DenseIndex getScheduleIndex() {
+		return scheduleIndex;
+	}
+
 	public SearchLabel getSearchLabel() {
 		// return CodeLabel.UNSCOPED;
 		return searchLabel;
@@ -23,10 +23,7 @@ package org.xronos.openforge.lim;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
 
 import org.xronos.openforge.util.naming.IDSourceInfo;
 
@@ -47,8 +44,11 @@ import org.xronos.openforge.util.naming.IDSourceInfo;
  */
 public class Entry {
 
-	/** Map of Port to Collection of Dependency */
-	private Map<Port, Collection<Dependency>> portMap = new LinkedHashMap<Port, Collection<Dependency>>();
+	/** The Ports which have Dependencies, in the order they were added */
+	private AdjacencyList<Port> ports = new AdjacencyList<Port>();
+
+	/** The Dependencies of each Port, at the same index as the Port */
+	private List<AdjacencyList<Dependency>> dependencies = new ArrayList<AdjacencyList<Dependency>>();
 
 	/** The owner of this Entry */
 	private Component owner;
@@ -90,8 +90,9 @@ public class Entry {
 	 * @return a collection of Dependency objects
 	 */
 	public Collection<Dependency> getDependencies(Port port) {
-		Collection<Dependency> deps = portMap.get(port);
-		return deps == null ? Collections.<Dependency> emptyList() : deps;
+		final int index = ports.indexOf(port);
+		return index < 0 ? Collections.<Dependency> emptyList() : dependencies
+				.get(index).view();
 	}
 
 	/**
@@ -105,10 +106,14 @@ public class Entry {
 	public void addDependency(Port port, Dependency dependency) {
 		assert getPorts().contains(port) : "unknown port";
 
-		Collection<Dependency> deps = portMap.get(port);
-		if (deps == null) {
-			deps = new HashSet<Dependency>(3);
-			portMap.put(port, deps);
+		final int index = ports.indexOf(port);
+		final AdjacencyList<Dependency> deps;
+		if (index < 0) {
+			deps = new AdjacencyList<Dependency>();
+			ports.add(port);
+			dependencies.add(deps);
+		} else {
+			deps = dependencies.get(index);
 		}
 
 		// IDM 01:03 moved to after the 'sets' because the hashcode of
@@ -119,7 +124,7 @@ public class Entry {
 
 		dependency.setPort(port);
 		dependency.setEntry(this);
-		deps.add(dependency);
+		deps.addAbsent(dependency);
 	}
 
 	/**
@@ -133,9 +138,10 @@ public class Entry {
 	 *            the {@link Dependency} to remove
 	 */
 	public void removeDependency(Port port, Dependency toRemove) {
-		assert portMap.containsKey(port) : "Unknown port";
+		assert ports.contains(port) : "Unknown port";
 
-		Collection<Dependency> depsForPort = portMap.get(port);
+		AdjacencyList<Dependency> depsForPort = dependencies.get(ports
+				.indexOf(port));
 		assert depsForPort.contains(toRemove) : "Entry doesn't contain dependency for port. Dep: "
 				+ toRemove + " deps " + depsForPort;
 		depsForPort.remove(toRemove);
@@ -160,12 +166,13 @@ public class Entry {
 		// First disconnect all the dependencies so that we don't have
 		// leftover references to them in the buses that used to be
 		// depended upon.
-		for (Port port : portMap.keySet()) {
+		for (Port port : ports.view()) {
 			clearDependencies(port);
 		}
 
 		// Then clear the map.
-		portMap.clear();
+		ports.clear();
+		dependencies.clear();
 
 		// Remove this entry from the exit which drives it.
 		setDrivingExit(null);
@@ -243,7 +250,7 @@ public class Entry {
 		String ret = "";
 		ret += "Entry " + this + " owner: " + getOwner() + " driving exit "
 				+ drivingExit + "\n";
-		for (Port port : portMap.keySet()) {
+		for (Port port : ports.view()) {
 			String pname = port.toString();
 			if (port == getOwner().getClockPort()) {
 				pname = "Clock<" + pname + ">";
@@ -254,7 +261,7 @@ public class Entry {
 			if (port == getOwner().getGoPort()) {
 				pname = "Go<" + pname + ">";
 			}
-			for (Dependency dependency : portMap.get(port)) {
+			for (Dependency dependency : getDependencies(port)) {
 				ret += pname + " => " + dependency.debug() + "\n";
 			}
 		}
@@ -67,6 +67,12 @@ public class Exit extends ID implements LatencyKey {
 	/** Collection of data Buses */
 	private List<Bus> dataBuses;
 
+	/**
+	 * The done bus followed by the data buses, rebuilt when null after a data
+	 * bus has been added, moved or removed.
+	 */
+	private AdjacencyList<Bus> busList;
+
 	/** The latency from the start of the owner to this Exit */
 	private Latency latency;
 
@@ -76,9 +82,13 @@ public class Exit extends ID implements LatencyKey {
 	 */
 	private Set<Entry> drivenEntries;
 
+	/** The merged latencies keyed by this Exit, created on demand */
+	private LatencyMerges latencyMerges;
+
 	public boolean removeDataBus(Bus bus) {
 		boolean success = dataBuses.remove(bus);
 		if (success) {
+			busesChanged();
 			Port port = bus.getPeer();
 			if (port != null) {
 				bus.setPeer(null);
@@ -269,10 +279,23 @@ public class Exit extends ID implements LatencyKey {
 	 * @return a collection of Buses.
 	 */
 	public Collection<Bus> getBuses() {
-		List<Bus> list = new ArrayList<Bus>(getDataBuses().size() + 1);
-		list.add(getDoneBus());
-		list.addAll(getDataBuses());
-		return list;
+		if (busList == null) {
+			busList = new AdjacencyList<Bus>(dataBuses.size() + 1);
+			busList.add(getDoneBus());
+			for (int i = 0; i < dataBuses.size(); i++) {
+				busList.add(dataBuses.get(i));
+			}
+		}
+		return busList.view();
+	}
+
+	/**
+	 * Discards the bus lists of this exit and of its owner after a data bus
+	 * has been added, moved or removed.
+	 */
+	private void busesChanged() {
+		busList = null;
+		getOwner().busesChanged();
 	}
 
 	/**
@@ -294,6 +317,16 @@ public class Exit extends ID implements LatencyKey {
 		this.latency = latency;
 	}
 
+	/**
+	 * Gets the merged latencies whose key is this Exit.
+	 */
+	LatencyMerges getLatencyMerges() {
+		if (latencyMerges == null) {
+			latencyMerges = new LatencyMerges();
+		}
+		return latencyMerges;
+	}
+
 	/**
 	 * Gets the owner of this exit's done bus, which is considered to be the
 	 * owner of this exit.
@@ -388,6 +421,7 @@ public class Exit extends ID implements LatencyKey {
 		Bus bus = new Bus(this);
 		bus.setUsed(true);
 		dataBuses.add(bus);
+		busesChanged();
 		if (peer != null) {
 			Port port = peer.makeDataPort(type);
 			port.setUsed(true);
@@ -402,6 +436,7 @@ public class Exit extends ID implements LatencyKey {
 		assert dataBuses.contains(bus) : "Exit doesn't know bus";
 		dataBuses.remove(bus);
 		dataBuses.add(index, bus);
+		busesChanged();
 	}
 
 	/**
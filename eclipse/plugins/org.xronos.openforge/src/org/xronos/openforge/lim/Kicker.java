@@ -21,6 +21,8 @@
 
 package org.xronos.openforge.lim;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.xronos.openforge.lim.primitive.And;
 import org.xronos.openforge.lim.primitive.Not;
 import org.xronos.openforge.lim.primitive.Or;
@@ -188,8 +190,11 @@ public class Kicker extends Module implements Composable {
 
 	private static final int GATE_DEPTH = 0;
 
-	/** Keep all instances of Kickers uniquely named */
-	private static int index = 0;
+	/**
+	 * Keep all instances of Kickers uniquely named, designs may be built by
+	 * concurrent jobs
+	 */
+	private static final AtomicInteger index = new AtomicInteger();
 
 	/**
 	 * Build the basic Kicker
@@ -198,7 +203,7 @@ public class Kicker extends Module implements Composable {
 	 *            the initial size in bits of the Latch.
 	 */
 	public Kicker() {
-		this.setIDLogical("Kicker_" + index++);
+		this.setIDLogical("Kicker_" + index.getAndIncrement());
 
 		// make an exit
 		Exit exit = makeExit(0);
@@ -76,6 +76,9 @@ public abstract class Latency implements Cloneable {
 	/** 1 clock */
 	public static final Latency ONE;
 
+	/** The base Latencies of the smaller exact numbers of clocks, by clocks */
+	private static final AbsoluteLatency[] FIXED;
+
 	/** The non-negative minimum number of clocks */
 	private final int minClocks;
 
@@ -114,6 +117,25 @@ public abstract class Latency implements Cloneable {
 		return ZERO.increment(minClocks, maxClocks);
 	}
 
+	/**
+	 * Gets a base AbsoluteLatency, shared with every other user if it
+	 * represents a small exact number of clocks.
+	 */
+	static AbsoluteLatency getAbsolute(int minClocks, int maxClocks) {
+		if (minClocks == maxClocks && minClocks < FIXED.length) {
+			return FIXED[minClocks];
+		}
+		return new AbsoluteLatency(minClocks, maxClocks);
+	}
+
+	/**
+	 * Tests whether a Latency is one of the shared base AbsoluteLatencies.
+	 */
+	static boolean isShared(Latency latency) {
+		final int clocks = latency.getMinClocks();
+		return clocks < FIXED.length && FIXED[clocks] == latency;
+	}
+
 	/**
 	 * Gets the Latency that represents two or more possible clock ranges.
 	 * 
@@ -123,9 +145,12 @@ public abstract class Latency implements Cloneable {
 	public static Latency or(Set<Latency> set, LatencyKey key) {
 		if (set.size() == 1) {
 			return set.iterator().next();
-		} else {
-			return new OrLatency(set, key);
 		}
+		final LatencyMerges merges = LatencyMerges.of(key);
+		if (merges != null) {
+			return merges.or(set, key);
+		}
+		return new OrLatency(set, key);
 	}
 
 	/**
@@ -137,9 +162,12 @@ public abstract class Latency implements Cloneable {
 	public static Latency and(Set<Latency> set, LatencyKey key) {
 		if (set.size() == 1) {
 			return set.iterator().next();
-		} else {
-			return new AndLatency(set, key);
 		}
+		final LatencyMerges merges = LatencyMerges.of(key);
+		if (merges != null) {
+			return merges.and(set, key);
+		}
+		return new AndLatency(set, key);
 	}
 
 	/**
@@ -183,6 +211,11 @@ public abstract class Latency implements Cloneable {
 			}
 		}
 
+		if (inputMap.size() <= 1) {
+			// Nothing to compare against
+			return new HashMap<Object, Latency>(inputMap);
+		}
+
 		// latestMap is a latency->object map
 		Map<Latency, Object> latestMap = new HashMap<Latency, Object>(
 				inputMap.size());
@@ -381,8 +414,12 @@ public abstract class Latency implements Cloneable {
 	}
 
 	static {
-		ZERO = new AbsoluteLatency(0, 0);
-		ONE = new AbsoluteLatency(1, 1);
+		FIXED = new AbsoluteLatency[256];
+		for (int i = 0; i < FIXED.length; i++) {
+			FIXED[i] = new AbsoluteLatency(i, i);
+		}
+		ZERO = FIXED[0];
+		ONE = FIXED[1];
 	}
 
 	@Override
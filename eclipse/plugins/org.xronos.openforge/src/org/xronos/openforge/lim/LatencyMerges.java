@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright 2002-2009  Xilinx Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+/*
+ * 
+ *
+ * 
+ */
+
+package org.xronos.openforge.lim;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * LatencyMerges remembers the {@link OrLatency OrLatencies} and
+ * {@link AndLatency AndLatencies} built for one {@link LatencyKey}, so that
+ * merging equal sets of latencies again, as happens each time a cached control
+ * gate is reused, returns the Latency already built instead of flattening and
+ * hashing the set once more. Merges of two base {@link AbsoluteLatency
+ * AbsoluteLatencies} are looked up by their clocks without hashing the set.
+ * <p>
+ * Only the merges keyed by an {@link Exit} are remembered, by that Exit, so
+ * that they live as long as the design they belong to and are only used by
+ * the thread compiling that design. Merges keyed by {@link LatencyKey#BASE}
+ * are shared by every design and are built anew each time.
+ */
+final class LatencyMerges {
+
+	/** The largest number of clocks packed in a pair key */
+	private static final int PAIR_LIMIT = 0xFFFF;
+
+	/** OrLatency by Set of Latency or by packed pair, created on demand */
+	private Map<Object, Latency> ors = null;
+
+	/** AndLatency by Set of Latency or by packed pair, created on demand */
+	private Map<Object, Latency> ands = null;
+
+	/**
+	 * Gets the merges of a key.
+	 * 
+	 * @return the merges, or null if the merges of the key are not remembered
+	 */
+	static LatencyMerges of(LatencyKey key) {
+		if (key instanceof Exit) {
+			return ((Exit) key).getLatencyMerges();
+		}
+		return null;
+	}
+
+	Latency or(Set<Latency> set, LatencyKey key) {
+		if (ors == null) {
+			ors = new HashMap<Object, Latency>();
+		}
+		final Object mergeKey = getMergeKey(set);
+		Latency latency = ors.get(mergeKey);
+		if (latency == null || latency.getKey() != key) {
+			latency = new OrLatency(set, key);
+			ors.put(copy(mergeKey), latency);
+		}
+		return latency;
+	}
+
+	Latency and(Set<Latency> set, LatencyKey key) {
+		if (ands == null) {
+			ands = new HashMap<Object, Latency>();
+		}
+		final Object mergeKey = getMergeKey(set);
+		Latency latency = ands.get(mergeKey);
+		if (latency == null || latency.getKey() != key) {
+			latency = new AndLatency(set, key);
+			ands.put(copy(mergeKey), latency);
+		}
+		return latency;
+	}
+
+	/**
+	 * Gets the packed clocks of a pair of base AbsoluteLatencies, or else the
+	 * set itself.
+	 */
+	private static Object getMergeKey(Set<Latency> set) {
+		if (set.size() == 2) {
+			final Iterator<Latency> iter = set.iterator();
+			final long first = pack(iter.next());
+			final long second = pack(iter.next());
+			if (first >= 0 && second >= 0) {
+				return first < second ? (first << 32) | second
+						: (second << 32) | first;
+			}
+		}
+		return set;
+	}
+
+	/**
+	 * Packs the clocks of a base AbsoluteLatency in 32 bits.
+	 * 
+	 * @return the packed clocks, or -1 if the latency cannot be packed
+	 */
+	private static long pack(Latency latency) {
+		if (latency instanceof AbsoluteLatency
+				&& latency.getKey() == LatencyKey.BASE
+				&& latency.getMaxClocks() <= PAIR_LIMIT) {
+			return ((long) latency.getMinClocks() << 16)
+					| latency.getMaxClocks();
+		}
+		return -1;
+	}
+
+	/**
+	 * Copies a set used as a key, since the caller may modify its set after
+	 * the merge.
+	 */
+	private static Object copy(Object mergeKey) {
+		if (mergeKey instanceof Set) {
+			return new HashSet<Object>((Set<?>) mergeKey);
+		}
+		return mergeKey;
+	}
+
+}
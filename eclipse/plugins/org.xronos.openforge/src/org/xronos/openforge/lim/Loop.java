@@ -33,9 +33,6 @@ import java.util.Set;
 
 import org.xronos.openforge.app.GenericJob;
 import org.xronos.openforge.app.OptionRegistry;
-import org.xronos.openforge.app.project.Option;
-import org.xronos.openforge.app.project.OptionBoolean;
-import org.xronos.openforge.app.project.OptionInt;
 import org.xronos.openforge.lim.memory.AbsoluteMemoryRead;
 import org.xronos.openforge.lim.memory.AbsoluteMemoryWrite;
 import org.xronos.openforge.lim.memory.LocationConstant;
@@ -94,6 +91,9 @@ public class Loop extends Module {
 	 */
 	private boolean forceLoopUnrolling = false;
 
+	/** The number of source iterations executed by each iteration of the body */
+	private int unrolledFactor = 1;
+
 	/**
 	 * Constructs a Loop and establishes the control dependencies between the
 	 * various components of the loop.
@@ -528,9 +528,8 @@ public class Loop extends Module {
 			return true;
 		}
 
-		Option op = getGenericJob().getOption(
+		return getGenericJob().getOptionSnapshot(getSearchLabel()).getBoolean(
 				OptionRegistry.LOOP_UNROLLING_ENABLE);
-		return ((OptionBoolean) op).getValueAsBoolean(getSearchLabel());
 	}
 
 	/**
@@ -545,9 +544,42 @@ public class Loop extends Module {
 	}
 
 	public int getUnrollLimit() {
-		Option op = getGenericJob().getOption(
+		return getGenericJob().getOptionSnapshot(getSearchLabel()).getInt(
 				OptionRegistry.LOOP_UNROLLING_LIMIT);
-		return ((OptionInt) op).getValueAsInt(getSearchLabel());
+	}
+
+	/**
+	 * Gets the requested number of iterations to be merged into each
+	 * iteration of this loop when it is not unrolled completely.
+	 * 
+	 * @return the unrolling factor, 1 or less if this loop is not to be
+	 *         partially unrolled
+	 */
+	public int getUnrollFactor() {
+		return getGenericJob().getOptionSnapshot(getSearchLabel()).getInt(
+				OptionRegistry.LOOP_UNROLLING_FACTOR);
+	}
+
+	/**
+	 * Gets the number of source iterations that each iteration of the body
+	 * executes.
+	 * 
+	 * @return the factor by which this loop has been partially unrolled, 1 if
+	 *         it has not been
+	 */
+	public int getUnrolledFactor() {
+		return unrolledFactor;
+	}
+
+	/**
+	 * Records that each iteration of the body now executes the given number of
+	 * source iterations.
+	 * 
+	 * @param factor
+	 *            the factor by which this loop has been partially unrolled
+	 */
+	public void setUnrolledFactor(int factor) {
+		unrolledFactor = factor;
 	}
 
 	/**
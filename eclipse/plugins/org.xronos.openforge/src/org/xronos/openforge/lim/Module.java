@@ -78,6 +78,27 @@ public abstract class Module extends Component implements Cloneable {
 		}
 	}
 
+	/**
+	 * The listener notified of the modifications made to modules by the
+	 * current thread, if any.
+	 */
+	private static final ThreadLocal<ModuleListener> changeListener = new ThreadLocal<ModuleListener>();
+
+	/**
+	 * Sets the listener notified of the modifications made to modules by the
+	 * current thread.
+	 * 
+	 * @param listener
+	 *            the listener, or null to stop notifying modifications
+	 */
+	public static void setChangeListener(ModuleListener listener) {
+		if (listener == null) {
+			changeListener.remove();
+		} else {
+			changeListener.set(listener);
+		}
+	}
+
 	/**
 	 * Shortcut for adding dependencies to the clock, reset, and go of a child
 	 * component.
@@ -231,6 +252,7 @@ public abstract class Module extends Component implements Cloneable {
 	public void addComponent(Component component) {
 		components.add(component);
 		component.setOwner(this);
+		notifyChanged();
 	}
 
 	/**
@@ -695,9 +717,7 @@ public abstract class Module extends Component implements Cloneable {
 	public Exit makeExit(int dataCount, Exit.Type type, String label) {
 		// Exit exit = new Exit(this, dataCount, type, label);
 		Exit exit = createExit(dataCount, type, label);
-		assert exits.get(exit.getTag()) == null : "Duplicate Exit type: "
-				+ exit.getTag();
-		exits.put(exit.getTag(), exit);
+		addExit(exit);
 
 		/*
 		 * Make sure the OutBuf has the correct value for consumesGo().
@@ -807,12 +827,25 @@ public abstract class Module extends Component implements Cloneable {
 		component.disconnect();
 		if (components.remove(component)) {
 			component.setOwner(null);
+			notifyChanged();
 			return true;
 		} else {
 			return false;
 		}
 	}
 
+	/**
+	 * Notifies the change listener of the current thread, if any, that the
+	 * contents of this module, or the values of its components, have been
+	 * modified.
+	 */
+	public void notifyChanged() {
+		final ModuleListener listener = changeListener.get();
+		if (listener != null) {
+			listener.moduleChanged(this);
+		}
+	}
+
 	/**
 	 * Removes a given {@link Exit} and its peer {@link Component}.
 	 */
@@ -0,0 +1,34 @@
+/*******************************************************************************
+ * Copyright 2002-2009  Xilinx Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package org.xronos.openforge.lim;
+
+/**
+ * A ModuleListener is notified of the modifications made to {@link Module
+ * Modules}, either to their contents or to the values of their components.
+ * 
+ * @see Module#setChangeListener(ModuleListener)
+ */
+public interface ModuleListener {
+
+	/**
+	 * Called when the given module has been modified
+	 * 
+	 * @param module
+	 *            the modified module
+	 */
+	public void moduleChanged(Module module);
+}
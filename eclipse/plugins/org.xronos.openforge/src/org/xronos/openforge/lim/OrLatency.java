@@ -46,6 +46,9 @@ class OrLatency extends Latency implements Cloneable {
 	 */
 	private boolean openState;
 
+	/** Cached hash code, since the constituents never change */
+	private final int hash;
+
 	@Override
 	public boolean isOpen() {
 		return openState;
@@ -109,7 +112,7 @@ class OrLatency extends Latency implements Cloneable {
 
 	@Override
 	public int hashCode() {
-		return latencies.hashCode() + getKey().hashCode();
+		return hash;
 	}
 
 	@Override
@@ -146,6 +149,7 @@ class OrLatency extends Latency implements Cloneable {
 		super(getMinClocks(lats), getMaxClocks(lats), key);
 
 		latencies = flatten(lats);
+		hash = latencies.hashCode() + getKey().hashCode();
 
 		// Cache the 'open' state
 		openState = false;
@@ -0,0 +1,242 @@
+/*******************************************************************************
+ * Copyright 2002-2009  Xilinx Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package org.xronos.openforge.lim;
+
+/**
+ * OwnerRuns records the source of each bit of a {@link Value} as a sorted list
+ * of runs. A run is a range of contiguous bits which are driven by the same
+ * {@link Bus}, or by no bus at all, from contiguous positions of that bus. A
+ * value whose bits are wired straight from one or a few buses thus only needs
+ * a few runs, whatever its width.
+ * 
+ */
+final class OwnerRuns {
+
+	/** The number of bits covered by the runs */
+	private final int size;
+
+	/** The number of runs */
+	private int count;
+
+	/** The first bit of each run, in increasing order, starts[0] == 0 */
+	private int[] starts;
+
+	/** The bus driving the bits of each run, may be null */
+	private Bus[] owners;
+
+	/** The position in its owner of the first bit of each run */
+	private int[] offsets;
+
+	/**
+	 * Creates runs for bits which are all driven by the same position of the
+	 * given owner.
+	 * 
+	 * @param size
+	 *            the number of bits
+	 * @param owner
+	 *            the owner of every bit, may be null
+	 */
+	OwnerRuns(int size, Bus owner) {
+		this.size = size;
+		count = 1;
+		starts = new int[2];
+		owners = new Bus[2];
+		offsets = new int[2];
+		owners[0] = owner;
+	}
+
+	/**
+	 * Creates a copy of the given runs.
+	 */
+	OwnerRuns(OwnerRuns runs) {
+		size = runs.size;
+		count = runs.count;
+		starts = runs.starts.clone();
+		owners = runs.owners.clone();
+		offsets = runs.offsets.clone();
+	}
+
+	/**
+	 * Gets the bus driving all the bits.
+	 * 
+	 * @return the owner of every run if they all have the same one, otherwise
+	 *         null
+	 */
+	Bus getCommonOwner() {
+		final Bus first = owners[0];
+		for (int r = 1; r < count; r++) {
+			if (owners[r] != first) {
+				return null;
+			}
+		}
+		return first;
+	}
+
+	/**
+	 * Gets the owner of a bit.
+	 * 
+	 * @param position
+	 *            the index of the bit
+	 * @return the bus driving the bit, or null
+	 */
+	Bus getOwner(int position) {
+		return owners[find(position)];
+	}
+
+	/**
+	 * Gets the position of a bit in its owner.
+	 * 
+	 * @param position
+	 *            the index of the bit
+	 * @return the position of the bit in the bus driving it
+	 */
+	int getPosition(int position) {
+		final int r = find(position);
+		return offsets[r] + position - starts[r];
+	}
+
+	/**
+	 * Tests whether no run has an owner.
+	 */
+	boolean isGlobal() {
+		for (int r = 0; r < count; r++) {
+			if (owners[r] != null) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Tests whether every bit is driven by the same position of a single owner,
+	 * in which case the runs can be replaced by that owner.
+	 */
+	boolean isIdentity() {
+		return count == 1 && offsets[0] == 0;
+	}
+
+	/**
+	 * Sets the owner and the owner position of a bit.
+	 * 
+	 * @param position
+	 *            the index of the bit
+	 * @param owner
+	 *            the bus driving the bit, may be null
+	 * @param ownerPosition
+	 *            the position of the bit in the owner
+	 */
+	void set(int position, Bus owner, int ownerPosition) {
+		int r = find(position);
+		if (owners[r] == owner
+				&& offsets[r] + position - starts[r] == ownerPosition) {
+			return;
+		}
+
+		// Isolate the bit in its own run
+		if (starts[r] != position) {
+			split(r, position);
+			r++;
+		}
+		if (position + 1 < end(r)) {
+			split(r, position + 1);
+		}
+		owners[r] = owner;
+		offsets[r] = ownerPosition;
+
+		// Join it with its neighbours when they continue it
+		if (r + 1 < count && canJoin(r)) {
+			remove(r + 1);
+		}
+		if (r > 0 && canJoin(r - 1)) {
+			remove(r);
+		}
+	}
+
+	/**
+	 * Tests whether the run r + 1 continues the run r.
+	 */
+	private boolean canJoin(int r) {
+		return owners[r] == owners[r + 1]
+				&& offsets[r] + end(r) - starts[r] == offsets[r + 1];
+	}
+
+	/**
+	 * Gets the bit following the last bit of a run.
+	 */
+	private int end(int r) {
+		return r + 1 < count ? starts[r + 1] : size;
+	}
+
+	/**
+	 * Finds the run containing a bit.
+	 */
+	private int find(int position) {
+		if (position < 0 || position >= size) {
+			throw new IndexOutOfBoundsException("bit " + position
+					+ " of a value of size " + size);
+		}
+		int low = 0;
+		int high = count - 1;
+		while (low < high) {
+			final int middle = (low + high + 1) >>> 1;
+			if (starts[middle] <= position) {
+				low = middle;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Removes a run, its bits are appended to the previous run.
+	 */
+	private void remove(int r) {
+		final int moved = count - r - 1;
+		System.arraycopy(starts, r + 1, starts, r, moved);
+		System.arraycopy(owners, r + 1, owners, r, moved);
+		System.arraycopy(offsets, r + 1, offsets, r, moved);
+		count--;
+		owners[count] = null;
+	}
+
+	/**
+	 * Splits a run in two at the given bit.
+	 */
+	private void split(int r, int position) {
+		if (count == starts.length) {
+			final int capacity = count * 2;
+			final int[] newStarts = new int[capacity];
+			final Bus[] newOwners = new Bus[capacity];
+			final int[] newOffsets = new int[capacity];
+			System.arraycopy(starts, 0, newStarts, 0, count);
+			System.arraycopy(owners, 0, newOwners, 0, count);
+			System.arraycopy(offsets, 0, newOffsets, 0, count);
+			starts = newStarts;
+			owners = newOwners;
+			offsets = newOffsets;
+		}
+		final int moved = count - r - 1;
+		System.arraycopy(starts, r + 1, starts, r + 2, moved);
+		System.arraycopy(owners, r + 1, owners, r + 2, moved);
+		System.arraycopy(offsets, r + 1, offsets, r + 2, moved);
+		starts[r + 1] = position;
+		owners[r + 1] = owners[r];
+		offsets[r + 1] = offsets[r] + position - starts[r];
+		count++;
+	}
+}
@@ -444,7 +444,7 @@ public class Port extends ID {
 
 		this.bus = bus;
 		if (bus != null) {
-			bus.ports.add(this);
+			bus.ports.addAbsent(this);
 		}
 	}
 
@@ -39,6 +39,11 @@ import org.xronos.openforge.util.SizedInteger;
  * each Bit was queried for its attributes. Now the Value is queried for the
  * attributes of each bit.
  * 
+ * The care, constant and global attributes are stored as bitplanes, one bit
+ * per bit of the value packed in longs, so that the masks and the whole value
+ * tests are word operations. The owners of the bits are stored as runs of
+ * contiguous bits, see {@link OwnerRuns}.
+ * 
  * 
  * @version $Id: Value.java 41 2005-10-17 15:10:57Z imiller $
  */
@@ -53,75 +58,62 @@ public class Value {
 	 */
 	private int size;
 
+	/** The number of longs of each bitplane */
+	private int words;
+
 	/**
-	 * isCare is bit 0 of state
+	 * The bitplanes of this value, plane p of word w is at p * words + w.
+	 * 
+	 * The care plane has a bit set for each care bit.
 	 * 
-	 * isCare is TRUE if all bits are care, FALSE if all bits are not care, and
-	 * ARRAY_VALID if isCareArray is valid. isCareArray (if valid) is an array
-	 * of 0..(size-1) where the index corresponds to bit position, and the value
-	 * is true if the bit is constant, else false.
+	 * The constant plane has a bit set for each constant bit, and the one plane
+	 * has a bit set for each constant ONE bit. A bit which is neither ZERO nor
+	 * ONE is NOT_CONSTANT.
 	 * 
 	 * current state next state setCare(i,careState) const[i]=any
 	 * const[i]=NOT_CONSTANT care[i]=any care[i]=careState owner[i]=any owner[i]
 	 * unchanged
-	 */
-
-	/**
-	 * bits 1-2 of state
-	 * 
-	 * similar to isCare, but describes constant bits. if
-	 * isConstant=NOT_CONSTANT there are no constant bits, if ONE then all
-	 * constant bits, if 2 then some constant bits. isConstantArray is defined
-	 * for isConstant > 0, isConstantArray contains ZERO or ONE or NOT_CONSTANT
-	 * for non-constant bits
 	 * 
 	 * current state next state setConstant(i,constState) care[i]=any
 	 * care[i]=true const[i]=any const[i]=constState owner[i]=any owner[i]=null
-	 */
-
-	/**
-	 * bit 3 of state
 	 * 
-	 * similar to isCare, but describes global bits - derived from
-	 * owner/ownerArray
+	 * The global plane has a bit set for each global bit, it is derived from
+	 * the owners.
+	 * 
+	 * Bits above the size of the value are always clear.
 	 */
+	private long[] planes;
+
+	private static final int CARE_PLANE = 0;
+	private static final int CONSTANT_PLANE = 1;
+	private static final int ONE_PLANE = 2;
+	private static final int GLOBAL_PLANE = 3;
+	private static final int PLANES = 4;
 
 	/**
-	 * holds the bus that "owns" this value, if null then consult ownerArray. if
-	 * ownerArray is null then there is no owner for any bit; if owner array is
-	 * not null, then each element corresponds to the owner of a particular
-	 * position. ownerArray is only defined if owner==null
+	 * holds the bus that "owns" this value, if null then consult ownerRuns. if
+	 * ownerRuns is null then there is no owner for any bit; if owner runs are
+	 * not null, then each run gives the owner of a range of positions.
+	 * ownerRuns is only defined if owner==null
 	 * 
 	 * current state next state setOwner(i,bus) const[i]=any
 	 * const[i]=NOT_CONSTANT care[i]=any care[i] unchanged owner[i]=any
 	 * owner[i]=bus
 	 * 
-	 * ownerOffset, if set, is the offset of the bit in the driving bus.if not
-	 * set, the offset is the same this value
-	 * 
-	 * ownerOffset is bits 4-9 of state
+	 * The runs also hold the offset of each bit in the driving bus. If there
+	 * are no runs, the offset is the same this value
 	 */
-
-	private int[] state;
-
 	private Bus owner = null;
-	private Bus[] ownerArray = null;
+	private OwnerRuns ownerRuns = null;
 
 	/**
 	 * holds the bus that "owns" the inverse of this value, if null then consult
-	 * ownerInvArray. if ownerInvArray is null then there is no inverted owner
-	 * for any bit; if owner invert array is not null, then each element
-	 * corresponds to the owner of a particular position
-	 * 
-	 * ownerInvOffset is bits 10-15 of state
+	 * ownerInvRuns. if ownerInvRuns is null then there is no inverted owner for
+	 * any bit; if owner invert runs are not null, then each run gives the
+	 * inverted owner and offset of a range of positions
 	 */
 	private Bus ownerInv = null;
-	private Bus[] ownerInvArray = null;
-
-	/**
-	 * The array of bits that comprise this value - used only if bits need to be
-	 * generated - it is expected that this will be deprecated
-	 */
+	private OwnerRuns ownerInvRuns = null;
 
 	/** constant symbols */
 	public static final int ONE = 1;
@@ -133,15 +125,6 @@ public class Value {
 	public static final int TRUE = 1;
 	public static final int FALSE = 0;
 
-	private static final int CARE_MASK = 0x1; // bit 0
-	private static final int CONSTANT_MASK = 0x6; // bits 1-2
-	private static final int CONSTANT_NOT = 0x6;
-	private static final int CONSTANT_ONE = 0x2;
-
-	private static final int GLOBAL_MASK = 0x8; // bit 3
-	private static final int OWNER_MASK = 0x3f0; // bits 4-9
-	private static final int INV_OWNER_MASK = 0xfc00; // bits 10-15
-
 	/**
 	 * Constructs a new Value of a specified size, all bits care and global.
 	 * 
@@ -151,13 +134,7 @@ public class Value {
 	 *            true if this is a signed value, false if unsigned
 	 */
 	public Value(int size, boolean isSigned) {
-		state = new int[size];
-		for (int i = 0; i < size; i++) {
-			state[i] = CARE_MASK | GLOBAL_MASK | CONSTANT_NOT | (i << 4)
-					| (i << 10);
-		}
-		this.size = size;
-		this.isSigned = isSigned;
+		this(size, isSigned, true);
 	}
 
 	/**
@@ -171,13 +148,8 @@ public class Value {
 	 *            true if this is a signed value, false if unsigned
 	 */
 	public Value(Bus bus, int size, boolean isSigned) {
-		this.size = size;
-		state = new int[size];
-		for (int i = 0; i < size; i++) {
-			state[i] = CARE_MASK | CONSTANT_NOT | (i << 4) | (i << 10);
-		}
+		this(size, isSigned, false);
 		owner = bus;
-		this.isSigned = isSigned;
 	}
 
 	/**
@@ -189,28 +161,36 @@ public class Value {
 	 *            true if this is a signed value, false if unsigned
 	 */
 	public Value(Value value, boolean isSigned) {
-
 		size = value.size;
-		state = new int[size];
-		System.arraycopy(value.state, 0, state, 0, size);
+		words = value.words;
+		planes = value.planes.clone();
 
 		owner = value.owner;
-		if (value.ownerArray != null) {
-			assert size == value.ownerArray.length;
-
-			ownerArray = new Bus[size];
-			System.arraycopy(value.ownerArray, 0, ownerArray, 0, size);
+		if (value.ownerRuns != null) {
+			ownerRuns = new OwnerRuns(value.ownerRuns);
 		}
 
 		ownerInv = value.ownerInv;
-		if (value.ownerInvArray != null) {
-			assert size == value.ownerInvArray.length;
-			ownerInvArray = new Bus[size];
-			System.arraycopy(value.ownerInvArray, 0, ownerInvArray, 0, size);
+		if (value.ownerInvRuns != null) {
+			ownerInvRuns = new OwnerRuns(value.ownerInvRuns);
 		}
 		this.isSigned = isSigned;
 	}
 
+	/**
+	 * Constructs a new Value of all care, non constant bits.
+	 */
+	private Value(int size, boolean isSigned, boolean global) {
+		this.size = size;
+		this.isSigned = isSigned;
+		words = (size + 63) >>> 6;
+		planes = new long[PLANES * words];
+		fill(CARE_PLANE, true);
+		if (global) {
+			fill(GLOBAL_PLANE, true);
+		}
+	}
+
 	/**
 	 * Gets the size of this value.
 	 * 
@@ -229,6 +209,56 @@ public class Value {
 		return isSigned;
 	}
 
+	/**
+	 * Tests the bit of a plane at a specific position.
+	 */
+	private boolean test(int plane, int position) {
+		return (planes[plane * words + (position >>> 6)] & (1L << position)) != 0;
+	}
+
+	/**
+	 * Sets or clears the bit of a plane at a specific position.
+	 */
+	private void assign(int plane, int position, boolean on) {
+		final int index = plane * words + (position >>> 6);
+		if (on) {
+			planes[index] |= 1L << position;
+		} else {
+			planes[index] &= ~(1L << position);
+		}
+	}
+
+	/**
+	 * Sets or clears every bit of a plane.
+	 */
+	private void fill(int plane, boolean on) {
+		final int first = plane * words;
+		for (int w = 0; w < words; w++) {
+			planes[first + w] = on ? wordMask(w) : 0L;
+		}
+	}
+
+	/**
+	 * Gets the mask of the bits of a word which are part of this value.
+	 */
+	private long wordMask(int w) {
+		final int bits = size - (w << 6);
+		return bits >= 64 ? -1L : (1L << bits) - 1;
+	}
+
+	/**
+	 * Gets a plane folded into a single long, bit i of the value is or'ed into
+	 * bit i % 64 of the result.
+	 */
+	private long foldPlane(int plane) {
+		final int first = plane * words;
+		long mask = 0L;
+		for (int w = 0; w < words; w++) {
+			mask |= planes[first + w];
+		}
+		return mask;
+	}
+
 	/**
 	 * Sets the bit at a specific position to be a care bit.
 	 * 
@@ -245,11 +275,10 @@ public class Value {
 		 * RT-72 setConstant(position, NOT_CONSTANT);//so a constant to care
 		 * works
 		 */
+		checkPosition(position);
 
-		if (care) {
-			state[position] |= CARE_MASK;
-		} else {
-			state[position] &= (~CARE_MASK);
+		assign(CARE_PLANE, position, care);
+		if (!care) {
 			setOwner(position, null);
 		}
 
@@ -272,38 +301,15 @@ public class Value {
 			throws IndexOutOfBoundsException, IllegalArgumentException {
 		assert constant >= ZERO && constant <= NOT_CONSTANT : "Illegal argument "
 				+ constant + " to setConstant";
+		checkPosition(position);
 
-		state[position] |= CARE_MASK;
-
-		// first reset the constant state to 0, then or in the correct state
-		state[position] &= (~CONSTANT_MASK);
-
-		switch (constant) {
-		case ONE:
-			state[position] |= CONSTANT_ONE;
-			break;
-		case NOT_CONSTANT:
-			state[position] |= CONSTANT_NOT;
-			break;
-		}
+		assign(CARE_PLANE, position, true);
+		assign(CONSTANT_PLANE, position, constant != NOT_CONSTANT);
+		assign(ONE_PLANE, position, constant == ONE);
 
 		// owner to be set to null
-		state[position] |= GLOBAL_MASK;
-		if (owner != null) // if owner not null then all bits owned by the same
-							// bus
-		{
-			ownerArray = new Bus[size];
-
-			for (int i = 0; i < size; i++) {
-				ownerArray[i] = owner;
-			}
-			ownerArray[position] = null;
-			owner = null;
-		} else if (ownerArray != null) {
-			ownerArray[position] = null;
-			updateOwner();
-		} // else both owner and ownerArray are null and the bit was already
-			// global
+		assign(GLOBAL_PLANE, position, true);
+		setOwnerRun(position, null, getPosition(position));
 	}
 
 	/**
@@ -316,54 +322,7 @@ public class Value {
 	 */
 	public void setOwner(int position, Bus owner)
 			throws IndexOutOfBoundsException {
-
-		// nothing for care bits
-
-		/*
-		 * RT-72 // set constant to NOT_CONSTANT if owner != null if (owner !=
-		 * null) { state[position] |= NOT_CONSTANT; }
-		 */
-
-		// update owner
-		if (this.owner != null) {
-			ownerArray = new Bus[size];
-			for (int i = 0; i < size; i++) {
-				ownerArray[i] = this.owner;
-				if (this.owner == null) {
-					state[i] |= GLOBAL_MASK;
-				} else {
-					state[i] &= (~GLOBAL_MASK);
-				}
-			}
-			ownerArray[position] = owner;
-			if (owner == null) {
-				state[position] |= GLOBAL_MASK;
-			} else {
-				state[position] &= (~GLOBAL_MASK);
-			}
-			this.owner = null;
-		} else if (ownerArray != null) {
-			ownerArray[position] = owner;
-			if (owner == null) {
-				state[position] |= GLOBAL_MASK;
-			} else {
-				state[position] &= (~GLOBAL_MASK);
-			}
-			updateOwner();
-		} else // create an ownerArray if both owner and ownerArray were null
-		{
-			ownerArray = new Bus[size];
-			for (int i = 0; i < size; i++) {
-				ownerArray[i] = null;
-				state[i] |= GLOBAL_MASK;
-			}
-			ownerArray[position] = owner;
-			if (owner == null) {
-				state[position] |= GLOBAL_MASK;
-			} else {
-				state[position] &= (~GLOBAL_MASK);
-			}
-		}
+		setOwner(position, owner, getPosition(position));
 	}
 
 	/**
@@ -378,10 +337,24 @@ public class Value {
 	 *            offset in the owner
 	 */
 	public void setOwner(int position, Bus owner, int ownerPosition) {
-		setOwner(position, owner);
-		// zero the owner offset bits, then mask in the correct value
-		state[position] &= ~OWNER_MASK;
-		state[position] |= (ownerPosition << 4);
+		// nothing for care bits
+
+		/*
+		 * RT-72 // set constant to NOT_CONSTANT if owner != null if (owner !=
+		 * null) { state[position] |= NOT_CONSTANT; }
+		 */
+
+		// The global state of every bit follows a whole value owner
+		final Bus commonOwner = ownerRuns == null ? this.owner : ownerRuns
+				.getCommonOwner();
+		if (commonOwner != null) {
+			fill(GLOBAL_PLANE, false);
+		} else if (ownerRuns == null || ownerRuns.isGlobal()) {
+			fill(GLOBAL_PLANE, true);
+		}
+
+		assign(GLOBAL_PLANE, position, owner == null);
+		setOwnerRun(position, owner, ownerPosition);
 	}
 
 	/**
@@ -391,7 +364,7 @@ public class Value {
 	 *            index of the bit in this Value
 	 */
 	public int getPosition(int i) {
-		return (state[i] & OWNER_MASK) >> 4;
+		return ownerRuns == null ? i : ownerRuns.getPosition(i);
 	}
 
 	/**
@@ -414,67 +387,40 @@ public class Value {
 		// TBD: do we need to maintain care/constant/global status for inverted
 		// bits?
 
-		// update owner
-		if (ownerInv != null) {
-			ownerInvArray = new Bus[size];
-			for (int i = 0; i < size; i++) {
-				ownerInvArray[i] = ownerInv;
-			}
-			ownerInvArray[position] = owner;
-
+		if (ownerInvRuns == null) {
+			ownerInvRuns = new OwnerRuns(size, ownerInv);
 			ownerInv = null;
-		} else if (ownerInvArray != null) {
-			ownerInvArray[position] = owner;
-			updateOwnerInv();
-		} else // create an ownerArray if both owner and ownerArray were null
-		{
-			ownerInvArray = new Bus[size];
-			for (int i = 0; i < size; i++) {
-				ownerInvArray[i] = null;
-			}
-			ownerInvArray[position] = owner;
 		}
-
-		// and update the ownerInvOffset
-		state[position] &= ~INV_OWNER_MASK;
-		state[position] |= ownerPosition;
+		ownerInvRuns.set(position, owner, ownerPosition);
+		if (ownerInvRuns.isIdentity()) {
+			ownerInv = ownerInvRuns.getOwner(0);
+			ownerInvRuns = null;
+		}
 	}
 
 	/**
-	 * assumes ownerArray != null, are all entries the same? also updates
-	 * isGlobal/isGlobalArray
+	 * Sets the owner and owner position of a bit, and collapses the runs into a
+	 * single owner when they all have the same.
 	 */
-	private void updateOwner() {
-		boolean allSame = true;
-		Bus first = ownerArray[0];
-
-		for (int i = 1; i < size && allSame; i++) {
-			if (first != ownerArray[i]) {
-				allSame = false;
+	private void setOwnerRun(int position, Bus bus, int ownerPosition) {
+		if (ownerRuns == null) {
+			if (bus == owner && ownerPosition == position) {
+				return;
 			}
+			ownerRuns = new OwnerRuns(size, owner);
+			owner = null;
 		}
-
-		if (allSame) {
-			owner = first;
-			ownerArray = null;
+		ownerRuns.set(position, bus, ownerPosition);
+		if (ownerRuns.isIdentity()) {
+			owner = ownerRuns.getOwner(0);
+			ownerRuns = null;
 		}
 	}
 
-	/**
-	 * assumes ownerInvArray != null, are all entries the same?
-	 */
-	private void updateOwnerInv() {
-		boolean allSame = true;
-		Bus first = ownerInvArray[0];
-
-		for (int i = 1; i < size && allSame; i++) {
-			if (first != ownerInvArray[i]) {
-				allSame = false;
-			}
-		}
-		if (allSame) {
-			ownerInv = first;
-			ownerInvArray = null;
+	private void checkPosition(int position) {
+		if (position < 0 || position >= size) {
+			throw new IndexOutOfBoundsException("bit " + position
+					+ " of a value of size " + size);
 		}
 	}
 
@@ -552,10 +498,23 @@ public class Value {
 	 */
 	public void setBit(int position, Value value, int valuePosition) {
 		assert position < size : "Attempting to set a bit which is too large for this value";
+		checkPosition(position);
+
+		assign(CARE_PLANE, position, value.isCare(valuePosition));
+		assign(CONSTANT_PLANE, position,
+				value.test(CONSTANT_PLANE, valuePosition));
+		assign(ONE_PLANE, position, value.test(ONE_PLANE, valuePosition));
+		assign(GLOBAL_PLANE, position, value.isGlobal(valuePosition));
+
+		// The inverted offset follows the bit, the inverted owner does not
+		final Bus invertedOwner = getInvertedOwner(position);
+		if (invertedOwner != null) {
+			setInvertedOwner(position, invertedOwner,
+					value.getInvertedOffset(valuePosition));
+		}
 
-		state[position] = value.state[valuePosition];
-		setOwner(position, value.getOwner(valuePosition));// ,
-															// value.getPosition(valuePosition));
+		setOwner(position, value.getOwner(valuePosition),
+				value.getPosition(valuePosition));
 	}
 
 	/**
@@ -581,7 +540,7 @@ public class Value {
 	 * return true or false for care status of bit position
 	 */
 	public boolean isCare(int position) {
-		return (state[position] & CARE_MASK) == CARE_MASK;
+		return test(CARE_PLANE, position);
 	}
 
 	/**
@@ -597,14 +556,17 @@ public class Value {
 	 * @return ZERO, ONE or NOT_CONSTANT
 	 */
 	public int getConstant(int position) {
-		return (state[position] & CONSTANT_MASK) >> 1;
+		if (!test(CONSTANT_PLANE, position)) {
+			return NOT_CONSTANT;
+		}
+		return test(ONE_PLANE, position) ? ONE : ZERO;
 	}
 
 	/**
 	 * return true if bit position is constant and valued ONE
 	 */
 	public boolean isOn(int position) {
-		return getConstant(position) == ONE;
+		return test(ONE_PLANE, position);
 	}
 
 	/**
@@ -618,13 +580,10 @@ public class Value {
 	 * return the owner of the given bit, or null if no owner (global)
 	 */
 	public Bus getOwner(int position) {
-		if (owner != null) {
-			return owner;
+		if (ownerRuns != null) {
+			return ownerRuns.getOwner(position);
 		}
-		if (ownerArray != null) {
-			return ownerArray[position];
-		}
-		return null;
+		return owner;
 	}
 
 	/**
@@ -634,12 +593,10 @@ public class Value {
 	 * @return Bus or null if not defined
 	 */
 	public Bus getInvertedOwner(int position) {
-		if (ownerInv != null) {
-			return ownerInv;
-		} else if (ownerInvArray != null) {
-			return ownerInvArray[position];
+		if (ownerInvRuns != null) {
+			return ownerInvRuns.getOwner(position);
 		}
-		return null;
+		return ownerInv;
 	}
 
 	/**
@@ -647,34 +604,27 @@ public class Value {
 	 * getInvertedOwner() does not return null
 	 */
 	public int getInvertedOffset(int position) {
-		return (state[position] & INV_OWNER_MASK) >> 10;
+		return ownerInvRuns == null ? position : ownerInvRuns
+				.getPosition(position);
 	}
 
 	/**
 	 * return global status of the given bit
 	 */
 	public boolean isGlobal(int position) {
-		return ((state[position] & GLOBAL_MASK) == GLOBAL_MASK);
+		return test(GLOBAL_PLANE, position);
 	}
 
 	/**
 	 * Gets the current vector of on/off states as a mask.
 	 */
 	public long getValueMask() {
-		long value = 0L;
-		int msb = getConstant(size - 1);
-		for (int i = 0; i < 64; i++) {
-			if (i < size) {
-				int constant = getConstant(i);
-
-				if (constant == ONE) {
-					value |= (1L << i);
-				}
-			} else {
-				if (isSigned && msb == ONE) {
-					value |= (1L << i);
-				}
-			}
+		if (words == 0) {
+			return 0L;
+		}
+		long value = planes[ONE_PLANE * words];
+		if (size < 64 && isSigned && getConstant(size - 1) == ONE) {
+			value |= -1L << size;
 		}
 		return value;
 	}
@@ -683,26 +633,14 @@ public class Value {
 	 * Gets the current vector of care/don't-care states as a mask.
 	 */
 	public long getCareMask() {
-		long mask = 0L;
-		for (int i = 0; i < size; i++) {
-			if (isCare(i)) {
-				mask |= (1L << i);
-			}
-		}
-		return mask;
+		return foldPlane(CARE_PLANE);
 	}
 
 	/**
 	 * Gets the current vector of constant/non-constant states as a mask.
 	 */
 	public long getConstantMask() {
-		long mask = 0L;
-		for (int i = 0; i < size; i++) {
-			if (getConstant(i) < NOT_CONSTANT) {
-				mask |= (1L << i);
-			}
-		}
-		return mask;
+		return foldPlane(CONSTANT_PLANE);
 	}
 
 	/**
@@ -711,10 +649,9 @@ public class Value {
 	 * @return true if this Value represents a constant value.
 	 */
 	public boolean isConstant() {
-		for (int i = 0; i < getSize(); i++) {
-			int constant = getConstant(i);
-
-			if (constant == NOT_CONSTANT && isCare(i)) {
+		for (int w = 0; w < words; w++) {
+			if ((planes[CARE_PLANE * words + w] & ~planes[CONSTANT_PLANE
+					* words + w]) != 0) {
 				return false;
 			}
 		}
@@ -727,12 +664,22 @@ public class Value {
 	 * @return true if the whole value is dont care.
 	 */
 	public boolean isDontCare() {
-		for (int i = 0; i < getSize(); i++) {
-
-			if (isCare(i)) {
+		for (int w = 0; w < words; w++) {
+			if (planes[CARE_PLANE * words + w] != 0) {
 				return false;
 			}
+		}
+		return true;
+	}
 
+	/**
+	 * Returns true if every Bit in this value is a care bit.
+	 */
+	private boolean isAllCare() {
+		for (int w = 0; w < words; w++) {
+			if (planes[CARE_PLANE * words + w] != wordMask(w)) {
+				return false;
+			}
 		}
 		return true;
 	}
@@ -752,31 +699,23 @@ public class Value {
 	public boolean isMixed() {
 		if (isConstant()) {
 			// but - if there are any d/c's in the constant, then its mixed
-			for (int i = 0; i < size; i++) {
-				if (!isCare(i)) {
-					return true;
-				}
-			}
-
-			return false;
+			return !isAllCare();
 		} else {
 			/*
 			 * It's mixed if we find any constant bits, or if there are Bits
 			 * from more than one owner Bus.
 			 */
-			Bus bitOwner = null;
-			// for (Iterator iter = bits.iterator(); iter.hasNext();)
-			for (int i = 0; i < size; i++) {
-				Bus iOwner = getOwner(i);
-
-				if (iOwner != null && bitOwner == null) {
-					bitOwner = iOwner;
-				}
-				if (getConstant(i) < NOT_CONSTANT) {
+			for (int w = 0; w < words; w++) {
+				if (planes[CONSTANT_PLANE * words + w] != 0) {
 					return true;
 				}
 			}
 
+			Bus bitOwner = null;
+			for (int i = 0; i < size && bitOwner == null; i++) {
+				bitOwner = getOwner(i);
+			}
+
 			assert bitOwner != null : "care Bits with no owner";
 
 			// If we are sign extended then we are mixed
@@ -786,6 +725,10 @@ public class Value {
 				return true;
 			}
 
+			// Only identity positions are kept without owner runs
+			if (ownerRuns == null) {
+				return false;
+			}
 			for (int i = 0; i < size; i++) {
 				if (getPosition(i) != i) {
 					return true;
@@ -799,14 +742,15 @@ public class Value {
 		String result = size + " bits: \n";
 
 		for (int i = 0; i < size; i++) {
-			result += "\t" + Integer.toHexString(state[i]) + " "
+			int state = (isCare(i) ? 0x1 : 0) | (getConstant(i) << 1)
+					| (isGlobal(i) ? 0x8 : 0);
+			result += "\t" + Integer.toHexString(state) + " "
 					+ getInvertedOffset(i) + " " + getPosition(i) + " "
 					+ isGlobal(i) + " " + getConstant(i) + " " + isCare(i)
 					+ "\n";
 		}
 		return result;
 	}
-
 	/**
 	 * Kinda handy way to display this Value's state.
 	 */
@@ -842,7 +786,7 @@ public class Value {
 	public String debugIsGlobal() {
 		String result = "";
 		for (int i = 0; i < size; i++) {
-			result = ((state[i] & GLOBAL_MASK) == GLOBAL_MASK ? 1 : 0) + result;
+			result = (isGlobal(i) ? 1 : 0) + result;
 		}
 		return result;
 	}
@@ -1133,6 +1077,17 @@ public class Value {
 	 *             if this value contains any non-global bits
 	 */
 	public SizedInteger toNumber() {
+		if (words == 1) {
+			final long nonGlobal = ~planes[GLOBAL_PLANE] & wordMask(0);
+			if (nonGlobal != 0) {
+				throw new IllegalStateException("non global bit at index "
+						+ Long.numberOfTrailingZeros(nonGlobal));
+			}
+			/* RT-72 */
+			return SizedInteger.valueOf(planes[ONE_PLANE]
+					& planes[CARE_PLANE], getSize(), isSigned());
+		}
+
 		BigInteger bigInteger = BigInteger.ZERO;
 		for (int i = 0; i < size; i++) {
 			if (!isGlobal(i)) {
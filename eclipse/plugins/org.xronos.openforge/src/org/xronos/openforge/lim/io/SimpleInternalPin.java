@@ -42,10 +42,33 @@ import org.xronos.openforge.lim.Port;
  */
 public class SimpleInternalPin extends SimplePin {
 
+	/** True if the value of this pin is also an output of the design */
+	private boolean observed = false;
+
 	public SimpleInternalPin(int width, String name) {
 		super(width, name);
 	}
 
+	/**
+	 * Causes the value of this pin to be driven onto an output port of the top
+	 * level module, with the same name, in addition to its routing between
+	 * the tasks. The pin itself stays internal.
+	 * 
+	 * @param observed
+	 *            true if the pin is to be observed from outside the design
+	 */
+	public void setObserved(boolean observed) {
+		this.observed = observed;
+	}
+
+	/**
+	 * Returns true if the value of this pin is also driven onto an output port
+	 * of the top level module.
+	 */
+	public boolean isObserved() {
+		return observed;
+	}
+
 	/**
 	 * Overrides the super in order to allow both source and sink to be
 	 * connected
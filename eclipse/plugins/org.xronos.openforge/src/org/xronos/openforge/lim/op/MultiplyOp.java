@@ -25,8 +25,6 @@ import java.util.Collections;
 import java.util.Map;
 
 import org.xronos.openforge.app.OptionRegistry;
-import org.xronos.openforge.app.project.Option;
-import org.xronos.openforge.app.project.OptionInt;
 import org.xronos.openforge.lim.Bit;
 import org.xronos.openforge.lim.Bus;
 import org.xronos.openforge.lim.Emulatable;
@@ -75,9 +73,8 @@ public class MultiplyOp extends BinaryOp implements Emulatable {
 	 * @return a non-negative 'int'
 	 */
 	public int getPipeStages() {
-		Option option = getGenericJob().getOption(
-				OptionRegistry.SCHEDULE_MULTIPLY_STAGES);
-		int stages = ((OptionInt) option).getValueAsInt(getSearchLabel());
+		int stages = getGenericJob().getOptionSnapshot(getSearchLabel())
+				.getInt(OptionRegistry.SCHEDULE_MULTIPLY_STAGES);
 		assert stages >= 0;
 		return stages;
 	}
@@ -275,7 +275,7 @@ public class EncodedMux extends Primitive {
 		// DONT USE getDataPorts because it's overridden to return the
 		// 'inputPorts' list contained locally, which when shallow
 		// cloned is simply a list of the original nodes ports.
-		List<Port> dports = new ArrayList<Port>(clone.dataPorts);
+		List<Port> dports = new ArrayList<Port>(clone.dataPorts.view());
 
 		clone.selectPort = dports.remove(0);
 		clone.inputPorts = dports;
@@ -25,7 +25,6 @@ import java.util.Collections;
 import java.util.Map;
 
 import org.xronos.openforge.app.OptionRegistry;
-import org.xronos.openforge.app.project.OptionBoolean;
 import org.xronos.openforge.lim.Bit;
 import org.xronos.openforge.lim.Bus;
 import org.xronos.openforge.lim.Emulatable;
@@ -202,8 +201,8 @@ public class Reg extends Primitive implements Emulatable {
 			return;
 		}
 
-		final boolean isSync = ((OptionBoolean) getGenericJob().getOption(
-				OptionRegistry.SYNC_RESET)).getValueAsBoolean(getSearchLabel());
+		final boolean isSync = getGenericJob().getOptionSnapshot(
+				getSearchLabel()).getBoolean(OptionRegistry.SYNC_RESET);
 
 		int type = getType();
 		// RESET and SET are synchronous
@@ -0,0 +1,245 @@
+/*******************************************************************************
+ * Copyright 2002-2009  Xilinx Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+/*
+ * 
+ *
+ * 
+ */
+package org.xronos.openforge.lim.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.xronos.openforge.lim.Bus;
+import org.xronos.openforge.lim.Port;
+import org.xronos.openforge.util.SizedInteger;
+
+/**
+ * EmulationSlots holds the {@link SizedInteger} values of the {@link Bus
+ * Buses} of an emulated circuit in an array. Each bus is given a slot index
+ * once, when the circuit is prepared for emulation, so that the values are
+ * then stored and read by index, rather than through a new hash map for every
+ * operation of every iteration.
+ */
+public class EmulationSlots {
+
+	/** Map of each Bus to its slot, only used when preparing the circuit */
+	private final Map<Bus, Integer> slots = new HashMap<Bus, Integer>();
+
+	/** The Bus of each slot */
+	private final List<Bus> buses = new ArrayList<Bus>();
+
+	/** The value of each slot, null if unknown */
+	private SizedInteger[] values = new SizedInteger[16];
+
+	/**
+	 * Gets the slot of a bus, a new slot is allocated for a bus which has none.
+	 * 
+	 * @param bus
+	 *            a bus, may be null
+	 * @return the slot of the bus, or -1 if the bus is null
+	 */
+	public int getSlot(Bus bus) {
+		if (bus == null) {
+			return -1;
+		}
+		Integer slot = slots.get(bus);
+		if (slot == null) {
+			slot = buses.size();
+			slots.put(bus, slot);
+			buses.add(bus);
+			if (slot == values.length) {
+				values = Arrays.copyOf(values, values.length * 2);
+			}
+		}
+		return slot;
+	}
+
+	/**
+	 * Gets the slot of a bus without allocating one.
+	 * 
+	 * @return the slot of the bus, or -1 if the bus has none
+	 */
+	public int findSlot(Bus bus) {
+		final Integer slot = slots.get(bus);
+		return slot == null ? -1 : slot;
+	}
+
+	/**
+	 * Gets the value of a slot.
+	 * 
+	 * @return the value, or null if unknown or if the slot is negative
+	 */
+	public SizedInteger get(int slot) {
+		return slot < 0 ? null : values[slot];
+	}
+
+	/**
+	 * Sets the value of a slot, nothing is done if the slot is negative.
+	 */
+	public void set(int slot, SizedInteger value) {
+		if (slot >= 0) {
+			values[slot] = value;
+		}
+	}
+
+	/**
+	 * Forgets the values of all the slots.
+	 */
+	public void clear() {
+		Arrays.fill(values, null);
+	}
+
+	/**
+	 * Gets a map of each Bus whose value is known to its value.
+	 */
+	public Map<Bus, SizedInteger> toMap() {
+		final Map<Bus, SizedInteger> map = new HashMap<Bus, SizedInteger>();
+		for (int i = 0; i < buses.size(); i++) {
+			if (values[i] != null) {
+				map.put(buses.get(i), values[i]);
+			}
+		}
+		return map;
+	}
+
+	/**
+	 * Gets a read only view of the values of the slots as a map of each Bus
+	 * whose value is known to its value. Unlike {@link #toMap()}, the view
+	 * follows the later modifications of the values.
+	 */
+	public Map<Bus, SizedInteger> asMap() {
+		return new AbstractMap<Bus, SizedInteger>() {
+			@Override
+			public SizedInteger get(Object key) {
+				final Integer slot = slots.get(key);
+				return slot == null ? null : values[slot];
+			}
+
+			@Override
+			public boolean containsKey(Object key) {
+				return get(key) != null;
+			}
+
+			@Override
+			public Set<Map.Entry<Bus, SizedInteger>> entrySet() {
+				return toMap().entrySet();
+			}
+		};
+	}
+
+	/**
+	 * Gets a read only map of the given ports to the values of the given
+	 * slots. The map reads the slots each time it is queried, so it may be
+	 * created once and passed to {@link org.xronos.openforge.lim.Emulatable}
+	 * components at every iteration. A port whose slot value is unknown is not
+	 * contained in the map.
+	 * 
+	 * @param ports
+	 *            the ports
+	 * @param portSlots
+	 *            the slot of the input value of each port
+	 */
+	public Map<Port, SizedInteger> getPortValues(Port[] ports, int[] portSlots) {
+		return new PortValues(ports, portSlots);
+	}
+
+	private class PortValues extends AbstractMap<Port, SizedInteger> {
+		private final Port[] ports;
+		private final int[] portSlots;
+
+		PortValues(Port[] ports, int[] portSlots) {
+			this.ports = ports;
+			this.portSlots = portSlots;
+		}
+
+		@Override
+		public SizedInteger get(Object key) {
+			for (int i = 0; i < ports.length; i++) {
+				if (ports[i] == key) {
+					return values[portSlots[i]];
+				}
+			}
+			return null;
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return get(key) != null;
+		}
+
+		@Override
+		public Set<Map.Entry<Port, SizedInteger>> entrySet() {
+			return new AbstractSet<Map.Entry<Port, SizedInteger>>() {
+				@Override
+				public Iterator<Map.Entry<Port, SizedInteger>> iterator() {
+					return new Iterator<Map.Entry<Port, SizedInteger>>() {
+						private int next = advance(0);
+
+						private int advance(int index) {
+							while (index < ports.length
+									&& values[portSlots[index]] == null) {
+								index++;
+							}
+							return index;
+						}
+
+						@Override
+						public boolean hasNext() {
+							return next < ports.length;
+						}
+
+						@Override
+						public Map.Entry<Port, SizedInteger> next() {
+							if (!hasNext()) {
+								throw new NoSuchElementException();
+							}
+							final int index = next;
+							next = advance(index + 1);
+							return new SimpleImmutableEntry<Port, SizedInteger>(
+									ports[index], values[portSlots[index]]);
+						}
+
+						@Override
+						public void remove() {
+							throw new UnsupportedOperationException();
+						}
+					};
+				}
+
+				@Override
+				public int size() {
+					int size = 0;
+					for (int i = 0; i < ports.length; i++) {
+						if (values[portSlots[i]] != null) {
+							size++;
+						}
+					}
+					return size;
+				}
+			};
+		}
+	}
+
+}
@@ -64,6 +64,12 @@ public abstract class Emulator {
 	 **/
 	protected Map<Port, Bus> inputMap = new HashMap<Port, Bus>();
 
+	/** True once the inputMap has been updated */
+	private boolean isInputMapped = false;
+
+	/** The values of the buses, by slot */
+	protected EmulationSlots slots = new EmulationSlots();
+
 	/**
 	 * Emulator Constructor
 	 */
@@ -146,9 +152,14 @@ public abstract class Emulator {
 	 * Update the inputMap object. For each component in the componentList,
 	 * pairs of (input port, data providing bus) are saved in the inputMap
 	 * object. This helps later when looking up the bus that provides the data
-	 * for a subcomponents port.
+	 * for a subcomponents port. The LIM does not change during the emulation,
+	 * so the inputMap is only updated once, on the first call.
 	 */
 	protected void updateInputMap() {
+		if (isInputMapped) {
+			return;
+		}
+		isInputMapped = true;
 		Iterator<ID> iter = componentList.iterator();
 		while (iter.hasNext()) {
 			Component nextComponent = (Component) iter.next();
@@ -20,7 +20,6 @@
  */
 package org.xronos.openforge.lim.util;
 
-import java.util.Iterator;
 import java.util.Map;
 
 import org.xronos.openforge.lim.Bus;
@@ -29,7 +28,6 @@ import org.xronos.openforge.lim.Loop;
 import org.xronos.openforge.lim.Module;
 import org.xronos.openforge.lim.Port;
 import org.xronos.openforge.util.SizedInteger;
-import org.xronos.openforge.util.naming.ID;
 
 
 /**
@@ -52,6 +50,9 @@ public class LoopBodyEmulator extends ModuleEmulator {
 	 */
 	private boolean done = false;
 
+	/** Emulator of the loop body's decision, created on first use */
+	private LoopDecisionEmulator decisionEmulator = null;
+
 	/**
 	 * LoopBodyEmulataor constructor
 	 * 
@@ -64,55 +65,25 @@ public class LoopBodyEmulator extends ModuleEmulator {
 	}
 
 	/**
-	 * Emulate the LoopDecisionBlock with the inputMap provided and return a map
-	 * of (output bus, SizedInteger value) pairs.
-	 * 
-	 * @param inputValues
-	 *            map of (input port, SizedInteger value) for input
-	 * @return busValuesMap - a map of (output bus, SizedInteger value) pairs.
-	 * @throws UnEmulatableLoopException
-	 *             - the loop is unEmulatable.
+	 * Emulates the loop body's decision with its own emulator, which records
+	 * whether the loop is done; the other components are emulated as in any
+	 * module.
 	 */
 	@Override
-	public Map<Bus, SizedInteger> emulate(Map<Port, SizedInteger> inputValues)
+	protected Map<Bus, SizedInteger> emulateStep(Component component,
+			Map<Port, SizedInteger> portValues)
 			throws UnEmulatableLoopException {
-		// System.out.println("\nEMULATING LOOPBODY -- " + module +
-		// " with inputValues = "+ inputValues);
-		Map<Bus, SizedInteger> outputValues = null;
-
-		componentList.add(module);
-		updateInputMap();
-		componentList.remove(module);
-
-		/*
-		 * Prime the input bus value map with the given port values.
-		 */
-		Map<Bus, SizedInteger> busValues = portToBusValues(inputValues);
-		// FIXME: Put implicit iterator
-		Iterator<ID> iter = componentList.iterator();
-		while (iter.hasNext()) {
-			Component component = (Component) iter.next();
-
-			Map<Port, SizedInteger> portValues = busToPortValues(component,
-					busValues);
-
-			// if the component is the loops decision emulate appropriately //
-			if (component == loop.getBody().getDecision()) {
-				LoopDecisionEmulator de = new LoopDecisionEmulator(loop,
-						(Module) component);
-				outputValues = de.emulate(portValues);
-				done = de.getDone();
-			} else {
-				outputValues = emulateComponent(component, portValues);
-			}
-
-			if (outputValues != null) {
-				busValues.putAll(outputValues);
-			}
+		if (component != loop.getBody().getDecision()) {
+			return emulateComponent(component, portValues);
 		}
-
-		componentList.removeAll(unEmulatable);
-		return busValues;
+		if (decisionEmulator == null) {
+			decisionEmulator = new LoopDecisionEmulator(loop,
+					(Module) component);
+		}
+		decisionEmulator.reset();
+		decisionEmulator.run(portValues);
+		done = decisionEmulator.getDone();
+		return decisionEmulator.getValues();
 	}
 
 	/**
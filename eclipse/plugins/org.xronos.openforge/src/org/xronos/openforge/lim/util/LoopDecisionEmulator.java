@@ -20,7 +20,6 @@
  */
 package org.xronos.openforge.lim.util;
 
-import java.util.Iterator;
 import java.util.Map;
 
 import org.xronos.openforge.lim.Bus;
@@ -29,7 +28,6 @@ import org.xronos.openforge.lim.Loop;
 import org.xronos.openforge.lim.Module;
 import org.xronos.openforge.lim.Port;
 import org.xronos.openforge.util.SizedInteger;
-import org.xronos.openforge.util.naming.ID;
 
 
 /**
@@ -52,6 +50,9 @@ public class LoopDecisionEmulator extends ModuleEmulator {
 	 */
 	private boolean done = false;
 
+	/** Emulator of the decision's test block, created on first use */
+	private LoopTestBlockEmulator testBlockEmulator = null;
+
 	/**
 	 * LoopDecisionEmulator Constructor
 	 * 
@@ -66,54 +67,25 @@ public class LoopDecisionEmulator extends ModuleEmulator {
 	}
 
 	/**
-	 * Emulate the LoopDecisionBlock with the inputMap provided and return a map
-	 * of (output bus, SizedInteger value) pairs.
-	 * 
-	 * @param inputValues
-	 *            map of (input port, SizedInteger value) for input
-	 * @return busValuesMap - a map of (output bus, SizedInteger value) pairs.
-	 * @throws UnEmulatableLoopException
-	 *             - the loop is unEmulatable.
+	 * Emulates the decision's test block with its own emulator, which records
+	 * whether the loop is done; the other components are emulated as in any
+	 * module.
 	 */
 	@Override
-	public Map<Bus, SizedInteger> emulate(Map<Port, SizedInteger> inputValues)
+	protected Map<Bus, SizedInteger> emulateStep(Component component,
+			Map<Port, SizedInteger> portValues)
 			throws UnEmulatableLoopException {
-		// System.out.println("\nEMULATING DECISION -- " + module +
-		// " with inputValues = "+ inputValues);
-		Map<Bus, SizedInteger> outputValues = null;
-
-		componentList.add(module);
-		updateInputMap();
-		componentList.remove(module);
-
-		/*
-		 * Prime the input bus value map with the given port values.
-		 */
-		Map<Bus, SizedInteger> busValues = portToBusValues(inputValues);
-		// FIXME: Put implicit iterator
-		Iterator<ID> iter = componentList.iterator();
-		while (iter.hasNext()) {
-			Component component = (Component) iter.next();
-
-			Map<Port, SizedInteger> portValues = busToPortValues(component,
-					busValues);
-
-			// If component is a testblock emulate it accordingly //
-			if (component == loop.getBody().getDecision().getTestBlock()) {
-				LoopTestBlockEmulator te = new LoopTestBlockEmulator(loop,
-						(Module) component);
-				outputValues = te.emulate(portValues);
-				done = te.getDone();
-			} else {
-				outputValues = emulateComponent(component, portValues);
-			}
-
-			if (outputValues != null) {
-				busValues.putAll(outputValues);
-			}
+		if (component != loop.getBody().getDecision().getTestBlock()) {
+			return emulateComponent(component, portValues);
+		}
+		if (testBlockEmulator == null) {
+			testBlockEmulator = new LoopTestBlockEmulator(loop,
+					(Module) component);
 		}
-		componentList.removeAll(unEmulatable);
-		return busValues;
+		testBlockEmulator.reset();
+		testBlockEmulator.run(portValues);
+		done = testBlockEmulator.getDone();
+		return testBlockEmulator.getValues();
 	}
 
 	/**
@@ -64,6 +64,12 @@ public class LoopEmulator extends Emulator {
 	 */
 	private Map<Port, Reg> feedbackRegMap = null;
 
+	/**
+	 * The inputComponentMap contains (loopBody port, Reg or Latch connected to
+	 * the port for the feedback entry) pairs.
+	 */
+	private Map<Port, Component> inputComponentMap = null;
+
 	/**
 	 * Map of (Reg feedbackReg, LinkedList valuelist) pairs. The linked list
 	 * holds the value that the feedback register takes through each iteration
@@ -301,9 +307,11 @@ public class LoopEmulator extends Emulator {
 	private void updateFeedbackMap() {
 		feedbackMap = new HashMap<Port, Bus>();
 		feedbackRegMap = new HashMap<Port, Reg>();
+		inputComponentMap = new HashMap<Port, Component>();
 		Iterator<Port> iter = loop.getBody().getDataPorts().iterator();
 		while (iter.hasNext()) {
 			Port port = iter.next();
+			inputComponentMap.put(port, getLoopBodyInputComponent(loop, port));
 			Bus bus = getLoopBodyInputRegBus(loop, port);
 			if (bus != null) {
 				feedbackMap.put(port, bus);
@@ -390,7 +398,6 @@ public class LoopEmulator extends Emulator {
 	private boolean iterate(Map<Port, SizedInteger> inputValues)
 			throws UnEmulatableLoopException {
 
-		Map<Bus, SizedInteger> outputValues = new HashMap<Bus, SizedInteger>();
 		/*
 		 * Prime the input bus value map with the given port values.
 		 */
@@ -401,32 +408,32 @@ public class LoopEmulator extends Emulator {
 		Map<Port, SizedInteger> portValues = busToPortValues(loopBody,
 				busValues);
 
-		outputValues = loopBodyEmulator.emulate(portValues);
+		loopBodyEmulator.run(portValues);
 		isDone = loopBodyEmulator.getDone();
 
-		if (outputValues != null) {
-			busValues.putAll(outputValues);
-		}
-
 		/*
 		 * Save the output values as the input values for the next iteration.
 		 */
 		for (Port port : inputValues.keySet()) {
-			Component inputComponent = getLoopBodyInputComponent(loop, port);
+			Component inputComponent = inputComponentMap.get(port);
 			if (inputComponent instanceof Reg) {
-				inputValues.put(port, busValues.get(feedbackMap.get(port)));
+				final Bus feedbackBus = feedbackMap.get(port);
+				SizedInteger feedbackValue = loopBodyEmulator
+						.getValue(feedbackBus);
+				if (feedbackValue == null) {
+					feedbackValue = busValues.get(feedbackBus);
+				}
+				inputValues.put(port, feedbackValue);
+
+				/*
+				 * Save the feedbackRegister values observed during this
+				 * iteration, we dont care about latches
+				 */
+				feedbackRegisterValues.get(feedbackRegMap.get(port)).add(
+						feedbackValue);
 			} else if (inputComponent instanceof Latch) {
 				inputValues.put(port, latchValues.get(port));
 			}
-
-			/* Save the feedbackRegister values observed during this iteration */
-			Component comp = getLoopBodyInputComponent(loop, port);
-			/* we dont care about latches */
-			if (comp instanceof Reg) {
-				Reg loopbodyReg = getLoopBodyInputReg(loop, port);
-				feedbackRegisterValues.get(loopbodyReg).add(
-						busValues.get(feedbackMap.get(port)));
-			}
 		}
 
 		// System.out.println("INPUT VALUES FOR NEXT ITERATION = " +
@@ -20,8 +20,6 @@
  */
 package org.xronos.openforge.lim.util;
 
-import java.math.BigInteger;
-import java.util.Iterator;
 import java.util.Map;
 
 import org.xronos.openforge.lim.Bus;
@@ -30,7 +28,6 @@ import org.xronos.openforge.lim.Loop;
 import org.xronos.openforge.lim.Module;
 import org.xronos.openforge.lim.Port;
 import org.xronos.openforge.util.SizedInteger;
-import org.xronos.openforge.util.naming.ID;
 
 
 /**
@@ -67,58 +64,27 @@ public class LoopTestBlockEmulator extends ModuleEmulator {
 	}
 
 	/**
-	 * Emulate the LoopTestBlock with the inputMap provided and return a map of
-	 * (output bus, SizedInteger value) pairs.
-	 * 
-	 * @param inputValues
-	 *            map of (input port, SizedInteger value) for input
-	 * @return busValuesMap - a map of (output bus, SizedInteger value) pairs.
-	 * @throws UnEmulatableLoopException
-	 *             - the loop is unEmulatable.
+	 * Emulates a component of the test block. If this is the loop's boolean
+	 * test expression, its value is saved.
 	 */
 	@Override
-	public Map<Bus, SizedInteger> emulate(Map<Port, SizedInteger> inputValues)
+	protected Map<Bus, SizedInteger> emulateStep(Component component,
+			Map<Port, SizedInteger> portValues)
 			throws UnEmulatableLoopException {
-		// System.out.println("\nEMULATING DECISION TESTBLOCK -- " + module +
-		// " with inputValues = "+ inputValues);
-		Map<Bus, SizedInteger> outputValues = null;
-
-		componentList.add(module);
-		updateInputMap();
-		componentList.remove(module);
-
-		/*
-		 * Prime the input bus value map with the given port values.
-		 */
-		Map<Bus, SizedInteger> busValues = portToBusValues(inputValues);
-		// FIXME: Put implicit iterator
-		Iterator<ID> iter = componentList.iterator();
-		while (iter.hasNext()) {
-			Component component = (Component) iter.next();
+		final Map<Bus, SizedInteger> outputValues = emulateComponent(
+				component, portValues);
 
-			Map<Port, SizedInteger> portValues = busToPortValues(component,
-					busValues);
-			outputValues = emulateComponent(component, portValues);
-
-			/*
-			 * If this is the loop's boolean test expression, save its value.
-			 */
-			if (component == loop.getDecisionOp()) {
-				final Bus testBus = loop.getDecisionOp().getDataBuses()
-						.iterator().next();
-				if (outputValues == null) {
-					throw new UnEmulatableLoopException(
-							"UnEmulatable loop - unable to emulate decisionop");
-				}
-				final SizedInteger testValue = outputValues.get(testBus);
-				done = testValue.numberValue().equals(BigInteger.ZERO);
-			}
-			if (outputValues != null) {
-				busValues.putAll(outputValues);
+		if (component == loop.getDecisionOp()) {
+			final Bus testBus = loop.getDecisionOp().getDataBuses()
+					.iterator().next();
+			if (outputValues == null) {
+				throw new UnEmulatableLoopException(
+						"UnEmulatable loop - unable to emulate decisionop");
 			}
+			final SizedInteger testValue = outputValues.get(testBus);
+			done = testValue.isZero();
 		}
-		componentList.removeAll(unEmulatable);
-		return busValues;
+		return outputValues;
 	}
 
 	/**
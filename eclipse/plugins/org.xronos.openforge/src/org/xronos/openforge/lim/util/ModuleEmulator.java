@@ -20,14 +20,18 @@
  */
 package org.xronos.openforge.lim.util;
 
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.xronos.openforge.lim.Bus;
 import org.xronos.openforge.lim.Component;
 import org.xronos.openforge.lim.Emulatable;
+import org.xronos.openforge.lim.InBuf;
 import org.xronos.openforge.lim.Loop;
 import org.xronos.openforge.lim.Module;
+import org.xronos.openforge.lim.OutBuf;
 import org.xronos.openforge.lim.Port;
 import org.xronos.openforge.util.SizedInteger;
 import org.xronos.openforge.util.naming.ID;
@@ -40,12 +44,146 @@ import org.xronos.openforge.util.naming.ID;
  *         NOTE: Components with multiple entries are declared unEmulatable even
  *         though they are emulatable. These components need more carefull
  *         analysis which could be done in future.
+ * 
+ *         The module is prepared once, on the first emulation: each bus is
+ *         given a slot in {@link Emulator#slots} and each component an
+ *         emulation {@link Step} which holds the slots of its inputs and
+ *         outputs. The emulators of the sub modules are created once and
+ *         reused, so that the emulation of a loop iteration only reads and
+ *         writes slots.
  */
 public class ModuleEmulator extends Emulator {
 
 	/* Module to be emulated */
 	Module module = null;
 
+	/** The order of the subcomponents, restored by {@link #reset()} */
+	private final List<ID> order;
+
+	/** The emulation steps, in the order of the subcomponents */
+	private List<Step> steps = null;
+
+	/** The emulators of the sub modules of the module */
+	private final Map<Component, ModuleEmulator> subEmulators = new HashMap<Component, ModuleEmulator>();
+
+	/**
+	 * The emulation of a subcomponent.
+	 */
+	private class Step {
+		/** The emulated component */
+		private final Component component;
+
+		/** False once the component has been found unEmulatable */
+		private boolean isActive = true;
+
+		/** The data ports which have an input bus */
+		private final Port[] ports;
+
+		/** The slot of the input bus of each port */
+		private final int[] portSlots;
+
+		/** The values of the ports, read from the slots */
+		private final Map<Port, SizedInteger> portValues;
+
+		/** The buses whose values are produced by the component */
+		private final Bus[] buses;
+
+		/** The slot of each bus */
+		private final int[] busSlots;
+
+		/** True if the component can be emulated at all */
+		private final boolean isEmulatable;
+
+		/** True if the component needs all its inputs to be emulated */
+		private final boolean needsInputs;
+
+		Step(Component component) {
+			this.component = component;
+
+			final List<Port> dataPorts = isInBuf(component) ? component
+					.getOwner().getDataPorts() : component.getDataPorts();
+			final List<Port> inputPorts = new ArrayList<Port>(dataPorts.size());
+			for (Port dataPort : dataPorts) {
+				if (inputMap.get(dataPort) != null) {
+					inputPorts.add(dataPort);
+				}
+			}
+			ports = inputPorts.toArray(new Port[inputPorts.size()]);
+			portSlots = new int[ports.length];
+			for (int i = 0; i < ports.length; i++) {
+				portSlots[i] = slots.getSlot(inputMap.get(ports[i]));
+			}
+			portValues = slots.getPortValues(ports, portSlots);
+
+			/*
+			 * An OutBuf produces the values of its module's exit buses, the
+			 * other components those of their own data buses.
+			 */
+			final List<Bus> outputs = new ArrayList<Bus>();
+			if (component instanceof OutBuf) {
+				for (Port dataPort : component.getDataPorts()) {
+					if (dataPort.getPeer() != null) {
+						outputs.add(dataPort.getPeer());
+					}
+				}
+			} else {
+				outputs.addAll(component.getDataBuses());
+			}
+			buses = outputs.toArray(new Bus[outputs.size()]);
+			busSlots = new int[buses.length];
+			for (int i = 0; i < buses.length; i++) {
+				busSlots[i] = slots.getSlot(buses[i]);
+			}
+
+			final boolean isModule = component instanceof Module;
+			final boolean isIOBuf = component instanceof InBuf
+					|| component instanceof OutBuf;
+			isEmulatable = (component instanceof Emulatable) || isModule;
+			needsInputs = !(isModule || isIOBuf);
+		}
+
+		/**
+		 * Adds the component to the unEmulatable collection if it cannot be
+		 * emulated with the current input values.
+		 */
+		void checkInputs() {
+			if (ports.length == 0 || unEmulatable.contains(component)) {
+				return;
+			}
+			boolean isUnEmulatable = !isEmulatable;
+			for (int i = 0; i < ports.length && !isUnEmulatable; i++) {
+				isUnEmulatable = needsInputs && slots.get(portSlots[i]) == null;
+			}
+			if (isUnEmulatable) {
+				unEmulatable.add(component);
+			}
+		}
+
+		/**
+		 * Saves the output values of the component in the slots.
+		 */
+		void store(Map<Bus, SizedInteger> outputValues) {
+			int stored = 0;
+			for (int i = 0; i < buses.length; i++) {
+				final SizedInteger value = outputValues.get(buses[i]);
+				if (value != null) {
+					slots.set(busSlots[i], value);
+					stored++;
+				}
+			}
+			/*
+			 * A sub module only provides its exit buses to this module, other
+			 * components may produce any bus.
+			 */
+			if (!(component instanceof Module) && stored < outputValues.size()) {
+				for (Map.Entry<Bus, SizedInteger> entry : outputValues
+						.entrySet()) {
+					slots.set(slots.getSlot(entry.getKey()), entry.getValue());
+				}
+			}
+		}
+	}
+
 	/**
 	 * ModuleEmulator Constructor
 	 * 
@@ -55,7 +193,8 @@ public class ModuleEmulator extends Emulator {
 	public ModuleEmulator(Module targetModule) {
 		super();
 		module = targetModule;
-		setComponentList(OrderFinder.getOrder(module));
+		order = OrderFinder.getOrder(module);
+		setComponentList(new ArrayList<ID>(order));
 	}
 
 	/**
@@ -91,14 +230,13 @@ public class ModuleEmulator extends Emulator {
 					outputValues = le.emulate(portValues);
 				} else {
 					// System.out.println("Found an unrolled loop - emulating as module ..");
-					ModuleEmulator me = new ModuleEmulator((Module) component);
-					outputValues = me.emulate(portValues);
+					outputValues = emulateSubModule((Module) component,
+							portValues);
 				}
 			} else if (component instanceof Module) {
 				/* component is a Module */
 				// System.out.println("emulating as module");
-				ModuleEmulator me = new ModuleEmulator((Module) component);
-				outputValues = me.emulate(portValues);
+				outputValues = emulateSubModule((Module) component, portValues);
 			} else {
 				try {
 					// System.out.println("emulating as component");
@@ -121,6 +259,43 @@ public class ModuleEmulator extends Emulator {
 		return outputValues;
 	}
 
+	/**
+	 * Emulates a sub module with its own emulator, which is created on the
+	 * first emulation and then reset before each one.
+	 * 
+	 * @return a view of the bus values of the sub module
+	 */
+	private Map<Bus, SizedInteger> emulateSubModule(Module subModule,
+			Map<Port, SizedInteger> portValues)
+			throws UnEmulatableLoopException {
+		ModuleEmulator emulator = subEmulators.get(subModule);
+		if (emulator == null) {
+			emulator = new ModuleEmulator(subModule);
+			subEmulators.put(subModule, emulator);
+		}
+		emulator.reset();
+		emulator.run(portValues);
+		return emulator.getValues();
+	}
+
+	/**
+	 * Emulates one subcomponent of the module. Subclasses override this method
+	 * to handle their special subcomponents.
+	 * 
+	 * @param component
+	 *            a subcomponent of the module
+	 * @param portValues
+	 *            the input values of the component
+	 * @return a map of (output bus, SizedInteger value) pairs, or null
+	 * @throws UnEmulatableLoopException
+	 *             if the component is a loop that cannot be emulated
+	 */
+	protected Map<Bus, SizedInteger> emulateStep(Component component,
+			Map<Port, SizedInteger> portValues)
+			throws UnEmulatableLoopException {
+		return emulateComponent(component, portValues);
+	}
+
 	/**
 	 * Emulate the Module with the inputMap provided and return a map of (output
 	 * bus, SizedInteger value) pairs.
@@ -134,37 +309,96 @@ public class ModuleEmulator extends Emulator {
 	 */
 	public Map<Bus, SizedInteger> emulate(Map<Port, SizedInteger> inputValues)
 			throws UnEmulatableLoopException {
+		run(inputValues);
+		return slots.toMap();
+	}
+
+	/**
+	 * Emulates the Module with the inputMap provided, the resulting bus values
+	 * are then read with {@link #getValue(Bus)} or {@link #getValues()}.
+	 * 
+	 * @param inputValues
+	 *            map of (input port, SizedInteger value) for input
+	 * @throws UnEmulatableLoopException
+	 *             - the module contained a loop inside it and it was
+	 *             unemulatable.
+	 */
+	protected void run(Map<Port, SizedInteger> inputValues)
+			throws UnEmulatableLoopException {
 		// System.out.println("\nEMULATING MODULE -- " + module +
 		// " with inputValues = "+ inputValues);
-		Map<Bus, SizedInteger> outputValues = null;
+		if (steps == null) {
+			componentList.add(module);
+			updateInputMap();
+			componentList.remove(module);
 
-		componentList.add(module);
-		updateInputMap();
-		componentList.remove(module);
+			steps = new ArrayList<Step>(componentList.size());
+			for (ID id : componentList) {
+				steps.add(new Step((Component) id));
+			}
+		}
 
 		/*
-		 * Prime the input bus value map with the given port values.
+		 * Prime the input bus values with the given port values.
 		 */
-		Map<Bus, SizedInteger> busValues = portToBusValues(inputValues);
-
-		Iterator<ID> iter = componentList.iterator();
-		while (iter.hasNext()) {
-			Component component = (Component) iter.next();
+		slots.clear();
+		for (Map.Entry<Port, SizedInteger> entry : inputValues.entrySet()) {
+			slots.set(slots.getSlot(inputMap.get(entry.getKey())),
+					entry.getValue());
+		}
 
-			// System.out.println("EMULATING COMPONENT  - " + component +
-			// "with busValues " + busValues);
-			Map<Port, SizedInteger> portValues = busToPortValues(component,
-					busValues);
-			// System.out.println("Port Values = " + portValues);
-			outputValues = emulateComponent(component, portValues);
-			// System.out.println("Output values = " + outputValues);
+		for (int i = 0; i < steps.size(); i++) {
+			final Step step = steps.get(i);
+			if (!step.isActive) {
+				continue;
+			}
 
+			step.checkInputs();
+			final Map<Bus, SizedInteger> outputValues = emulateStep(
+					step.component, step.portValues);
 			if (outputValues != null) {
-				busValues.putAll(outputValues);
+				step.store(outputValues);
+			}
+		}
+
+		if (!unEmulatable.isEmpty()) {
+			componentList.removeAll(unEmulatable);
+			for (Step step : steps) {
+				step.isActive = step.isActive
+						&& !unEmulatable.contains(step.component);
 			}
 		}
-		componentList.removeAll(unEmulatable);
-		return busValues;
+	}
+
+	/**
+	 * Restores the state of a new emulator: no subcomponent is known to be
+	 * unEmulatable. The preparation of the module is kept.
+	 */
+	protected void reset() {
+		unEmulatable.clear();
+		setComponentList(new ArrayList<ID>(order));
+		if (steps != null) {
+			for (Step step : steps) {
+				step.isActive = true;
+			}
+		}
+	}
+
+	/**
+	 * Gets the value of a bus after the last emulation.
+	 * 
+	 * @return the value, or null if unknown
+	 */
+	public SizedInteger getValue(Bus bus) {
+		return slots.get(slots.findSlot(bus));
+	}
+
+	/**
+	 * Gets a view of the bus values of the last emulation, valid until the
+	 * next one.
+	 */
+	protected Map<Bus, SizedInteger> getValues() {
+		return slots.asMap();
 	}
 
 }
@@ -31,8 +31,7 @@ import java.util.Set;
 
 import org.xronos.openforge.app.EngineThread;
 import org.xronos.openforge.app.OptionRegistry;
-import org.xronos.openforge.app.project.OptionBoolean;
-import org.xronos.openforge.app.project.OptionInt;
+import org.xronos.openforge.app.project.OptionSnapshot;
 import org.xronos.openforge.lim.Component;
 import org.xronos.openforge.lim.DefaultVisitor;
 import org.xronos.openforge.lim.Design;
@@ -156,15 +155,12 @@ public class CompactSRL16Visitor extends DefaultVisitor {
 	 */
 	private void compactRegChain(Collection<List<Reg>> chainList, int type) {
 		for (List<Reg> regList : chainList) {
-			OptionInt minLengthOption = (OptionInt) EngineThread
-					.getGenericJob().getOption(
-							OptionRegistry.SRL_COMPACT_LENGTH);
-			final int MIN_COMPACT_LENGTH = minLengthOption
-					.getValueAsInt(regList.get(0).getSearchLabel());
-			final boolean REGISTER_OUTPUT = !((OptionBoolean) EngineThread
-					.getGenericJob()
-					.getOption(OptionRegistry.SRL_NO_OUTPUT_REG))
-					.getValueAsBoolean(regList.get(0).getSearchLabel());
+			final OptionSnapshot options = EngineThread.getGenericJob()
+					.getOptionSnapshot(regList.get(0).getSearchLabel());
+			final int MIN_COMPACT_LENGTH = options
+					.getInt(OptionRegistry.SRL_COMPACT_LENGTH);
+			final boolean REGISTER_OUTPUT = !options
+					.getBoolean(OptionRegistry.SRL_NO_OUTPUT_REG);
 
 			// Sanity checking. All the registers in a chain must be
 			// in the same module.
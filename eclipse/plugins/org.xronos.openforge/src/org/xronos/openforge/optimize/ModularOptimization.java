@@ -0,0 +1,28 @@
+/*******************************************************************************
+ * Copyright 2002-2009  Xilinx Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package org.xronos.openforge.optimize;
+
+/**
+ * Implemented by the optimizations which can be applied to any single
+ * {@link org.xronos.openforge.lim.Module} of a design, and whose decisions
+ * only depend on the structure and values of the components they rewrite. The
+ * {@link OptimizationWorklist} runs these optimizations only over the modules
+ * modified since their previous run.
+ * 
+ */
+public interface ModularOptimization extends Optimization {
+}
@@ -0,0 +1,317 @@
+/*******************************************************************************
+ * Copyright 2002-2009  Xilinx Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package org.xronos.openforge.optimize;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.xronos.openforge.app.EngineThread;
+import org.xronos.openforge.app.PassProfiler;
+import org.xronos.openforge.lim.Block;
+import org.xronos.openforge.lim.Call;
+import org.xronos.openforge.lim.Design;
+import org.xronos.openforge.lim.Module;
+import org.xronos.openforge.lim.ModuleListener;
+import org.xronos.openforge.lim.Procedure;
+import org.xronos.openforge.lim.Reference;
+
+/**
+ * OptimizationWorklist runs {@link Optimization Optimizations} over a
+ * {@link Design} while recording the {@link Module Modules} modified by each
+ * of them. Every modification is stamped, and each optimization remembers the
+ * stamp at which it was last started, so that:
+ * <ul>
+ * <li>an optimization is not re-run when nothing changed since it was last
+ * started,</li>
+ * <li>a {@link ModularOptimization} is only re-run over the modified modules
+ * and their dependents (the enclosing module, or the modules calling a
+ * modified procedure body),</li>
+ * <li>any other optimization is re-run over the whole design.</li>
+ * </ul>
+ * An optimization which reports a modification without being modular is
+ * assumed to have changed the design in ways which can not be tracked, in
+ * which case the next run of every optimization covers the whole design.
+ * 
+ */
+public class OptimizationWorklist implements ModuleListener {
+
+	/** The design being optimized */
+	private final Design design;
+
+	/** The stamp of the last modification */
+	private long stamp = 0;
+
+	/** The stamp of the last modification which could not be localized */
+	private long untrackedStamp = 0;
+
+	/** The stamp of the last modification of each module */
+	private final Map<Module, Long> modified = new HashMap<Module, Long>();
+
+	/** The stamp at which each optimization was last started */
+	private final Map<Object, Long> lastStarted = new HashMap<Object, Long>();
+
+	private int fullRuns = 0;
+	private int scopedRuns = 0;
+	private int skippedRuns = 0;
+
+	public OptimizationWorklist(Design design) {
+		this.design = design;
+	}
+
+	/**
+	 * Starts recording the modifications made to the modules by the current
+	 * thread.
+	 */
+	public void start() {
+		Module.setChangeListener(this);
+	}
+
+	/**
+	 * Stops recording the modifications and releases the recorded modules.
+	 */
+	public void stop() {
+		Module.setChangeListener(null);
+		modified.clear();
+		lastStarted.clear();
+		EngineThread.getGenericJob().verbose(
+				"worklist: " + fullRuns + " full runs, " + scopedRuns
+						+ " scoped runs, " + skippedRuns + " skipped runs");
+	}
+
+	@Override
+	public void moduleChanged(Module module) {
+		stamp++;
+		modified.put(module, stamp);
+	}
+
+	/**
+	 * Tests whether the design has been modified since the given stamp.
+	 * 
+	 * @param since
+	 *            a stamp obtained from {@link #getStamp()}
+	 * @return true if any modification has been recorded after the stamp
+	 */
+	public boolean isModifiedSince(long since) {
+		return stamp > since;
+	}
+
+	/**
+	 * @return the stamp of the last modification
+	 */
+	public long getStamp() {
+		return stamp;
+	}
+
+	/**
+	 * Runs the optimization over the parts of the design which were modified
+	 * since its last run.
+	 * 
+	 * @param opt
+	 *            an optimization
+	 * @return true if the optimization modified the design
+	 */
+	public boolean run(Optimization opt) {
+		final Long last = lastStarted.get(opt);
+		lastStarted.put(opt, stamp);
+
+		if (last != null && stamp == last) {
+			skippedRuns++;
+			return false;
+		}
+
+		if (last != null && opt instanceof ModularOptimization
+				&& untrackedStamp <= last) {
+			final Collection<Module> scopes = getScopes(last);
+			if (scopes != null) {
+				if (scopes.isEmpty()) {
+					skippedRuns++;
+					return false;
+				}
+				scopedRuns++;
+				return runOpt(scopes, opt);
+			}
+		}
+
+		fullRuns++;
+		return runOpt(Collections.<Module> emptyList(), opt);
+	}
+
+	/**
+	 * Runs every optimization of the list until none of them modifies the
+	 * design.
+	 * 
+	 * @param opts
+	 *            a list of optimizations
+	 * @return true if any optimization modified the design
+	 */
+	public boolean runAll(List<Optimization> opts) {
+		boolean modifiedThisPass = false;
+		boolean modifiedAtAll = false;
+		do {
+			modifiedThisPass = false;
+			for (Optimization opt : opts) {
+				modifiedThisPass |= run(opt);
+			}
+			modifiedAtAll |= modifiedThisPass;
+		} while (modifiedThisPass);
+		return modifiedAtAll;
+	}
+
+	/**
+	 * Runs the optimization over each of the given modules, or over the whole
+	 * design if none is given.
+	 */
+	private boolean runOpt(Collection<Module> scopes, Optimization opt) {
+		opt.clear();
+		opt.preStatus();
+		final PassProfiler profiler = EngineThread.getGenericJob()
+				.getPassProfiler();
+		if (profiler != null) {
+			profiler.start(opt.getClass().getSimpleName(), design);
+		}
+		try {
+			if (scopes.isEmpty()) {
+				opt.run(design);
+			} else {
+				for (Module scope : scopes) {
+					opt.run(scope);
+				}
+			}
+		} finally {
+			if (profiler != null) {
+				profiler.stop(design);
+			}
+		}
+		final boolean didModify = opt.didModify();
+		EngineThread.getGenericJob().inc();
+		opt.postStatus();
+		EngineThread.getGenericJob().dec();
+		opt.clear();
+
+		if (didModify && !(opt instanceof ModularOptimization)) {
+			stamp++;
+			untrackedStamp = stamp;
+		}
+		return didModify;
+	}
+
+	/**
+	 * Collects the outermost modules to be revisited for the modifications
+	 * made after the given stamp.
+	 * 
+	 * @return the modules, or null if the whole design must be revisited
+	 */
+	private Collection<Module> getScopes(long since) {
+		final Set<Module> scopes = new LinkedHashSet<Module>();
+		for (Map.Entry<Module, Long> entry : modified.entrySet()) {
+			if (entry.getValue() <= since) {
+				continue;
+			}
+			final Collection<Module> dependents = getDependents(entry.getKey());
+			if (dependents == null) {
+				return null;
+			}
+			scopes.addAll(dependents);
+		}
+
+		// Only keep the outermost modules, the others are visited through
+		// them
+		final List<Module> roots = new ArrayList<Module>();
+		for (Module scope : scopes) {
+			boolean nested = false;
+			for (Module owner = scope.getOwner(); owner != null; owner = owner
+					.getOwner()) {
+				if (scopes.contains(owner)) {
+					nested = true;
+					break;
+				}
+			}
+			if (!nested) {
+				roots.add(scope);
+			}
+		}
+		return roots;
+	}
+
+	/**
+	 * Gets the modules which must be revisited when the given module has been
+	 * modified: the module enclosing it, whose other components may consume
+	 * its results, or the modules calling it when it is a procedure body.
+	 * 
+	 * @return the dependent modules, empty if the module is no longer part of
+	 *         the design, or null if the whole design must be revisited
+	 */
+	private Collection<Module> getDependents(Module module) {
+		if (module instanceof Design.DesignModule) {
+			return null;
+		}
+
+		final Module owner = module.getOwner();
+		if (owner != null) {
+			if (owner instanceof Design.DesignModule) {
+				return null;
+			}
+			return isAttached(owner) ? Collections.singletonList(owner)
+					: Collections.<Module> emptyList();
+		}
+
+		final List<Module> callers = new ArrayList<Module>();
+		if (module instanceof Block && ((Block) module).isProcedureBody()) {
+			final Procedure procedure = ((Block) module).getProcedure();
+			if (procedure != null) {
+				for (Reference reference : procedure.getCalls()) {
+					if (!(reference instanceof Call)) {
+						continue;
+					}
+					final Module caller = reference.getOwner();
+					if (caller instanceof Design.DesignModule) {
+						return null;
+					}
+					if (caller != null && isAttached(caller)) {
+						callers.add(caller);
+					}
+				}
+			}
+		}
+		return callers;
+	}
+
+	/**
+	 * Tests whether a module is still reachable from the design, either
+	 * directly or through the body of a called procedure.
+	 */
+	private boolean isAttached(Module module) {
+		Module top = module;
+		while (top.getOwner() != null) {
+			top = top.getOwner();
+		}
+		if (top instanceof Design.DesignModule) {
+			return true;
+		}
+		if (top instanceof Block && ((Block) top).isProcedureBody()) {
+			final Procedure procedure = ((Block) top).getProcedure();
+			return procedure != null && !procedure.getCalls().isEmpty();
+		}
+		return false;
+	}
+}
@@ -27,6 +27,8 @@ import java.util.List;
 
 import org.xronos.openforge.app.EngineThread;
 import org.xronos.openforge.app.GenericJob;
+import org.xronos.openforge.app.OptionRegistry;
+import org.xronos.openforge.app.PassProfiler;
 import org.xronos.openforge.lim.Design;
 import org.xronos.openforge.lim.Visitable;
 import org.xronos.openforge.optimize.constant.FullConstantVisitor;
@@ -36,6 +38,7 @@ import org.xronos.openforge.optimize.io.BlockElementRemover;
 import org.xronos.openforge.optimize.loop.LoopUnrollingVisitor;
 import org.xronos.openforge.optimize.loop.LoopVariableResizer;
 import org.xronos.openforge.optimize.memory.BaseAddressUniquifier;
+import org.xronos.openforge.optimize.memory.MemoryPartitioner;
 import org.xronos.openforge.optimize.memory.MemoryReducer;
 import org.xronos.openforge.optimize.memory.MemorySplitter;
 import org.xronos.openforge.optimize.memory.MemoryToRegister;
@@ -83,6 +86,7 @@ public class Optimizer {
 		// prior to scheduling in the DualPortRamAllocator
 		// DualPortBRAMAllocator dualPortAlloc = new DualPortBRAMAllocator();
 		MemorySplitter memSplitter = new MemorySplitter();
+		MemoryPartitioner memPartitioner = new MemoryPartitioner();
 		MemoryReducer memReducer = new MemoryReducer();
 		MemoryTrimmer memTrimmer = new MemoryTrimmer();
 		ReadOnlyFieldReducer readOnlyFieldReducer = new ReadOnlyFieldReducer();
@@ -129,90 +133,119 @@ public class Optimizer {
 		List<Optimization> memOpts = new ArrayList<Optimization>();
 		memOpts.add(baseAddrUniquifier);
 		memOpts.add(memSplitter);
+		memOpts.add(memPartitioner);
 		memOpts.add(readOnlyFieldReducer);
 		memOpts.add(memTrimmer);
 		memOpts.add(memReducer);
 		// memOpts.add(dualPortAlloc);
 
-		boolean isModified = true;
-		while (isModified) {
-			isModified = false;
-
-			fullConstVisitor.clear();
-			halfConstantVisitor.clear();
-			loopUnrollingVisitor.clear();
-			deadComponentVisitor.clear();
-
-			gj.info("replacing constant expressions...");
-			gj.inc();
-			isModified = isModified | runOpt(target, fullConstVisitor);
-			// target.accept(fullConstVisitor);
-			// isModified |= fullConstVisitor.didModify();
-			gj.verbose("replaced " + fullConstVisitor.getReplacedNodeCount()
-					+ " expressions");
-			gj.dec();
-
-			gj.info("pruning dead code...");
-			gj.inc();
-			isModified = isModified | runOpt(target, deadComponentVisitor);
-			// target.accept(deadComponentVisitor);
-			// isModified |= deadComponentVisitor.didModify();
-			gj.verbose("pruned " + deadComponentVisitor.getRemovedNodeCount()
-					+ " expressions");
-			gj.dec();
-			deadComponentVisitor.clearCount();
-
-			isModified |= runOpts(target, memOpts);
-
-			// XXX Run Loop unrolling before half constant prop so that we
-			// can recognize divide by power of 2 as a index variable
-			// increment. Same for multiplies that get replaced.
-			// Loop unrolling can only detect single operations
-			// modifying the loop index and these replacements are
-			// multiple nodes. But, doing so causes Value problems
-			// (something in the unrolled loop has no value?)
-			isModified = isModified | runOpt(target, loopUnrollingVisitor);
-
-			// block unnesting
-			isModified = isModified | runOpt(target, nestedBlock);
-
-			gj.info("reducing expressions with constants...");
-			isModified = isModified | runOpt(target, halfConstantVisitor);
-			// target.accept(halfConstantVisitor);
-			// isModified |= halfConstantVisitor.didModify();
-			gj.verbose("   reduced - removed "
-					+ halfConstantVisitor.getRemovedNodeCount()
-					+ " expressions");
-			gj.verbose("   reduced - replaced "
-					+ halfConstantVisitor.getReplacedNodeCount()
-					+ " expressions");
-			gj.dec();
-
-			gj.info("pruning dead code...");
-			gj.inc();
-			isModified = isModified | runOpt(target, deadComponentVisitor);
-			// target.accept(deadComponentVisitor);
-			// isModified |= deadComponentVisitor.didModify();
-			gj.verbose("pruned " + deadComponentVisitor.getRemovedNodeCount()
-					+ " expressions");
-			gj.dec();
-
-			//
-			// Convert single element memories to registers. This
-			// needs to have partial constant prop run after it but
-			// before half or full constant runs again. That is
-			// because the optimization creates RegisterAccessBlock
-			// modules which need the partial constant prop rules run
-			// in order to initialize the inbuf/outbufs before
-			// half/full run.
-			//
-
-			isModified = isModified | runOpt(target, memToReg);
-
-			gj.info("propagating constant bits...");
-			TwoPassPartialConstant.propagate(target,
-					Collections.<ComponentSwapVisitor> emptyList());
+		// Record the modules modified by each optimization so that the
+		// following iterations only revisit what changed.
+		OptimizationWorklist worklist = null;
+		if (!gj.getUnscopedBooleanOptionValue(OptionRegistry.OPTIMIZE_NO_WORKLIST)) {
+			worklist = new OptimizationWorklist(target);
+			worklist.start();
+		}
+		try {
+			long propagated = -1;
+
+			boolean isModified = true;
+			while (isModified) {
+				isModified = false;
+
+				fullConstVisitor.clear();
+				halfConstantVisitor.clear();
+				loopUnrollingVisitor.clear();
+				deadComponentVisitor.clear();
+
+				gj.info("replacing constant expressions...");
+				gj.inc();
+				isModified = isModified
+						| runOpt(worklist, target, fullConstVisitor);
+				// target.accept(fullConstVisitor);
+				// isModified |= fullConstVisitor.didModify();
+				gj.verbose("replaced " + fullConstVisitor.getReplacedNodeCount()
+						+ " expressions");
+				gj.dec();
+
+				gj.info("pruning dead code...");
+				gj.inc();
+				isModified = isModified
+						| runOpt(worklist, target, deadComponentVisitor);
+				// target.accept(deadComponentVisitor);
+				// isModified |= deadComponentVisitor.didModify();
+				gj.verbose("pruned " + deadComponentVisitor.getRemovedNodeCount()
+						+ " expressions");
+				gj.dec();
+				deadComponentVisitor.clearCount();
+
+				isModified |= runOpts(worklist, target, memOpts);
+
+				// XXX Run Loop unrolling before half constant prop so that we
+				// can recognize divide by power of 2 as a index variable
+				// increment. Same for multiplies that get replaced.
+				// Loop unrolling can only detect single operations
+				// modifying the loop index and these replacements are
+				// multiple nodes. But, doing so causes Value problems
+				// (something in the unrolled loop has no value?)
+				isModified = isModified
+						| runOpt(worklist, target, loopUnrollingVisitor);
+
+				// block unnesting
+				isModified = isModified | runOpt(worklist, target, nestedBlock);
+
+				gj.info("reducing expressions with constants...");
+				isModified = isModified
+						| runOpt(worklist, target, halfConstantVisitor);
+				// target.accept(halfConstantVisitor);
+				// isModified |= halfConstantVisitor.didModify();
+				gj.verbose("   reduced - removed "
+						+ halfConstantVisitor.getRemovedNodeCount()
+						+ " expressions");
+				gj.verbose("   reduced - replaced "
+						+ halfConstantVisitor.getReplacedNodeCount()
+						+ " expressions");
+				gj.dec();
+
+				gj.info("pruning dead code...");
+				gj.inc();
+				isModified = isModified
+						| runOpt(worklist, target, deadComponentVisitor);
+				// target.accept(deadComponentVisitor);
+				// isModified |= deadComponentVisitor.didModify();
+				gj.verbose("pruned " + deadComponentVisitor.getRemovedNodeCount()
+						+ " expressions");
+				gj.dec();
+
+				//
+				// Convert single element memories to registers. This
+				// needs to have partial constant prop run after it but
+				// before half or full constant runs again. That is
+				// because the optimization creates RegisterAccessBlock
+				// modules which need the partial constant prop rules run
+				// in order to initialize the inbuf/outbufs before
+				// half/full run.
+				//
+
+				isModified = isModified | runOpt(worklist, target, memToReg);
+
+				// Values only need to be propagated again if the design changed
+				// since the last propagation.
+				if (worklist == null || worklist.isModifiedSince(propagated)) {
+					gj.info("propagating constant bits...");
+					TwoPassPartialConstant.propagate(target,
+							Collections.<ComponentSwapVisitor> emptyList());
+					if (worklist != null) {
+						propagated = worklist.getStamp();
+					}
+				}
 
+			}
+		} finally {
+			// The module listener of the worklist is bound to this thread
+			if (worklist != null) {
+				worklist.stop();
+			}
 		}
 
 		/* resize loop variables before operation substitution */
@@ -262,7 +295,7 @@ public class Optimizer {
 		return target;
 	}
 
-	private boolean runOpts(Visitable target, List<Optimization> opts) {
+	private static boolean runOpts(Visitable target, List<Optimization> opts) {
 		boolean modifiedThisPass = false;
 		boolean modifiedAtAll = false;
 		do {
@@ -277,12 +310,43 @@ public class Optimizer {
 		return modifiedAtAll;
 	}
 
+	private static boolean runOpts(OptimizationWorklist worklist,
+			Visitable target, List<Optimization> opts) {
+		if (worklist != null) {
+			return worklist.runAll(opts);
+		}
+		return runOpts(target, opts);
+	}
+
+	/**
+	 * Runs the optimization through the worklist if there is one, otherwise
+	 * over the whole target.
+	 */
+	private static boolean runOpt(OptimizationWorklist worklist,
+			Visitable target, Optimization opt) {
+		if (worklist != null) {
+			return worklist.run(opt);
+		}
+		return runOpt(target, opt);
+	}
+
 	public static boolean runOpt(Visitable target, Optimization opt) {
 		// System.out.println("******************");
 		// System.out.println("Started " + opt);
 		opt.clear(); // Clear out prior
 		opt.preStatus();
-		opt.run(target);
+		final PassProfiler profiler = EngineThread.getGenericJob()
+				.getPassProfiler();
+		if (profiler != null) {
+			profiler.start(opt.getClass().getSimpleName(), target);
+		}
+		try {
+			opt.run(target);
+		} finally {
+			if (profiler != null) {
+				profiler.stop(target);
+			}
+		}
 		boolean modify = opt.didModify();
 		EngineThread.getGenericJob().inc();
 		opt.postStatus();
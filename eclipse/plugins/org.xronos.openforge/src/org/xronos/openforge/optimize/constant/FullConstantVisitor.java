@@ -72,7 +72,7 @@ import org.xronos.openforge.lim.op.SubtractOp;
 import org.xronos.openforge.lim.op.UnaryOp;
 import org.xronos.openforge.lim.op.XorOp;
 import org.xronos.openforge.optimize.ComponentSwapVisitor;
-import org.xronos.openforge.optimize.Optimization;
+import org.xronos.openforge.optimize.ModularOptimization;
 import org.xronos.openforge.optimize._optimize;
 
 /**
@@ -96,7 +96,7 @@ import org.xronos.openforge.optimize._optimize;
  * @version $Id: FullConstantVisitor.java 23 2005-09-09 18:45:32Z imiller $
  */
 public class FullConstantVisitor extends ComponentSwapVisitor implements
-		Optimization {
+		ModularOptimization {
 
 	@Override
 	public void visit(Design design) {
@@ -45,7 +45,7 @@ import org.xronos.openforge.lim.op.RightShiftOp;
 import org.xronos.openforge.lim.op.RightShiftUnsignedOp;
 import org.xronos.openforge.lim.op.SubtractOp;
 import org.xronos.openforge.optimize.ComponentSwapVisitor;
-import org.xronos.openforge.optimize.Optimization;
+import org.xronos.openforge.optimize.ModularOptimization;
 import org.xronos.openforge.optimize._optimize;
 import org.xronos.openforge.optimize.constant.rule.AddOpRule;
 import org.xronos.openforge.optimize.constant.rule.AndOpRule;
@@ -71,7 +71,7 @@ import org.xronos.openforge.optimize.constant.rule.SubtractOpRule;
  * @version $Id: HalfConstantVisitor.java 2 2005-06-09 20:00:48Z imiller $
  */
 public class HalfConstantVisitor extends ComponentSwapVisitor implements
-		Optimization {
+		ModularOptimization {
 
 	/**
 	 * Applies this optimization to a given target.
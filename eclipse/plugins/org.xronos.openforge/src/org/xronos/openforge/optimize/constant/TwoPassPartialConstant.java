@@ -286,6 +286,9 @@ public class TwoPassPartialConstant extends DataFlowVisitor {
 		if (isForward()) {
 			boolean forwardMod = c.propagateValuesForward();
 			modified |= forwardMod;
+			if (forwardMod && c.getOwner() != null) {
+				c.getOwner().notifyChanged();
+			}
 			if (_optimize.db) {
 				_optimize.ln(_optimize.PARTIAL, "\tfwd: " + c.cpDebug(true)
 						+ " \tmodified " + forwardMod);
@@ -293,6 +296,9 @@ public class TwoPassPartialConstant extends DataFlowVisitor {
 		} else {
 			boolean reverseMod = c.propagateValuesBackward();
 			modified |= reverseMod;
+			if (reverseMod && c.getOwner() != null) {
+				c.getOwner().notifyChanged();
+			}
 			if (_optimize.db) {
 				_optimize.ln(_optimize.PARTIAL, "\trev: " + c.cpDebug(true)
 						+ " \tmodified " + reverseMod);
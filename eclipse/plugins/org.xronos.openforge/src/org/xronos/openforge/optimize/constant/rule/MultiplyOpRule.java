@@ -33,7 +33,6 @@ import java.util.Set;
 
 import org.xronos.openforge.app.EngineThread;
 import org.xronos.openforge.app.OptionRegistry;
-import org.xronos.openforge.app.project.OptionInt;
 import org.xronos.openforge.lim.Block;
 import org.xronos.openforge.lim.Bus;
 import org.xronos.openforge.lim.Component;
@@ -391,10 +390,9 @@ public class MultiplyOpRule {
 		}
 
 		// int decompLimit = decompose_limit;
-		final int decompLimit = ((OptionInt) EngineThread.getEngine()
-				.getGenericJob()
-				.getOption(OptionRegistry.MULTIPLY_DECOMP_LIMIT))
-				.getValueAsInt(op.getSearchLabel());
+		final int decompLimit = EngineThread.getEngine().getGenericJob()
+				.getOptionSnapshot(op.getSearchLabel())
+				.getInt(OptionRegistry.MULTIPLY_DECOMP_LIMIT);
 
 		if (terms.size() > decompLimit) {
 			return false;
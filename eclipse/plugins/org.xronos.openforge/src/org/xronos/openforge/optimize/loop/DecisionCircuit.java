@@ -21,13 +21,11 @@
 
 package org.xronos.openforge.optimize.loop;
 
-import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -48,6 +46,7 @@ import org.xronos.openforge.lim.OutBuf;
 import org.xronos.openforge.lim.Port;
 import org.xronos.openforge.lim.Value;
 import org.xronos.openforge.lim.primitive.Reg;
+import org.xronos.openforge.lim.util.EmulationSlots;
 import org.xronos.openforge.util.SizedInteger;
 
 
@@ -89,6 +88,68 @@ class DecisionCircuit {
 	/** Set of Buses that provide the feedback values to the next iteration */
 	private Set<Bus> endBuses = new HashSet<Bus>();
 
+	/** The values of the Buses in the inputMap, by slot */
+	private EmulationSlots slots = new EmulationSlots();
+
+	/** The emulation steps of the componentSequence, null until compiled */
+	private Step[] steps = null;
+
+	/**
+	 * A <code>Step</code> is one {@link Component} of the componentSequence,
+	 * with the slots of its input values resolved, so that an iteration only
+	 * reads and writes the slots.
+	 */
+	private class Step {
+		/** The component to emulate */
+		private final Emulatable emulatable;
+
+		/** The data ports of the component which have an input bus */
+		private final Port[] ports;
+
+		/** The slot of the input bus of each port */
+		private final int[] portSlots;
+
+		/** The view of the port values given to the component */
+		private final Map<Port, SizedInteger> portValues;
+
+		/** The result bus of the loop's decision, or null */
+		private final Bus testBus;
+
+		Step(Component component) {
+			emulatable = (Emulatable) component;
+			final List<Port> dataPorts = isInBuf(component) ? component
+					.getOwner().getDataPorts() : component.getDataPorts();
+			final List<Port> inputPorts = new ArrayList<Port>(dataPorts.size());
+			for (Port dataPort : dataPorts) {
+				if (inputMap.get(dataPort) != null) {
+					inputPorts.add(dataPort);
+				}
+			}
+			ports = inputPorts.toArray(new Port[inputPorts.size()]);
+			portSlots = new int[ports.length];
+			for (int i = 0; i < ports.length; i++) {
+				portSlots[i] = slots.getSlot(inputMap.get(ports[i]));
+			}
+			portValues = slots.getPortValues(ports, portSlots);
+			testBus = component == loop.getDecisionOp() ? component
+					.getExit(Exit.DONE).getDataBuses().get(0) : null;
+		}
+
+		/**
+		 * Emulates the component and stores its output values.
+		 * 
+		 * @return the output values of the component
+		 */
+		Map<Bus, SizedInteger> emulate() {
+			final Map<Bus, SizedInteger> outputValues = emulatable
+					.emulate(portValues);
+			for (Map.Entry<Bus, SizedInteger> entry : outputValues.entrySet()) {
+				slots.set(slots.findSlot(entry.getKey()), entry.getValue());
+			}
+			return outputValues;
+		}
+	}
+
 	/**
 	 * Implementation of a simple queue of {@link Component} with a fast
 	 * {@link #contains(Component)} method.
@@ -386,64 +447,60 @@ class DecisionCircuit {
 	 *         iteration
 	 */
 	private boolean iterate(Map<Port, SizedInteger> inputValues) {
+		if (steps == null) {
+			compile();
+		}
+
 		/*
-		 * Prime the input bus value map with the given port values.
+		 * Prime the input bus values with the given port values.
 		 */
 		boolean isDone = false;
-		final Map<Bus, SizedInteger> busValues = new HashMap<Bus, SizedInteger>();
-		for (Port port : inputValues.keySet()) {
-			final Bus inputBus = inputMap.get(port);
-			busValues.put(inputBus, inputValues.get(port));
+		slots.clear();
+		for (Map.Entry<Port, SizedInteger> entry : inputValues.entrySet()) {
+			slots.set(slots.getSlot(inputMap.get(entry.getKey())),
+					entry.getValue());
 		}
 
 		/*
 		 * Traverse each component in the circuit.
 		 */
-		for (Iterator<Component> iter = componentSequence.iterator(); iter
-				.hasNext() && !isDone;) {
-			final Component component = iter.next();
-
-			/*
-			 * Collect the input values for the component from its input buses.
-			 */
-			final HashMap<Port, SizedInteger> portValues = new HashMap<Port, SizedInteger>();
-			List<Port> dataPorts = isInBuf(component) ? component.getOwner()
-					.getDataPorts() : component.getDataPorts();
-			for (Port dataPort : dataPorts) {
-				final Bus dataBus = inputMap.get(dataPort);
-				if (dataBus != null) {
-					portValues.put(dataPort, busValues.get(dataBus));
-				}
-			}
-
-			/*
-			 * Simulate and store the output values for the next component.
-			 */
-			final Map<Bus, SizedInteger> outputValues = ((Emulatable) component)
-					.emulate(portValues);
-			busValues.putAll(outputValues);
+		for (int i = 0; i < steps.length && !isDone; i++) {
+			final Step step = steps[i];
+			final Map<Bus, SizedInteger> outputValues = step.emulate();
 
 			/*
 			 * If this is the loop's boolean test expression, save its value.
 			 */
-			if (component == loop.getDecisionOp()) {
-				final Bus testBus = component.getExit(Exit.DONE).getDataBuses()
-						.get(0);
-				final SizedInteger testValue = outputValues.get(testBus);
-				isDone = testValue.numberValue().equals(BigInteger.ZERO);
+			if (step.testBus != null) {
+				final SizedInteger testValue = outputValues.get(step.testBus);
+				isDone = testValue.isZero();
 			}
 		}
 
 		/*
 		 * Save the output values as the input values for the next iteration.
 		 */
-		for (Port port : inputValues.keySet()) {
-			inputValues.put(port, busValues.get(inputMap.get(port)));
+		for (Map.Entry<Port, SizedInteger> entry : inputValues.entrySet()) {
+			entry.setValue(slots.get(slots.findSlot(inputMap.get(entry
+					.getKey()))));
 		}
 
 		return !isDone;
 	}
 
+	/**
+	 * Resolves the slot of every input value of the componentSequence once, so
+	 * that the repeated iterations do not build any maps of their own.
+	 */
+	private void compile() {
+		final List<Step> stepList = new ArrayList<Step>(
+				componentSequence.size());
+		for (Component component : componentSequence) {
+			stepList.add(new Step(component));
+		}
+		steps = stepList.toArray(new Step[stepList.size()]);
+	}
+
 	/**
 	 * Gets the {@link Bus} that drives a given {@link Port}. It is expected
 	 * that the port will have only one {@link Dependency} and that its owner
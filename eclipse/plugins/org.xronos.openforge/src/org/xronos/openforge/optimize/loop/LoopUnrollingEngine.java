@@ -22,6 +22,7 @@
 package org.xronos.openforge.optimize.loop;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -31,9 +32,13 @@ import java.util.Map;
 import org.xronos.openforge.lim.ArrayRead;
 import org.xronos.openforge.lim.ArrayWrite;
 import org.xronos.openforge.lim.Block;
+import org.xronos.openforge.lim.Branch;
 import org.xronos.openforge.lim.Bus;
+import org.xronos.openforge.lim.ClockDependency;
 import org.xronos.openforge.lim.Component;
+import org.xronos.openforge.lim.ControlDependency;
 import org.xronos.openforge.lim.DataDependency;
+import org.xronos.openforge.lim.Decision;
 import org.xronos.openforge.lim.DefaultVisitor;
 import org.xronos.openforge.lim.Dependency;
 import org.xronos.openforge.lim.Entry;
@@ -48,6 +53,7 @@ import org.xronos.openforge.lim.OutBuf;
 import org.xronos.openforge.lim.Port;
 import org.xronos.openforge.lim.RegisterRead;
 import org.xronos.openforge.lim.RegisterWrite;
+import org.xronos.openforge.lim.ResetDependency;
 import org.xronos.openforge.lim.UntilBody;
 import org.xronos.openforge.lim.memory.AbsoluteMemoryRead;
 import org.xronos.openforge.lim.memory.AbsoluteMemoryWrite;
@@ -82,6 +88,11 @@ import org.xronos.openforge.util.naming.ID;
  * the new structure, and getting the new Bus at the same position as the old
  * bus was. </p>
  * 
+ * A loop whose iteration count is too large to unroll completely may instead
+ * be unrolled partially: the body of the loop is replaced by a block of N
+ * complete iterations, connected in the same way, and the residual loop
+ * evaluates its decision once per N iterations. </p>
+ * 
  * In theory, performance could be improved by caching tracebus, and bus
  * positional primitives.
  * 
@@ -201,6 +212,287 @@ public class LoopUnrollingEngine {
 
 	}
 
+	/**
+	 * Partially unrolls a For or While loop. The body and update of the loop
+	 * body are replaced by a block of factor complete iterations, each a copy
+	 * of the decision test, body and update, so that the residual loop
+	 * evaluates its decision once for every factor source iterations. When the
+	 * iteration count is not a multiple of the factor, every copy after the
+	 * first is guarded by a clone of the loop decision, and passes the loop
+	 * state through unchanged once the iterations are exhausted.
+	 * 
+	 * @param loop
+	 *            a loop with a known iteration count of at least factor
+	 * @param factor
+	 *            the number of iterations merged into each iteration
+	 * @return true if the loop was unrolled, false if its structure does not
+	 *         allow it, in which case it is left unchanged
+	 */
+	public boolean unroll(Loop loop, int factor) {
+		final LoopBody body = loop.getBody();
+		if (!body.isDecisionFirst() || (factor < 2)
+				|| (loop.getIterations() == Loop.ITERATIONS_UNKNOWN)
+				|| (loop.getIterations() < factor)
+				|| (body.getEntries().size() != 2)) {
+			return false;
+		}
+		setLoop(loop);
+		// every copy is a complete iteration, the residual loop keeps the
+		// decision which ends it
+		iterationCount = factor + 1;
+
+		final Exit feedbackExit = body.getExit(LoopBody.FEEDBACK_TAG);
+		final boolean isGuarded = (loop.getIterations() % factor) != 0;
+		final int[] feedbackIndices = getFeedbackIndices(feedbackExit);
+		final int[] passThrough = isGuarded ? getPassThrough(feedbackExit,
+				feedbackIndices) : null;
+		if ((feedbackIndices == null) || (isGuarded && (passThrough == null))) {
+			clear();
+			return false;
+		}
+		if (_optimize.db) {
+			dbgln("unrolling by " + factor + " of " + loop.getIterations()
+					+ " iterations");
+		}
+
+		final List<Component> copies = new ArrayList<Component>(factor);
+		try {
+			for (int i = 0; i < factor; i++) {
+				currentIteration = makeBodyBlock(i);
+				connectIterationInnards();
+				connectIterationOutBuf(false);
+				copies.add(isGuarded && (i > 0) ? makeGuard(currentIteration,
+						feedbackExit, passThrough) : currentIteration);
+			}
+		} catch (CloneNotSupportedException e) {
+			assert false : "error cloning: " + e;
+		}
+
+		final Block group = new Block(copies, false);
+		group.setIDLogical("unrolled-by-" + factor + "-" + ID.showGlobal(group));
+		makeSignature(group, feedbackExit);
+		connectGroup(group, copies, feedbackIndices);
+
+		// get rid of any memory accesses in the replaced components
+		final Module oldBody = body.getBody();
+		final Module oldUpdate = body.getUpdate();
+		RemoveMemoryAccessVisitor rmav = new RemoveMemoryAccessVisitor();
+		oldBody.accept(rmav);
+		if (oldUpdate != null) {
+			oldUpdate.accept(rmav);
+		}
+
+		// the group takes the place of the body, and of the update
+		body.replaceComponent(oldBody, group);
+		if (oldUpdate != null) {
+			body.removeComponent(oldUpdate);
+		}
+		final Decision decision = body.getDecision();
+		final Entry groupEntry = group.makeEntry(decision.getTrueExit());
+		groupEntry.addDependency(group.getClockPort(), new ClockDependency(
+				body.getInBuf().getClockBus()));
+		groupEntry.addDependency(group.getResetPort(), new ResetDependency(
+				body.getInBuf().getResetBus()));
+		groupEntry.addDependency(group.getGoPort(), new ControlDependency(
+				decision.getTrueBus()));
+		for (int j = 0; j < group.getDataPorts().size(); j++) {
+			groupEntry.addDependency(group.getDataPorts().get(j),
+					new DataDependency(body.getDataPorts().get(j).getPeer()));
+		}
+
+		// and feeds the next iteration
+		final Exit groupExit = group.getExit(Exit.DONE);
+		final OutBuf feedback = feedbackExit.getPeer();
+		assert feedback.getEntries().size() == 1;
+		final Entry feedbackEntry = feedback.getEntries().get(0);
+		feedbackEntry.setDrivingExit(groupExit);
+		feedbackEntry.clearDependencies(feedback.getGoPort());
+		feedbackEntry.addDependency(feedback.getGoPort(),
+				new ControlDependency(groupExit.getDoneBus()));
+		for (int p = 0; p < feedback.getDataPorts().size(); p++) {
+			final Port port = feedback.getDataPorts().get(p);
+			feedbackEntry.clearDependencies(port);
+			feedbackEntry.addDependency(port, new DataDependency(groupExit
+					.getDataBuses().get(p)));
+		}
+
+		loop.setIterations((loop.getIterations() + factor - 1) / factor);
+		loop.setUnrolledFactor(factor);
+
+		clear();
+		return true;
+	}
+
+	/**
+	 * For each data port of the loop body, finds the feedback data bus whose
+	 * registered value the port reads on the feedback entry.
+	 * 
+	 * @return the position of that bus in the feedback exit for each port, -1
+	 *         for a port which reads a value that is invariant in the loop, or
+	 *         null if a port cannot be traced
+	 */
+	private int[] getFeedbackIndices(Exit feedbackExit) {
+		final Entry feedbackEntry = loop.getBody().getEntries().get(1);
+		final List<Port> ports = loop.getBody().getDataPorts();
+		final int[] indices = new int[ports.size()];
+		for (int j = 0; j < indices.length; j++) {
+			final Collection<Dependency> deps = feedbackEntry
+					.getDependencies(ports.get(j));
+			if (deps.size() != 1) {
+				return null;
+			}
+			final Component owner = deps.iterator().next().getLogicalBus()
+					.getOwner().getOwner();
+			indices[j] = -1;
+			if (loop.getDataRegisters().contains(owner)) {
+				indices[j] = feedbackExit.getDataBuses().indexOf(
+						getSingleBus(owner.getDataPorts().get(0)));
+				if (indices[j] < 0) {
+					return null;
+				}
+			}
+		}
+		return indices;
+	}
+
+	/**
+	 * For each feedback data bus, finds a data port of the loop body which
+	 * reads its value back, so that a skipped iteration can pass the loop
+	 * state through. Also checks that the loop decision only reads the data
+	 * ports of the loop body.
+	 * 
+	 * @return the position of that port for each feedback data bus, or null
+	 *         if a skipped iteration cannot be built
+	 */
+	private int[] getPassThrough(Exit feedbackExit, int[] feedbackIndices) {
+		if (feedbackIndices == null) {
+			return null;
+		}
+		final int[] ports = new int[feedbackExit.getDataBuses().size()];
+		Arrays.fill(ports, -1);
+		for (int j = 0; j < feedbackIndices.length; j++) {
+			if ((feedbackIndices[j] >= 0) && (ports[feedbackIndices[j]] < 0)) {
+				ports[feedbackIndices[j]] = j;
+			}
+		}
+		for (int p : ports) {
+			if (p < 0) {
+				return null;
+			}
+		}
+
+		final Decision decision = loop.getBody().getDecision();
+		final Entry decisionEntry = decision.getEntries().get(0);
+		for (Port port : decision.getDataPorts()) {
+			final Collection<Dependency> deps = decisionEntry
+					.getDependencies(port);
+			if ((deps.size() != 1)
+					|| (deps.iterator().next().getLogicalBus().getOwner()
+							.getOwner() != loop.getBody().getInBuf())) {
+				return null;
+			}
+		}
+		return ports;
+	}
+
+	/**
+	 * Gives a module the data ports of the loop body and the data buses of one
+	 * of its exits.
+	 */
+	private void makeSignature(Module module, Exit bodyExit) {
+		for (Port port : loop.getBody().getDataPorts()) {
+			final Port newPort = module.makeDataPort(port.getTag());
+			newPort.copyAttributes(port);
+			newPort.getPeer().copyAttributes(port.getPeer());
+		}
+		final Exit exit = module.getExit(Exit.DONE);
+		for (Bus bus : bodyExit.getDataBuses()) {
+			final Bus newBus = exit.makeDataBus();
+			newBus.copyAttributes(bus);
+			newBus.getPeer().copyAttributes(bus.getPeer());
+		}
+	}
+
+	/**
+	 * Connects the copies of the iteration inside a group: the first reads the
+	 * data ports of the group, each following one the state produced by the
+	 * previous one, and the group produces the state of the last one.
+	 */
+	private void connectGroup(Block group, List<Component> copies,
+			int[] feedbackIndices) {
+		Component previous = null;
+		for (Component copy : copies) {
+			final Entry entry = copy.getEntries().get(0);
+			for (int j = 0; j < feedbackIndices.length; j++) {
+				final Bus source = ((previous == null) || (feedbackIndices[j] < 0)) ? group
+						.getDataPorts().get(j).getPeer()
+						: previous.getExit(Exit.DONE).getDataBuses()
+								.get(feedbackIndices[j]);
+				entry.addDependency(copy.getDataPorts().get(j),
+						new DataDependency(source));
+			}
+			previous = copy;
+		}
+
+		final OutBuf outBuf = group.getExit(Exit.DONE).getPeer();
+		final Entry entry = outBuf.getEntries().get(0);
+		for (int p = 0; p < outBuf.getDataPorts().size(); p++) {
+			entry.addDependency(outBuf.getDataPorts().get(p),
+					new DataDependency(previous.getExit(Exit.DONE)
+							.getDataBuses().get(p)));
+		}
+	}
+
+	/**
+	 * Wraps a copy of the iteration in a branch on a clone of the loop
+	 * decision, which passes the loop state through when the decision is
+	 * false.
+	 * 
+	 * @param copy
+	 *            a connected iteration block
+	 * @param passThrough
+	 *            for each feedback data bus, the data port which reads it
+	 * @return the guarded iteration, with the same signature as the copy
+	 */
+	private Branch makeGuard(Block copy, Exit feedbackExit, int[] passThrough)
+			throws CloneNotSupportedException {
+		final Decision oldDecision = loop.getBody().getDecision();
+		final Decision decision = (Decision) oldDecision.clone();
+		final Branch guard = new Branch(decision, copy);
+		guard.setIDLogical("unrolled-guard-" + ID.showGlobal(guard));
+		makeSignature(guard, feedbackExit);
+
+		// the decision reads the same data ports as the loop decision
+		final Entry oldEntry = oldDecision.getEntries().get(0);
+		final Entry decisionEntry = decision.getEntries().get(0);
+		for (int q = 0; q < oldDecision.getDataPorts().size(); q++) {
+			final int j = loop.getBody().getDataPorts()
+					.indexOf(getSingleBus(oldEntry,
+							oldDecision.getDataPorts().get(q)).getPeer());
+			decisionEntry.addDependency(decision.getDataPorts().get(q),
+					new DataDependency(guard.getDataPorts().get(j).getPeer()));
+		}
+
+		final Entry copyEntry = copy.getEntries().get(0);
+		for (int j = 0; j < copy.getDataPorts().size(); j++) {
+			copyEntry.addDependency(copy.getDataPorts().get(j),
+					new DataDependency(guard.getDataPorts().get(j).getPeer()));
+		}
+
+		final OutBuf outBuf = guard.getExit(Exit.DONE).getPeer();
+		for (Entry entry : outBuf.getEntries()) {
+			final boolean isTaken = entry.getDrivingExit().getOwner() == copy;
+			for (int p = 0; p < outBuf.getDataPorts().size(); p++) {
+				final Bus source = isTaken ? copy.getExit(Exit.DONE)
+						.getDataBuses().get(p) : guard.getDataPorts()
+						.get(passThrough[p]).getPeer();
+				entry.addDependency(outBuf.getDataPorts().get(p),
+						new DataDependency(source));
+			}
+		}
+		return guard;
+	}
+
 	// ***********************************************************************
 	//
 	// Make stuff, not connected
@@ -698,6 +990,17 @@ public class LoopUnrollingEngine {
 			// connect
 			connectSinglePort(oldEntry, oldPort, newEntry, newPort);
 		}
+		connectIterationOutBuf(isLast);
+	}
+
+	/**
+	 * Connect the outbuf of currentIteration to mirror the complete outbuf of
+	 * the loop body for the last iteration, or its feedback outbuf otherwise
+	 * 
+	 * @param isLast
+	 *            true if currentIteration is the last iteration
+	 */
+	private void connectIterationOutBuf(boolean isLast) {
 		// now make sure it's outbuf is connected properly ....
 		assert currentIteration.getOutBufs().size() == 1;
 		assert loop.getBody().getOutBufs().size() == 2;
@@ -711,8 +1014,8 @@ public class LoopUnrollingEngine {
 				.getExit(isLast ? LoopBody.COMPLETE_TAG : LoopBody.FEEDBACK_TAG)
 				.getPeer();
 
-		newEntry = newOB.getEntries().get(0);
-		oldEntry = oldOB.getEntries().get(0);
+		Entry newEntry = newOB.getEntries().get(0);
+		Entry oldEntry = oldOB.getEntries().get(0);
 		for (Iterator<Port> itOldPorts = oldOB.getDataPorts().iterator(), itNewPorts = newOB
 				.getDataPorts().iterator(); itOldPorts.hasNext();) {
 			Port oldPort = itOldPorts.next();
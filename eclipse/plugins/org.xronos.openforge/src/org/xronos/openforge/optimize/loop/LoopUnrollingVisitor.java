@@ -22,6 +22,8 @@
 package org.xronos.openforge.optimize.loop;
 
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.xronos.openforge.app.EngineThread;
 import org.xronos.openforge.lim.Design;
@@ -38,7 +40,9 @@ import org.xronos.openforge.util.Debug;
  * LoopUnrollingVisitor analyzes each loop in the LIM and determines if it is
  * unrollable, and if so, annotates is with the information necessary for
  * unrolling. Later the Loop.unroll() method can be called to unroll this loop
- * (ie: during optimization or scheduling)
+ * (ie: during optimization or scheduling). A loop whose iteration count is
+ * over the unrolling limit is unrolled partially when it requests an
+ * unrolling factor.
  * 
  * @author Jim Jensen
  * @version $Id: LoopUnrollingVisitor.java 558 2008-03-14 14:14:48Z imiller $
@@ -50,6 +54,10 @@ public class LoopUnrollingVisitor extends MatchingVisitor implements
 
 	private boolean isModified = false;
 	private int unrolledLoopCount = 0;
+	private int partiallyUnrolledLoopCount = 0;
+
+	/** Loops to be partially unrolled, with their factor */
+	private Map<Loop, Integer> partialLoops = new LinkedHashMap<Loop, Integer>();
 	private LoopUnrollingEngine engine = new LoopUnrollingEngine();
 
 	public LoopUnrollingVisitor() {
@@ -106,6 +114,11 @@ public class LoopUnrollingVisitor extends MatchingVisitor implements
 	public void postStatus() {
 		EngineThread.getGenericJob().verbose(
 				"unrolled " + unrolledLoopCount + " loops");
+		if (partiallyUnrolledLoopCount > 0) {
+			EngineThread.getGenericJob().verbose(
+					"partially unrolled " + partiallyUnrolledLoopCount
+							+ " loops");
+		}
 	}
 
 	@Override
@@ -124,6 +137,8 @@ public class LoopUnrollingVisitor extends MatchingVisitor implements
 	@Override
 	public void clear() {
 		unrolledLoopCount = 0;
+		partiallyUnrolledLoopCount = 0;
+		partialLoops.clear();
 		isModified = false;
 		super.clear();
 	}
@@ -133,6 +148,18 @@ public class LoopUnrollingVisitor extends MatchingVisitor implements
 			_optimize.d.ln(_optimize.LOOP_UNROLLING, "Actually unrolling");
 		}
 		_optimize.d.inc();
+		// partial unrolling first, so that an enclosing loop which is
+		// unrolled completely copies the unrolled inner loop
+		for (Map.Entry<Loop, Integer> entry : partialLoops.entrySet()) {
+			if (_optimize.db) {
+				_optimize.d.ln(_optimize.LOOP_UNROLLING, "Unrolling Loop: "
+						+ entry.getKey() + " by " + entry.getValue());
+			}
+			if (engine.unroll(entry.getKey(), entry.getValue())) {
+				partiallyUnrolledLoopCount++;
+				isModified = true;
+			}
+		}
 		// for each loop to be unrolled
 		for (Iterator it = getMatchingNodes().iterator(); it.hasNext();) {
 			Loop l = (Loop) it.next();
@@ -154,6 +181,11 @@ public class LoopUnrollingVisitor extends MatchingVisitor implements
 
 		super.visit(loop);
 
+		// a partially unrolled loop is not unrolled again
+		if (loop.getUnrolledFactor() > 1) {
+			return;
+		}
+
 		// analysis
 		final LoopAnalysis loopAnalysis = new LoopAnalysis(loop);
 
@@ -167,6 +199,13 @@ public class LoopUnrollingVisitor extends MatchingVisitor implements
 								"Found loop to unroll");
 					}
 					addMatchingNode(loop);
+				} else if ((loop.getUnrollFactor() > 1)
+						&& (iterations >= loop.getUnrollFactor())) {
+					if (_optimize.db) {
+						_optimize.d.ln(_optimize.LOOP_UNROLLING,
+								"Found loop to unroll partially");
+					}
+					partialLoops.put(loop, loop.getUnrollFactor());
 				}
 			} else {
 				if (_optimize.db) {
@@ -21,12 +21,10 @@
 
 package org.xronos.openforge.optimize.memory;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -35,14 +33,17 @@ import org.xronos.openforge.app.GenericJob;
 import org.xronos.openforge.app.OptionRegistry;
 import org.xronos.openforge.app.project.OptionInt;
 import org.xronos.openforge.lim.ArrayRead;
+import org.xronos.openforge.lim.ArrayWrite;
 import org.xronos.openforge.lim.CodeLabel;
 import org.xronos.openforge.lim.DataFlowVisitor;
 import org.xronos.openforge.lim.Design;
 import org.xronos.openforge.lim.HeapRead;
+import org.xronos.openforge.lim.HeapWrite;
 import org.xronos.openforge.lim.MemoryAccessBlock;
 import org.xronos.openforge.lim.Task;
 import org.xronos.openforge.lim.Visitable;
 import org.xronos.openforge.lim.memory.AbsoluteMemoryRead;
+import org.xronos.openforge.lim.memory.AbsoluteMemoryWrite;
 import org.xronos.openforge.lim.memory.LogicalMemory;
 import org.xronos.openforge.lim.memory.LogicalMemoryPort;
 import org.xronos.openforge.optimize.Optimization;
@@ -58,11 +59,12 @@ import org.xronos.openforge.optimize._optimize;
  * <li>There exists at least one action with multiple read accesses.
  * </ul>
  * <p>
- * Currently the write accesses are all left on the original port and the read
- * accesses are allocated to both ports alternately according to dataflow order.
- * This is not an ideal allocation as it would be better to have the reads in
- * parallel branches scheduled on the same port since they cannot ever execute
- * in the same cycle anyway.
+ * The accesses of each task are allocated to the ports by a
+ * {@link PortConflictGraph}, which keeps the accesses that may execute in the
+ * same cycle on different ports and lets the accesses in mutually exclusive
+ * branches share a port. Writes are only moved to the second port when the
+ * memory is too large to be implemented in LUTs, since a LUT memory must have
+ * all its writes on one port.
  * <p>
  * Created: Tue Jun 12 23:29:05 2007
  * 
@@ -99,7 +101,7 @@ public class DualPortBRAMAllocator implements Optimization {
 		final Design design = (Design) target;
 		_optimize.ln(_optimize.DP_MEM, "DP Analyzing desing " + design);
 
-		Map<Task, Map<LogicalMemory, Set<MemoryAccessBlock>>> taskReads = new HashMap<Task, Map<LogicalMemory, Set<MemoryAccessBlock>>>();
+		Map<Task, Map<LogicalMemory, Set<MemoryAccessBlock>>> taskAccesses = new HashMap<Task, Map<LogicalMemory, Set<MemoryAccessBlock>>>();
 		Set<LogicalMemory> dualPortCandidates = new HashSet<LogicalMemory>();
 		for (Task task : design.getTasks()) {
 			ReadFinder finder = new ReadFinder();
@@ -107,7 +109,7 @@ public class DualPortBRAMAllocator implements Optimization {
 			_optimize.ln(_optimize.DP_MEM, "DP Found reads " + finder.readMap);
 			_optimize.ln(_optimize.DP_MEM, "DP Found multireads "
 					+ finder.multiReadMemories);
-			taskReads.put(task, finder.readMap);
+			taskAccesses.put(task, finder.accessMap);
 			dualPortCandidates.addAll(finder.multiReadMemories);
 		}
 
@@ -115,6 +117,8 @@ public class DualPortBRAMAllocator implements Optimization {
 				.getUnscopedBooleanOptionValue(
 						OptionRegistry.ALLOW_DUAL_PORT_LUT);
 
+		final int bytes = ((OptionInt) EngineThread.getGenericJob().getOption(
+				OptionRegistry.MAX_LUT_BYTES)).getValueAsInt(CodeLabel.UNSCOPED);
 		for (LogicalMemory mem : dualPortCandidates) {
 			_optimize.ln(_optimize.DP_MEM, "Candidate memory " + mem + " "
 					+ mem.getLogicalMemoryPorts().size());
@@ -129,9 +133,6 @@ public class DualPortBRAMAllocator implements Optimization {
 			_optimize.ln(_optimize.DP_MEM, "\tallowing DP LUT memories "
 					+ allowDPLutMem);
 			if (!allowDPLutMem) {
-				final int bytes = ((OptionInt) EngineThread.getGenericJob()
-						.getOption(OptionRegistry.MAX_LUT_BYTES))
-						.getValueAsInt(CodeLabel.UNSCOPED);
 				_optimize.ln(_optimize.DP_MEM,
 						"\t\tmemSize " + mem.getSizeInBytes() + " max size "
 								+ bytes);
@@ -146,33 +147,32 @@ public class DualPortBRAMAllocator implements Optimization {
 
 			assert mem.getLogicalMemoryPorts().size() == 2;
 
-			// Build a list of all accesses
-			List<MemoryAccessBlock> reads = new ArrayList<MemoryAccessBlock>();
-			for (Map<LogicalMemory, Set<MemoryAccessBlock>> memMap : taskReads
+			// A memory which may still be implemented in LUTs needs all its
+			// writes on one port, the other being read only.
+			final boolean secondReadOnly = mem.getSizeInBytes() <= bytes;
+
+			// Remove all the accesses of each task from the memory, then
+			// re-attach them, spread across both ports so that the
+			// accesses which may be concurrent do not share a port.
+			Iterator<LogicalMemoryPort> portIter = mem.getLogicalMemoryPorts()
+					.iterator();
+			LogicalMemoryPort port1 = portIter.next();
+			LogicalMemoryPort port2 = portIter.next();
+			for (Map<LogicalMemory, Set<MemoryAccessBlock>> memMap : taskAccesses
 					.values()) {
-				if (memMap.containsKey(mem)) {
-					reads.addAll(memMap.get(mem));
+				Set<MemoryAccessBlock> accesses = memMap.get(mem);
+				if (accesses == null) {
+					continue;
 				}
-			}
-			_optimize.ln(_optimize.DP_MEM, "All reads " + reads);
-
-			// Remove all the read accesses from the memory, then
-			// re-attach them, balanced across all ports. By only
-			// moving the reads we are assured that the writes will
-			// all be on one port which is a requirement for any LUT
-			// based memory.
-			for (MemoryAccessBlock access : reads) {
-				access.removeFromMemory();
-			}
-
-			List<LogicalMemoryPort> ports = new LinkedList<LogicalMemoryPort>(
-					mem.getLogicalMemoryPorts());
-			for (MemoryAccessBlock access : reads) {
-				LogicalMemoryPort port = ports.remove(0);
-				port.addAccess(access);
-				_optimize.ln(_optimize.DP_MEM, "\t" + access + " to port "
-						+ port);
-				ports.add(port); // put it back on the end
+				_optimize.ln(_optimize.DP_MEM, "Task accesses " + accesses);
+				for (MemoryAccessBlock access : accesses) {
+					access.removeFromMemory();
+				}
+				PortConflictGraph conflicts = new PortConflictGraph(accesses);
+				conflicts.allocate(port1, port2, secondReadOnly);
+				_optimize.ln(_optimize.DP_MEM, "\t" + conflicts.getStallCount()
+						+ " of " + conflicts.getConflictCount()
+						+ " concurrent pairs share a port");
 			}
 		}
 	}
@@ -224,6 +224,8 @@ public class DualPortBRAMAllocator implements Optimization {
 		// This visitor will add memories to this set iff they have
 		// multiple reads in the given traversal scope.
 		Set<LogicalMemory> multiReadMemories = new HashSet<LogicalMemory>();
+		// All the accesses, reads and writes, in dataflow order.
+		Map<LogicalMemory, Set<MemoryAccessBlock>> accessMap = new HashMap<LogicalMemory, Set<MemoryAccessBlock>>();
 
 		@Override
 		public void visit(AbsoluteMemoryRead read) {
@@ -243,7 +245,37 @@ public class DualPortBRAMAllocator implements Optimization {
 			handleRead(read);
 		}
 
+		@Override
+		public void visit(AbsoluteMemoryWrite write) {
+			super.visit(write);
+			handleAccess(write);
+		}
+
+		@Override
+		public void visit(HeapWrite write) {
+			super.visit(write);
+			handleAccess(write);
+		}
+
+		@Override
+		public void visit(ArrayWrite write) {
+			super.visit(write);
+			handleAccess(write);
+		}
+
+		private void handleAccess(MemoryAccessBlock access) {
+			LogicalMemory target = access.getLogicalMemoryPort()
+					.getLogicalMemory();
+			Set<MemoryAccessBlock> accesses = accessMap.get(target);
+			if (accesses == null) {
+				accesses = new LinkedHashSet<MemoryAccessBlock>();
+				accessMap.put(target, accesses);
+			}
+			accesses.add(access);
+		}
+
 		private void handleRead(MemoryAccessBlock read) {
+			handleAccess(read);
 			LogicalMemory target = read.getLogicalMemoryPort()
 					.getLogicalMemory();
 			Set<MemoryAccessBlock> reads = readMap.get(target);
@@ -58,6 +58,10 @@ import org.xronos.openforge.lim.memory.LogicalMemoryPort;
  * first. BRAMs may be selected to be read first or write first. 2b) out of
  * phase for read first is W-R. out of phase for write first is R-W
  * 
+ * The accesses of each task are allocated to the two ports by a
+ * {@link PortConflictGraph}, so that accesses which may execute in the same
+ * cycle are on different ports wherever possible.
+ * 
  * Created: Thu Mar 21 12:22:58 2002
  * 
  * @author imiller
@@ -132,38 +136,30 @@ public class DualPortRamAllocator extends DefaultVisitor {
 					LogicalMemoryPort port1 = portIter.next();
 					LogicalMemoryPort port2 = portIter.next();
 
-					boolean evenReadOnly = false;
+					// Writes to a LUT memory must all be on its read/write
+					// port, the other port being read only.
+					boolean secondReadOnly = false;
 					if (mem.getImplementation().isLUT()) {
 						final boolean port1readOnly = port1.isReadOnly();
 						final boolean port2readOnly = port2.isReadOnly();
 						assert port1readOnly || port2readOnly : "LUT memories must have at least 1 read only port";
 
-						evenReadOnly = true;
-						if (!port1readOnly) {
-							// Port 2 must be read only, thus switch them.
+						secondReadOnly = true;
+						if (port1readOnly) {
+							// Port 1 must be the read/write port, thus switch
+							// them.
 							LogicalMemoryPort p = port2;
 							port2 = port1;
 							port1 = p;
 						}
 					}
 
-					boolean even = true;
-					for (MemoryAccessBlock mab : accesses) {
-						if (even) {
-							if (evenReadOnly
-									&& !mab.getMemoryAccess().isReadAccess()) {
-								port2.addAccess(mab);
-								// dont switch 'even' since we've not yet added
-								// to port 1
-							} else {
-								port1.addAccess(mab);
-								even = !even;
-							}
-						} else {
-							port2.addAccess(mab);
-							even = !even;
-						}
-					}
+					PortConflictGraph conflicts = new PortConflictGraph(
+							accesses);
+					conflicts.allocate(port1, port2, secondReadOnly);
+					gj.verbose("\t" + conflicts.getStallCount() + " of "
+							+ conflicts.getConflictCount()
+							+ " concurrent access pairs share a port");
 				}
 			}
 		}
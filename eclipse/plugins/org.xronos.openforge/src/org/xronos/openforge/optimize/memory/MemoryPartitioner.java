@@ -0,0 +1,992 @@
+/*******************************************************************************
+ * Copyright 2002-2009  Xilinx Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+/*
+ * 
+ *
+ * 
+ */
+
+
+package org.xronos.openforge.optimize.memory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.xronos.openforge.app.EngineThread;
+import org.xronos.openforge.app.GenericJob;
+import org.xronos.openforge.app.OptionRegistry;
+import org.xronos.openforge.lim.Block;
+import org.xronos.openforge.lim.Branch;
+import org.xronos.openforge.lim.Bus;
+import org.xronos.openforge.lim.CodeLabel;
+import org.xronos.openforge.lim.Component;
+import org.xronos.openforge.lim.DataDependency;
+import org.xronos.openforge.lim.Decision;
+import org.xronos.openforge.lim.Dependency;
+import org.xronos.openforge.lim.Design;
+import org.xronos.openforge.lim.Entry;
+import org.xronos.openforge.lim.Exit;
+import org.xronos.openforge.lim.HeapRead;
+import org.xronos.openforge.lim.HeapWrite;
+import org.xronos.openforge.lim.InBuf;
+import org.xronos.openforge.lim.Module;
+import org.xronos.openforge.lim.OffsetMemoryAccess;
+import org.xronos.openforge.lim.OutBuf;
+import org.xronos.openforge.lim.Port;
+import org.xronos.openforge.lim.Value;
+import org.xronos.openforge.lim.Visitable;
+import org.xronos.openforge.lim.memory.Allocation;
+import org.xronos.openforge.lim.memory.LValue;
+import org.xronos.openforge.lim.memory.Location;
+import org.xronos.openforge.lim.memory.LocationConstant;
+import org.xronos.openforge.lim.memory.LocationValueSource;
+import org.xronos.openforge.lim.memory.LogicalMemory;
+import org.xronos.openforge.lim.memory.LogicalValue;
+import org.xronos.openforge.lim.memory.MemoryAccess;
+import org.xronos.openforge.lim.memory.Record;
+import org.xronos.openforge.lim.op.AddOp;
+import org.xronos.openforge.lim.op.AndOp;
+import org.xronos.openforge.lim.op.BinaryOp;
+import org.xronos.openforge.lim.op.CastOp;
+import org.xronos.openforge.lim.op.Constant;
+import org.xronos.openforge.lim.op.DivideOp;
+import org.xronos.openforge.lim.op.EqualsOp;
+import org.xronos.openforge.lim.op.LeftShiftOp;
+import org.xronos.openforge.lim.op.ModuloOp;
+import org.xronos.openforge.lim.op.MultiplyOp;
+import org.xronos.openforge.lim.op.RightShiftUnsignedOp;
+import org.xronos.openforge.lim.op.SimpleConstant;
+import org.xronos.openforge.lim.op.SubtractOp;
+import org.xronos.openforge.optimize.ComponentSwapVisitor;
+import org.xronos.openforge.optimize.Optimization;
+import org.xronos.openforge.optimize._optimize;
+import org.xronos.openforge.optimize.constant.TwoPassPartialConstant;
+import org.xronos.openforge.util.MathStuff;
+import org.xronos.openforge.util.naming.ID;
+
+/**
+ * MemoryPartitioner divides an array into banks of elements, each of which is
+ * a new {@link LogicalMemory}, so that accesses to different elements of the
+ * array no longer share, and serialize on, the ports of one memory. Three
+ * partitionings are supported, selected by
+ * {@link OptionRegistry#ARRAY_PARTITION}:
+ * <ul>
+ * <li><b>cyclic</b>: element e is at index e / N of bank e mod N
+ * <li><b>block</b>: element e is at index e mod B of bank e / B, where B is
+ * the number of elements divided by N, rounded up
+ * <li><b>complete</b>: each element is in its own bank
+ * </ul>
+ * where N is {@link OptionRegistry#ARRAY_PARTITION_FACTOR}. Each bank holds
+ * only its own share of the elements.
+ * <p>
+ * Every {@link HeapRead} and {@link HeapWrite} of a partitioned array is
+ * replaced by a block which decodes its address into a bank and an index in
+ * that bank. When the bank is known at compile time, because the
+ * {@link Location} resolved for the access designates a single element or, for
+ * a cyclic partitioning, because its index expression is known modulo N (eg
+ * a[2*i+1] for N = 2), the block accesses that bank only. Otherwise, as for
+ * the a[i], a[i+1], a[i+2] of a sliding window whose i is a loop counter, the
+ * bank is selected at run time by a {@link Branch} per bank. The divisions of
+ * the decoding are by constants, they are shifts and masks when N, or B, and
+ * the size of an element are powers of two.
+ * <p>
+ * The address computations of a partitioned array are made relative to its
+ * start by replacing each {@link LocationConstant} of the array with its
+ * offset in the array, thus an array is only partitioned if its address is not
+ * taken for anything but its own heap accesses.
+ */
+public class MemoryPartitioner implements Optimization {
+
+	/** Element e is in bank e mod N */
+	public static final String CYCLIC = "cyclic";
+
+	/** The elements are cut into N consecutive blocks */
+	public static final String BLOCK = "block";
+
+	/** Each element is in its own bank */
+	public static final String COMPLETE = "complete";
+
+	/** The bank, or index residue, of an access that cannot be decoded */
+	private static final int UNKNOWN = -1;
+
+	/** The number of components an index expression is traced through */
+	private static final int MAX_TRACE_DEPTH = 32;
+
+	private int partitionedCount = 0;
+	private int bankCount = 0;
+
+	/**
+	 * The banks created by this partitioner, which its later runs leave
+	 * whole
+	 */
+	private final Set<LogicalMemory> banks = new HashSet<LogicalMemory>();
+
+	/**
+	 * Divides the supplied LogicalMemory into banks if it contains a single
+	 * array which is only accessed by heap accesses.
+	 * 
+	 * @param memory
+	 *            the memory to be partitioned
+	 * @param resolver
+	 *            the {@link ObjectResolver} used to analyze the {@link Design}
+	 *            containing the <code>memory</code>
+	 * @param mode
+	 *            one of {@link #CYCLIC}, {@link #BLOCK} or {@link #COMPLETE}
+	 * @param factor
+	 *            the number of banks of a cyclic or block partitioning
+	 * @return a non-null Set of the bank memories, or a Set containing only
+	 *         <code>memory</code> if it is not partitioned
+	 */
+	public Set<LogicalMemory> partitionMemory(LogicalMemory memory,
+			ObjectResolver resolver, String mode, int factor) {
+		final Set<LogicalMemory> unchanged = Collections.singleton(memory);
+		if (banks.contains(memory) || (memory.getAllocations().size() != 1)
+				|| !memory.getAccessingPointers().isEmpty()
+				|| memory.getLValues().isEmpty()) {
+			return unchanged;
+		}
+		final Allocation array = memory.getAllocations().iterator().next();
+		if (!array.getBlockElements().isEmpty()) {
+			return unchanged;
+		}
+
+		// Every access reads or writes whole elements of one size
+		int elementSize = 0;
+		for (LValue lvalue : memory.getLValues()) {
+			for (Location location : memory.getAccesses(lvalue)) {
+				if (elementSize == 0) {
+					elementSize = location.getAddressableSize();
+				} else if (elementSize != location.getAddressableSize()) {
+					return unchanged;
+				}
+			}
+		}
+		if ((elementSize <= 0)
+				|| ((array.getAddressableSize() % elementSize) != 0)) {
+			return unchanged;
+		}
+		final int elements = array.getAddressableSize() / elementSize;
+		final Partition partition = new Partition(array, mode, elementSize,
+				COMPLETE.equals(mode) ? elements : factor);
+		if (partition.banks < 2) {
+			return unchanged;
+		}
+
+		// Every access is a heap access, which is replaced in its block
+		final Map<OffsetMemoryAccess, Integer> accessBanks = new LinkedHashMap<OffsetMemoryAccess, Integer>();
+		final Set<LocationValueSource> sources = new HashSet<LocationValueSource>();
+		for (LValue lvalue : memory.getLValues()) {
+			if (!(lvalue instanceof HeapRead) && !(lvalue instanceof HeapWrite)) {
+				return unchanged;
+			}
+			final OffsetMemoryAccess access = (OffsetMemoryAccess) lvalue;
+			if (!(access.getOwner() instanceof Block)
+					|| (access.getExits().size() != 1)) {
+				return unchanged;
+			}
+			accessBanks.put(access,
+					partition.getBank(memory.getAccesses(lvalue), lvalue));
+			sources.addAll(resolver.getAddressSources(lvalue));
+		}
+
+		// The address of the array must not be taken for anything else
+		for (LocationConstant constant : memory.getLocationConstants()) {
+			final Location target = constant.getTarget();
+			if (!sources.contains(constant)
+					|| (target.getAbsoluteMinDelta() != target
+							.getAbsoluteMaxDelta())) {
+				return unchanged;
+			}
+		}
+
+		if (_optimize.db) {
+			_optimize.d.ln(" MemoryPartitioner generates " + partition.banks
+					+ " " + mode + " banks");
+		}
+
+		final List<LogicalValue> values = getElementValues(
+				array.getInitialValue(), elements, elementSize);
+		final List<Allocation> bankArrays = new ArrayList<Allocation>();
+		final Set<LogicalMemory> result = new HashSet<LogicalMemory>();
+		for (int bank = 0; bank < partition.banks; bank++) {
+			final List<LogicalValue> bankValues = new ArrayList<LogicalValue>();
+			for (int index = 0; index < partition.getElementCount(bank); index++) {
+				bankValues.add(values.get(partition.getElement(bank, index)));
+			}
+			final LogicalMemory bankMemory = new LogicalMemory(
+					memory.getMaxAddressWidth());
+			bankMemory.createLogicalMemoryPort();
+			bankMemory.setIDLogical(memory.showIDLogical() + "_bank" + bank);
+			final Allocation bankArray = bankMemory.allocate(new Record(
+					bankValues));
+			ID.copy(array, bankArray);
+			bankArrays.add(bankArray);
+			result.add(bankMemory);
+		}
+
+		for (Map.Entry<OffsetMemoryAccess, Integer> entry : accessBanks
+				.entrySet()) {
+			decode(entry.getKey(), entry.getValue(), partition, bankArrays);
+		}
+
+		// The address computations become relative to the start of the array
+		final ComponentSwapVisitor swapper = new ComponentSwapVisitor();
+		for (LocationConstant constant : new ArrayList<LocationConstant>(
+				memory.getLocationConstants())) {
+			final Value value = constant.getValueBus().getValue();
+			swapper.replaceComponent(constant, new SimpleConstant(constant
+					.getTarget().getAbsoluteMinDelta(), value.getSize(), false));
+			constant.removeFromMemory();
+		}
+
+		banks.addAll(result);
+		partitionedCount++;
+		bankCount += result.size();
+		return result;
+	}
+
+	/**
+	 * Gets a copy of the value of each element of an array.
+	 */
+	private static List<LogicalValue> getElementValues(LogicalValue value,
+			int elements, int elementSize) {
+		final List<LogicalValue> values = new ArrayList<LogicalValue>(elements);
+		if (value instanceof Record) {
+			final List<LogicalValue> fields = ((Record) value)
+					.getComponentValues();
+			boolean isElementWise = fields.size() == elements;
+			for (LogicalValue field : fields) {
+				isElementWise &= field.getSize() == elementSize;
+			}
+			if (isElementWise) {
+				for (LogicalValue field : fields) {
+					values.add(field.copy());
+				}
+				return values;
+			}
+		}
+		final LogicalValue copy = value.copy();
+		for (int element = 0; element < elements; element++) {
+			values.add(copy.getValueAtOffset(element * elementSize,
+					elementSize));
+		}
+		return values;
+	}
+
+	/**
+	 * Replaces a heap access to a partitioned array with a block which decodes
+	 * its address into a bank, and an index in that bank, and accesses that
+	 * bank.
+	 * 
+	 * @param access
+	 *            the access to the array
+	 * @param bank
+	 *            the bank of the access, or {@link #UNKNOWN} if it is selected
+	 *            at run time
+	 * @param partition
+	 *            the partitioning of the array
+	 * @param bankArrays
+	 *            the array of each bank
+	 */
+	private static void decode(OffsetMemoryAccess access, int bank,
+			Partition partition, List<Allocation> bankArrays) {
+		final boolean isRead = access instanceof HeapRead;
+		final int offset = isRead ? ((HeapRead) access).getOffset()
+				: ((HeapWrite) access).getOffset();
+
+		// The element addressed, from the address relative to the array
+		final Fragment fragment = new Fragment(access.getMaxAddressWidth());
+		final Constant offsetConstant = fragment.add(new SimpleConstant(offset,
+				fragment.width, false));
+		final AddOp address = fragment.add(new AddOp());
+		fragment.connectInput(address.getLeftDataPort(), 0);
+		fragment.connect(address.getRightDataPort(),
+				offsetConstant.getValueBus());
+		final Bus element = fragment.divide(address.getResultBus(),
+				partition.elementSize);
+
+		final List<Bus> selects = new ArrayList<Bus>();
+		final Module selection;
+		if (bank == UNKNOWN) {
+			selects.add(partition.decodeBank(fragment, element));
+			selection = select(access, bankArrays, 0);
+		} else {
+			selection = getBankAccess(access, bankArrays.get(bank));
+		}
+		selects.add(fragment.multiply(
+				partition.decodeIndex(fragment, element),
+				partition.elementSize));
+		fragment.add(selection);
+		for (int i = 0; i < selects.size(); i++) {
+			fragment.connect(selection.getDataPorts().get(i), selects.get(i));
+		}
+		if (isRead) {
+			fragment.setResult(getResultBus(selection));
+		} else {
+			fragment.connectInput(
+					selection.getDataPorts().get(selects.size()), 1);
+		}
+		final Block decoder = fragment.build(isRead ? 1 : 2);
+
+		final Map<Port, Port> portCorrelation = new HashMap<Port, Port>();
+		portCorrelation.put(access.getClockPort(), decoder.getClockPort());
+		portCorrelation.put(access.getResetPort(), decoder.getResetPort());
+		portCorrelation.put(access.getGoPort(), decoder.getGoPort());
+		portCorrelation.put(access.getBaseAddressPort(), decoder
+				.getDataPorts().get(0));
+		if (!isRead) {
+			portCorrelation.put(((HeapWrite) access).getValuePort(), decoder
+					.getDataPorts().get(1));
+		}
+		final Exit exit = access.getExit(Exit.DONE);
+		final Exit decoderExit = decoder.getExit(Exit.DONE);
+		final Map<Bus, Bus> busCorrelation = new HashMap<Bus, Bus>();
+		busCorrelation.put(exit.getDoneBus(), decoderExit.getDoneBus());
+		if (isRead && (((HeapRead) access).getResultBus() != null)) {
+			busCorrelation.put(((HeapRead) access).getResultBus(),
+					getResultBus(decoder));
+		}
+		final Map<Exit, Exit> exitCorrelation = new HashMap<Exit, Exit>();
+		exitCorrelation.put(exit, decoderExit);
+		ComponentSwapVisitor.replaceConnections(portCorrelation,
+				busCorrelation, exitCorrelation);
+
+		final Block owner = (Block) access.getOwner();
+		owner.replaceComponent(access, decoder);
+		access.disconnect();
+		access.getLogicalMemoryPort().removeAccess(access);
+
+		// Propagate the values into the new logic
+		TwoPassPartialConstant.forward(owner);
+	}
+
+	/**
+	 * Builds the selection of a bank at run time, as a {@link Branch} which
+	 * accesses the given bank if the bank input is equal to it, and the
+	 * following banks otherwise.
+	 * 
+	 * @return a module whose data ports are the bank, the index in the bank
+	 *         and, for a write, the value, and which has the value read as
+	 *         result for a read
+	 */
+	private static Module select(OffsetMemoryAccess access,
+			List<Allocation> bankArrays, int bank) {
+		final Block bankAccess = getBankAccess(access, bankArrays.get(bank));
+		if (bank == bankArrays.size() - 1) {
+			return bankAccess;
+		}
+		final Module others = select(access, bankArrays, bank + 1);
+
+		final Fragment test = new Fragment(access.getMaxAddressWidth());
+		final Constant bankConstant = test.add(new SimpleConstant(bank,
+				test.width, false));
+		final EqualsOp equals = test.add(new EqualsOp());
+		test.connectInput(equals.getLeftDataPort(), 0);
+		test.connect(equals.getRightDataPort(), bankConstant.getValueBus());
+		final Block testBlock = test.build(1);
+		final Decision decision = new Decision(testBlock, equals);
+		final Port decisionPort = decision.makeDataPort();
+		addDependency(testBlock.getDataPorts().get(0), decisionPort.getPeer());
+
+		final Branch branch = new Branch(decision, bankAccess, others);
+		final int inputCount = access instanceof HeapRead ? 2 : 3;
+		for (int i = 0; i < inputCount; i++) {
+			branch.makeDataPort();
+		}
+		final List<Port> ports = branch.getDataPorts();
+		addDependency(decisionPort, ports.get(0).getPeer());
+		for (int i = 1; i < inputCount; i++) {
+			addDependency(bankAccess.getDataPorts().get(i - 1), ports.get(i)
+					.getPeer());
+		}
+		// The last bank is accessed without a further selection
+		final int first = others instanceof Branch ? 0 : 1;
+		for (int i = first; i < inputCount; i++) {
+			addDependency(others.getDataPorts().get(i - first), ports.get(i)
+					.getPeer());
+		}
+
+		if (access instanceof HeapRead) {
+			final Exit exit = branch.getExit(Exit.DONE);
+			exit.makeDataBus();
+			final OutBuf outBuf = exit.getPeer();
+			final Port result = outBuf.getDataPorts().get(0);
+			outBuf.getEntries().get(0).addDependency(result,
+					new DataDependency(getResultBus(bankAccess)));
+			outBuf.getEntries().get(1).addDependency(result,
+					new DataDependency(getResultBus(others)));
+		}
+		return branch;
+	}
+
+	/**
+	 * Builds the access to one bank which replaces a heap access to the
+	 * partitioned array.
+	 * 
+	 * @return a block whose data ports are the index in the bank and, for a
+	 *         write, the value, and which has the value read as result for a
+	 *         read
+	 */
+	private static Block getBankAccess(OffsetMemoryAccess access,
+			Allocation bankArray) {
+		final Fragment fragment = new Fragment(access.getMaxAddressWidth());
+		final LocationConstant base = fragment.add(new LocationConstant(
+				bankArray, fragment.width, bankArray.getLogicalMemory()
+						.getAddressStridePolicy()));
+		final AddOp address = fragment.add(new AddOp());
+		fragment.connect(address.getLeftDataPort(), base.getValueBus());
+		fragment.connectInput(address.getRightDataPort(), 0);
+
+		final MemoryAccess memoryAccess = access.getMemoryAccess();
+		final OffsetMemoryAccess bankAccess;
+		if (access instanceof HeapRead) {
+			final HeapRead read = new HeapRead(
+					access.getAccessLocationCount(), fragment.width, 0,
+					memoryAccess.isSigned(), memoryAccess.getWidth());
+			fragment.setResult(read.getResultBus());
+			bankAccess = read;
+		} else {
+			final HeapWrite write = new HeapWrite(
+					access.getAccessLocationCount(), fragment.width, 0,
+					memoryAccess.isSigned(), memoryAccess.getWidth());
+			fragment.connectInput(write.getValuePort(), 1);
+			bankAccess = write;
+		}
+		fragment.add(bankAccess);
+		fragment.connect(bankAccess.getBaseAddressPort(),
+				address.getResultBus());
+		bankAccess.setIDSourceInfo(access.getIDSourceInfo());
+		bankArray.getLogicalMemory().getLogicalMemoryPorts().iterator()
+				.next().addAccess(bankAccess);
+		return fragment.build(access instanceof HeapRead ? 1 : 2);
+	}
+
+	private static Bus getResultBus(Module module) {
+		return module.getExit(Exit.DONE).getDataBuses().get(0);
+	}
+
+	private static void addDependency(Port port, Bus bus) {
+		port.getOwner().getEntries().get(0)
+				.addDependency(port, new DataDependency(bus));
+	}
+
+	private static boolean isPowerOfTwo(int value) {
+		return (value > 0) && ((value & (value - 1)) == 0);
+	}
+
+	/**
+	 * The components of a block of decoding logic. As the entries of the
+	 * components are only made by the {@link Block}, their data dependencies
+	 * are recorded here and added once the block has been built.
+	 */
+	private static class Fragment {
+		/** The width of the address computations */
+		private final int width;
+
+		private final List<Component> components = new ArrayList<Component>();
+
+		/** Map of Port to the Bus inside the block on which it depends */
+		private final Map<Port, Bus> dependencies = new LinkedHashMap<Port, Bus>();
+
+		/** Map of Port to the index of the data port of the block it reads */
+		private final Map<Port, Integer> inputs = new LinkedHashMap<Port, Integer>();
+
+		private Bus result = null;
+
+		Fragment(int width) {
+			this.width = width;
+		}
+
+		<T extends Component> T add(T component) {
+			components.add(component);
+			return component;
+		}
+
+		void connect(Port port, Bus bus) {
+			dependencies.put(port, bus);
+		}
+
+		void connectInput(Port port, int input) {
+			inputs.put(port, input);
+		}
+
+		void setResult(Bus bus) {
+			result = bus;
+		}
+
+		Bus constant(int value) {
+			return add(new SimpleConstant(value, width, false)).getValueBus();
+		}
+
+		Bus divide(Bus bus, int divisor) {
+			if (divisor == 1) {
+				return bus;
+			} else if (isPowerOfTwo(divisor)) {
+				return apply(new RightShiftUnsignedOp(MathStuff.log2(width)),
+						bus, MathStuff.log2(divisor));
+			}
+			return apply(new DivideOp(width), bus, divisor);
+		}
+
+		Bus modulo(Bus bus, int divisor) {
+			if (divisor == 1) {
+				return constant(0);
+			} else if (isPowerOfTwo(divisor)) {
+				return apply(new AndOp(), bus, divisor - 1);
+			}
+			return apply(new ModuloOp(), bus, divisor);
+		}
+
+		Bus multiply(Bus bus, int factor) {
+			if (factor == 1) {
+				return bus;
+			} else if (isPowerOfTwo(factor)) {
+				return apply(new LeftShiftOp(MathStuff.log2(width)), bus,
+						MathStuff.log2(factor));
+			}
+			return apply(new MultiplyOp(width), bus, factor);
+		}
+
+		private Bus apply(BinaryOp op, Bus bus, int value) {
+			final Bus right = constant(value);
+			add(op);
+			connect(op.getLeftDataPort(), bus);
+			connect(op.getRightDataPort(), right);
+			return op.getResultBus();
+		}
+
+		/**
+		 * Builds the block of the components and adds their dependencies.
+		 *
+		 * @param inputCount
+		 *            the number of data ports of the block
+		 */
+		Block build(int inputCount) {
+			final Block block = new Block(components);
+			for (int i = 0; i < inputCount; i++) {
+				block.makeDataPort();
+			}
+			for (Map.Entry<Port, Bus> dependency : dependencies.entrySet()) {
+				addDependency(dependency.getKey(), dependency.getValue());
+			}
+			for (Map.Entry<Port, Integer> input : inputs.entrySet()) {
+				addDependency(input.getKey(),
+						block.getDataPorts().get(input.getValue()).getPeer());
+			}
+			if (result != null) {
+				final Bus bus = block.getExit(Exit.DONE).makeDataBus();
+				addDependency(bus.getPeer(), result);
+			}
+			return block;
+		}
+	}
+
+	/**
+	 * Maps the elements of one array to their banks.
+	 */
+	private static class Partition {
+		private final Allocation array;
+		private final String mode;
+		private final int elementSize;
+		private final int elements;
+		private final int blockSize;
+		private final int banks;
+
+		Partition(Allocation array, String mode, int elementSize, int factor) {
+			this.array = array;
+			this.mode = mode;
+			this.elementSize = elementSize;
+			elements = array.getAddressableSize() / elementSize;
+			final int count = Math.max(1, Math.min(factor, elements));
+			if (BLOCK.equals(mode)) {
+				blockSize = (elements + count - 1) / count;
+				banks = (elements + blockSize - 1) / blockSize;
+			} else {
+				blockSize = 1;
+				banks = count;
+			}
+		}
+
+		/**
+		 * Gets the number of elements of a bank.
+		 */
+		int getElementCount(int bank) {
+			if (BLOCK.equals(mode)) {
+				return Math.min(blockSize, elements - (bank * blockSize));
+			}
+			return (elements - bank + banks - 1) / banks;
+		}
+
+		/**
+		 * Gets the element of the array at an index of a bank.
+		 */
+		int getElement(int bank, int index) {
+			if (BLOCK.equals(mode)) {
+				return (bank * blockSize) + index;
+			}
+			return (index * banks) + bank;
+		}
+
+		/**
+		 * Adds the logic computing the bank of an element to a fragment.
+		 */
+		Bus decodeBank(Fragment fragment, Bus element) {
+			if (BLOCK.equals(mode)) {
+				return fragment.divide(element, blockSize);
+			} else if (banks == elements) {
+				return element;
+			}
+			return fragment.modulo(element, banks);
+		}
+
+		/**
+		 * Adds the logic computing the index of an element in its bank to a
+		 * fragment.
+		 */
+		Bus decodeIndex(Fragment fragment, Bus element) {
+			if (BLOCK.equals(mode)) {
+				return fragment.modulo(element, blockSize);
+			} else if (banks == elements) {
+				return fragment.constant(0);
+			}
+			return fragment.divide(element, banks);
+		}
+
+		/**
+		 * Gets the bank accessed by an LValue.
+		 *
+		 * @param locations
+		 *            the locations accessed by the lvalue
+		 * @return the bank, or {@link #UNKNOWN} if it cannot be decoded at
+		 *         compile time
+		 */
+		int getBank(Collection<Location> locations, LValue lvalue) {
+			int bank = UNKNOWN;
+			int indexBank = UNKNOWN;
+			boolean isIndexTraced = false;
+			for (Location location : locations) {
+				int locationBank = getBank(location);
+				if ((locationBank == UNKNOWN) && !BLOCK.equals(mode)) {
+					if (!isIndexTraced) {
+						indexBank = getIndexBank(lvalue);
+						isIndexTraced = true;
+					}
+					locationBank = indexBank;
+				}
+				if ((locationBank == UNKNOWN)
+						|| ((bank != UNKNOWN) && (bank != locationBank))) {
+					return UNKNOWN;
+				}
+				bank = locationBank;
+			}
+			return bank;
+		}
+
+		/**
+		 * Gets the bank of a location which designates a single element.
+		 */
+		private int getBank(Location location) {
+			final int delta = location.getAbsoluteMinDelta();
+			if ((location.getAbsoluteBase() != array)
+					|| (delta != location.getAbsoluteMaxDelta())
+					|| ((delta % elementSize) != 0)) {
+				return UNKNOWN;
+			}
+			final int element = delta / elementSize;
+			if (BLOCK.equals(mode)) {
+				return element / blockSize;
+			}
+			return element % banks;
+		}
+
+		/**
+		 * Gets the cyclic bank of a heap access from the residue of its
+		 * address, relative to the start of the array, modulo the size of a
+		 * row of banks.
+		 */
+		private int getIndexBank(LValue lvalue) {
+			final int offset;
+			if (lvalue instanceof HeapRead) {
+				offset = ((HeapRead) lvalue).getOffset();
+			} else if (lvalue instanceof HeapWrite) {
+				offset = ((HeapWrite) lvalue).getOffset();
+			} else {
+				return UNKNOWN;
+			}
+			final IndexTrace trace = new IndexTrace(array, (long) elementSize
+					* banks);
+			final long residue = trace.getResidue(
+					((OffsetMemoryAccess) lvalue).getBaseAddressPort(), 0);
+			if ((residue == UNKNOWN) || (trace.bases != 1)) {
+				return UNKNOWN;
+			}
+			final long start = trace.mod(residue + offset);
+			if ((start % elementSize) != 0) {
+				return UNKNOWN;
+			}
+			return (int) (start / elementSize);
+		}
+	}
+
+	/**
+	 * Computes the residue of an address expression modulo a given modulus,
+	 * relative to the base of an array. The expression is traced back through
+	 * the constants, additions, subtractions, constant multiplications and
+	 * shifts, and casts which compute it, across the boundaries of the modules
+	 * which have a single entry. The base of the array, a
+	 * {@link LocationConstant}, must be added exactly once.
+	 */
+	private static class IndexTrace {
+		private final Allocation array;
+		private final long modulus;
+
+		/** The number of times the base of the array was added */
+		private int bases = 0;
+
+		IndexTrace(Allocation array, long modulus) {
+			this.array = array;
+			this.modulus = modulus;
+		}
+
+		long mod(long value) {
+			return ((value % modulus) + modulus) % modulus;
+		}
+
+		/**
+		 * Gets the residue of the value of a port, or {@link #UNKNOWN}.
+		 */
+		long getResidue(Port port, int depth) {
+			final Bus bus = getSource(port);
+			return bus == null ? UNKNOWN : getResidue(bus, depth);
+		}
+
+		private long getResidue(Bus bus, int depth) {
+			if (depth > MAX_TRACE_DEPTH) {
+				return UNKNOWN;
+			}
+			final Component owner = bus.getOwner().getOwner();
+			if (owner instanceof LocationConstant) {
+				final Location target = ((LocationConstant) owner).getTarget();
+				if ((target == null)
+						|| (target.getAbsoluteBase() != array)
+						|| (target.getAbsoluteMinDelta() != target
+								.getAbsoluteMaxDelta())) {
+					return UNKNOWN;
+				}
+				bases++;
+				return mod(target.getAbsoluteMinDelta());
+			}
+
+			final Value value = bus.getValue();
+			if ((value != null) && value.isConstant()) {
+				return mod(value.getValueMask());
+			}
+
+			if (owner instanceof InBuf) {
+				// a data port of the module
+				return getResidue(bus.getPeer(), depth + 1);
+			} else if (owner instanceof Module) {
+				// a data port of the outbuf of the module
+				return getResidue(bus.getPeer(), depth + 1);
+			} else if (owner instanceof AddOp) {
+				long sum = 0;
+				for (Port port : owner.getDataPorts()) {
+					final long residue = getResidue(port, depth + 1);
+					if (residue == UNKNOWN) {
+						return UNKNOWN;
+					}
+					sum += residue;
+				}
+				return mod(sum);
+			} else if (owner instanceof SubtractOp) {
+				final SubtractOp subtract = (SubtractOp) owner;
+				final long left = getResidue(subtract.getLeftDataPort(),
+						depth + 1);
+				final int leftBases = bases;
+				final long right = getResidue(subtract.getRightDataPort(),
+						depth + 1);
+				if ((left == UNKNOWN) || (right == UNKNOWN)
+						|| (bases != leftBases)) {
+					return UNKNOWN;
+				}
+				return mod(left - right);
+			} else if (owner instanceof MultiplyOp) {
+				final MultiplyOp multiply = (MultiplyOp) owner;
+				final Port left = multiply.getLeftDataPort();
+				final Port right = multiply.getRightDataPort();
+				final long constant;
+				final Port other;
+				if (isConstant(left)) {
+					constant = mod(getSource(left).getValue().getValueMask());
+					other = right;
+				} else if (isConstant(right)) {
+					constant = mod(getSource(right).getValue().getValueMask());
+					other = left;
+				} else {
+					return UNKNOWN;
+				}
+				if (constant == 0) {
+					return 0;
+				}
+				// A scaled base of the array is not an address in it
+				final int otherBases = bases;
+				final long residue = getResidue(other, depth + 1);
+				if ((residue == UNKNOWN) || (bases != otherBases)) {
+					return UNKNOWN;
+				}
+				return mod(residue * constant);
+			} else if (owner instanceof LeftShiftOp) {
+				final LeftShiftOp shift = (LeftShiftOp) owner;
+				if (!isConstant(shift.getRightDataPort())) {
+					return UNKNOWN;
+				}
+				final long magnitude = getSource(shift.getRightDataPort())
+						.getValue().getValueMask();
+				if ((magnitude < 0) || (magnitude > 62)) {
+					return UNKNOWN;
+				}
+				final long factor = mod(1L << magnitude);
+				if (factor == 0) {
+					return 0;
+				}
+				final int leftBases = bases;
+				final long residue = getResidue(shift.getLeftDataPort(),
+						depth + 1);
+				if ((residue == UNKNOWN) || (bases != leftBases)) {
+					return UNKNOWN;
+				}
+				return mod(residue * factor);
+			} else if (owner instanceof CastOp) {
+				// A cast keeps the residue as long as it keeps enough bits
+				final int size = ((CastOp) owner).getCastSize();
+				if ((size < 63) && (((1L << size) % modulus) != 0)) {
+					return UNKNOWN;
+				}
+				return getResidue(((CastOp) owner).getDataPort(), depth + 1);
+			}
+			return UNKNOWN;
+		}
+
+		private static boolean isConstant(Port port) {
+			final Bus bus = getSource(port);
+			return (bus != null) && (bus.getValue() != null)
+					&& bus.getValue().isConstant();
+		}
+
+		/**
+		 * Gets the only bus on which a port depends, or null.
+		 */
+		private static Bus getSource(Port port) {
+			if (port.getOwner().getEntries().size() != 1) {
+				return null;
+			}
+			final Entry entry = port.getOwner().getEntries().get(0);
+			final Collection<Dependency> deps = entry.getDependencies(port);
+			return deps.size() == 1 ? deps.iterator().next().getLogicalBus()
+					: null;
+		}
+	}
+
+
+	//
+	// Optimization interface.
+	//
+
+	/**
+	 * Applies this optimization to a given target.
+	 * 
+	 * @param target
+	 *            the target on which to run this optimization
+	 */
+	@Override
+	public void run(Visitable target) {
+		assert (target instanceof Design) : "MemoryPartitioner.run() only runs on a Design";
+		final GenericJob gj = EngineThread.getGenericJob();
+		final String mode = gj.getOption(OptionRegistry.ARRAY_PARTITION)
+				.getValue(CodeLabel.UNSCOPED).toString();
+		final int factor = gj.getOptionSnapshot(CodeLabel.UNSCOPED).getInt(
+				OptionRegistry.ARRAY_PARTITION_FACTOR);
+		if (!CYCLIC.equals(mode) && !BLOCK.equals(mode)
+				&& !COMPLETE.equals(mode)) {
+			return;
+		}
+
+		final Design design = (Design) target;
+		final ObjectResolver resolver = ObjectResolver.resolve(design);
+
+		final Set<LogicalMemory> newMemories = new HashSet<LogicalMemory>();
+		for (LogicalMemory memory : new ArrayList<LogicalMemory>(
+				design.getLogicalMemories())) {
+			final Set<LogicalMemory> result = partitionMemory(memory,
+					resolver, mode, factor);
+			if (!result.contains(memory)) {
+				newMemories.addAll(result);
+			}
+		}
+
+		// As for split memories, dead component removal takes care of the
+		// partitioned memories.
+		for (LogicalMemory memory : newMemories) {
+			design.addMemory(memory);
+		}
+	}
+
+	/**
+	 * Returns true if an array was partitioned, its accesses have then been
+	 * replaced by new logic.
+	 */
+	@Override
+	public boolean didModify() {
+		return partitionedCount > 0;
+	}
+
+	@Override
+	public void clear() {
+		partitionedCount = 0;
+		bankCount = 0;
+	}
+
+	/**
+	 * Reports, via {@link GenericJob#info}, what optimization is being
+	 * performed
+	 */
+	@Override
+	public void preStatus() {
+		EngineThread.getGenericJob().info("partitioning arrays...");
+	}
+
+	/**
+	 * Reports, via {@link GenericJob#verbose}, the results of <b>this</b> pass
+	 * of the optimization.
+	 */
+	@Override
+	public void postStatus() {
+		if (partitionedCount > 0) {
+			EngineThread.getGenericJob().verbose(
+					"partitioned " + partitionedCount + " "
+							+ (partitionedCount == 1 ? "array" : "arrays")
+							+ " into " + bankCount + " banks");
+		}
+	}
+
+}
@@ -27,6 +27,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 
@@ -100,16 +101,25 @@ import org.xronos.openforge.lim.primitive.Reg;
  * information can be used to optimize the number and configuration of the
  * memories in the design.
  * <P>
- * ObjectResolver works by repeatedly visiting the Design and pushing any
- * {@link Pointer} values it finds through the data flows. These values are
- * traced through {@link Port} and {@link Bus} connections as well as storage
- * into and retrieval from global memory {@link Location Locations}. The initial
- * set of {@link Pointer} values are introduced by the contents of global memory
+ * ObjectResolver works by visiting the Design and pushing any {@link Pointer}
+ * values it finds through the data flows. These values are traced through
+ * {@link Port} and {@link Bus} connections as well as storage into and
+ * retrieval from global memory {@link Location Locations}. The initial set of
+ * {@link Pointer} values are introduced by the contents of global memory
  * (Pointer initial values of global fields) and any {@link LocationConstant
  * LocationConstants} that appear in the design. As the design is traversed,
  * various operations may introduce new {@link Pointer} values based upon
- * existing {@link Pointer} values. Iteration stops when no new accessed
- * {@link Location Locations} are discovered for any {@link LValue} operation.
+ * existing {@link Pointer} values.
+ * <P>
+ * The design is traversed only once. During the traversal each component which
+ * reads the values of a {@link Bus}, {@link Location} or {@link Resource} is
+ * recorded as a reader of it, and whenever the values of one of these grow
+ * (through a feedback point, or a memory or register written after it was
+ * read) its readers are put on a worklist. Only the components on the worklist
+ * are visited again, until it is empty. Since the Locations and Pointers
+ * derived by the resolver are interned, so that re-deriving a Pointer yields
+ * the same object, the sets of values only grow finitely and the worklist
+ * always drains.
  * <P>
  * In addition to {@link Location Locations}, ObjectResolver also records for
  * each {@link LValue} which {@link LocationValueSource LocationValueSources},
@@ -145,12 +155,24 @@ public class ObjectResolver extends DataFlowVisitor {
 	/** The set of components at the top level. Calls, pins, etc. */
 	private Set<?> topLevelComponents;
 
-	/** True if modified during the current iteration */
-	private boolean isModified = false;
-
 	/** Map of Location, Port, or Bus to Set of LogicalValue (mostly Pointers) */
 	private Map<Object, Set<LogicalValue>> valueMap = new HashMap<Object, Set<LogicalValue>>();
 
+	/** Map of Location, Bus or Resource to Set of the Components reading it */
+	private Map<Object, Set<Component>> readerMap = new HashMap<Object, Set<Component>>();
+
+	/** The Components whose inputs have grown since they were last visited */
+	private Set<Component> worklist = new LinkedHashSet<Component>();
+
+	/** The canonical instance of each Location derived by this resolver */
+	private Map<Location, Location> locationTable = new HashMap<Location, Location>();
+
+	/** The canonical instance of each Set of accessed Locations */
+	private Map<Set<Location>, Set<Location>> locationSetTable = new HashMap<Set<Location>, Set<Location>>();
+
+	/** Map of Location to the Pointer derived to it from each address source */
+	private Map<Location, Map<LocationValueSource, Pointer>> pointerTable = new HashMap<Location, Map<LocationValueSource, Pointer>>();
+
 	/** Map of LValue to Set of Locations accessed by that LValue */
 	private Map<LValue, Set<Location>> accessedLocationMap = new HashMap<LValue, Set<Location>>();
 
@@ -192,9 +214,8 @@ public class ObjectResolver extends DataFlowVisitor {
 		}
 
 		final ObjectResolver resolver = new ObjectResolver(design);
-		do {
-			resolver.iterate();
-		} while (resolver.isModified());
+		resolver.iterate();
+		resolver.propagate();
 
 		resolver.finish();
 
@@ -218,8 +239,7 @@ public class ObjectResolver extends DataFlowVisitor {
 	 */
 	private Set<Location> getAccessedLocations(LValue lvalue) {
 		final Set<Location> set = accessedLocationMap.get(lvalue);
-		return set == null ? Collections.<Location> emptySet() : Collections
-				.unmodifiableSet(set);
+		return set == null ? Collections.<Location> emptySet() : set;
 	}
 
 	/**
@@ -371,6 +391,10 @@ public class ObjectResolver extends DataFlowVisitor {
 
 		// Might as well clear it out... we wont need it anymore.
 		locationSourceMap.clear();
+		readerMap.clear();
+		locationTable.clear();
+		locationSetTable.clear();
+		pointerTable.clear();
 	}
 
 	@Override
@@ -381,7 +405,7 @@ public class ObjectResolver extends DataFlowVisitor {
 		if (getAccessedLocations(read).isEmpty()) {
 			addAccessedLocations(read, Collections.singleton(location));
 		}
-		final Set<LogicalValue> values = getValues(location);
+		final Set<LogicalValue> values = getValues(location, read);
 		setValues(read.getResultBus(), values);
 	}
 
@@ -442,15 +466,13 @@ public class ObjectResolver extends DataFlowVisitor {
 				 */
 				if (isConst && !isLoop) {
 					final int offset = (int) testValue.getValueMask();
-					outputLocation = inputLocation.createOffset(0, offset);
+					outputLocation = intern(inputLocation.createOffset(0,
+							offset));
 				} else {
-					outputLocation = inputLocation.createIndex(0);
+					outputLocation = intern(inputLocation.createIndex(0));
 				}
 
-				final Pointer newValue = new Pointer(outputLocation);
-
-				deriveAddressSource(newValue, inputValue);
-				outputValues.add(newValue);
+				outputValues.add(derivePointer(outputLocation, inputValue));
 				defineLocationSource(outputLocation, addOp);
 			}
 
@@ -473,8 +495,8 @@ public class ObjectResolver extends DataFlowVisitor {
 		final Set<Location> baseLocations = toLocations(addressValues);
 		final Set<Location> readLocations = new HashSet<Location>();
 		for (Location baseLocation : baseLocations) {
-			final Location readLocation = baseLocation.createIndex(arrayRead
-					.getAccessLocationCount());
+			final Location readLocation = intern(baseLocation
+					.createIndex(arrayRead.getAccessLocationCount()));
 			defineLocationSource(readLocation, arrayRead);
 			readLocations.add(readLocation);
 		}
@@ -482,7 +504,7 @@ public class ObjectResolver extends DataFlowVisitor {
 
 		final Set<LogicalValue> readValues = new HashSet<LogicalValue>();
 		for (Location readLocation : getAccessedLocations(arrayRead)) {
-			final Set<LogicalValue> values = getValues(readLocation);
+			final Set<LogicalValue> values = getValues(readLocation, arrayRead);
 			readValues.addAll(values);
 		}
 		setValues(arrayRead.getResultBus(), readValues);
@@ -496,8 +518,8 @@ public class ObjectResolver extends DataFlowVisitor {
 		final Set<Location> baseLocations = toLocations(addressValues);
 		final Set<Location> writeLocations = new HashSet<Location>();
 		for (Location baseLocation : baseLocations) {
-			final Location writeLocation = baseLocation.createIndex(arrayWrite
-					.getAccessLocationCount());
+			final Location writeLocation = intern(baseLocation
+					.createIndex(arrayWrite.getAccessLocationCount()));
 			defineLocationSource(writeLocation, arrayWrite);
 			writeLocations.add(writeLocation);
 		}
@@ -514,28 +536,37 @@ public class ObjectResolver extends DataFlowVisitor {
 		final boolean isTopLevel = topLevelComponents.contains(call);
 
 		if (!isTopLevel) {
-			for (Port callPort : call.getDataPorts()) {
-				/*
-				 * Explicitly set the locations of each procedure port to be the
-				 * set of locations from the corresponding call port.
-				 */
-				final Set<LogicalValue> values = getValues(callPort);
-				final Bus b = call.getProcedurePort(callPort).getPeer();
-				setValues(b, values);
-			}
+			enterCall(call);
 		}
 
 		super.visit(call);
 
 		if (!isTopLevel) {
-			for (Bus callBus : call.getBuses()) {
-				/*
-				 * Set the locations of each call bus to be the set of locations
-				 * from the corresponding procedure bus.
-				 */
-				final Set<LogicalValue> values = getValues(call.getProcedureBus(callBus));
-				setValues(callBus, values);
-			}
+			exitCall(call);
+		}
+	}
+
+	/**
+	 * Explicitly set the locations of each procedure port to be the set of
+	 * locations from the corresponding call port.
+	 */
+	private void enterCall(Call call) {
+		for (Port callPort : call.getDataPorts()) {
+			final Set<LogicalValue> values = getValues(callPort);
+			final Bus b = call.getProcedurePort(callPort).getPeer();
+			setValues(b, values);
+		}
+	}
+
+	/**
+	 * Set the locations of each call bus to be the set of locations from the
+	 * corresponding procedure bus.
+	 */
+	private void exitCall(Call call) {
+		for (Bus callBus : call.getBuses()) {
+			final Set<LogicalValue> values = getValues(
+					call.getProcedureBus(callBus), call);
+			setValues(callBus, values);
 		}
 	}
 
@@ -560,7 +591,8 @@ public class ObjectResolver extends DataFlowVisitor {
 	 */
 	@Override
 	public void visit(RegisterRead regRead) {
-		setValues(regRead.getResultBus(), getValues(regRead.getResource()));
+		setValues(regRead.getResultBus(),
+				getValues(regRead.getResource(), regRead));
 	}
 
 	/**
@@ -579,8 +611,8 @@ public class ObjectResolver extends DataFlowVisitor {
 		final Set<Location> baseLocations = toLocations(addressValues);
 		final Set<Location> readLocations = new HashSet<Location>();
 		for (Location baseLocation : baseLocations) {
-			final Location readLocation = baseLocation.createOffset(
-					heapRead.getAccessLocationCount(), heapRead.getOffset());
+			final Location readLocation = intern(baseLocation.createOffset(
+					heapRead.getAccessLocationCount(), heapRead.getOffset()));
 			defineLocationSource(readLocation, heapRead);
 			readLocations.add(readLocation);
 		}
@@ -588,7 +620,7 @@ public class ObjectResolver extends DataFlowVisitor {
 
 		final Set<LogicalValue> readValues = new HashSet<LogicalValue>();
 		for (Location readLocation : getAccessedLocations(heapRead)) {
-			final Set<LogicalValue> values = getValues(readLocation);
+			final Set<LogicalValue> values = getValues(readLocation, heapRead);
 			readValues.addAll(values);
 		}
 
@@ -603,8 +635,8 @@ public class ObjectResolver extends DataFlowVisitor {
 		final Set<Location> baseLocations = toLocations(addressValues);
 		final Set<Location> writeLocations = new HashSet<Location>();
 		for (Location baseLocation : baseLocations) {
-			final Location writeLocation = baseLocation.createOffset(
-					heapWrite.getAccessLocationCount(), heapWrite.getOffset());
+			final Location writeLocation = intern(baseLocation.createOffset(
+					heapWrite.getAccessLocationCount(), heapWrite.getOffset()));
 			defineLocationSource(writeLocation, heapWrite);
 			writeLocations.add(writeLocation);
 		}
@@ -637,7 +669,7 @@ public class ObjectResolver extends DataFlowVisitor {
 				if (!dependencies.isEmpty()) {
 					final Dependency dependency = dependencies.iterator()
 							.next();
-					values.addAll(getValues(dependency.getLogicalBus()));
+					values.addAll(getValues(dependency.getLogicalBus(), inbuf));
 				}
 			}
 			// Use 'addValues' here instead of setValues because the
@@ -653,8 +685,8 @@ public class ObjectResolver extends DataFlowVisitor {
 	/**
 	 * A latch can be a feedback point in the LIM, therefore it has the ability
 	 * to accumulate LogicalValues on its result bus on successive passes
-	 * through object resolving. To account for this, it must be able to set the
-	 * isModified flag and cause object resolving to iterate again.
+	 * through object resolving. To account for this, the readers of its result
+	 * bus are revisited whenever the values of that bus grow.
 	 */
 	@Override
 	public void visit(Latch latch) {
@@ -756,7 +788,7 @@ public class ObjectResolver extends DataFlowVisitor {
 			final Set<LogicalValue> values = new HashSet<LogicalValue>();
 
 			if (port.isConnected()) {
-				values.addAll(getValues(port.getBus()));
+				values.addAll(getValues(port.getBus(), outbuf));
 			} else {
 				for (Object element2 : outbuf.getEntries()) {
 					final Entry entry = (Entry) element2;
@@ -780,7 +812,8 @@ public class ObjectResolver extends DataFlowVisitor {
 
 						final Dependency dependency = (Dependency) dependencies
 								.iterator().next();
-						values.addAll(getValues(dependency.getLogicalBus()));
+						values.addAll(getValues(dependency.getLogicalBus(),
+								outbuf));
 					}
 				}
 			}
@@ -885,15 +918,13 @@ public class ObjectResolver extends DataFlowVisitor {
 				 */
 				if (isConst && !isLoop) {
 					final int offset = (int) testValue.getValueMask();
-					outputLocation = inputLocation.createOffset(0, -offset);
+					outputLocation = intern(inputLocation.createOffset(0,
+							-offset));
 				} else {
-					outputLocation = inputLocation.createIndex(0);
+					outputLocation = intern(inputLocation.createIndex(0));
 				}
 
-				final Pointer newValue = new Pointer(outputLocation);
-
-				deriveAddressSource(newValue, inputValue);
-				outputValues.add(newValue);
+				outputValues.add(derivePointer(outputLocation, inputValue));
 				defineLocationSource(outputLocation, subtractOp);
 			}
 
@@ -922,10 +953,8 @@ public class ObjectResolver extends DataFlowVisitor {
 			final LogicalValue inputValue = (LogicalValue) element;
 			final Location inputLocation = inputValue.toLocation();
 			if (inputLocation != Location.INVALID) {
-				final Pointer pointer = new Pointer(
-						inputLocation.getAbsoluteBase());
-				deriveAddressSource(pointer, inputValue);
-				outputValues.add(pointer);
+				outputValues.add(derivePointer(inputLocation.getAbsoluteBase(),
+						inputValue));
 			}
 		}
 		addValues(outputBus, outputValues);
@@ -942,12 +971,63 @@ public class ObjectResolver extends DataFlowVisitor {
 	}
 
 	private void iterate() {
-		isModified = false;
 		design.accept(this);
 	}
 
-	private boolean isModified() {
-		return isModified;
+	/**
+	 * Revisits the components on the worklist until no more values grow. A
+	 * Call is not traversed again, only its ports and buses are updated.
+	 */
+	private void propagate() {
+		while (!worklist.isEmpty()) {
+			final Iterator<Component> iter = worklist.iterator();
+			final Component component = iter.next();
+			iter.remove();
+			if (component instanceof Call) {
+				enterCall((Call) component);
+				exitCall((Call) component);
+			} else {
+				component.accept(this);
+			}
+		}
+	}
+
+	/**
+	 * Records a component as a reader of the values of a Location, Bus or
+	 * Resource, to be revisited when those values grow.
+	 */
+	private void addReader(Object key, Component reader) {
+		Set<Component> readers = readerMap.get(key);
+		if (readers == null) {
+			readers = new HashSet<Component>();
+			readerMap.put(key, readers);
+		}
+		readers.add(reader);
+	}
+
+	/**
+	 * Gets the canonical instance of a Location equal to the given one.
+	 */
+	private Location intern(Location location) {
+		final Location canonical = locationTable.get(location);
+		if (canonical != null) {
+			return canonical;
+		}
+		locationTable.put(location, location);
+		return location;
+	}
+
+	/**
+	 * Gets the canonical, unmodifiable, instance of a Set of Locations equal to
+	 * the given one, which must not be modified afterwards.
+	 */
+	private Set<Location> intern(Set<Location> locations) {
+		Set<Location> canonical = locationSetTable.get(locations);
+		if (canonical == null) {
+			canonical = Collections.unmodifiableSet(locations);
+			locationSetTable.put(locations, canonical);
+		}
+		return canonical;
 	}
 
 	/**
@@ -1014,7 +1094,8 @@ public class ObjectResolver extends DataFlowVisitor {
 
 	private Set<LogicalValue> getNewValues(Port port) {
 		final Set<LogicalValue> currentValues = getCurrentValues(port);
-		Set<LogicalValue> newValues = new HashSet<LogicalValue>(getValues(getInputBus(port)));
+		Set<LogicalValue> newValues = new HashSet<LogicalValue>(getValues(
+				getInputBus(port), port.getOwner()));
 		newValues.removeAll(currentValues);
 		addValues(port, newValues);
 		return newValues;
@@ -1043,21 +1124,37 @@ public class ObjectResolver extends DataFlowVisitor {
 	 */
 	private Set<LogicalValue> getValues(Port port) {
 		final Set<LogicalValue> set = valueMap.get(port);
-		return set == null ? getValues(getInputBus(port)) : set;
+		return set == null ? getValues(getInputBus(port), port.getOwner())
+				: set;
 	}
 
 	private Set<LogicalValue> getValues(Bus bus) {
 		return getValuesForObject(bus);
 	}
 
+	private Set<LogicalValue> getValues(Bus bus, Component reader) {
+		addReader(bus, reader);
+		return getValuesForObject(bus);
+	}
+
 	private Set<LogicalValue> getValues(Location location) {
 		return getValuesForObject(location);
 	}
 
+	private Set<LogicalValue> getValues(Location location, Component reader) {
+		addReader(location, reader);
+		return getValuesForObject(location);
+	}
+
 	private Set<LogicalValue> getValues(Resource reg) {
 		return getValuesForObject(reg);
 	}
 
+	private Set<LogicalValue> getValues(Resource reg, Component reader) {
+		addReader(reg, reader);
+		return getValuesForObject(reg);
+	}
+
 	private Set<LogicalValue> getValuesForObject(Object key) {
 		final Set<LogicalValue> set = valueMap.get(key);
 		return set == null ? Collections.<LogicalValue> emptySet() : set;
@@ -1104,7 +1201,16 @@ public class ObjectResolver extends DataFlowVisitor {
 			Set<LogicalValue> newSet = new HashSet<LogicalValue>(values);
 			newSet.removeAll(oldSet);
 		}
-		valueMap.put(key, values);
+		final Set<LogicalValue> oldValues = valueMap.put(key, values);
+		final boolean isGrown = oldValues == null ? !values.isEmpty()
+				: (oldValues.size() != values.size())
+						|| !oldValues.containsAll(values);
+		if (isGrown) {
+			final Set<Component> readers = readerMap.get(key);
+			if (readers != null) {
+				worklist.addAll(readers);
+			}
+		}
 	}
 
 	/**
@@ -1143,6 +1249,33 @@ public class ObjectResolver extends DataFlowVisitor {
 		}
 	}
 
+	/**
+	 * Gets the Pointer to a Location derived from another LogicalValue, which
+	 * has the same address source. The Pointer is created only the first time
+	 * it is derived from that address source.
+	 * 
+	 * @param location
+	 *            the location of the derived pointer
+	 * @param oldValue
+	 *            the value from which the pointer is derived
+	 * @return the derived pointer
+	 */
+	private Pointer derivePointer(Location location, LogicalValue oldValue) {
+		final LocationValueSource source = getAddressSource(oldValue);
+		Map<LocationValueSource, Pointer> pointers = pointerTable.get(location);
+		if (pointers == null) {
+			pointers = new HashMap<LocationValueSource, Pointer>();
+			pointerTable.put(location, pointers);
+		}
+		Pointer pointer = pointers.get(source);
+		if (pointer == null) {
+			pointer = new Pointer(location);
+			deriveAddressSource(pointer, oldValue);
+			pointers.put(source, pointer);
+		}
+		return pointer;
+	}
+
 	/**
 	 * Gets the address source for a given pointer value.
 	 * 
@@ -1192,13 +1325,14 @@ public class ObjectResolver extends DataFlowVisitor {
 	private void addAccessedLocations(LValue access, Set<Location> newLocations) {
 		Set<Location> locations = accessedLocationMap.get(access);
 		if (locations == null) {
-			locations = new HashSet<Location>();
+			locations = intern(new HashSet<Location>());
 			accessedLocationMap.put(access, locations);
 		}
 
 		if (!locations.containsAll(newLocations)) {
-			locations.addAll(newLocations);
-			isModified = true;
+			final Set<Location> union = new HashSet<Location>(locations);
+			union.addAll(newLocations);
+			accessedLocationMap.put(access, intern(union));
 		}
 	}
 
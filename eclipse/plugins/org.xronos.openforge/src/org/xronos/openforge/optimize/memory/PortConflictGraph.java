@@ -0,0 +1,319 @@
+/*******************************************************************************
+ * Copyright 2002-2009  Xilinx Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+/*
+ * 
+ *
+ * 
+ */
+
+package org.xronos.openforge.optimize.memory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.xronos.openforge.lim.Branch;
+import org.xronos.openforge.lim.Component;
+import org.xronos.openforge.lim.DataDependency;
+import org.xronos.openforge.lim.Dependency;
+import org.xronos.openforge.lim.Entry;
+import org.xronos.openforge.lim.MemoryAccessBlock;
+import org.xronos.openforge.lim.Module;
+import org.xronos.openforge.lim.Port;
+import org.xronos.openforge.lim.memory.LogicalMemoryPort;
+import org.xronos.openforge.optimize._optimize;
+
+/**
+ * PortConflictGraph allocates the accesses of one task to the two ports of a
+ * dual port memory so as to minimize the number of pairs of accesses which
+ * could execute in the same cycle but must be arbitrated because they share a
+ * port.
+ * <p>
+ * Two accesses conflict unless they can never be concurrent once the task is
+ * scheduled, that is when either:
+ * <ul>
+ * <li>they are in the opposite arms of a {@link Branch}, which includes the
+ * cases of a switch statement since a switch is built of nested branches, or
+ * <li>one depends on the other through data flow, so that they execute in
+ * order whichever ports they use.
+ * </ul>
+ * The accesses are colored onto the ports greedily, in dataflow order, each
+ * one going to the port with the fewest conflicting accesses (ties going to
+ * the least loaded port), after which single accesses are moved between the
+ * ports as long as doing so removes conflicts. Writes may be restricted to one
+ * of the ports, as required by LUT memories whose second port is read only.
+ */
+class PortConflictGraph {
+
+	/** The accesses, in dataflow order */
+	private final List<MemoryAccessBlock> accesses;
+
+	/** The accesses which may execute in the same cycle as each access */
+	private final Map<MemoryAccessBlock, Set<MemoryAccessBlock>> conflicts = new HashMap<MemoryAccessBlock, Set<MemoryAccessBlock>>();
+
+	/** The data flow successors of each component among its siblings */
+	private final Map<Module, Map<Component, Set<Component>>> successors = new HashMap<Module, Map<Component, Set<Component>>>();
+
+	/** The conflicting pairs of accesses left on the same port */
+	private int stallCount = 0;
+
+	/**
+	 * Builds the conflict graph of the given accesses.
+	 * 
+	 * @param accesses
+	 *            the accesses of a single task to a single memory, in dataflow
+	 *            order
+	 */
+	PortConflictGraph(Collection<MemoryAccessBlock> accesses) {
+		this.accesses = new ArrayList<MemoryAccessBlock>(accesses);
+		for (MemoryAccessBlock access : this.accesses) {
+			conflicts.put(access, new HashSet<MemoryAccessBlock>());
+		}
+		for (int i = 0; i < this.accesses.size(); i++) {
+			for (int j = i + 1; j < this.accesses.size(); j++) {
+				final MemoryAccessBlock a = this.accesses.get(i);
+				final MemoryAccessBlock b = this.accesses.get(j);
+				if (isConcurrent(a, b)) {
+					conflicts.get(a).add(b);
+					conflicts.get(b).add(a);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds each access to one of the two ports. The accesses must have been
+	 * removed from their memory beforehand.
+	 * 
+	 * @param first
+	 *            a port which accepts any access
+	 * @param second
+	 *            the other port of the memory
+	 * @param secondReadOnly
+	 *            true if writes may not be added to the <code>second</code>
+	 *            port
+	 */
+	void allocate(LogicalMemoryPort first, LogicalMemoryPort second,
+			boolean secondReadOnly) {
+		final Map<MemoryAccessBlock, Integer> colors = new HashMap<MemoryAccessBlock, Integer>();
+		final int[] load = new int[2];
+
+		// Place the writes which are bound to the first port before
+		// anything else so that the reads steer clear of them.
+		final List<MemoryAccessBlock> order = new LinkedList<MemoryAccessBlock>();
+		for (MemoryAccessBlock access : accesses) {
+			if (isPinned(access, secondReadOnly)) {
+				order.add(access);
+			}
+		}
+		for (MemoryAccessBlock access : accesses) {
+			if (!isPinned(access, secondReadOnly)) {
+				order.add(access);
+			}
+		}
+
+		for (MemoryAccessBlock access : order) {
+			int color = 0;
+			if (!isPinned(access, secondReadOnly)) {
+				final int firstCost = getCost(access, 0, colors);
+				final int secondCost = getCost(access, 1, colors);
+				if ((secondCost < firstCost)
+						|| ((secondCost == firstCost) && (load[1] < load[0]))) {
+					color = 1;
+				}
+			}
+			colors.put(access, color);
+			load[color]++;
+		}
+
+		// Each move strictly lowers the number of conflicts on a shared
+		// port, so this terminates.
+		boolean moved = true;
+		while (moved) {
+			moved = false;
+			for (MemoryAccessBlock access : accesses) {
+				if (isPinned(access, secondReadOnly)) {
+					continue;
+				}
+				final int color = colors.get(access);
+				if (getCost(access, 1 - color, colors) < getCost(access, color,
+						colors)) {
+					colors.put(access, 1 - color);
+					moved = true;
+				}
+			}
+		}
+
+		stallCount = 0;
+		for (MemoryAccessBlock access : accesses) {
+			final int color = colors.get(access);
+			stallCount += getCost(access, color, colors);
+			if (color == 0) {
+				first.addAccess(access);
+			} else {
+				second.addAccess(access);
+			}
+			_optimize.ln(_optimize.DP_MEM, "\t" + access + " to port "
+					+ (color == 0 ? first : second));
+		}
+		stallCount /= 2;
+	}
+
+	/**
+	 * Returns the number of conflicting pairs of accesses which share a port
+	 * after the last {@link #allocate}.
+	 */
+	int getStallCount() {
+		return stallCount;
+	}
+
+	/**
+	 * Returns the number of pairs of accesses which may execute in the same
+	 * cycle.
+	 */
+	int getConflictCount() {
+		int count = 0;
+		for (Set<MemoryAccessBlock> accessConflicts : conflicts.values()) {
+			count += accessConflicts.size();
+		}
+		return count / 2;
+	}
+
+	private static boolean isPinned(MemoryAccessBlock access,
+			boolean secondReadOnly) {
+		return secondReadOnly && !access.getMemoryAccess().isReadAccess();
+	}
+
+	/**
+	 * Counts the colored accesses on the given port which conflict with an
+	 * access.
+	 */
+	private int getCost(MemoryAccessBlock access, int color,
+			Map<MemoryAccessBlock, Integer> colors) {
+		int cost = 0;
+		for (MemoryAccessBlock other : conflicts.get(access)) {
+			final Integer otherColor = colors.get(other);
+			if ((otherColor != null) && (otherColor.intValue() == color)) {
+				cost++;
+			}
+		}
+		return cost;
+	}
+
+	/**
+	 * Tests whether two accesses may execute in the same cycle. The two are
+	 * compared in their innermost common module: in opposite arms of a branch
+	 * they are exclusive, otherwise they are concurrent unless the component
+	 * containing one is a data flow successor of the component containing the
+	 * other.
+	 */
+	private boolean isConcurrent(Component a, Component b) {
+		final List<Component> aPath = new ArrayList<Component>();
+		for (Component c = a; c != null; c = c.getOwner()) {
+			aPath.add(c);
+		}
+
+		Component bChild = null;
+		Component common = b;
+		while ((common != null) && !aPath.contains(common)) {
+			bChild = common;
+			common = common.getOwner();
+		}
+		final int index = aPath.indexOf(common);
+		if ((common == null) || (index == 0) || (bChild == null)) {
+			// Unrelated (different tasks), or one contains the other
+			return common != null;
+		}
+		final Component aChild = aPath.get(index - 1);
+		final Module module = (Module) common;
+
+		if (module instanceof Branch) {
+			final Branch branch = (Branch) module;
+			final Set<Component> arms = new HashSet<Component>();
+			arms.add(branch.getTrueBranch());
+			arms.add(branch.getFalseBranch());
+			if (arms.contains(aChild) && arms.contains(bChild)) {
+				return false;
+			}
+		}
+		return !reaches(module, aChild, bChild)
+				&& !reaches(module, bChild, aChild);
+	}
+
+	/**
+	 * Tests whether a component of a module depends, through the data flow
+	 * among the components of the module, on another.
+	 */
+	private boolean reaches(Module module, Component from, Component to) {
+		final Map<Component, Set<Component>> graph = getSuccessors(module);
+		final Set<Component> visited = new HashSet<Component>();
+		final LinkedList<Component> queue = new LinkedList<Component>();
+		queue.add(from);
+		while (!queue.isEmpty()) {
+			final Set<Component> next = graph.get(queue.removeFirst());
+			if (next == null) {
+				continue;
+			}
+			for (Component component : next) {
+				if (component == to) {
+					return true;
+				}
+				if (visited.add(component)) {
+					queue.add(component);
+				}
+			}
+		}
+		return false;
+	}
+
+	private Map<Component, Set<Component>> getSuccessors(Module module) {
+		Map<Component, Set<Component>> graph = successors.get(module);
+		if (graph == null) {
+			graph = new HashMap<Component, Set<Component>>();
+			for (Component component : module.getComponents()) {
+				for (Entry entry : component.getEntries()) {
+					for (Port port : entry.getPorts()) {
+						for (Dependency dep : entry.getDependencies(port)) {
+							if (!(dep instanceof DataDependency)) {
+								continue;
+							}
+							final Component source = dep.getLogicalBus()
+									.getOwner().getOwner();
+							if ((source == component)
+									|| (source.getOwner() != module)) {
+								continue;
+							}
+							Set<Component> next = graph.get(source);
+							if (next == null) {
+								next = new HashSet<Component>();
+								graph.put(source, next);
+							}
+							next.add(component);
+						}
+					}
+				}
+			}
+			successors.put(module, graph);
+		}
+		return graph;
+	}
+
+}
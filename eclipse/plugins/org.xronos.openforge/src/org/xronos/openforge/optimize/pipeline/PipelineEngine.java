@@ -29,7 +29,6 @@ import java.util.Set;
 
 import org.xronos.openforge.app.EngineThread;
 import org.xronos.openforge.app.OptionRegistry;
-import org.xronos.openforge.app.project.OptionInt;
 import org.xronos.openforge.lim.ArrayRead;
 import org.xronos.openforge.lim.ArrayWrite;
 import org.xronos.openforge.lim.Block;
@@ -505,9 +504,9 @@ class PipelineEngine extends DataFlowVisitor implements _pipeline.Debug {
 		// Allow the target gate depth to be specified on a module by
 		// module basis
 		final int oldTargetGateDepth = targetGateDepth;
-		final int spec_level = ((OptionInt) EngineThread.getGenericJob()
-				.getOption(OptionRegistry.SCHEDULE_PIPELINE_GATE_DEPTH))
-				.getValueAsInt(module.getSearchLabel());
+		final int spec_level = EngineThread.getGenericJob()
+				.getOptionSnapshot(module.getSearchLabel())
+				.getInt(OptionRegistry.SCHEDULE_PIPELINE_GATE_DEPTH);
 		targetGateDepth = spec_level;
 		if (_d) {
 			_dbg.ln("Module " + module + " TGD set to " + targetGateDepth);
@@ -573,9 +572,9 @@ class PipelineEngine extends DataFlowVisitor implements _pipeline.Debug {
 		}
 
 		final int oldTargetGateDepth = targetGateDepth;
-		final int spec_level = ((OptionInt) EngineThread.getGenericJob()
-				.getOption(OptionRegistry.SCHEDULE_PIPELINE_GATE_DEPTH))
-				.getValueAsInt(call.getProcedure().getSearchLabel());
+		final int spec_level = EngineThread.getGenericJob()
+				.getOptionSnapshot(call.getProcedure().getSearchLabel())
+				.getInt(OptionRegistry.SCHEDULE_PIPELINE_GATE_DEPTH);
 		targetGateDepth = spec_level;
 		if (_d) {
 			_dbg.ln("For Call " + call + " the gate depth level is "
@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright 2002-2009  Xilinx Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+/*
+ * 
+ *
+ * 
+ */
+
+package org.xronos.openforge.schedule;
+
+import java.util.Arrays;
+
+import org.xronos.openforge.lim.Bus;
+import org.xronos.openforge.lim.Component;
+import org.xronos.openforge.lim.Exit;
+import org.xronos.openforge.lim.Latency;
+import org.xronos.openforge.util.DenseIndex;
+
+/**
+ * LatencyTable holds the control state recorded by a {@link LatencyTracker}:
+ * the control {@link Bus} of each {@link Exit} and of the entry of each
+ * {@link Component}, and the {@link Latency} of each control Bus. The values
+ * are kept in arrays indexed by the {@link DenseIndex} of the design. A table
+ * may be shared by the trackers of nested scopes, in which case the first
+ * tracker to modify it does so on its own copy.
+ */
+class LatencyTable {
+
+	/** Numbers the keys of the arrays */
+	private final DenseIndex index;
+
+	/** Control Bus by Exit number */
+	private Bus[] exitControlBuses;
+
+	/** Control Bus by Component number */
+	private Bus[] entryControlBuses;
+
+	/** Latency by control Bus number */
+	private Latency[] latencies;
+
+	/** True once more than one tracker refers to this table */
+	private boolean shared = false;
+
+	LatencyTable(DenseIndex index) {
+		this(index, new Bus[0], new Bus[0], new Latency[0]);
+	}
+
+	private LatencyTable(DenseIndex index, Bus[] exitControlBuses,
+			Bus[] entryControlBuses, Latency[] latencies) {
+		this.index = index;
+		this.exitControlBuses = exitControlBuses;
+		this.entryControlBuses = entryControlBuses;
+		this.latencies = latencies;
+	}
+
+	/**
+	 * Marks this table as referred to by one more tracker.
+	 * 
+	 * @return this table
+	 */
+	LatencyTable share() {
+		shared = true;
+		return this;
+	}
+
+	/**
+	 * Gets a table which may be modified by the caller: this one if it is not
+	 * shared, otherwise a copy of it.
+	 */
+	LatencyTable writable() {
+		if (!shared) {
+			return this;
+		}
+		return new LatencyTable(index, exitControlBuses.clone(),
+				entryControlBuses.clone(), latencies.clone());
+	}
+
+	Bus getControlBus(Exit exit) {
+		final int i = index.lookup(exit);
+		return i >= 0 && i < exitControlBuses.length ? exitControlBuses[i]
+				: null;
+	}
+
+	Bus getControlBus(Component component) {
+		final int i = index.lookup(component);
+		return i >= 0 && i < entryControlBuses.length ? entryControlBuses[i]
+				: null;
+	}
+
+	Latency getLatency(Bus controlBus) {
+		final int i = index.lookup(controlBus);
+		return i >= 0 && i < latencies.length ? latencies[i] : null;
+	}
+
+	void setControlBus(Exit exit, Bus controlBus) {
+		final int i = index.indexOf(exit);
+		exitControlBuses = fit(exitControlBuses, i);
+		exitControlBuses[i] = controlBus;
+	}
+
+	void setControlBus(Component component, Bus controlBus) {
+		final int i = index.indexOf(component);
+		entryControlBuses = fit(entryControlBuses, i);
+		entryControlBuses[i] = controlBus;
+	}
+
+	void setLatency(Bus controlBus, Latency latency) {
+		final int i = index.indexOf(controlBus);
+		latencies = fit(latencies, i);
+		latencies[i] = latency;
+	}
+
+	/**
+	 * Gets an array with room for the given index, growing it to the size of
+	 * the index if needed.
+	 */
+	private <T> T[] fit(T[] array, int i) {
+		if (i < array.length) {
+			return array;
+		}
+		return Arrays.copyOf(array, Math.max(i + 1, array.length * 2));
+	}
+
+}
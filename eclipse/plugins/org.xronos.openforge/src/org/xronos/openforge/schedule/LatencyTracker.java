@@ -23,11 +23,8 @@ package org.xronos.openforge.schedule;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 import org.xronos.openforge.lim.Bus;
@@ -44,6 +41,7 @@ import org.xronos.openforge.lim.primitive.And;
 import org.xronos.openforge.lim.primitive.Mux;
 import org.xronos.openforge.lim.primitive.Or;
 import org.xronos.openforge.lim.primitive.Reg;
+import org.xronos.openforge.util.DenseIndex;
 
 
 /**
@@ -62,14 +60,11 @@ public class LatencyTracker implements LatencyCache {
 	/** The cache from which to retrieve new hardware components */
 	private OpCache cache = null;
 
-	/** Map of Exit to control Bus */
-	private Map<Exit, Bus> exitControlBusMap = new HashMap<Exit, Bus>();
-
-	/** Map of Component to control Bus */
-	private Map<Component, Bus> entryControlBusMap = new HashMap<Component, Bus>();
-
-	/** Map of control Bus to Latency */
-	private Map<Bus, Latency> latencyMap = new HashMap<Bus, Latency>();
+	/**
+	 * The control Bus of each Exit and Component entry, and the Latency of
+	 * each control Bus
+	 */
+	private LatencyTable table;
 
 	/** Set of Latches created by this tracker. */
 	private Set<Latch> latches = new HashSet<Latch>();
@@ -81,18 +76,33 @@ public class LatencyTracker implements LatencyCache {
 	 * Creates a new latency tracker with an empty OpCache.
 	 */
 	public LatencyTracker() {
-		this(new OpCache());
+		this(new DenseIndex());
 	}
 
 	/**
-	 * Creates a new LatencyTracker with the same OpCache as the 'basis'
-	 * LatencyTracker.
+	 * Creates a new latency tracker with an empty OpCache, whose control
+	 * state is indexed by the given {@link DenseIndex}.
+	 * 
+	 * @param index
+	 *            the index of the design being scheduled, see
+	 *            {@link org.xronos.openforge.lim.Design#getScheduleIndex()}
+	 */
+	public LatencyTracker(DenseIndex index) {
+		this(new OpCache(), new LatencyTable(index));
+	}
+
+	/**
+	 * Creates a new LatencyTracker for a nested scope, with the same OpCache
+	 * and control state as the 'basis' LatencyTracker. The control state is
+	 * shared until either tracker modifies it.
 	 * 
 	 * @param basis
 	 *            a value of type 'LatencyTracker'
 	 */
 	public LatencyTracker(LatencyTracker basis) {
-		this(basis.getOpCache());
+		this(basis.getOpCache(), basis.table.share());
+		latches.addAll(basis.latches);
+		enableRegs.addAll(basis.enableRegs);
 	}
 
 	/**
@@ -108,14 +118,15 @@ public class LatencyTracker implements LatencyCache {
 	 * Sets the control Bus for an Exit.
 	 */
 	void setControlBus(Exit exit, Bus controlBus) {
-		exitControlBusMap.put(exit, controlBus);
+		table = table.writable();
+		table.setControlBus(exit, controlBus);
 	}
 
 	/**
 	 * Gets the control Bus for an Exit.
 	 */
 	Bus getControlBus(Exit exit) {
-		return exitControlBusMap.get(exit);
+		return table.getControlBus(exit);
 	}
 
 	/**
@@ -129,7 +140,8 @@ public class LatencyTracker implements LatencyCache {
 	 * Sets the control Bus for the entry point of a Component.
 	 */
 	void setControlBus(Component component, Bus controlBus) {
-		entryControlBusMap.put(component, controlBus);
+		table = table.writable();
+		table.setControlBus(component, controlBus);
 	}
 
 	/**
@@ -137,7 +149,7 @@ public class LatencyTracker implements LatencyCache {
 	 */
 	@Override
 	public Bus getControlBus(Component component) {
-		return entryControlBusMap.get(component);
+		return table.getControlBus(component);
 	}
 
 	/**
@@ -151,7 +163,8 @@ public class LatencyTracker implements LatencyCache {
 	void defineControlBus(Bus bus, Latency latency) {
 		assert bus != null;
 		assert latency != null;
-		latencyMap.put(bus, latency);
+		table = table.writable();
+		table.setLatency(bus, latency);
 		setControlBus(bus.getOwner(), bus);
 	}
 
@@ -169,7 +182,7 @@ public class LatencyTracker implements LatencyCache {
 	 * control Bus.
 	 */
 	Latency getLatency(Exit exit) {
-		return latencyMap.get(getControlBus(exit));
+		return table.getLatency(getControlBus(exit));
 	}
 
 	/**
@@ -178,7 +191,7 @@ public class LatencyTracker implements LatencyCache {
 	 */
 	@Override
 	public Latency getLatency(Component component) {
-		return latencyMap.get(getControlBus(component));
+		return table.getLatency(getControlBus(component));
 	}
 
 	/**
@@ -481,12 +494,6 @@ public class LatencyTracker implements LatencyCache {
 		}
 		final Exit exit = mux.getResultBus().getOwner();
 
-		final Map<Bus, Latency> latencies = new LinkedHashMap<Bus, Latency>(
-				selectBuses.size());
-		for (Bus bus : selectBuses) {
-			latencies.put(bus, getLatency(bus));
-		}
-
 		final Or or = getOr(selectBuses, module);
 		setControlBus(exit, or.getResultBus());
 		return mux;
@@ -600,8 +607,9 @@ public class LatencyTracker implements LatencyCache {
 		return (busOwner == module.getInBuf()) && !module.consumesGo();
 	}
 
-	private LatencyTracker(OpCache cache) {
+	private LatencyTracker(OpCache cache, LatencyTable table) {
 		super();
 		this.cache = cache;
+		this.table = table;
 	}
 }
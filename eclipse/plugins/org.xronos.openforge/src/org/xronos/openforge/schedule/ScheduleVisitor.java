@@ -46,6 +46,7 @@ import org.xronos.openforge.lim.Component;
 import org.xronos.openforge.lim.ControlDependency;
 import org.xronos.openforge.lim.Decision;
 import org.xronos.openforge.lim.DefaultVisitor;
+import org.xronos.openforge.lim.Design;
 import org.xronos.openforge.lim.Dependency;
 import org.xronos.openforge.lim.Entry;
 import org.xronos.openforge.lim.Exit;
@@ -86,6 +87,7 @@ import org.xronos.openforge.schedule.block.ModuleStallSource;
 import org.xronos.openforge.schedule.block.ProcessCache;
 import org.xronos.openforge.schedule.block.ProcessStartPoint;
 import org.xronos.openforge.schedule.loop.LoopFlopAnalysis;
+import org.xronos.openforge.util.DenseIndex;
 import org.xronos.openforge.util.naming.ID;
 
 
@@ -112,7 +114,7 @@ public class ScheduleVisitor extends DefaultVisitor {
 	/** True if the design has been found capable of being balanced */
 	private boolean isBalanceable = false;
 
-	private final LatencyTracker tracker = new LatencyTracker();
+	private final LatencyTracker tracker;
 
 	/**
 	 * The process cache, used to store the current
@@ -133,18 +135,22 @@ public class ScheduleVisitor extends DefaultVisitor {
 			gj.warn("Balanced Scheduling not possible: Block based scheduling infers feedback points in implementation.");
 			gj.warn("\t... Reverting to non-balanced (block based) scheduling");
 		}
+		// A design keeps its numbering until the end of Scheduler.schedule
+		final DenseIndex index = vis instanceof Design ? ((Design) vis)
+				.getScheduleIndex() : new DenseIndex();
 		final ScheduleVisitor scheduler = new ScheduleVisitor(isBalancing,
-				isForcingDone, processCache);
+				isForcingDone, processCache, index);
 		vis.accept(scheduler);
 		return scheduler;
 	}
 
 	private ScheduleVisitor(boolean isBalancing, boolean isForcingDone,
-			ProcessCache procCache) {
+			ProcessCache procCache, DenseIndex index) {
 		super();
 		this.isBalancing = isBalancing;
 		this.isForcingDone = isForcingDone;
 		processCache = procCache;
+		tracker = new LatencyTracker(index);
 	}
 
 	public LatencyCache getLatencyCache() {
@@ -69,6 +69,15 @@ public class Scheduler {
 	 * @return the same design after scheduling
 	 */
 	public static Design schedule(Design design) {
+		try {
+			return scheduleDesign(design);
+		} finally {
+			// Release the components numbered while scheduling
+			design.getScheduleIndex().clear();
+		}
+	}
+
+	private static Design scheduleDesign(Design design) {
 		// _schedule.d.launchXGraph(design, false);
 		// try{System.out.println("SLEEPING");Thread.sleep(2000);}catch(Exception
 		// e){}
@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright 2002-2009  Xilinx Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+/*
+ * 
+ *
+ * 
+ */
+
+package org.xronos.openforge.util;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.xronos.openforge.util.naming.ID;
+
+/**
+ * DenseIndex numbers {@link ID} objects from 0 up, so that the values kept for
+ * them can be stored in arrays instead of hash maps. The number is recorded in
+ * the object itself, which can hold the number of a single DenseIndex at a
+ * time. An object which is already numbered by another index is numbered
+ * through a map instead. Numbers are only reused after {@link #clear()}.
+ */
+public class DenseIndex {
+
+	/** The numbered objects, by number */
+	private ID[] keys = new ID[256];
+
+	/** The count of numbered objects */
+	private int size = 0;
+
+	/** The numbers of the objects held by another index, created on demand */
+	private Map<ID, Integer> others = null;
+
+	/**
+	 * Gets the number of an object, numbering it if it has none yet.
+	 * 
+	 * @param key
+	 *            a non-null object
+	 * @return a non-negative int, less than {@link #size()}
+	 */
+	public int indexOf(ID key) {
+		int index = lookup(key);
+		if (index < 0) {
+			index = size++;
+			if (index == keys.length) {
+				keys = Arrays.copyOf(keys, index * 2);
+			}
+			keys[index] = key;
+			final DenseIndex owner = key.getIndexOwner();
+			if (owner == null || owner == this || !owner.holds(key)) {
+				// Free, or copied along with a clone of the numbered object
+				key.setIndexNumber(this, index);
+			} else {
+				if (others == null) {
+					others = new IdentityHashMap<ID, Integer>();
+				}
+				others.put(key, index);
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Gets the number of an object without numbering it.
+	 * 
+	 * @param key
+	 *            an object, may be null
+	 * @return the number of the object, or -1 if it has none
+	 */
+	public int lookup(ID key) {
+		if (key == null) {
+			return -1;
+		}
+		if (key.getIndexOwner() == this && holds(key)) {
+			return key.getIndexNumber();
+		}
+		if (others != null) {
+			final Integer index = others.get(key);
+			if (index != null) {
+				return index;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Gets the count of numbered objects.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Forgets every numbered object. The numbers left in the objects are no
+	 * longer held by this index, so the objects are numbered again on their
+	 * next use.
+	 */
+	public void clear() {
+		keys = new ID[256];
+		size = 0;
+		others = null;
+	}
+
+	/**
+	 * Tests whether the number recorded in an object is its number in this
+	 * index.
+	 */
+	private boolean holds(ID key) {
+		final int index = key.getIndexNumber();
+		return index >= 0 && index < size && keys[index] == key;
+	}
+
+}
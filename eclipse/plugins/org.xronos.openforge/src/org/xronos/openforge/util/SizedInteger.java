@@ -32,14 +32,27 @@ import java.math.BigInteger;
  * For each operation, the size and sign range of the result is the same as that
  * of the operands. For most binary operations, the sign range and size of the
  * operands must agree. Note that instances of this class are immutable.
+ * <P>
+ * Values of at most 64 bits are held in a <code>long</code> and computed with
+ * primitive arithmetic; only wider values use a {@link BigInteger}.
  * 
  * @version $Id: SizedInteger.java 2 2005-06-09 20:00:48Z imiller $
  */
 public class SizedInteger {
 
+	/** The maximum size of a value held in {@link #word} */
+	private static final int WORD_SIZE = 64;
+
 	/**
-	 * Always positive -- basically just an array of two's-complement bits; bits
-	 * at index >= size are never set, as if they don't exist.
+	 * The two's-complement bits of a value of at most {@link #WORD_SIZE} bits;
+	 * bits at index >= size are never set, as if they don't exist.
+	 */
+	private long word;
+
+	/**
+	 * The bits of a value of more than {@link #WORD_SIZE} bits, null
+	 * otherwise. Always positive -- basically just an array of two's-complement
+	 * bits; bits at index >= size are never set, as if they don't exist.
 	 */
 	private BigInteger bits;
 
@@ -64,6 +77,9 @@ public class SizedInteger {
 	 * @return a new <code>SizedInteger</code> for the specified value
 	 */
 	public static SizedInteger valueOf(long number, int size, boolean isSigned) {
+		if (size <= WORD_SIZE) {
+			return new SizedInteger(number, size, isSigned);
+		}
 		return valueOf(BigInteger.valueOf(number), size, isSigned);
 	}
 
@@ -81,12 +97,11 @@ public class SizedInteger {
 	 */
 	public static SizedInteger valueOf(BigInteger number, int size,
 			boolean isSigned) {
-		BigInteger bits = BigInteger.ZERO;
-		for (int i = 0; i < size; i++) {
-			if (number.testBit(i)) {
-				bits = bits.setBit(i);
-			}
+		if (size <= WORD_SIZE) {
+			return new SizedInteger(number.longValue(), size, isSigned);
 		}
+		final BigInteger bits = number.and(BigInteger.ONE.shiftLeft(size)
+				.subtract(BigInteger.ONE));
 		return new SizedInteger(bits, size, isSigned);
 	}
 
@@ -102,8 +117,13 @@ public class SizedInteger {
 	 *         necessary
 	 */
 	public SizedInteger convert(int size, boolean isSigned) {
-		return ((size == getSize()) && (isSigned == isSigned()) ? this
-				: valueOf(numberValue(), size, isSigned));
+		if ((size == getSize()) && (isSigned == isSigned())) {
+			return this;
+		}
+		if (bits == null && size <= WORD_SIZE) {
+			return new SizedInteger(longValue(), size, isSigned);
+		}
+		return valueOf(numberValue(), size, isSigned);
 	}
 
 	/**
@@ -112,7 +132,7 @@ public class SizedInteger {
 	 * @return true if this value is signed and negative, false otherwise
 	 */
 	public boolean isNegative() {
-		return isSigned() && bits.testBit(size - 1);
+		return isSigned() && bit(size - 1);
 	}
 
 	/**
@@ -121,7 +141,7 @@ public class SizedInteger {
 	 * @return true if the value of this integer is 0, false otherwise
 	 */
 	public boolean isZero() {
-		return bits.equals(BigInteger.ZERO);
+		return bits == null ? word == 0 : bits.signum() == 0;
 	}
 
 	/**
@@ -154,7 +174,9 @@ public class SizedInteger {
 	public boolean equals(Object object) {
 		if (object instanceof SizedInteger) {
 			final SizedInteger s = (SizedInteger) object;
-			return s.bits.equals(bits) && (size == s.getSize())
+			return (bits == null ? s.bits == null && s.word == word : bits
+					.equals(s.bits))
+					&& (size == s.getSize())
 					&& (isSigned() == s.isSigned());
 		}
 		return false;
@@ -162,7 +184,7 @@ public class SizedInteger {
 
 	@Override
 	public int hashCode() {
-		return bits.hashCode();
+		return bits == null ? (int) (word ^ (word >>> 32)) : bits.hashCode();
 	}
 
 	/**
@@ -179,7 +201,7 @@ public class SizedInteger {
 			throw new IndexOutOfBoundsException("invalid bit: " + i);
 		}
 
-		return bits.testBit(i);
+		return bit(i);
 	}
 
 	/**
@@ -194,6 +216,9 @@ public class SizedInteger {
 	 */
 	public SizedInteger add(SizedInteger n) {
 		checkArgs(this, n);
+		if (bits == null) {
+			return new SizedInteger(word + n.word, size, isSigned);
+		}
 		final BigInteger result = numberValue().add(n.numberValue());
 		return valueOf(result, size, isSigned);
 	}
@@ -210,6 +235,9 @@ public class SizedInteger {
 	 */
 	public SizedInteger and(SizedInteger n) {
 		checkArgs(this, n);
+		if (bits == null) {
+			return new SizedInteger(word & n.word, size, isSigned);
+		}
 		final BigInteger result = bits.and(n.bits);
 		return new SizedInteger(result, size, isSigned);
 	}
@@ -231,6 +259,11 @@ public class SizedInteger {
 	 */
 	public int compareTo(SizedInteger n) {
 		checkArgs(this, n);
+		if (isLong()) {
+			final long value = longValue();
+			final long other = n.longValue();
+			return value < other ? -1 : (value == other ? 0 : 1);
+		}
 		return numberValue().compareTo(n.numberValue());
 	}
 
@@ -246,6 +279,9 @@ public class SizedInteger {
 	 */
 	public SizedInteger divide(SizedInteger n) {
 		checkArgs(this, n);
+		if (isLong()) {
+			return new SizedInteger(longValue() / n.longValue(), size, isSigned);
+		}
 		final BigInteger result = numberValue().divide(n.numberValue());
 		return valueOf(result, size, isSigned);
 	}
@@ -263,6 +299,9 @@ public class SizedInteger {
 	 */
 	public SizedInteger mod(SizedInteger n) {
 		checkArgs(this, n);
+		if (isLong()) {
+			return new SizedInteger(longValue() % n.longValue(), size, isSigned);
+		}
 		final BigInteger result = numberValue().remainder(n.numberValue());
 		return valueOf(result, size, isSigned);
 	}
@@ -279,6 +318,9 @@ public class SizedInteger {
 	 */
 	public SizedInteger multiply(SizedInteger n) {
 		checkArgs(this, n);
+		if (bits == null) {
+			return new SizedInteger(word * n.word, size, isSigned);
+		}
 		final BigInteger result = numberValue().multiply(n.numberValue());
 		return valueOf(result, size, isSigned);
 	}
@@ -289,6 +331,9 @@ public class SizedInteger {
 	 * @return the result of the negation
 	 */
 	public SizedInteger negate() {
+		if (bits == null) {
+			return new SizedInteger(-word, size, isSigned);
+		}
 		final BigInteger result = numberValue().negate();
 		return valueOf(result, size, isSigned);
 	}
@@ -299,6 +344,9 @@ public class SizedInteger {
 	 * @return the result of the complement
 	 */
 	public SizedInteger not() {
+		if (bits == null) {
+			return new SizedInteger(~word, size, isSigned);
+		}
 		final BigInteger result = numberValue().not();
 		return valueOf(result, size, isSigned);
 	}
@@ -312,6 +360,9 @@ public class SizedInteger {
 	 */
 	public SizedInteger or(SizedInteger n) {
 		checkArgs(this, n);
+		if (bits == null) {
+			return new SizedInteger(word | n.word, size, isSigned);
+		}
 		final BigInteger result = bits.or(n.bits);
 		return new SizedInteger(result, size, isSigned);
 	}
@@ -325,13 +376,13 @@ public class SizedInteger {
 	 * @return the result of the shift
 	 */
 	public SizedInteger shiftLeft(SizedInteger n) {
-		BigInteger result = bits;
-		final BigInteger magnitude = n.numberValue();
-		for (BigInteger i = BigInteger.ZERO; i.compareTo(magnitude) < 0; i = i
-				.add(BigInteger.ONE)) {
-			result = result.shiftLeft(1).clearBit(size);
+		// Every bit has been shifted out after size positions
+		final int count = n.shiftCount(size);
+		if (bits == null) {
+			return new SizedInteger(count >= WORD_SIZE ? 0 : word << count,
+					size, isSigned);
 		}
-		return valueOf(result, size, isSigned);
+		return valueOf(bits.shiftLeft(count), size, isSigned);
 	}
 
 	/**
@@ -372,6 +423,9 @@ public class SizedInteger {
 	 */
 	public SizedInteger subtract(SizedInteger n) {
 		checkArgs(this, n);
+		if (bits == null) {
+			return new SizedInteger(word - n.word, size, isSigned);
+		}
 		final BigInteger result = numberValue().subtract(n.numberValue());
 		return valueOf(result, size, isSigned);
 	}
@@ -389,6 +443,9 @@ public class SizedInteger {
 	 */
 	public SizedInteger xor(SizedInteger n) {
 		checkArgs(this, n);
+		if (bits == null) {
+			return new SizedInteger(word ^ n.word, size, isSigned);
+		}
 		final BigInteger result = bits.xor(n.bits);
 		return new SizedInteger(result, size, isSigned);
 	}
@@ -399,27 +456,31 @@ public class SizedInteger {
 	 * @return the numerical value represented by this instance
 	 */
 	public BigInteger numberValue() {
-		BigInteger result = bits;
+		if (isLong()) {
+			return BigInteger.valueOf(longValue());
+		}
 
-		if (isNegative()) {
+		BigInteger result = bits;
+		if (bits == null) {
+			// An unsigned 64 bit value, its msb is not a sign
+			result = BigInteger.valueOf(word & Long.MAX_VALUE);
+			if (word < 0) {
+				result = result.setBit(WORD_SIZE - 1);
+			}
+		} else if (isNegative()) {
 			/*
 			 * If negative, use two's-complement conversion to get the magnitude
 			 * and negate it.
 			 */
-			result = BigInteger.ZERO;
-			for (int i = 0; i < size; i++) {
-				if (!bits.testBit(i)) {
-					result = result.setBit(i);
-				}
-			}
-			result = BigInteger.ZERO.subtract(result.add(BigInteger.ONE));
+			result = bits.subtract(BigInteger.ONE.shiftLeft(size));
 		}
 
 		return result;
 	}
 
 	public String toString(int radix) {
-		return numberValue().toString(radix);
+		return isLong() ? Long.toString(longValue(), radix) : numberValue()
+				.toString(radix);
 	}
 
 	@Override
@@ -433,17 +494,74 @@ public class SizedInteger {
 		this.isSigned = isSigned;
 	}
 
+	/**
+	 * Constructs a value of at most {@link #WORD_SIZE} bits, the bits of
+	 * <code>number</code> at index >= size are dropped.
+	 */
+	private SizedInteger(long number, int size, boolean isSigned) {
+		this.word = size >= WORD_SIZE ? number : number & ((1L << size) - 1);
+		this.size = size;
+		this.isSigned = isSigned;
+	}
+
+	/**
+	 * Tests whether the numerical value of this SizedInteger is given by
+	 * {@link #longValue()}, ie whether it is held in a long and is not an
+	 * unsigned 64 bit value.
+	 */
+	private boolean isLong() {
+		return bits == null && (size < WORD_SIZE || isSigned);
+	}
+
+	/**
+	 * Gets the bits of a value held in a long, sign extended if it is
+	 * negative.
+	 */
+	private long longValue() {
+		if (size < WORD_SIZE && isNegative()) {
+			return word | (-1L << size);
+		}
+		return word;
+	}
+
+	private boolean bit(int i) {
+		return bits == null ? ((word >>> i) & 1) != 0 : bits.testBit(i);
+	}
+
+	/**
+	 * Gets this value as a number of bit positions by which to shift, 0 if it
+	 * is negative.
+	 * 
+	 * @param limit
+	 *            the returned count is clamped to this limit
+	 */
+	private int shiftCount(int limit) {
+		if (isLong()) {
+			return (int) Math.max(0, Math.min(longValue(), limit));
+		}
+		final BigInteger magnitude = numberValue();
+		if (magnitude.signum() <= 0) {
+			return 0;
+		}
+		return magnitude.compareTo(BigInteger.valueOf(limit)) < 0 ? magnitude
+				.intValue() : limit;
+	}
+
 	private SizedInteger shiftRight(SizedInteger n, boolean isSignExtended) {
-		BigInteger result = bits;
-		final BigInteger magnitude = n.numberValue();
-		for (BigInteger i = BigInteger.ZERO; i.compareTo(magnitude) < 0; i = i
-				.add(BigInteger.ONE)) {
-			final boolean isNegative = isNegative();
-			result = result.shiftRight(1);
-			if (isNegative && isSignExtended) {
-				result = result.setBit(size - 1);
+		// The bits are all copies of the sign after size positions
+		final int count = n.shiftCount(size);
+		final boolean isArithmetic = isNegative() && isSignExtended;
+		if (bits == null) {
+			final long result;
+			if (isArithmetic) {
+				result = longValue() >> Math.min(count, WORD_SIZE - 1);
+			} else {
+				result = count >= WORD_SIZE ? 0 : word >>> count;
 			}
+			return new SizedInteger(result, size, isSigned);
 		}
+		final BigInteger result = isArithmetic ? numberValue()
+				.shiftRight(count) : bits.shiftRight(count);
 		return valueOf(result, size, isSigned);
 	}
 
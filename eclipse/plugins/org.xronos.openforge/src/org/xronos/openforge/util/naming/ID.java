@@ -24,6 +24,7 @@ package org.xronos.openforge.util.naming;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
 
+import org.xronos.openforge.util.DenseIndex;
 import org.xronos.openforge.util.HF;
 
 
@@ -58,6 +59,10 @@ public class ID implements HasIDSourceInfo {
 
 	private boolean hasExplicitName = false;
 
+	/** The DenseIndex which numbered this object, and the number it gave */
+	private DenseIndex indexOwner = null;
+	private int indexNumber = -1;
+
 	/**
 	 * Copies all information except the global identifier from a source ID to a
 	 * target ID. Useful when cloning IDs.
@@ -254,6 +259,30 @@ public class ID implements HasIDSourceInfo {
 		return location.trim();
 	}
 
+	/**
+	 * Gets the {@link DenseIndex} whose number is recorded in this object.
+	 * 
+	 * @return the index, or null if none
+	 */
+	public final DenseIndex getIndexOwner() {
+		return indexOwner;
+	}
+
+	/**
+	 * Gets the number given to this object by {@link #getIndexOwner()}.
+	 */
+	public final int getIndexNumber() {
+		return indexNumber;
+	}
+
+	/**
+	 * Records the number given to this object by a {@link DenseIndex}.
+	 */
+	public final void setIndexNumber(DenseIndex owner, int number) {
+		indexOwner = owner;
+		indexNumber = number;
+	}
+
 	/**
 	 * Checks if this ID has been explicitly given a logical name using
 	 * setIDLogical().
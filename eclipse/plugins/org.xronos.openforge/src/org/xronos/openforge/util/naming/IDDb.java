@@ -25,7 +25,8 @@ import java.util.HashMap;
 import java.util.Map;
 
 /**
- * IDDb. Keeps small ids allocated.
+ * IDDb. Keeps small ids allocated. The static db of {@link ID} is shared by
+ * every job, so its methods are synchronized.
  * 
  * @author C. Schanck
  * @version $Id: IDDb.java 2 2005-06-09 20:00:48Z imiller $
@@ -40,7 +41,7 @@ public class IDDb {
 	 * 
 	 * @return allocated id
 	 */
-	public long getNextID(String type) {
+	public synchronized long getNextID(String type) {
 		Entry e = (Entry) idMap.get(type);
 		if (e == null) {
 			e = new Entry();
@@ -65,7 +66,7 @@ public class IDDb {
 		return temp.toLowerCase();
 	}
 
-	public String getTypeName(Class<?> c) {
+	public synchronized String getTypeName(Class<?> c) {
 		String s = (String) typeMap.get(c);
 		if (s == null) {
 			s = discernDefaultIdType(c);
@@ -0,0 +1,229 @@
+/*******************************************************************************
+ * Copyright 2002-2009  Xilinx Inc.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+/*
+ * 
+ *
+ * 
+ */
+
+package org.xronos.openforge.util.xml;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * CompactDocumentBuilder builds a DOM {@link Document} from a stream of XML
+ * events, either pulled from a StAX reader by {@link #read(File)} or pushed by
+ * a SAX producer (such as the last stage of a transformation pipeline) to this
+ * handler. Unlike a parser generated DOM the document is fully expanded as it
+ * is built, and it contains only elements, attributes and non whitespace
+ * text: comments, processing instructions and the whitespace between elements
+ * are dropped. The result is still a complete DOM tree.
+ */
+public class CompactDocumentBuilder extends DefaultHandler {
+
+	/** The document being built */
+	private final Document document;
+
+	/** The node to which the next element or text is appended */
+	private Node current;
+
+	/** The characters received since the last element boundary */
+	private final StringBuilder text = new StringBuilder();
+
+	public CompactDocumentBuilder() {
+		this(Util.getDefaultImplementation());
+	}
+
+	public CompactDocumentBuilder(XmlImplementation xmlImpl) {
+		document = xmlImpl.getDocumentBuilder().newDocument();
+		current = document;
+	}
+
+	/**
+	 * Returns the document built so far, complete once the end of the input
+	 * has been reached.
+	 */
+	public Document getDocument() {
+		return document;
+	}
+
+	/**
+	 * Reads an XML file into a compact document.
+	 * 
+	 * @param file
+	 *            the XML file
+	 * @return the document
+	 * @throws IOException
+	 *             if the file cannot be read or is not well formed
+	 */
+	public static Document read(File file) throws IOException {
+		InputStream is = new BufferedInputStream(new FileInputStream(file));
+		try {
+			return read(is, file.getPath());
+		} finally {
+			is.close();
+		}
+	}
+
+	/**
+	 * Reads an XML stream into a compact document, the stream is not closed.
+	 * 
+	 * @param is
+	 *            the XML stream
+	 * @param systemId
+	 *            the name of the stream, used in error messages
+	 * @return the document
+	 * @throws IOException
+	 *             if the stream cannot be read or is not well formed
+	 */
+	public static Document read(InputStream is, String systemId)
+			throws IOException {
+		final CompactDocumentBuilder builder = new CompactDocumentBuilder();
+		try {
+			final XMLStreamReader reader = inputFactory().createXMLStreamReader(
+					systemId, is);
+			try {
+				builder.build(reader);
+			} finally {
+				reader.close();
+			}
+		} catch (XMLStreamException xse) {
+			final IOException ioe = new IOException("Cannot read " + systemId
+					+ ": " + xse.getMessage());
+			ioe.initCause(xse);
+			throw ioe;
+		}
+		return builder.getDocument();
+	}
+
+	private static XMLInputFactory inputFactory() {
+		final XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+		return factory;
+	}
+
+	/**
+	 * Appends every event of the reader to the document.
+	 */
+	private void build(XMLStreamReader reader) throws XMLStreamException {
+		while (reader.hasNext()) {
+			switch (reader.next()) {
+			case XMLStreamConstants.START_ELEMENT:
+				final Element element = open(qualifiedName(reader.getPrefix(),
+						reader.getLocalName()));
+				for (int i = 0; i < reader.getNamespaceCount(); i++) {
+					final String prefix = reader.getNamespacePrefix(i);
+					element.setAttribute(prefix == null
+							|| prefix.length() == 0 ? "xmlns" : "xmlns:"
+							+ prefix, reader.getNamespaceURI(i));
+				}
+				for (int i = 0; i < reader.getAttributeCount(); i++) {
+					element.setAttribute(
+							qualifiedName(reader.getAttributePrefix(i),
+									reader.getAttributeLocalName(i)),
+							reader.getAttributeValue(i));
+				}
+				break;
+			case XMLStreamConstants.END_ELEMENT:
+				close();
+				break;
+			case XMLStreamConstants.CHARACTERS:
+			case XMLStreamConstants.CDATA:
+				text.append(reader.getTextCharacters(), reader.getTextStart(),
+						reader.getTextLength());
+				break;
+			default:
+				// Comments, processing instructions and ignorable
+				// whitespace are not kept
+				break;
+			}
+		}
+	}
+
+	private static String qualifiedName(String prefix, String localName) {
+		return (prefix == null || prefix.length() == 0) ? localName : prefix
+				+ ":" + localName;
+	}
+
+	@Override
+	public void startElement(String uri, String localName, String qName,
+			Attributes attributes) {
+		final Element element = open(qName.length() > 0 ? qName : localName);
+		for (int i = 0; i < attributes.getLength(); i++) {
+			final String name = attributes.getQName(i);
+			element.setAttribute(
+					name.length() > 0 ? name : attributes.getLocalName(i),
+					attributes.getValue(i));
+		}
+	}
+
+	@Override
+	public void endElement(String uri, String localName, String qName) {
+		close();
+	}
+
+	@Override
+	public void characters(char[] ch, int start, int length) {
+		text.append(ch, start, length);
+	}
+
+	private Element open(String name) {
+		flushText();
+		final Element element = document.createElement(name);
+		current.appendChild(element);
+		current = element;
+		return element;
+	}
+
+	private void close() {
+		flushText();
+		current = current.getParentNode();
+	}
+
+	/**
+	 * Appends the pending characters as a text node, unless they are only the
+	 * whitespace between two elements.
+	 */
+	private void flushText() {
+		if (text.length() == 0 || current == document) {
+			text.setLength(0);
+			return;
+		}
+		for (int i = 0; i < text.length(); i++) {
+			if (!Character.isWhitespace(text.charAt(i))) {
+				current.appendChild(document.createTextNode(text.toString()));
+				break;
+			}
+		}
+		text.setLength(0);
+	}
+
+}
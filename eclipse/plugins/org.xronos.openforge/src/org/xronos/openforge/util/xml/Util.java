@@ -46,13 +46,17 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.xml.XMLConstants;
 import javax.xml.namespace.QName;
 import javax.xml.transform.ErrorListener;
 import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Result;
 import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
@@ -169,32 +173,123 @@ public class Util {
 
 	public static Transformer[] getTransformersAsResources(String[] resNames,
 			XmlImplementation xmlImpl, StreamLocator resourceLocator) {
+		Templates[] templates = getTemplatesAsResources(resNames, xmlImpl,
+				resourceLocator);
 		Transformer[] xforms = new Transformer[resNames.length];
 
 		for (int i = 0; i < resNames.length; i++) {
-			InputStream is = resourceLocator.getAsStream(resNames[i]);
 			try {
-				// IDM. The transformer should use the same resource Locator as
-				// the
-				// loaded resources on the assumption that the resources and the
-				// things
-				// they reference are co-located.
-				xforms[i] = createTransformer(is, xmlImpl, resourceLocator);
-			} catch (Throwable e) {
+				xforms[i] = newTransformer(templates[i], resourceLocator);
+			} catch (TransformerConfigurationException e) {
 				throw new RuntimeException(
 						"Cannot create transform from resource " + resNames[i],
 						e);
-			} finally {
+			}
+		}
+		return xforms;
+	}
+
+	/**
+	 * Returns the compiled stylesheets of the given resources. Each stylesheet
+	 * is compiled once per {@link XmlImplementation} and then shared by every
+	 * caller in this JVM, since compiled {@link Templates} are thread safe.
+	 * 
+	 * @param resNames
+	 *            the resource names of the stylesheets
+	 * @param xmlImpl
+	 *            the implementation compiling the stylesheets
+	 * @param resourceLocator
+	 *            locates the stylesheets and the resources they reference
+	 * @return the compiled stylesheets, in the order of resNames
+	 */
+	public static Templates[] getTemplatesAsResources(String[] resNames,
+			XmlImplementation xmlImpl, StreamLocator resourceLocator) {
+		Templates[] templates = new Templates[resNames.length];
+
+		synchronized (templatesCache) {
+			Map<String, Templates> compiled = templatesCache.get(xmlImpl);
+			if (compiled == null) {
+				compiled = new HashMap<String, Templates>();
+				templatesCache.put(xmlImpl, compiled);
+			}
+
+			for (int i = 0; i < resNames.length; i++) {
+				templates[i] = compiled.get(resNames[i]);
+				if (templates[i] != null) {
+					continue;
+				}
+
+				InputStream is = resourceLocator.getAsStream(resNames[i]);
 				try {
-					if (is != null)
-						is.close();
-				} catch (IOException ioe) {
+					// IDM. The transformer should use the same resource
+					// Locator as the loaded resources on the assumption that
+					// the resources and the things they reference are
+					// co-located.
+					TransformerFactory xff = createTransformerFactory(xmlImpl,
+							resourceLocator);
+					templates[i] = xff.newTemplates(new StreamSource(is));
+				} catch (Throwable e) {
+					throw new RuntimeException(
+							"Cannot create transform from resource "
+									+ resNames[i], e);
+				} finally {
+					try {
+						if (is != null)
+							is.close();
+					} catch (IOException ioe) {
+					}
 				}
+				compiled.put(resNames[i], templates[i]);
 			}
 		}
-		return xforms;
+		return templates;
+	}
+
+	private static Transformer newTransformer(Templates templates,
+			StreamLocator resourceLocator)
+			throws TransformerConfigurationException {
+		Transformer xf = templates.newTransformer();
+		xf.setURIResolver(new StreamLocatorURIResolver(resourceLocator, xf
+				.getURIResolver()));
+		return xf;
 	}
 
+	/**
+	 * Applies compiled stylesheets to a source one stage at a time, and sends
+	 * the document produced by the last stage to the given result. The
+	 * document of each intermediate stage is built as a DOM tree which is
+	 * dropped once the next stage has read it, so that a single intermediate
+	 * tree is reachable at any time.
+	 * 
+	 * @param source
+	 *            the input document
+	 * @param templates
+	 *            the stylesheets, applied in order
+	 * @param xmlImpl
+	 *            the implementation which compiled the stylesheets
+	 * @param resourceLocator
+	 *            locates the resources referenced by the stylesheets
+	 * @param result
+	 *            receives the transformed document
+	 */
+	public static void applyTransforms(Source source, Templates[] templates,
+			XmlImplementation xmlImpl, StreamLocator resourceLocator,
+			Result result) throws Exception {
+		Source src = source;
+		for (int i = 0; i < templates.length - 1; i++) {
+			src = new DOMSource(applyTransform(
+					newTransformer(templates[i], resourceLocator), src,
+					new DOMResult()));
+		}
+		Transformer last = (templates.length == 0) ? xmlImpl
+				.getTransformerFactory().newTransformer() : newTransformer(
+				templates[templates.length - 1], resourceLocator);
+		applyTransform(last, src, result);
+	}
+
+	/** The compiled stylesheets, by implementation and resource name */
+	private static final Map<XmlImplementation, Map<String, Templates>> templatesCache = new HashMap<XmlImplementation, Map<String, Templates>>();
+
 	public static Node applyTransforms(Node document, Transformer[] xfs)
 			throws Exception {
 		Node doc = document;
@@ -295,8 +390,8 @@ public class Util {
 		return applyTransform(xf, new DOMSource(document), new DOMResult());
 	}
 
-	private static Node applyTransform(Transformer xf, DOMSource source,
-			DOMResult res) {
+	private static Node applyTransform(Transformer xf, Source source,
+			Result res) {
 		ErrorListener oldListener = xf.getErrorListener();
 
 		// Catch and report errors during transformation here.
@@ -325,7 +420,7 @@ public class Util {
 		}
 		xf.setErrorListener(oldListener);
 
-		return res.getNode();
+		return (res instanceof DOMResult) ? ((DOMResult) res).getNode() : null;
 	}
 
 	public static Node applyTransformsAsResources(Node document,
@@ -21,8 +21,10 @@
 
 package org.xronos.openforge.verilog.model;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.List;
 
 /**
  * 
@@ -39,7 +41,7 @@ import java.util.LinkedList;
 
 public class Lexicality {
 
-	LinkedList<VerilogElement> tokens = new LinkedList<VerilogElement>();
+	List<VerilogElement> tokens = new ArrayList<VerilogElement>();
 
 	public Lexicality() {
 	} // Lexicality
@@ -51,7 +53,7 @@ public class Lexicality {
 	}
 
 	public void prepend(VerilogElement t) {
-		tokens.addFirst(t);
+		tokens.add(0, t);
 	}
 
 	public void append(VerilogElement e) {
@@ -76,7 +78,7 @@ public class Lexicality {
 	 * Retrieves the last token.
 	 */
 	public Token getLast() {
-		return (Token) tokens.getLast();
+		return (Token) tokens.get(tokens.size() - 1);
 	}
 
 	/**
@@ -90,75 +92,37 @@ public class Lexicality {
 	 */
 	@Override
 	public String toString() {
-		StringBuffer text = new StringBuffer();
-
-		// int prev_type = Token.TYPE;
-
-		for (Iterator<Object> it = iterator(); it.hasNext();) {
-			Token t = (Token) it.next();
-			// int current_type = t.getType();
-
-			// switch (current_type)
-			// {
-			// case Token.TYPE:
-			// break;
-			// case Identifier.TYPE:
-			// if (prev_type != Control.TYPE)
-			// {
-			// text.append(" ");
-			// }
-			// break;
-			// case Constant.TYPE:
-			// break;
-			// case Keyword.TYPE:
-			// if ((prev_type == Keyword.TYPE) ||
-			// (prev_type == Identifier.TYPE) ||
-			// (prev_type == Constant.TYPE)
-			// )
-			// {
-			// text.append(" ");
-			// }
-			// break;
-			// case Symbol.TYPE:
-			// if (prev_type == Keyword.TYPE)
-			// {
-			// text.append(" ");
-			// }
-			// break;
-			// case Control.TYPE:
-			// break;
-			// default:
-			// }
-
-			text.append(t.toString());
-
-			// prev_type = current_type;
-
-			// switch (current_type)
-			// {
-			// case Token.TYPE:
-			// break;
-			// case Identifier.TYPE:
-			// break;
-			// case Constant.TYPE:
-			// break;
-			// case Keyword.TYPE:
-			// text.append(" ");
-			// prev_type = Control.TYPE;
-			// break;
-			// case Symbol.TYPE:
-			// break;
-			// case Control.TYPE:
-			// break;
-			// default:
-			// }
-
-		} // for(tokens)
-
+		StringBuilder text = new StringBuilder();
+		try {
+			write(text);
+		} catch (IOException ioe) {
+			// A StringBuilder never throws
+			throw new IllegalStateException(ioe);
+		}
 		return text.toString();
-
 	} // toString()
 
+	/**
+	 * Writes the text of each Token, as {@link #toString()} does, straight to
+	 * an output without building the text of the whole Lexicality first. The
+	 * nested elements are expanded one at a time, so only the tokens of the
+	 * element being written are held in memory.
+	 * 
+	 * @param out
+	 *            the output, not closed nor flushed
+	 * @throws IOException
+	 *             if the output cannot be written
+	 */
+	public void write(Appendable out) throws IOException {
+		for (VerilogElement element : tokens) {
+			if (element instanceof Token) {
+				out.append(element.toString());
+			} else {
+				element.lexicalify().write(out);
+			}
+		}
+	} // write()
+
 	public class LexicalIterator implements Iterator<Object> {
 		int index = 0;
 		Iterator<Object> sub_it = null;
@@ -20,6 +20,7 @@
  */
 package org.xronos.openforge.verilog.model;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -273,8 +274,26 @@ public class Module implements VerilogElement {
 
 	@Override
 	public String toString() {
-		StringBuffer reply = new StringBuffer();
+		StringBuilder reply = new StringBuilder();
+		try {
+			write(reply);
+		} catch (IOException ioe) {
+			// A StringBuilder never throws
+			throw new IllegalStateException(ioe);
+		}
+		return reply.toString();
+	} // toString()
 
+	/**
+	 * Writes the same text as {@link #toString()} to an output, one
+	 * declaration or statement at a time.
+	 * 
+	 * @param reply
+	 *            the output, not closed nor flushed
+	 * @throws IOException
+	 *             if the output cannot be written
+	 */
+	public void write(Appendable reply) throws IOException {
 		reply.append(module_declaration.toString() + "\n");
 
 		// append declarations
@@ -303,10 +322,8 @@ public class Module implements VerilogElement {
 		if (statements.size() > 0)
 			reply.append(Control.NEWLINE.toString());
 
-		reply.append(Keyword.ENDMODULE);
+		reply.append(Keyword.ENDMODULE.toString());
 		reply.append(Control.NEWLINE.toString());
-
-		return reply.toString();
-	} // toString()
+	} // write()
 
 } // end of class Module
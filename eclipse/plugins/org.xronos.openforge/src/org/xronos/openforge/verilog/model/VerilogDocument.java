@@ -20,6 +20,7 @@
  */
 package org.xronos.openforge.verilog.model;
 
+import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.io.Writer;
@@ -63,6 +64,14 @@ public class VerilogDocument {
 		elements.add(d);
 	}
 
+	/**
+	 * Appends every element of another document to the end of this document.
+	 * The elements are shared, not copied.
+	 */
+	public void append(VerilogDocument document) {
+		elements.addAll(document.elements);
+	}
+
 	public Collection<Object> elements() {
 		return elements;
 	}
@@ -71,37 +80,38 @@ public class VerilogDocument {
 	 * Writes the document out to a stream. The stream supplied as input is not
 	 * closed in case the caller wants to add additional information.
 	 * <P>
-	 * <strong>Warning</Strong><BR>
-	 * Currently, this routine relies on the poorly formatted and inefficient
-	 * toString() to generate and then print the text of the elements to the
-	 * outputstream. A better mechanism would iterate over the tokens provided
-	 * by each Lexicality, applying formatting rules along the way.
+	 * The text is the toString() of each element, but modules are streamed one
+	 * statement at a time rather than built as a single String. Formatted
+	 * output is produced by the PrettyPrinter instead.
 	 */
 	public void write(OutputStream os) {
-		PrintWriter printer = new PrintWriter(os);
-
-		for (Object object : elements) {
-			printer.print(object.toString());
-		}
-
-		printer.flush();
+		write(new PrintWriter(os));
 	} // write()
 
 	/**
 	 * Writes the document out to a Writer. The Writer supplied as input is not
 	 * closed in case the caller wants to add additional information.
 	 * <P>
-	 * <strong>Warning</Strong><BR>
-	 * Currently, this routine relies on the poorly formatted and inefficient
-	 * toString() to generate and then print the text of the elements to the
-	 * outputstream. A better mechanism would iterate over the tokens provided
-	 * by each Lexicality, applying formatting rules along the way.
+	 * The text is the toString() of each element, but modules are streamed one
+	 * statement at a time rather than built as a single String. Formatted
+	 * output is produced by the PrettyPrinter instead.
 	 */
 	public void write(Writer out) {
-		PrintWriter printer = new PrintWriter(out);
+		write(new PrintWriter(out));
+	} // write()
 
+	private void write(PrintWriter printer) {
 		for (Object object : elements) {
-			printer.print(object.toString());
+			if (object instanceof Module) {
+				try {
+					((Module) object).write(printer);
+				} catch (IOException ioe) {
+					// A PrintWriter never throws, it records the error
+					throw new IllegalStateException(ioe);
+				}
+			} else {
+				printer.print(object.toString());
+			}
 		}
 
 		printer.flush();
@@ -35,6 +35,7 @@ import org.xronos.openforge.lim.Pin;
 import org.xronos.openforge.lim.Port;
 import org.xronos.openforge.lim.Procedure;
 import org.xronos.openforge.lim.Visitable;
+import org.xronos.openforge.lim.io.SimpleInternalPin;
 import org.xronos.openforge.lim.io.SimplePin;
 import org.xronos.openforge.util.naming.ID;
 import org.xronos.openforge.verilog.mapping.MappedModule;
@@ -123,7 +124,8 @@ public class DesignModule extends org.xronos.openforge.verilog.model.Module
 	 * anything). For output ports connect the design port to the bus that
 	 * drives it. Input ports are taken care of by name (ie the name of the
 	 * source bus of the pin matches the name of the port and so no explicit
-	 * assign is needed)
+	 * assign is needed). Observed internal pins additionally get an output port
+	 * named after their net.
 	 */
 	private void defineSimplePins(Design des) {
 		// for (Iterator iter = des.getSimplePins().iterator(); iter.hasNext();)
@@ -147,6 +149,13 @@ public class DesignModule extends org.xronos.openforge.verilog.model.Module
 							&& pin.getXLatData().getSink() != null) {
 						Net output = NetFactory.makeNet(pin.getXLatData()
 								.getSource());
+						if (pin instanceof SimpleInternalPin
+								&& ((SimpleInternalPin) pin).isObserved()) {
+							// Declaring the net as a port lets the assign
+							// below drive the output as well
+							addPort(new Output(output.getIdentifier(), output
+									.getWidth()));
+						}
 						PortWire input = new PortWire(pin.getXLatData()
 								.getSink());
 						state(new ForgeStatement(Collections.singleton(output),
@@ -213,6 +213,12 @@ public class VerilogTranslator extends DefaultVisitor implements Visitor {
 
 	private final ArrayList<String> userSimIncludes = new ArrayList<String>();
 
+	/** The shared body of the _sim include file, built on first use */
+	private VerilogDocument simIncludeBody = null;
+
+	/** The shared body of the _synth include files, built on first use */
+	private VerilogDocument synthIncludeBody = null;
+
 	private Design design;
 
 	/**
@@ -954,6 +960,32 @@ public class VerilogTranslator extends DefaultVisitor implements Visitor {
 			// includeDoc.append(new IncludeStatement(vFile.getPath()));
 			includeDoc.append(hdlFile);
 		}
+		includeDoc.append(getIncludeBody(sim));
+
+		try {
+			PrintWriter pwSim = new PrintWriter(os);
+			(new PrettyPrinter(pwSim)).print(includeDoc);
+			pwSim.close();
+		} catch (Exception e) {
+			EngineThread.getEngine().fatalError(e.getMessage());
+		}
+	}
+
+	/**
+	 * Returns the primitive include statements which follow the optional
+	 * inclusion of the generated file. They are built once for the
+	 * simulation and once for the synthesis and shared by every include
+	 * file written afterwards.
+	 */
+	private VerilogDocument getIncludeBody(boolean sim) {
+		if (sim && simIncludeBody != null) {
+			return simIncludeBody;
+		}
+		if (!sim && synthIncludeBody != null) {
+			return synthIncludeBody;
+		}
+
+		VerilogDocument includeDoc = new VerilogDocument();
 		includeDoc.append(new Comment(Comment.BLANK));
 
 		Map<String, ArrayList<MappedModule>> incls = getIncludes(sim);
@@ -992,13 +1024,12 @@ public class VerilogTranslator extends DefaultVisitor implements Visitor {
 			includeDoc.append(new Comment(Comment.BLANK));
 		}
 
-		try {
-			PrintWriter pwSim = new PrintWriter(os);
-			(new PrettyPrinter(pwSim)).print(includeDoc);
-			pwSim.close();
-		} catch (Exception e) {
-			EngineThread.getEngine().fatalError(e.getMessage());
+		if (sim) {
+			simIncludeBody = includeDoc;
+		} else {
+			synthIncludeBody = includeDoc;
 		}
+		return includeDoc;
 	}
 
 	private Map<String, ArrayList<MappedModule>> getIncludes(boolean sim) {
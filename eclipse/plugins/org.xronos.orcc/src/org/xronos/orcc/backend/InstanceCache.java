@@ -0,0 +1,358 @@
+/* 
+ * XRONOS-EXELIXI
+ * 
+ * Copyright (C) 2011-2016 EPFL SCI STI MM
+ *
+ * This file is part of XRONOS-EXELIXI.
+ *
+ * XRONOS-EXELIXI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * XRONOS-EXELIXI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with XRONOS-EXELIXI. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Additional permission under GNU GPL version 3 section 7
+ * 
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with Eclipse (or a modified version of Eclipse or an Eclipse plugin or 
+ * an Eclipse library), containing parts covered by the terms of the 
+ * Eclipse Public License (EPL), the licensors of this Program grant you 
+ * additional permission to convey the resulting work.  Corresponding Source 
+ * for a non-source form of such a combination shall include the source code 
+ * for the parts of Eclipse libraries used as well as that of the covered work.
+ * 
+ */
+
+package org.xronos.orcc.backend;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import net.sf.orcc.df.Actor;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.xmi.XMLResource;
+import org.eclipse.emf.ecore.xmi.impl.XMIResourceImpl;
+import org.xronos.openforge.app.Version;
+import org.xronos.orcc.Activator;
+
+/**
+ * A persistent cache of the generated artifacts of each actor instance. An
+ * entry is keyed by a hash of the actor IR, of the Forge flags, of the
+ * options which change the generated code and of the Xronos version, so that
+ * an instance is only recompiled when one of them changed. An entry lists the
+ * artifacts it stores, and it is only restored when all of them are present.
+ * 
+ */
+public class InstanceCache {
+
+	/** The name of the cache folder, placed in the output folder **/
+	public static final String CACHE_FOLDER = ".xronos-cache";
+
+	/** The name of the file holding the key of an entry **/
+	private static final String KEY_FILE = "key";
+
+	/** The name of the file listing the artifacts of an entry **/
+	private static final String ARTIFACTS_FILE = "artifacts";
+
+	/** The cache folder **/
+	private File cacheDir;
+
+	/** The output folder, the artifacts are stored relative to it **/
+	private File outputDir;
+
+	/** The artifacts folders relative to the output folder **/
+	private String rtlDir;
+	private String testBenchDir;
+	private String tbVhdDir;
+
+	/** The options taking part in the key **/
+	private Map<String, Object> keyOptions;
+
+	public InstanceCache(String outputPath, String rtlPath,
+			String testBenchPath, String tbVhdPath) {
+		outputDir = new File(outputPath);
+		cacheDir = new File(outputDir, CACHE_FOLDER);
+		rtlDir = relative(rtlPath);
+		testBenchDir = relative(testBenchPath);
+		tbVhdDir = relative(tbVhdPath);
+		keyOptions = new HashMap<String, Object>();
+	}
+
+	/**
+	 * Add an option that takes part in the key of every entry
+	 * 
+	 * @param name
+	 *            the option name
+	 * @param value
+	 *            the option value
+	 */
+	public void addKeyOption(String name, Object value) {
+		keyOptions.put(name, value);
+	}
+
+	/**
+	 * Compute the key of an actor instance. This should be called on the
+	 * actor IR as given to the compilation, before it is transformed.
+	 * 
+	 * @param actor
+	 *            the actor
+	 * @param flags
+	 *            the Forge flags used to compile the actor
+	 * @return the key, or null if the key could not be computed
+	 */
+	public String computeKey(Actor actor, String[] flags) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-1");
+			digest.update(serialize(actor));
+			for (String flag : flags) {
+				digest.update(flag.getBytes("UTF-8"));
+				digest.update((byte) 0);
+			}
+			for (String name : new TreeSet<String>(
+					keyOptions.keySet())) {
+				digest.update((name + "=" + keyOptions.get(name))
+						.getBytes("UTF-8"));
+				digest.update((byte) 0);
+			}
+			digest.update(getVersion().getBytes("UTF-8"));
+
+			StringBuilder key = new StringBuilder();
+			for (byte b : digest.digest()) {
+				key.append(String.format("%02x", b & 0xff));
+			}
+			return key.toString();
+		} catch (NoSuchAlgorithmException e) {
+			InstanceLog.warnln("Instance cache disabled: " + e.getMessage());
+		} catch (IOException e) {
+			InstanceLog.warnln("Instance cache: could not hash "
+					+ actor.getSimpleName() + ", " + e.getMessage());
+		}
+		return null;
+	}
+
+	/**
+	 * Restore the artifacts of an actor if its entry matches the given key
+	 * 
+	 * @param actor
+	 *            the actor
+	 * @param key
+	 *            the key of the actor
+	 * @return true if the artifacts have been restored
+	 */
+	public boolean restore(Actor actor, String key) {
+		if (key == null) {
+			return false;
+		}
+		File entryDir = new File(cacheDir, actor.getSimpleName());
+		if (!key.equals(read(new File(entryDir, KEY_FILE)))) {
+			return false;
+		}
+		String list = read(new File(entryDir, ARTIFACTS_FILE));
+		if (list == null) {
+			return false;
+		}
+
+		List<String> artifacts = new ArrayList<String>();
+		for (String artifact : list.split("\n")) {
+			if (!artifact.isEmpty()) {
+				artifacts.add(artifact);
+			}
+		}
+		if (artifacts.isEmpty()) {
+			return false;
+		}
+		// Restore nothing unless the entry is complete
+		for (String artifact : artifacts) {
+			if (!new File(entryDir, artifact).isFile()) {
+				return false;
+			}
+		}
+
+		try {
+			for (String artifact : artifacts) {
+				copy(new File(entryDir, artifact), new File(outputDir,
+						artifact));
+			}
+			return true;
+		} catch (IOException e) {
+			InstanceLog.warnln("Instance cache: could not restore "
+					+ actor.getSimpleName() + ", " + e.getMessage());
+			return false;
+		}
+	}
+
+	/**
+	 * Store the artifacts of a compiled actor with the given key
+	 * 
+	 * @param actor
+	 *            the actor
+	 * @param key
+	 *            the key of the actor
+	 */
+	public void store(Actor actor, String key) {
+		if (key == null) {
+			return;
+		}
+		File entryDir = new File(cacheDir, actor.getSimpleName());
+		try {
+			// Invalidate the entry before replacing its artifacts
+			new File(entryDir, KEY_FILE).delete();
+			new File(entryDir, ARTIFACTS_FILE).delete();
+			StringBuilder stored = new StringBuilder();
+			for (String artifact : getArtifacts(actor.getSimpleName())) {
+				File generated = new File(outputDir, artifact);
+				File cached = new File(entryDir, artifact);
+				if (generated.isFile()) {
+					copy(generated, cached);
+					stored.append(artifact).append('\n');
+				} else {
+					cached.delete();
+				}
+			}
+			write(new File(entryDir, ARTIFACTS_FILE), stored.toString());
+			write(new File(entryDir, KEY_FILE), key);
+		} catch (IOException e) {
+			InstanceLog.warnln("Instance cache: could not store "
+					+ actor.getSimpleName() + ", " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Get the artifacts which may be generated for an actor, relative to the
+	 * output folder. Which of them are generated depends on the Forge flags.
+	 * 
+	 * @param name
+	 *            the actor simple name
+	 * @return the list of artifacts
+	 */
+	private List<String> getArtifacts(String name) {
+		List<String> artifacts = new ArrayList<String>();
+		// Verilog and its include files
+		artifacts.add(rtlDir + name + ".v");
+		artifacts.add(rtlDir + name + "_sim.v");
+		artifacts.add(rtlDir + name + "_synth.v");
+		artifacts.add(rtlDir + name + "_synincl.v");
+		// Reports
+		String reportDir = rtlDir + "report" + File.separator;
+		artifacts.add(reportDir + name + ".xml");
+		artifacts.add(reportDir + name + "_resource.rpt");
+		artifacts.add(reportDir + name + "_throughput.rpt");
+		artifacts.add(reportDir + name + "_ResourceUtilizationReport.html");
+		artifacts.add(reportDir + name + "_passes.csv");
+		// Testbenches
+		artifacts.add(testBenchDir + "tcl_" + name + ".tcl");
+		artifacts.add(tbVhdDir + name + "_tb.vhd");
+		return artifacts;
+	}
+
+	private String getVersion() {
+		String version = Version.versionNumber();
+		Activator activator = Activator.getDefault();
+		if (activator != null) {
+			version += "/" + activator.getBundle().getVersion();
+		}
+		return version;
+	}
+
+	private String read(File file) {
+		if (!file.exists()) {
+			return null;
+		}
+		try {
+			InputStream in = new FileInputStream(file);
+			try {
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				transfer(in, out);
+				return out.toString("UTF-8");
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	private void write(File file, String content) throws IOException {
+		file.getParentFile().mkdirs();
+		OutputStream out = new FileOutputStream(file);
+		try {
+			out.write(content.getBytes("UTF-8"));
+		} finally {
+			out.close();
+		}
+	}
+
+	private String relative(String path) {
+		String base = outputDir.getAbsolutePath();
+		String absolute = new File(path).getAbsolutePath();
+		if (absolute.startsWith(base)) {
+			absolute = absolute.substring(base.length());
+		}
+		if (absolute.startsWith(File.separator)) {
+			absolute = absolute.substring(1);
+		}
+		return absolute.isEmpty() ? "" : absolute + File.separator;
+	}
+
+	/**
+	 * Serialize a copy of the actor, so that the hash only depends on the
+	 * content of its IR
+	 */
+	private byte[] serialize(Actor actor) throws IOException {
+		Resource resource = new XMIResourceImpl(URI.createURI("cache.xmi"));
+		resource.getContents().add(EcoreUtil.copy(actor));
+		Map<Object, Object> options = new HashMap<Object, Object>();
+		options.put(XMLResource.OPTION_PROCESS_DANGLING_HREF,
+				XMLResource.OPTION_PROCESS_DANGLING_HREF_RECORD);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		resource.save(out, options);
+		return out.toByteArray();
+	}
+
+	private static void copy(File from, File to) throws IOException {
+		to.getParentFile().mkdirs();
+		InputStream in = new FileInputStream(from);
+		try {
+			OutputStream out = new FileOutputStream(to);
+			try {
+				transfer(in, out);
+			} finally {
+				out.close();
+			}
+		} finally {
+			in.close();
+		}
+	}
+
+	private static void transfer(InputStream in, OutputStream out)
+			throws IOException {
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = in.read(buffer)) != -1) {
+			out.write(buffer, 0, read);
+		}
+	}
+
+}
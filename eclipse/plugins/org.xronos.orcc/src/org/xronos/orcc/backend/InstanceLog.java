@@ -0,0 +1,137 @@
+/* 
+ * XRONOS-EXELIXI
+ * 
+ * Copyright (C) 2011-2016 EPFL SCI STI MM
+ *
+ * This file is part of XRONOS-EXELIXI.
+ *
+ * XRONOS-EXELIXI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * XRONOS-EXELIXI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with XRONOS-EXELIXI. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Additional permission under GNU GPL version 3 section 7
+ * 
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with Eclipse (or a modified version of Eclipse or an Eclipse plugin or 
+ * an Eclipse library), containing parts covered by the terms of the 
+ * Eclipse Public License (EPL), the licensors of this Program grant you 
+ * additional permission to convey the resulting work.  Corresponding Source 
+ * for a non-source form of such a combination shall include the source code 
+ * for the parts of Eclipse libraries used as well as that of the covered work.
+ * 
+ */
+
+package org.xronos.orcc.backend;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.sf.orcc.util.OrccLogger;
+
+/**
+ * A per thread log used while compiling an actor instance. When an instance is
+ * compiled by a worker of the instance pool its messages are kept in a buffer
+ * and printed at once when the compilation ends, so that the output of each
+ * actor stays grouped. On a thread without a buffer the messages are passed
+ * directly to the {@link OrccLogger}.
+ * 
+ */
+public class InstanceLog {
+
+	private enum Level {
+		TRACE, WARN, SEVERE
+	}
+
+	private static class Message {
+		Level level;
+		String text;
+
+		Message(Level level, String text) {
+			this.level = level;
+			this.text = text;
+		}
+	}
+
+	private static final ThreadLocal<List<Message>> buffer = new ThreadLocal<List<Message>>();
+
+	/** Lock used to print a buffer without interleaving **/
+	private static final Object flushLock = new Object();
+
+	/**
+	 * Start buffering the messages of the current thread
+	 */
+	public static void begin() {
+		buffer.set(new ArrayList<Message>());
+	}
+
+	/**
+	 * Tell if the messages of the current thread are buffered, which is the
+	 * case while instances are compiled in parallel
+	 */
+	public static boolean isBuffering() {
+		return buffer.get() != null;
+	}
+
+	/**
+	 * Print all the buffered messages of the current thread and stop
+	 * buffering
+	 */
+	public static void end() {
+		List<Message> messages = buffer.get();
+		buffer.remove();
+		if (messages == null) {
+			return;
+		}
+		synchronized (flushLock) {
+			for (Message message : messages) {
+				print(message.level, message.text);
+			}
+		}
+	}
+
+	public static void severeln(String text) {
+		log(Level.SEVERE, text);
+	}
+
+	public static void traceln(String text) {
+		log(Level.TRACE, text);
+	}
+
+	public static void warnln(String text) {
+		log(Level.WARN, text);
+	}
+
+	private static void log(Level level, String text) {
+		List<Message> messages = buffer.get();
+		if (messages != null) {
+			messages.add(new Message(level, text));
+		} else {
+			print(level, text);
+		}
+	}
+
+	private static void print(Level level, String text) {
+		switch (level) {
+		case SEVERE:
+			OrccLogger.severeln(text);
+			break;
+		case WARN:
+			OrccLogger.warnln(text);
+			break;
+		default:
+			OrccLogger.traceln(text);
+		}
+	}
+
+	private InstanceLog() {
+	}
+}
@@ -141,7 +141,7 @@ class TclScriptPrinter {
 			«IF vertex instanceof Network»
 				«FOR netVertex : network.vertices»
 					«IF netVertex instanceof Actor»
-						vlog -work «workName» «rtlPath»/«(netVertex as Actor).simpleName».v
+						vlog -work «workName» $Rtl/«(netVertex as Actor).simpleName».v
 						«IF doubleBuffering»
 							«IF (netVertex as Actor).outputs.size > 0»
 								vlog -work «workName» $Rtl/«(netVertex as Actor).simpleName»_clock_controller.v
@@ -150,7 +150,7 @@ class TclScriptPrinter {
 					«ENDIF» 
 				«ENDFOR»
 			«ELSEIF vertex instanceof Actor»
-				vlog -work «workName» «rtlPath»/«(vertex as Actor).simpleName».v
+				vlog -work «workName» $Rtl/«(vertex as Actor).simpleName».v
 			«ENDIF»
 			
 			«IF vertex instanceof Network»
@@ -40,6 +40,11 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import net.sf.orcc.backends.AbstractBackend;
 import net.sf.orcc.backends.util.Validator;
@@ -51,6 +56,7 @@ import net.sf.orcc.df.transform.TypeResizer;
 import net.sf.orcc.df.transform.UnitImporter;
 import net.sf.orcc.df.util.NetworkValidator;
 import net.sf.orcc.graph.Vertex;
+import net.sf.orcc.util.Attribute;
 import net.sf.orcc.util.FilesManager;
 import net.sf.orcc.util.OrccLogger;
 import net.sf.orcc.util.Result;
@@ -93,6 +99,18 @@ public class Xronos extends AbstractBackend {
 
 	protected boolean outputClockGating;
 
+	/** Compile the instances concurrently with a pool of workers **/
+	protected boolean parallelInstances;
+
+	/** The maximum number of workers used for the instances compilation **/
+	protected int parallelWorkers;
+
+	/** Profile the compiler passes of each instance **/
+	protected boolean passProfile;
+
+	/** Simulate each instance with its fifo traces **/
+	protected boolean javaSimulation;
+
 	/** The path used for the RTL Go Done generation **/
 	protected String rtlGoDonePath;
 
@@ -101,6 +119,15 @@ public class Xronos extends AbstractBackend {
 
 	protected boolean schedulerInformation;
 
+	/** The cache of the generated instances, null in debug mode **/
+	protected InstanceCache instanceCache;
+
+	/** The Forge flags of the instances to be compiled **/
+	protected Map<Actor, XronosFlags> instanceFlags;
+
+	/** The cache keys of the instances to be compiled **/
+	protected Map<Actor, String> instanceKeys;
+
 	/** The path used for the simulation generation **/
 	protected String simPath;
 
@@ -186,6 +213,11 @@ public class Xronos extends AbstractBackend {
 		inputClockGating = getOption("org.xronos.orcc.inputClockGating", false);
 		schedulerInformation = getOption("org.xronos.orcc.schedulingInformation", false);
 		newLimGen = getOption("org.xronos.orcc.newLimGen", false);
+		parallelInstances = getOption("org.xronos.orcc.parallelInstances", false);
+		parallelWorkers = getOption("org.xronos.orcc.parallelWorkers",
+				Runtime.getRuntime().availableProcessors());
+		passProfile = getOption("org.xronos.orcc.passProfile", false);
+		javaSimulation = getOption("org.xronos.orcc.javaSimulation", false);
 
 		// Set Paths for RTL
 		rtlPath = outputPath + File.separator + "rtl";
@@ -232,6 +264,21 @@ public class Xronos extends AbstractBackend {
 
 		// Set FPGA name and forge flags
 		fpgaName = "xc2vp30-7-ff1152";
+
+		// Create the instance cache. Only the options which change the code
+		// generated for an instance take part in its key, the others (such as
+		// the number of parallel workers) would invalidate it for nothing. The
+		// Forge flags of the instance are hashed separately.
+		if (!debugMode) {
+			instanceCache = new InstanceCache(outputPath, rtlPath, testBenchPath, tbVhdPath);
+			instanceCache.addKeyOption("generateGoDone", generateGoDone);
+			instanceCache.addKeyOption("xilinxPrimitives", xilinxPrimitives);
+			instanceCache.addKeyOption("schedulingInformation", schedulerInformation);
+			instanceCache.addKeyOption("newLimGen", newLimGen);
+			instanceCache.addKeyOption("arraySizeToPowerOfTwo",
+					getOption("org.xronos.orcc.arraySizeToPowerOfTwo", false));
+			instanceCache.addKeyOption("fpgaType", fpgaName);
+		}
 	}
 
 	@Override
@@ -256,6 +303,8 @@ public class Xronos extends AbstractBackend {
 		long t0 = System.currentTimeMillis();
 
 		List<Actor> instanceToBeCompiled = new ArrayList<Actor>();
+		instanceFlags = new HashMap<Actor, XronosFlags>();
+		instanceKeys = new HashMap<Actor, String>();
 
 		int cachedInstances = 0;
 		// Figure out how many instances need to be compiled/Recompiled
@@ -270,13 +319,13 @@ public class Xronos extends AbstractBackend {
 			if (actor != null) {
 				if (!actor.isNative()) {
 					if (!debugMode) {
-						long sourceLastModified = XronosPrinter.getLastModifiedHierarchy(actor);
-						String file = rtlPath + File.separator + actor.getSimpleName() + ".v";
-						File targetFile = new File(file);
-						long targetLastModified = targetFile.lastModified();
-						if (sourceLastModified > targetLastModified) {
+						XronosFlags flags = createFlags(actor);
+						String key = instanceCache.computeKey(actor, flags.getStringFlag());
+						if (!instanceCache.restore(actor, key)) {
 							if (!actor.hasAttribute("no_generation")) {
 								instanceToBeCompiled.add(actor);
+								instanceFlags.put(actor, flags);
+								instanceKeys.put(actor, key);
 							} else {
 								OrccLogger.warnln("Instance: " + actor.getSimpleName()
 										+ " contains @no_generation tag, it will not be generated!");
@@ -287,6 +336,7 @@ public class Xronos extends AbstractBackend {
 					} else {
 						if (!actor.hasAttribute("no_generation")) {
 							instanceToBeCompiled.add(actor);
+							instanceFlags.put(actor, createFlags(actor));
 						} else {
 							OrccLogger.warnln("Actor: " + actor.getSimpleName()
 									+ " contains @no_generation tag, it will not be generated!");
@@ -310,31 +360,18 @@ public class Xronos extends AbstractBackend {
 		}
 		OrccLogger.traceln("-------------------------------------------------------------------------------");
 
-		int numInstance = 1;
 		int failedToCompile = 0;
-		for (Actor actor : instanceToBeCompiled) {
-			ResourceCache resourceCache = new ResourceCache();
-			XronosPrinter printer = new XronosPrinter(!debugMode);
-			printer.getOptions().put("generateGoDone", generateGoDone);
-			printer.getOptions().put("xilinxPrimitives", xilinxPrimitives);
-			printer.getOptions().put("fpgaType", fpgaName);
-			XronosFlags flags = new XronosFlags(rtlPath, actor.getSimpleName());
-			if (actor.hasAttribute("xronos_pipeline")) {
-				if (actor.getAttribute("xronos_pipeline").hasAttribute("gd")) {
-					Integer gateDepth = Integer
-							.parseInt(actor.getAttribute("xronos_pipeline").getAttribute("gd").getStringValue());
-					flags.activatePipelining(gateDepth);
-				} else {
-					OrccLogger.warnln("PIPELINING: gd attribute missing, example: @xronos_pipeline(gd=\"100\")");
+		if (parallelInstances && parallelWorkers > 1 && toBeCompiled > 1) {
+			failedToCompile = compileInstancesParallel(instanceToBeCompiled);
+		} else {
+			int numInstance = 1;
+			for (Actor actor : instanceToBeCompiled) {
+				boolean failed = compileInstance(actor, numInstance, toBeCompiled);
+				if (failed) {
+					failedToCompile++;
 				}
+				numInstance++;
 			}
-
-			boolean failed = printer.printInstance(flags.getStringFlag(), rtlPath, testBenchPath, tbVhdPath, actor,
-					getOptions(), resourceCache, numInstance, toBeCompiled, schedulerInformation, newLimGen, debugMode);
-			if (failed) {
-				failedToCompile++;
-			}
-			numInstance++;
 		}
 
 		if (failedToCompile > 0) {
@@ -349,6 +386,128 @@ public class Xronos extends AbstractBackend {
 		OrccLogger.traceln("Xronos done in " + (float) (t1 - t0) / (float) 1000 + "s");
 	}
 
+	/**
+	 * Compile a single actor instance with its own Forge job and resource
+	 * cache.
+	 * 
+	 * @param actor
+	 *            the actor to be compiled
+	 * @param numInstance
+	 *            the index of the instance
+	 * @param toBeCompiled
+	 *            the number of instances to be compiled
+	 * @return true if the instance failed to compile
+	 */
+	protected boolean compileInstance(Actor actor, int numInstance, int toBeCompiled) {
+		ResourceCache resourceCache = new ResourceCache();
+		XronosPrinter printer = new XronosPrinter(!debugMode);
+		printer.getOptions().put("generateGoDone", generateGoDone);
+		printer.getOptions().put("xilinxPrimitives", xilinxPrimitives);
+		printer.getOptions().put("fpgaType", fpgaName);
+		XronosFlags flags = instanceFlags.get(actor);
+
+		boolean failed = printer.printInstance(flags.getStringFlag(), rtlPath, testBenchPath, tbVhdPath, actor,
+				getOptions(), resourceCache, numInstance, toBeCompiled, schedulerInformation, newLimGen, debugMode);
+		if (!failed && instanceCache != null && !actor.hasAttribute("xronos_no_generation")) {
+			instanceCache.store(actor, instanceKeys.get(actor));
+		}
+		return failed;
+	}
+
+	/**
+	 * Create the Forge flags of an actor instance
+	 * 
+	 * @param actor
+	 *            the actor
+	 * @return the flags
+	 */
+	protected XronosFlags createFlags(Actor actor) {
+		XronosFlags flags = new XronosFlags(rtlPath, actor.getSimpleName());
+		if (passProfile) {
+			flags.activatePassProfile();
+		}
+		if (generateGoDone) {
+			flags.activateGoDonePorts();
+		}
+		if (javaSimulation) {
+			flags.activateSimulation(tracePath);
+		}
+		if (actor.hasAttribute("xronos_pipeline")) {
+			if (actor.getAttribute("xronos_pipeline").hasAttribute("gd")) {
+				Integer gateDepth = Integer
+						.parseInt(actor.getAttribute("xronos_pipeline").getAttribute("gd").getStringValue());
+				flags.activatePipelining(gateDepth);
+			} else {
+				InstanceLog.warnln("PIPELINING: gd attribute missing, example: @xronos_pipeline(gd=\"100\")");
+			}
+		}
+		if (actor.hasAttribute("xronos_partition")) {
+			Attribute partition = actor.getAttribute("xronos_partition");
+			if (partition.hasAttribute("mode")) {
+				String mode = partition.getAttribute("mode").getStringValue();
+				Integer factor = partition.hasAttribute("factor") ? Integer
+						.parseInt(partition.getAttribute("factor")
+								.getStringValue()) : 2;
+				flags.activatePartitioning(mode, factor);
+			} else {
+				InstanceLog.warnln("PARTITIONING: mode attribute missing, example: @xronos_partition(mode=\"cyclic\", factor=\"4\")");
+			}
+		}
+		return flags;
+	}
+
+	/**
+	 * Compile the given instances with a bounded pool of workers. The messages
+	 * of each instance are buffered and printed once the instance is done.
+	 * 
+	 * @param instances
+	 *            the instances to be compiled
+	 * @return the number of instances that failed to compile
+	 */
+	protected int compileInstancesParallel(List<Actor> instances) {
+		final int toBeCompiled = instances.size();
+		int workers = Math.min(parallelWorkers, toBeCompiled);
+		OrccLogger.traceln("NOTE: Compiling instances with " + workers + " workers");
+
+		ExecutorService pool = Executors.newFixedThreadPool(workers);
+		List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+		int numInstance = 1;
+		for (final Actor actor : instances) {
+			final int idxInstance = numInstance;
+			results.add(pool.submit(new Callable<Boolean>() {
+				@Override
+				public Boolean call() {
+					InstanceLog.begin();
+					try {
+						return compileInstance(actor, idxInstance, toBeCompiled);
+					} catch (Throwable t) {
+						InstanceLog.severeln("\t - failed to compile: " + t.getMessage());
+						return true;
+					} finally {
+						InstanceLog.end();
+					}
+				}
+			}));
+			numInstance++;
+		}
+		pool.shutdown();
+
+		int failedToCompile = 0;
+		for (Future<Boolean> result : results) {
+			try {
+				if (result.get()) {
+					failedToCompile++;
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				failedToCompile++;
+			} catch (ExecutionException e) {
+				failedToCompile++;
+			}
+		}
+		return failedToCompile;
+	}
+
 	protected void generateNativeActor(Actor Actor) {
 		// -- Do Nothing
 	}
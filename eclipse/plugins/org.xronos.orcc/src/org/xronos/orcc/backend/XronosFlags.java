@@ -153,6 +153,33 @@ public class XronosFlags {
 	 */
 	private Boolean detailedReportFlag = false;
 
+	/**
+	 * Record the time, allocations and design size of every compiler pass.
+	 */
+	private Boolean passProfileFlag = false;
+
+	/**
+	 * Publish the go and done signals of each action as output ports.
+	 */
+	private Boolean goDonePortsFlag = false;
+
+	/**
+	 * The directory of the fifo traces replayed by the simulation, null if
+	 * the design is not simulated.
+	 */
+	private String simulationTracePath = null;
+
+	/**
+	 * The partitioning of the arrays into memory banks (cyclic, block or
+	 * complete), null if the arrays are not partitioned.
+	 */
+	private String partitionMode = null;
+
+	/**
+	 * The number of banks of a cyclic or block partitioning.
+	 */
+	private Integer partitionFactor = 2;
+
 	/**
 	 * The output folder
 	 */
@@ -181,6 +208,42 @@ public class XronosFlags {
 		gateDepthPipelineValue = gateDepth;
 	}
 
+	/**
+	 * Activate the profile of the compiler passes
+	 */
+	public void activatePassProfile() {
+		passProfileFlag = true;
+	}
+
+	/**
+	 * Activate the go and done output ports of each action
+	 */
+	public void activateGoDonePorts() {
+		goDonePortsFlag = true;
+	}
+
+	/**
+	 * Activate the simulation of the design with the given fifo traces
+	 * 
+	 * @param tracePath
+	 */
+	public void activateSimulation(String tracePath) {
+		simulationTracePath = tracePath;
+	}
+
+	/**
+	 * Activate the partitioning of the arrays into memory banks
+	 * 
+	 * @param mode
+	 *            cyclic, block or complete
+	 * @param factor
+	 *            the number of banks of a cyclic or block partitioning
+	 */
+	public void activatePartitioning(String mode, Integer factor) {
+		partitionMode = mode;
+		partitionFactor = factor;
+	}
+
 	/**
 	 * Return the String Array with the Forges options
 	 * 
@@ -257,6 +320,27 @@ public class XronosFlags {
 			xronosFlags.add("-Xdetailed_report");
 		}
 
+		if (passProfileFlag) {
+			xronosFlags.add("-pass_profile");
+		}
+
+		if (goDonePortsFlag) {
+			xronosFlags.add("-go_done_ports");
+		}
+
+		if (simulationTracePath != null) {
+			xronosFlags.add("-sim");
+			xronosFlags.add("-sim_traces");
+			xronosFlags.add(simulationTracePath);
+		}
+
+		if (partitionMode != null) {
+			xronosFlags.add("-array_partition");
+			xronosFlags.add(partitionMode);
+			xronosFlags.add("-partition_factor");
+			xronosFlags.add(partitionFactor.toString());
+		}
+
 		// Add output folder and give a new name to the design
 		xronosFlags.add("-d");
 		xronosFlags.add(outputFolder);
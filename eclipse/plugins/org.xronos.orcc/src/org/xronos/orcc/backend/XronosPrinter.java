@@ -166,6 +166,9 @@ public class XronosPrinter {
 			boolean newLimGen, Boolean debugMode) {
 		Forge f = new Forge();
 		GenericJob xronosMainJob = new GenericJob();
+		// The standard streams are shared by the instances compiled in
+		// parallel, they cannot be given to the logger of a single job
+		xronosMainJob.setRedirectingStandardStreams(!InstanceLog.isBuffering());
 		Engine engine = null;
 		boolean error = false;
 
@@ -178,79 +181,71 @@ public class XronosPrinter {
 				xronosMainJob.getOption(OptionRegistry.XILINX_PART).setValue(
 						CodeLabel.UNSCOPED, "xc2vp30-7-ff1152");
 				f.preprocess(xronosMainJob);
-				OrccLogger.traceln("Compiling instance: "
+				InstanceLog.traceln("Compiling instance: "
 						+ actor.getSimpleName() + " (" + idxInstance + "/"
 						+ totalInstances + ")");
 				if (newLimGen) {
-					XronosTransform.transformActor(actor, options, debugMode);
+					XronosTransform.transformActor(actor, options, debugMode,
+							xronosMainJob.getPassProfiler());
 					engine = new DesignEngine(xronosMainJob, actor, schedulerInformation);
 				} else {
 					XronosTransform.transformActor(actor, options,
 							resourceCache, true, schedulerInformation,
-							debugMode);
+							debugMode, xronosMainJob.getPassProfiler());
 					engine = new DesignEngine(xronosMainJob, actor,
 							resourceCache, schedulerInformation);
 				}
 				engine.begin();
 			} catch (NewJob.ForgeOptionException foe) {
-				OrccLogger.severeln("\t command line option error: "
+				InstanceLog.severeln("\t command line option error: "
 						+ foe.getMessage());
-				OrccLogger.severeln("");
-				OrccLogger.severeln(OptionRegistry.usage(false));
+				InstanceLog.severeln("");
+				InstanceLog.severeln(OptionRegistry.usage(false));
 				error = true;
 			} catch (ForgeFatalException ffe) {
-				OrccLogger
+				InstanceLog
 						.severeln("\t - failed to compile:Forge compilation ended with fatal error: "
 								+ ffe.getMessage());
 				error = true;
 			} catch (NullPointerException ex) {
-				OrccLogger
+				InstanceLog
 						.severeln("\t - failed to compile: NullPointerException, "
 								+ ex.getMessage());
 				error = true;
 			} catch (NoSuchElementException ex) {
-				OrccLogger
+				InstanceLog
 						.severeln("\t - failed to compile: NoSuchElementException, "
 								+ ex.getMessage());
 				error = true;
 			} catch (UnbalancedAssignmentException ex) {
-				OrccLogger
+				InstanceLog
 						.severeln("\t - failed to compile: UnbalancedAssignmentException, "
 								+ ex.getMessage());
 				error = true;
 			} catch (ArrayIndexOutOfBoundsException ex) {
-				OrccLogger
+				InstanceLog
 						.severeln("\t - failed to compile: ArrayIndexOutOfBoundsException, "
 								+ ex.getMessage());
 				error = true;
 			} catch (Throwable t) {
-				OrccLogger
+				InstanceLog
 						.severeln("\t - failed to compile: " + t.getMessage());
 				error = true;
+			} finally {
+				// Release the context of the engine, even on failure, as the
+				// thread may be reused for another instance
+				if (engine != null) {
+					engine.kill();
+					engine = null;
+				}
 			}
 			if (!error) {
 				long t1 = System.currentTimeMillis();
-				OrccLogger.traceln("\t - Compiled in: " + (float) (t1 - t0)
+				InstanceLog.traceln("\t - Compiled in: " + (float) (t1 - t0)
 						/ 1000 + "s");
-				engine.kill();
-				engine = null;
 				printTestbenches(actor, tbPath, tbVhdPath,
 						(Boolean) getOptions().get("xilinxPrimitives"));
 			}
-			if (options.containsKey("org.xronos.orcc.generateGoDone")) {
-				Boolean generateGoDone = (Boolean) options
-						.get("org.xronos.orcc.generateGoDone");
-
-				if (generateGoDone) {
-					if (!error) {
-						String rtlGoDonePath = rtlPath + File.separator
-								+ "rtlGoDone";
-						VerilogAddGoDone verilogFile = new VerilogAddGoDone(
-								actor, rtlPath, rtlGoDonePath);
-						verilogFile.addGoDone();
-					}
-				}
-			}
 			return error;
 		}
 
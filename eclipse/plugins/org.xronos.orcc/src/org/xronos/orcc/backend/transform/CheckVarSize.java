@@ -45,7 +45,8 @@ import net.sf.orcc.ir.TypeList;
 import net.sf.orcc.ir.Var;
 import net.sf.orcc.ir.util.AbstractIrVisitor;
 import net.sf.orcc.ir.util.ValueUtil;
-import net.sf.orcc.util.OrccLogger;
+
+import org.xronos.orcc.backend.InstanceLog;
 
 /**
  * This class visits all global and local variables that are initialize so that
@@ -138,7 +139,7 @@ public class CheckVarSize extends DfVisitor<Void> {
 					int newInnerSize = checkAndModifySize(varValue,
 							listDimension, innerType);
 					if (innerSize != newInnerSize) {
-						OrccLogger.warnln("Variable: " + var.getName()
+						InstanceLog.warnln("Variable: " + var.getName()
 								+ " has a wrong size, its correct size is: "
 								+ newInnerSize + " instead of: " + innerSize);
 						typeList.getInnermostType().setSize(newInnerSize);
@@ -150,7 +151,7 @@ public class CheckVarSize extends DfVisitor<Void> {
 					int size = type.getSizeInBits();
 					int newSize = value.bitLength();
 					if (size != newSize) {
-						OrccLogger.warnln("Variable: " + var.getName()
+						InstanceLog.warnln("Variable: " + var.getName()
 								+ " has a wrong size, its correct size is: "
 								+ newSize + " instead of: " + newSize);
 						type.setSize(newSize);
@@ -56,7 +56,8 @@ import net.sf.orcc.ir.Var;
 import net.sf.orcc.ir.util.AbstractIrVisitor;
 import net.sf.orcc.ir.util.IrUtil;
 import net.sf.orcc.ir.util.ValueUtil;
-import net.sf.orcc.util.OrccLogger;
+
+import org.xronos.orcc.backend.InstanceLog;
 
 /**
  * This transformation eliminates dead actions
@@ -191,7 +192,7 @@ public class DeadActionEliminaton extends DfVisitor<Void> {
 				// if the result is false then eliminate
 				if (!value) {
 					if (debug) {
-						OrccLogger.warnln("Xronos: action \""
+						InstanceLog.warnln("Xronos: action \""
 								+ action.getName()
 								+ "\" is unreachable, eliminating!");
 					}
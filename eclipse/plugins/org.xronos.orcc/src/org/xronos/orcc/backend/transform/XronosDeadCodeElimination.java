@@ -48,10 +48,11 @@ import net.sf.orcc.ir.Var;
 import net.sf.orcc.ir.util.AbstractIrVisitor;
 import net.sf.orcc.ir.util.IrUtil;
 import net.sf.orcc.ir.util.ValueUtil;
-import net.sf.orcc.util.OrccLogger;
 import net.sf.orcc.util.Void;
 import net.sf.orcc.util.util.EcoreHelper;
 
+import org.xronos.orcc.backend.InstanceLog;
+
 /**
  * 
  * @author Endri Bezati
@@ -150,7 +151,7 @@ public class XronosDeadCodeElimination extends AbstractIrVisitor<Void> {
 					IrUtil.delete(blockIf);
 					modified = true;
 					if (debug) {
-						OrccLogger.warnln("Xronos: BlockIf line: "
+						InstanceLog.warnln("Xronos: BlockIf line: "
 								+ blockIf.getLineNumber()
 								+ " removed, all then blocks copied");
 					}
@@ -179,7 +180,7 @@ public class XronosDeadCodeElimination extends AbstractIrVisitor<Void> {
 						}
 						modified = true;
 						if (debug) {
-							OrccLogger.warnln("Xronos: BlockIf line: "
+							InstanceLog.warnln("Xronos: BlockIf line: "
 									+ blockIf.getLineNumber()
 									+ " removed, all else blocks copied");
 						}
@@ -200,7 +201,7 @@ public class XronosDeadCodeElimination extends AbstractIrVisitor<Void> {
 					IrUtil.delete(blockIf);
 					modified = true;
 					if (debug) {
-						OrccLogger.warnln("Xronos: BlockIf line: "
+						InstanceLog.warnln("Xronos: BlockIf line: "
 								+ blockIf.getLineNumber() + " removed");
 					}
 				}
@@ -236,7 +237,7 @@ public class XronosDeadCodeElimination extends AbstractIrVisitor<Void> {
 					IrUtil.delete(blockWhile);
 					modified = true;
 					if (debug) {
-						OrccLogger.warnln("Xronos: Loop line: "
+						InstanceLog.warnln("Xronos: Loop line: "
 								+ blockWhile.getLineNumber() + " removed");
 					}
 				}
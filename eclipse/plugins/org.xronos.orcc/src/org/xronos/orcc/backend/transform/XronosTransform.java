@@ -33,6 +33,7 @@
 package org.xronos.orcc.backend.transform;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -56,10 +57,12 @@ import net.sf.orcc.ir.transform.ControlFlowAnalyzer;
 import net.sf.orcc.ir.transform.DeadGlobalElimination;
 import net.sf.orcc.ir.transform.DeadVariableRemoval;
 import net.sf.orcc.ir.transform.SSAVariableRenamer;
-import net.sf.orcc.util.OrccLogger;
 import net.sf.orcc.util.Void;
 
+import org.eclipse.emf.ecore.EObject;
+import org.xronos.openforge.app.PassProfiler;
 import org.xronos.orcc.analysis.NativeProcedureFinder;
+import org.xronos.orcc.backend.InstanceLog;
 import org.xronos.orcc.backend.transform.pipelining.Pipelining;
 import org.xronos.orcc.design.ResourceCache;
 import org.xronos.orcc.design.visitors.XronosScheduler;
@@ -81,7 +84,38 @@ public class XronosTransform {
 
 	private static boolean debug = false;
 
-	public static void transformActor(Actor actor, Map<String, Object> options, Boolean debugMode) {
+	/**
+	 * Counts the IR objects contained by the actor, used as the size of the
+	 * actor by the pass profile.
+	 */
+	private static long countObjects(Actor actor) {
+		long count = 0;
+		for (Iterator<EObject> it = actor.eAllContents(); it.hasNext(); it.next()) {
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Applies a transformation to the actor, recording it in the pass profile
+	 * if there is one.
+	 */
+	private static void doSwitch(DfSwitch<?> transformation, int index, Actor actor, PassProfiler profiler) {
+		if (profiler != null) {
+			profiler.start(index + "." + transformation.getClass().getSimpleName(), countObjects(actor));
+		}
+		try {
+			transformation.doSwitch(actor);
+		} finally {
+			if (profiler != null) {
+				// Count after the clocks are read, out of the measures
+				profiler.stop().setSizeAfter(countObjects(actor));
+			}
+		}
+	}
+
+	public static void transformActor(Actor actor, Map<String, Object> options, Boolean debugMode,
+			PassProfiler profiler) {
 		List<DfSwitch<?>> transformations = new ArrayList<DfSwitch<?>>();
 		transformations.add(new UnitImporter());
 		transformations.add(new VarInitializer());
@@ -107,10 +141,11 @@ public class XronosTransform {
 		transformations.add(new DfVisitor<CfgNode>(new XronosCFG()));
 		transformations.add(new DfVisitor<Void>(new Liveness()));
 		transformations.add(new DfVisitor<Void>(new UninitializedVariable(true)));
-		for (DfSwitch<?> transformation : transformations) {
+		for (int i = 0; i < transformations.size(); i++) {
+			DfSwitch<?> transformation = transformations.get(i);
 			try {
 				long t0 = System.currentTimeMillis();
-				transformation.doSwitch(actor);
+				doSwitch(transformation, i, actor, profiler);
 				long t1 = System.currentTimeMillis();
 				if (debug) {
 					System.out.println(("\t -Transformation: " + transformation.toString() + " took: "
@@ -118,14 +153,14 @@ public class XronosTransform {
 				}
 			} catch (NullPointerException ex) {
 
-				OrccLogger.severeln("\t - transformation failed: NullPointerException, " + ex.getMessage());
+				InstanceLog.severeln("\t - transformation failed: NullPointerException, " + ex.getMessage());
 				break;
 			}
 		}
 	}
 
 	public static void transformActor(Actor actor, Map<String, Object> options, ResourceCache resourceCache,
-			Boolean portTransformation, boolean schedulerInformation, Boolean debugMode) {
+			Boolean portTransformation, boolean schedulerInformation, Boolean debugMode, PassProfiler profiler) {
 		if (!actor.hasAttribute("xronos_no_generation")) {
 			List<DfSwitch<?>> transformations = new ArrayList<DfSwitch<?>>();
 
@@ -198,11 +233,11 @@ public class XronosTransform {
 
 			transformations.add(new DfVisitor<CfgNode>(new ControlFlowAnalyzer()));
 
-			for (DfSwitch<?> transformation : transformations) {
+			for (int i = 0; i < transformations.size(); i++) {
 				try {
-					transformation.doSwitch(actor);
+					doSwitch(transformations.get(i), i, actor, profiler);
 				} catch (NullPointerException ex) {
-					OrccLogger.severeln("\t - transformation failed: NullPointerException, " + ex.getMessage());
+					InstanceLog.severeln("\t - transformation failed: NullPointerException, " + ex.getMessage());
 					break;
 				}
 			}
@@ -227,7 +262,7 @@ public class XronosTransform {
 			try {
 				transformation.doSwitch(actor);
 			} catch (NullPointerException ex) {
-				OrccLogger.severeln("\t - transformation failed: NullPointerException, " + ex.getMessage());
+				InstanceLog.severeln("\t - transformation failed: NullPointerException, " + ex.getMessage());
 				break;
 			}
 		}
@@ -236,7 +271,7 @@ public class XronosTransform {
 	public static void transformNetworkActors(Network network, Map<String, Object> options,
 			ResourceCache resourceCache, boolean schedulerInformation) {
 		for (Actor actor : network.getAllActors()) {
-			transformActor(actor, options, resourceCache, false, schedulerInformation, false);
+			transformActor(actor, options, resourceCache, false, schedulerInformation, false, null);
 		}
 	}
 
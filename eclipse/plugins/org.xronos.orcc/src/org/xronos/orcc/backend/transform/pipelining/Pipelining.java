@@ -50,6 +50,7 @@ import net.sf.orcc.df.Port;
 import net.sf.orcc.df.util.DfVisitor;
 import net.sf.orcc.df.util.XdfWriter;
 import net.sf.orcc.ir.Type;
+import net.sf.orcc.util.Attribute;
 import net.sf.orcc.util.OrccLogger;
 import net.sf.orcc.util.util.EcoreHelper;
 
@@ -107,6 +108,50 @@ public class Pipelining extends DfVisitor<Void> {
 						+ File.separator + "Pipeline.txt";
 				PipeliningOptimization pOptimization = new PipeliningOptimization(
 						tb, logPath);
+				// The coloring search may be split among threads and bounded,
+				// example: @xronos_pipeline(StageTime="1,2", Threads="4",
+				// Budget="30", Nodes="100000000")
+				Attribute pipeline = action.getAttribute("xronos_pipeline");
+				int threads = 1;
+				long timeBudget = 10000;
+				long nodeBudget = 0;
+				if (pipeline.hasAttribute("Threads")) {
+					String value = pipeline.getAttribute("Threads")
+							.getStringValue();
+					try {
+						threads = Integer.parseInt(value);
+					} catch (NumberFormatException e) {
+						OrccLogger.warnln("PIPELINING: Threads attribute \""
+								+ value + "\" is not a number of threads, "
+								+ "using " + threads
+								+ ", example: @xronos_pipeline(Threads=\"4\")");
+					}
+				}
+				if (pipeline.hasAttribute("Budget")) {
+					String value = pipeline.getAttribute("Budget")
+							.getStringValue();
+					try {
+						timeBudget = (long) (Float.parseFloat(value) * 1000);
+					} catch (NumberFormatException e) {
+						OrccLogger.warnln("PIPELINING: Budget attribute \""
+								+ value + "\" is not a number of seconds, "
+								+ "using " + timeBudget / 1000
+								+ ", example: @xronos_pipeline(Budget=\"30\")");
+					}
+				}
+				if (pipeline.hasAttribute("Nodes")) {
+					String value = pipeline.getAttribute("Nodes")
+							.getStringValue();
+					try {
+						nodeBudget = Long.parseLong(value);
+					} catch (NumberFormatException e) {
+						OrccLogger.warnln("PIPELINING: Nodes attribute \""
+								+ value + "\" is not a number of nodes, "
+								+ "using " + nodeBudget
+								+ ", example: @xronos_pipeline(Nodes=\"100000000\")");
+					}
+				}
+				pOptimization.setSearchBudget(threads, timeBudget, nodeBudget);
 
 				pOptimization.run();
 
@@ -0,0 +1,217 @@
+/* 
+ * XRONOS-EXELIXI
+ * 
+ * Copyright (C) 2011-2016 EPFL SCI STI MM
+ *
+ * This file is part of XRONOS-EXELIXI.
+ *
+ * XRONOS-EXELIXI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * XRONOS-EXELIXI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with XRONOS-EXELIXI. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Additional permission under GNU GPL version 3 section 7
+ * 
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with Eclipse (or a modified version of Eclipse or an Eclipse plugin or 
+ * an Eclipse library), containing parts covered by the terms of the 
+ * Eclipse Public License (EPL), the licensors of this Program grant you 
+ * additional permission to convey the resulting work.  Corresponding Source 
+ * for a non-source form of such a combination shall include the source code 
+ * for the parts of Eclipse libraries used as well as that of the covered work.
+ * 
+ */
+
+package org.xronos.orcc.backend.transform.pipelining.coloring;
+
+/**
+ * A boolean matrix packed row by row in 64 bit words, so that the rows of the
+ * operator matrices can be intersected and merged a word at a time
+ */
+public class BitMatrix {
+
+	/**
+	 * The number of rows
+	 */
+	public final int rows;
+
+	/**
+	 * The number of columns
+	 */
+	public final int cols;
+
+	/**
+	 * The number of words of a row
+	 */
+	public final int words;
+
+	/**
+	 * The bits, row after row
+	 */
+	private final long[] bits;
+
+	public BitMatrix(int rows, int cols) {
+		this.rows = rows;
+		this.cols = cols;
+		words = (cols + 63) >>> 6;
+		bits = new long[rows * words];
+	}
+
+	/**
+	 * Create the bit matrix of the entries of a row major int matrix which
+	 * equal 1
+	 * 
+	 * @param matrix
+	 * @param rows
+	 * @param cols
+	 */
+	public BitMatrix(int[] matrix, int rows, int cols) {
+		this(rows, cols);
+		for (int i = 0; i < rows; i++) {
+			for (int j = 0; j < cols; j++) {
+				if (matrix[i * cols + j] == 1) {
+					set(i, j);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Clear the bit at the given row and column
+	 * 
+	 * @param row
+	 * @param col
+	 */
+	public void clear(int row, int col) {
+		bits[row * words + (col >>> 6)] &= ~(1L << col);
+	}
+
+	/**
+	 * Test the bit at the given row and column
+	 * 
+	 * @param row
+	 * @param col
+	 * @return
+	 */
+	public boolean get(int row, int col) {
+		return (bits[row * words + (col >>> 6)] & (1L << col)) != 0;
+	}
+
+	/**
+	 * Test whether a row of this matrix and a row of another matrix with the
+	 * same number of columns have a common bit
+	 * 
+	 * @param row
+	 * @param other
+	 * @param otherRow
+	 * @return
+	 */
+	public boolean intersects(int row, BitMatrix other, int otherRow) {
+		int a = row * words;
+		int b = otherRow * words;
+		for (int w = 0; w < words; w++) {
+			if ((bits[a + w] & other.bits[b + w]) != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Test whether a row of this matrix has a common bit with a bit set
+	 * 
+	 * @param row
+	 * @param set
+	 *            a set of {@link #words} words
+	 * @return
+	 */
+	public boolean intersects(int row, long[] set) {
+		int a = row * words;
+		for (int w = 0; w < words; w++) {
+			if ((bits[a + w] & set[w]) != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Merge a row of this matrix into a bit set
+	 * 
+	 * @param row
+	 * @param set
+	 *            a set of {@link #words} words
+	 */
+	public void or(int row, long[] set) {
+		int a = row * words;
+		for (int w = 0; w < words; w++) {
+			set[w] |= bits[a + w];
+		}
+	}
+
+	/**
+	 * Count the bits of a row
+	 * 
+	 * @param row
+	 * @return
+	 */
+	public int count(int row) {
+		int a = row * words;
+		int count = 0;
+		for (int w = 0; w < words; w++) {
+			count += Long.bitCount(bits[a + w]);
+		}
+		return count;
+	}
+
+	/**
+	 * Set the bit at the given row and column
+	 * 
+	 * @param row
+	 * @param col
+	 */
+	public void set(int row, int col) {
+		bits[row * words + (col >>> 6)] |= 1L << col;
+	}
+
+	/**
+	 * Get the transposed matrix, whose rows are the columns of this matrix
+	 * 
+	 * @return
+	 */
+	public BitMatrix transpose() {
+		BitMatrix t = new BitMatrix(cols, rows);
+		for (int i = 0; i < rows; i++) {
+			int a = i * words;
+			for (int w = 0; w < words; w++) {
+				long word = bits[a + w];
+				while (word != 0) {
+					int j = (w << 6) + Long.numberOfTrailingZeros(word);
+					t.set(j, i);
+					word &= word - 1;
+				}
+			}
+		}
+		return t;
+	}
+
+	/**
+	 * Test a bit of a bit set
+	 * 
+	 * @param set
+	 * @param index
+	 * @return
+	 */
+	public static boolean get(long[] set, int index) {
+		return (set[index >>> 6] & (1L << index)) != 0;
+	}
+
+}
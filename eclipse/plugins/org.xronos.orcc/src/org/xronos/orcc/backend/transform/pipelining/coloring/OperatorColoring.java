@@ -36,8 +36,14 @@ import java.io.BufferedWriter;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
-import net.sf.orcc.util.OrccLogger;
+import org.xronos.orcc.backend.InstanceLog;
 
 /**
  * This class colors the DFG and it applies heuristics for creating pipeline
@@ -49,6 +55,331 @@ import net.sf.orcc.util.OrccLogger;
 @SuppressWarnings("unused")
 public class OperatorColoring {
 
+	/**
+	 * The number of nodes a search visits between two budget checks
+	 */
+	private static final int BUDGET_CHECK = 1 << 16;
+
+	/**
+	 * The number of subtrees each thread should get when the tree is split
+	 */
+	private static final int SUBTREES_PER_THREAD = 8;
+
+	/**
+	 * A depth first walk of the coloring tree, which stays below the operator
+	 * at a given depth of its stack
+	 */
+	private class Search implements Callable<Boolean> {
+
+		private long colorings;
+
+		private long conflicts;
+
+		private int cutc;
+
+		private long cuts;
+
+		private final int floor;
+
+		private long nodes;
+
+		/**
+		 * When not null, the stacks at the split depth are collected here
+		 * instead of being searched
+		 */
+		private final List<Srec[]> split;
+
+		private final int splitDepth;
+
+		private final Srec[] stack;
+
+		/**
+		 * The index of the searched subtree, in the depth first order of the
+		 * coloring tree
+		 */
+		private final int subtree;
+
+		public Search(Srec[] stack, int floor, List<Srec[]> split,
+				int splitDepth, int subtree) {
+			this.stack = stack;
+			this.floor = floor;
+			this.split = split;
+			this.splitDepth = splitDepth;
+			this.subtree = subtree;
+		}
+
+		@Override
+		public Boolean call() {
+			int k, rp;
+			int lbrwdW = 0;
+			int top = floor;
+			Srec St0;
+
+			if (stopped) {
+				return false;
+			}
+			while (top >= floor) {
+				if (top >= N) {
+					colorings++;
+					record(stack, lbrwdW, subtree);
+					top--;
+				} else {
+					k = order[top];
+					St0 = stack[top];
+					rp = St0.rp + 1;
+					if (specific[k] > 1 && rp == 1 || rp >= St0.mob) {
+						top--;
+					} else {
+						St0.rp = rp;
+						St0.stage = St0.rank[rp];
+						lbrwdW = St0.bound + St0.dW[rp];
+						if (++nodes % BUDGET_CHECK == 0 && !withinBudget()) {
+							return false;
+						}
+						if (rankOf(lbrwdW, subtree) >= bestBound.get()) {
+							cuts++;
+							if (cuts == 0x7FFFFFFF) {
+								cutc++;
+								cuts = 0;
+								if (cutc >= 16) {
+									return true;
+								}
+							}
+							top--;
+						} else {
+							top++;
+							if (top < N) {
+								if (!expand(top, lbrwdW)) {
+									top--;
+									conflicts++;
+								} else if (split != null && top == splitDepth) {
+									split.add(copyStack(top));
+									top--;
+								}
+							}
+						}
+					}
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Copy the stack up to the given depth, with empty records below it
+		 */
+		private Srec[] copyStack(int top) {
+			Srec[] copy = new Srec[N];
+			for (int i = 0; i < N; i++) {
+				copy[i] = i <= top ? stack[i].copy() : new Srec();
+			}
+			return copy;
+		}
+
+		/**
+		 * Compute the stages the operator at the given depth may take, sorted
+		 * by their register cost, from the stages given above it
+		 * 
+		 * @return false if no stage is left for the operator
+		 */
+		private boolean expand(int top, int lbrwdW) {
+			int i, j, u = 0;
+			int k, k1;
+			int minC0, maxC0, minC1, maxC1;
+			int opc, lasap, lalap;
+			int s, ord, da, dc, outv, p, inv;
+			int dW, mindW;
+			int stal, stas;
+
+			k = order[top];
+			lasap = level_asap[k];
+			lalap = level_alap[k];
+			minC0 = 0;
+			maxC0 = N;
+			minC1 = 0;
+			maxC1 = N;
+			for (i = 0; i < cP_count[top]; i++) {
+				p = cPred[top * N + i];
+				k1 = order[p];
+				opc = stack[p].stage;
+				if (k1 < k) {
+					if (minC0 < opc) {
+						minC0 = opc;
+					}
+				} else {
+					if (maxC0 > opc) {
+						maxC0 = opc;
+					}
+				}
+			}
+			for (i = 0; i < ncP_count[top]; i++) {
+				p = ncPred[top * N + i];
+				k1 = order[p];
+				opc = stack[p].stage;
+				if (k1 < k) {
+					if (minC1 < opc) {
+						minC1 = opc;
+					}
+				} else {
+					if (maxC1 > opc) {
+						maxC1 = opc;
+					}
+				}
+			}
+			// if(ColoringCount==0)
+			// fprintf(outputfile,"top=%d minC0=%d maxC0=%d minC1=%d maxC1=%d\n",top,minC0,maxC0,minC1,maxC1);
+			minC0++;
+			maxC0--;
+			if (minC0 < minC1) {
+				minC0 = minC1;
+			}
+			if (maxC0 > maxC1) {
+				maxC0 = maxC1;
+			}
+			if (minC0 < lasap) {
+				minC0 = lasap;
+			}
+			if (maxC0 > lalap) {
+				maxC0 = lalap;
+			}
+			if (maxC0 < minC0) {
+				return false;
+			}
+			Srec St0 = stack[top];
+			St0.rp = -1;
+			St0.bound = lbrwdW;
+			St0.early = minC0;
+			St0.late = maxC0;
+			St0.mob = maxC0 - minC0 + 1;
+			for (i = 0; i < St0.mob; i++) {
+				St0.rank[i] = minC0 + i;
+				St0.dW[i] = 0;
+			}
+			for (j = 0; j < outVarCounts[k]; j++) {
+				outv = outVarLists[k * M + j];
+				stal = maxColor;
+				for (u = 0; u < prod_count[outv]; u++) {
+					p = produce[outv * N + u];
+					if (p != k) {
+						ord = order1[p];
+						if (ord < top) {
+							s = stack[ord].stage;
+						} else {
+							s = level_alap[p];
+						}
+						if (stal > s) {
+							stal = s;
+						}
+					}
+				}
+				if (outputPorts[outv] == 1) {
+					stas = maxColor;
+				} else {
+					stas = -1;
+					for (u = 0; u < cons_count[outv]; u++) {
+						p = consume[outv * N + u];
+						ord = order1[p];
+						if (ord < top) {
+							s = stack[ord].stage;
+						} else {
+							s = level_asap[p];
+						}
+						if (stas < s) {
+							stas = s;
+						}
+					}
+				}
+				da = level_alap[k];
+				da = da < stal ? da : stal;
+				da = stas - da;
+				da = da > 0 ? da : 0;
+				for (i = 0; i < St0.mob; i++) {
+					dc = minC0 + i;
+					dc = dc < stal ? dc : stal;
+					dc = stas - dc;
+					dc = dc > 0 ? dc : 0;
+					St0.dW[i] += varWidths[outv]
+							* (dc - da);
+				}
+			}
+			for (j = 0; j < inVarCounts[k]; j++) {
+				inv = inVarLists[k * M + j];
+				if (outputPorts[inv] == 1) {
+					stas = maxColor;
+				} else {
+					stas = 0;
+					for (u = 0; u < cons_count[inv]; u++) {
+						p = consume[inv * N + u];
+						if (p != k) {
+							ord = order1[p];
+							if (ord < top) {
+								s = stack[ord].stage;
+							} else {
+								s = level_asap[p];
+							}
+							if (stas < s) {
+								stas = s;
+							}
+						}
+					}
+				}
+				stal = maxColor;
+				if (inputPorts[inv] == 1) {
+					stal = 1;
+				} else {
+					for (u = 0; u < prod_count[inv]; u++) {
+						p = produce[inv * N + u];
+						ord = order1[p];
+						if (ord < top) {
+							s = stack[ord].stage;
+						} else {
+							s = level_alap[p];
+						}
+						if (stal > s) {
+							stal = s;
+						}
+					}
+				}
+				da = level_asap[k];
+				da = da > stas ? da : stas;
+				da = da - stal;
+				da = da > 0 ? da : 0;
+				for (i = 0; i < St0.mob; i++) {
+					dc = minC0 + i;
+					dc = dc > stas ? dc : stas;
+					dc = dc - stal;
+					dc = dc > 0 ? dc : 0;
+					St0.dW[i] += varWidths[inv]
+							* (dc - da);
+				}
+			}
+			if (inVarCounts[k] == 0) {
+				j = St0.mob - 1;
+				St0.rank[0] = St0.rank[j];
+				St0.dW[0] = St0.dW[j];
+				St0.mob = 1;
+			} else {
+				for (i = 0; i < St0.mob - 1; i++) {
+					mindW = 100000000;
+					for (j = i; j < St0.mob; j++) {
+						dW = St0.dW[j];
+						if (mindW > dW) {
+							mindW = dW;
+							u = j;
+						}
+					}
+					if (u != i) {
+						St0.dW[u] = St0.dW[i];
+						St0.dW[i] = mindW;
+						j = St0.rank[u];
+						St0.rank[u] = St0.rank[i];
+						St0.rank[i] = j;
+					}
+				}
+			}
+			return true;
+		}
+	}
+
 	private class Srec {
 		public int bound;
 		public int[] dW;
@@ -58,6 +389,24 @@ public class OperatorColoring {
 		public int[] rank;
 		public int rp;
 		public int stage;
+
+		public Srec() {
+			rank = new int[maxColor];
+			dW = new int[maxColor];
+		}
+
+		public Srec copy() {
+			Srec copy = new Srec();
+			copy.bound = bound;
+			copy.early = early;
+			copy.late = late;
+			copy.mob = mob;
+			copy.rp = rp;
+			copy.stage = stage;
+			System.arraycopy(rank, 0, copy.rank, 0, rank.length);
+			System.arraycopy(dW, 0, copy.dW, 0, dW.length);
+			return copy;
+		}
 	}
 
 	private int ALAP_registersW;
@@ -68,6 +417,9 @@ public class OperatorColoring {
 
 	private int[] bestcolor;
 
+	// The rank of the best coloring, shared by the searches
+	private AtomicLong bestBound;
+
 	private int[] bestcolor1;
 
 	private float Beta;
@@ -88,12 +440,19 @@ public class OperatorColoring {
 
 	private long cutc;
 
+	private long deadline;
+
 	private long CutCount;
 
 	private int[] diffio;
 
 	private int figcount;
 
+	// The operator inputs and outputs, as bits over the variables
+	private BitMatrix insBits;
+
+	private BitMatrix outsBits;
+
 	private float[] figures;
 
 	private int[] inputPorts;
@@ -125,6 +484,8 @@ public class OperatorColoring {
 
 	private int N;
 
+	private long nodeBudget = 0;
+
 	private int[] ncP_count;
 
 	private int[] ncPred;
@@ -165,12 +526,22 @@ public class OperatorColoring {
 
 	private int[] stcount;
 
+	private volatile boolean stopped;
+
+	private AtomicLong searchedNodes;
+
+	private int threads = 1;
+
+	private long timeBudget = 10000;
+
 	private int[] transmission;
 
 	private int[] transmRegisters;
 
 	private int[] transmRegistersW;
 
+	private int[] varWidths;
+
 	private float[] weight;
 
 	private int[] worstcolor;
@@ -241,24 +612,6 @@ public class OperatorColoring {
 			VariableParameters Vs) {
 		// To order the operators - the first operators have to constitute the
 		// longest stage path
-		int i;
-		int j, u = 0;
-		int k, k1;
-		int c;
-		int minC0;
-		int maxC0;
-		int minC1;
-		int maxC1;
-		int opc;
-		int lasap;
-		int lalap;
-		int s, ord, da, dc, outv, minS, maxS, p, inv, rp;
-		int max_stage, asapk, max_asap, oinv;
-		int lbrwdW = 0;
-		int dW, mindW;
-		int top = 0;
-		int stal, stas;
-
 		Srec St0 = Stack[0];
 
 		St0.rp = -1;
@@ -274,274 +627,185 @@ public class OperatorColoring {
 		St0.rank[0] = 1;
 		St0.dW[0] = 0;
 
+		varWidths = Vs.varWidths;
+		bestBound = new AtomicLong(rankOf(minRegistersW, Integer.MAX_VALUE));
+		searchedNodes = new AtomicLong();
+		stopped = false;
 		long t0 = System.currentTimeMillis();
+		deadline = t0 + timeBudget;
+
+		boolean complete;
+		if (threads > 1 && N > 1) {
+			complete = searchConcurrently();
+		} else {
+			Search search = new Search(Stack, 0, null, N, 0);
+			complete = search.call();
+			merge(search);
+		}
+		minRegistersW = (int) (bestBound.get() >>> 32);
 
-		while (true) {
-			if (top < 0) {
-				break;
+		if (stopped) {
+			long t1 = System.currentTimeMillis();
+			InstanceLog.traceln("\t - Pipeline Stops in: " + (float) (t1 - t0)
+					/ 1000 + "s");
+		}
+		return complete;
+	}
+
+	/**
+	 * Split the coloring tree at the shallowest depth which gives every
+	 * thread several subtrees, and search the subtrees concurrently
+	 * 
+	 * @return true if the whole tree has been searched
+	 */
+	private boolean searchConcurrently() {
+		List<Srec[]> subtrees = new ArrayList<Srec[]>();
+		int depth = 0;
+		Search splitter;
+		do {
+			depth++;
+			subtrees.clear();
+			Stack[0].rp = -1;
+			splitter = new Search(Stack, 0, subtrees, depth, 0);
+			if (!splitter.call()) {
+				merge(splitter);
+				return false;
 			}
-			if (top >= N) {
-				ColoringCount++;
-				minRegistersW = lbrwdW;
-				// fprintf(outputfile,"ColoringCount=%d   PrunCount=%d   minRegistersW=%d\n",ColoringCount,CutCount,minRegistersW);
-				for (i = 0; i < N; i++) {
-					St0 = Stack[i];
-					bestcolor[i] = St0.rank[St0.rp];
-				}
-				top--;
-				// if(ColoringCount>=1) return true;
-			} else {
-				k = order[top];
-				St0 = Stack[top];
-				rp = St0.rp + 1;
-				if (specific[k] > 1 && rp == 1 || rp >= St0.mob) {
-					top--;
-				} else {
-					St0.rp = rp;
-					St0.stage = St0.rank[rp];
-					lbrwdW = St0.bound + St0.dW[rp];
-					// if(ColoringCount==0)
-					// fprintf(outputfile,"1: top=%d  k=%d  c=%d dW=%d lbrwdW=%d\n",top,k,c,dW,lbrwdW);
-					if (lbrwdW >= minRegistersW) {
-						CutCount++; // += Stack[top].mob - rp;
-						if (CutCount == 0x7FFFFFFF) {
-							cutc++;
-							CutCount = 0;
-							if (cutc >= 16) {
-								return true;
-							}
-						}
-						if (CutCount % 1000000 == 0) {
-							long t1 = System.currentTimeMillis();
-							if ((t1 - t0) / 1000 > 10) {
-								OrccLogger.traceln("\t - Pipeline Stops in: "
-										+ (float) (t1 - t0) / 1000 + "s");
-								return false;
-							}
-						}
-						top--;
-					} else {
-						top++;
-						// if(top>59)
-						// k=1;
-						if (top < N) {
-							k = order[top];
-							lasap = level_asap[k];
-							lalap = level_alap[k];
-							minC0 = 0;
-							maxC0 = N;
-							minC1 = 0;
-							maxC1 = N;
-							for (i = 0; i < cP_count[top]; i++) {
-								p = cPred[top * N + i];
-								k1 = order[p];
-								opc = Stack[p].stage;
-								if (k1 < k) {
-									if (minC0 < opc) {
-										minC0 = opc;
-									}
-								} else {
-									if (maxC0 > opc) {
-										maxC0 = opc;
-									}
-								}
-							}
-							for (i = 0; i < ncP_count[top]; i++) {
-								p = ncPred[top * N + i];
-								k1 = order[p];
-								opc = Stack[p].stage;
-								if (k1 < k) {
-									if (minC1 < opc) {
-										minC1 = opc;
-									}
-								} else {
-									if (maxC1 > opc) {
-										maxC1 = opc;
-									}
-								}
-							}
-							// if(ColoringCount==0)
-							// fprintf(outputfile,"top=%d minC0=%d maxC0=%d minC1=%d maxC1=%d\n",top,minC0,maxC0,minC1,maxC1);
-							minC0++;
-							maxC0--;
-							if (minC0 < minC1) {
-								minC0 = minC1;
-							}
-							if (maxC0 > maxC1) {
-								maxC0 = maxC1;
-							}
-							if (minC0 < lasap) {
-								minC0 = lasap;
-							}
-							if (maxC0 > lalap) {
-								maxC0 = lalap;
-							}
-							if (maxC0 < minC0) {
-								top--;
-								ConflictCount++;
-							} else {
-								St0 = Stack[top];
-								St0.rp = -1;
-								St0.bound = lbrwdW;
-								St0.early = minC0;
-								St0.late = maxC0;
-								St0.mob = maxC0 - minC0 + 1;
-								for (i = 0; i < St0.mob; i++) {
-									St0.rank[i] = minC0 + i;
-									St0.dW[i] = 0;
-								}
-								for (j = 0; j < outVarCounts[k]; j++) {
-									outv = outVarLists[k * M + j];
-									stal = maxColor;
-									for (u = 0; u < prod_count[outv]; u++) {
-										p = produce[outv * N + u];
-										if (p != k) {
-											ord = order1[p];
-											if (ord < top) {
-												s = Stack[ord].stage;
-											} else {
-												s = level_alap[p];
-											}
-											if (stal > s) {
-												stal = s;
-											}
-										}
-									}
-									if (outputPorts[outv] == 1) {
-										stas = maxColor;
-									} else {
-										stas = -1;
-										for (u = 0; u < cons_count[outv]; u++) {
-											p = consume[outv * N + u];
-											ord = order1[p];
-											if (ord < top) {
-												s = Stack[ord].stage;
-											} else {
-												s = level_asap[p];
-											}
-											if (stas < s) {
-												stas = s;
-											}
-										}
-									}
-									da = level_alap[k];
-									da = da < stal ? da : stal;
-									da = stas - da;
-									da = da > 0 ? da : 0;
-									for (i = 0; i < Stack[top].mob; i++) {
-										dc = minC0 + i;
-										dc = dc < stal ? dc : stal;
-										dc = stas - dc;
-										dc = dc > 0 ? dc : 0;
-										St0.dW[i] += Vs.varWidths[outv]
-												* (dc - da);
-									}
-								}
-								for (j = 0; j < inVarCounts[k]; j++) {
-									inv = inVarLists[k * M + j];
-									if (outputPorts[inv] == 1) {
-										stas = maxColor;
-									} else {
-										stas = 0;
-										for (u = 0; u < cons_count[inv]; u++) {
-											p = consume[inv * N + u];
-											if (p != k) {
-												ord = order1[p];
-												if (ord < top) {
-													s = Stack[ord].stage;
-												} else {
-													s = level_asap[p];
-												}
-												if (stas < s) {
-													stas = s;
-												}
-											}
-										}
-									}
-									stal = maxColor;
-									if (inputPorts[inv] == 1) {
-										stal = 1;
-									} else {
-										for (u = 0; u < prod_count[inv]; u++) {
-											p = produce[inv * N + u];
-											ord = order1[p];
-											if (ord < top) {
-												s = Stack[ord].stage;
-											} else {
-												s = level_alap[p];
-											}
-											if (stal > s) {
-												stal = s;
-											}
-										}
-									}
-									da = level_asap[k];
-									da = da > stas ? da : stas;
-									da = da - stal;
-									da = da > 0 ? da : 0;
-									for (i = 0; i < Stack[top].mob; i++) {
-										dc = minC0 + i;
-										dc = dc > stas ? dc : stas;
-										dc = dc - stal;
-										dc = dc > 0 ? dc : 0;
-										St0.dW[i] += Vs.varWidths[inv]
-												* (dc - da);
-									}
-								}
-								if (inVarCounts[k] == 0) {
-									j = St0.mob - 1;
-									St0.rank[0] = St0.rank[j];
-									St0.dW[0] = St0.dW[j];
-									St0.mob = 1;
-								} else {
-									for (i = 0; i < St0.mob - 1; i++) {
-										mindW = 100000000;
-										for (j = i; j < St0.mob; j++) {
-											dW = St0.dW[j];
-											if (mindW > dW) {
-												mindW = dW;
-												u = j;
-											}
-										}
-										if (u != i) {
-											St0.dW[u] = St0.dW[i];
-											St0.dW[i] = mindW;
-											j = St0.rank[u];
-											St0.rank[u] = St0.rank[i];
-											St0.rank[i] = j;
-										}
-									}
-								}
-							}
-						}
-					}
-				}
+		} while (subtrees.size() < threads * SUBTREES_PER_THREAD
+				&& depth < N - 1);
+		merge(splitter);
+
+		List<Search> searches = new ArrayList<Search>();
+		for (Srec[] subtree : subtrees) {
+			searches.add(new Search(subtree, depth, null, N, searches.size()));
+		}
+
+		boolean complete = true;
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			for (Future<Boolean> future : pool.invokeAll(searches)) {
+				complete &= future.get();
 			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			complete = false;
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+		for (Search search : searches) {
+			merge(search);
+		}
+		return complete;
+	}
+
+	/**
+	 * Add the counters of a finished search to the statistics
+	 * 
+	 * @param search
+	 */
+	private synchronized void merge(Search search) {
+		ColoringCount += search.colorings;
+		CutCount += search.cuts;
+		cutc += search.cutc;
+		ConflictCount += search.conflicts;
+	}
+
+	/**
+	 * Rank a coloring by its register width, then by the subtree it was found
+	 * in, so that between colorings of equal width the concurrent searches
+	 * keep the one of the first subtree, as a sequential search would
+	 * 
+	 * @param registersW
+	 * @param subtree
+	 * @return the rank, lower is better
+	 */
+	private static long rankOf(int registersW, int subtree) {
+		return ((long) registersW << 32) | subtree;
+	}
+
+	/**
+	 * Keep a complete coloring if it ranks before the best one found so far by
+	 * any search
+	 * 
+	 * @param stack
+	 * @param registersW
+	 * @param subtree
+	 */
+	private synchronized void record(Srec[] stack, int registersW, int subtree) {
+		long ranking = rankOf(registersW, subtree);
+		if (ranking < bestBound.get()) {
+			for (int i = 0; i < N; i++) {
+				bestcolor[i] = stack[i].rank[stack[i].rp];
+			}
+			bestBound.set(ranking);
+		}
+	}
+
+	/**
+	 * Account for the nodes visited by a search since its last check, and tell
+	 * whether the searches may go on
+	 * 
+	 * @return false once the time or node budget is exhausted
+	 */
+	private boolean withinBudget() {
+		if (stopped) {
+			return false;
+		}
+		long nodes = searchedNodes.addAndGet(BUDGET_CHECK);
+		if (nodeBudget > 0 && nodes >= nodeBudget || timeBudget > 0
+				&& System.currentTimeMillis() >= deadline) {
+			stopped = true;
+			return false;
 		}
 		return true;
 	}
 
+	/**
+	 * Set how the coloring tree is searched
+	 * 
+	 * @param threads
+	 *            the number of concurrent searches, 1 for a sequential search
+	 * @param timeBudget
+	 *            the search time in milliseconds after which the best coloring
+	 *            found is kept, 0 for no limit
+	 * @param nodeBudget
+	 *            the number of colored operators after which the best coloring
+	 *            found is kept, 0 for no limit
+	 */
+	public void setSearchBudget(int threads, long timeBudget, long nodeBudget) {
+		this.threads = threads < 1 ? 1 : threads;
+		this.timeBudget = timeBudget;
+		this.nodeBudget = nodeBudget;
+	}
+
 	private void c_nc_Predecessors(OperatorConflicts Cop, OperatorPrecedence P) {
-		int i, j, k, r;
+		int i, j, k, r, c;
+		// The entries still equal to 1, by rows and by columns, so that a
+		// path through a third operator is found with a word wide AND
+		BitMatrix copRows = new BitMatrix(Cop.opConfl, N, N);
+		BitMatrix copCols = copRows.transpose();
+		BitMatrix pRows = new BitMatrix(P.oPreced, N, N);
+		BitMatrix pCols = pRows.transpose();
 		for (i = 0; i < N; i++) {
 			for (j = 0; j <= i; j++) {
-				if (Cop.opConfl[j * N + N - 1 - i + j] == 1) {
-					P.oPreced[j * N + N - 1 - i + j] = 3;
-					for (k = 0; k < N; k++) {
-						if (Cop.opConfl[j * N + k] == 1
-								&& Cop.opConfl[k * N + N - 1 - i + j] == 1) {
-							Cop.opConfl[j * N + N - 1 - i + j] = 2;
-							break;
-						}
+				c = N - 1 - i + j;
+				if (Cop.opConfl[j * N + c] == 1) {
+					P.oPreced[j * N + c] = 3;
+					pRows.clear(j, c);
+					pCols.clear(c, j);
+					if (copRows.intersects(j, copCols, c)) {
+						Cop.opConfl[j * N + c] = 2;
+						copRows.clear(j, c);
+						copCols.clear(c, j);
 					}
 				}
-				if (P.oPreced[j * N + N - 1 - i + j] == 1) {
-					for (k = 0; k < N; k++) {
-						if (P.oPreced[j * N + k] == 1
-								&& P.oPreced[k * N + N - 1 - i + j] == 1) {
-							P.oPreced[j * N + N - 1 - i + j] = 2;
-							break;
-						}
+				if (P.oPreced[j * N + c] == 1) {
+					if (pRows.intersects(j, pCols, c)) {
+						P.oPreced[j * N + c] = 2;
+						pRows.clear(j, c);
+						pCols.clear(c, j);
 					}
 				}
 			}
@@ -582,6 +846,9 @@ public class OperatorColoring {
 			List<List<Integer>> stageOperators) {
 		int reg = 0;
 		int regW = 0;
+		long[][] stageIns = stageBits(colors, insBits, true);
+		long[][] stageOuts = stageBits(colors, outsBits, true);
+		long[] laterIns = new long[insBits.words];
 
 		// Initialize the IO and operators arrays
 		for (int i = 0; i < maxColor; i++) {
@@ -611,20 +878,9 @@ public class OperatorColoring {
 
 				out.write("STAGE " + i + "\n");
 				for (int r = 0; r < M; r++) {
-					ins[r] = 0;
-					outs[r] = transmission[r];
-				}
-				for (int j = 0; j < N; j++) {
-					if (i == colors[order1[j]]) {
-						for (int k = 0; k < M; k++) {
-							if (F.objIns[j * M + k] == 1) {
-								ins[k] = 1;
-							}
-							if (H.objOuts[j * M + k] == 1) {
-								outs[k] = 1;
-							}
-						}
-					}
+					ins[r] = BitMatrix.get(stageIns[i], r) ? 1 : 0;
+					outs[r] = BitMatrix.get(stageOuts[i], r) ? 1
+							: transmission[r];
 				}
 				for (int k = 0; k < M; k++) {
 					if (ins[k] == 1 && outs[k] == 0) {
@@ -639,16 +895,19 @@ public class OperatorColoring {
 					}
 				}
 				out.write("\n");
+				// The inputs of all the later stages
+				for (int w = 0; w < laterIns.length; w++) {
+					laterIns[w] = 0;
+				}
 				for (int w = i + 1; w <= maxColor; w++) {
-					for (int j = 0; j < N; j++) {
-						if (w == colors[order1[j]]) {
-							for (int k = 0; k < M; k++) {
-								if (outs[k] == 1 || transmission[k] == 1) {
-									if (F.objIns[j * M + k] == 1) {
-										transmission[k] = 2;
-									}
-								}
-							}
+					for (int k = 0; k < laterIns.length; k++) {
+						laterIns[k] |= stageIns[w][k];
+					}
+				}
+				for (int k = 0; k < M; k++) {
+					if (outs[k] == 1 || transmission[k] == 1) {
+						if (BitMatrix.get(laterIns, k)) {
+							transmission[k] = 2;
 						}
 					}
 				}
@@ -901,28 +1160,16 @@ public class OperatorColoring {
 		for (int r = 0; r < M; r++) {
 			outputPorts[r] = 0;
 		}
+		BitMatrix readers = insBits.transpose();
 		for (int r = 0; r < M; r++) {
-			int flag = 1;
-			for (int i = 0; i < N; i++) {
-				if (F.objIns[i * M + r] == 1) {
-					flag = 0;
-					// outputPorts[r] = 0;
-				}
-			}
-			outputPorts[r] = flag;
+			outputPorts[r] = readers.count(r) == 0 ? 1 : 0;
 		}
 		for (int r = 0; r < M; r++) {
 			inputPorts[r] = 0;
 		}
+		BitMatrix writers = outsBits.transpose();
 		for (int r = 0; r < M; r++) {
-			int flag = 1;
-			for (int i = 0; i < N; i++) {
-				if (H.objOuts[i * M + r] == 1) {
-					flag = 0;
-					// inputPorts[r] = 0;
-				}
-			}
-			inputPorts[r] = flag;
+			inputPorts[r] = writers.count(r) == 0 ? 1 : 0;
 		}
 		print_output_ports(Vs);
 	}
@@ -939,21 +1186,23 @@ public class OperatorColoring {
 
 	private void levelsALAP(OperatorConflicts Cop) {
 		L = maxColor;
+		BitMatrix succs = new BitMatrix(Cop.opConfl, N, N);
+		// The operators without a level or with the level of the current
+		// pass, which is every operator without a level when it starts
+		long[] blocked = new long[succs.words];
 		boolean next = true;
 		while (next) {
 			next = false;
 			for (int i = 0; i < N; i++) {
 				if (level_alap[i] == 0) {
-					int flag = 1;
-					for (int j = 0; j < N; j++) {
-						if (Cop.opConfl[i * N + j] == 1) {
-							if (level_alap[j] == 0 || level_alap[j] == L) {
-								flag = 0;
-								break;
-							}
-						}
-					}
-					if (flag == 1) {
+					blocked[i >>> 6] |= 1L << i;
+				} else {
+					blocked[i >>> 6] &= ~(1L << i);
+				}
+			}
+			for (int i = 0; i < N; i++) {
+				if (level_alap[i] == 0) {
+					if (!succs.intersects(i, blocked)) {
 						level_alap[i] = L;
 						next = true;
 					}
@@ -970,21 +1219,23 @@ public class OperatorColoring {
 	 */
 	private void levelsASAP(OperatorConflicts Cop) {
 		L = 1;
+		BitMatrix preds = new BitMatrix(Cop.opConfl, N, N).transpose();
+		// The operators without a level or with the level of the current
+		// pass, which is every operator without a level when it starts
+		long[] blocked = new long[preds.words];
 		boolean next = true;
 		while (next) {
 			next = false;
 			for (int i = 0; i < N; i++) {
 				if (level_asap[i] == 0) {
-					int flag = 1;
-					for (int j = 0; j < N; j++) {
-						if (Cop.opConfl[j * N + i] == 1) {
-							if (level_asap[j] == 0 || level_asap[j] == L) {
-								flag = 0;
-								break;
-							}
-						}
-					}
-					if (flag == 1) {
+					blocked[i >>> 6] |= 1L << i;
+				} else {
+					blocked[i >>> 6] &= ~(1L << i);
+				}
+			}
+			for (int i = 0; i < N; i++) {
+				if (level_asap[i] == 0) {
+					if (!preds.intersects(i, blocked)) {
 						level_asap[i] = L;
 						next = true;
 					}
@@ -999,6 +1250,8 @@ public class OperatorColoring {
 			OperatorOutputs H, OperatorPrecedence P, OperatorParameters Op,
 			VariableParameters Vs, List<List<String>> stageInputs,
 			List<List<String>> stageOutputs, List<List<Integer>> stageOperators) {
+		insBits = new BitMatrix(F.objIns, N, M);
+		outsBits = new BitMatrix(H.objOuts, N, M);
 		generate_F_H_lists(F, H, Op, Vs);
 		get_input_output_ports(F, H, Vs);
 		levelsASAP(Cop);
@@ -1011,8 +1264,6 @@ public class OperatorColoring {
 		print_freedom_order();
 		for (int i = 0; i < N; i++) {
 			Stack[i] = new Srec();
-			Stack[i].rank = new int[maxColor];
-			Stack[i].dW = new int[maxColor];
 		}
 		c_nc_Predecessors(Cop, P);
 
@@ -1061,6 +1312,28 @@ public class OperatorColoring {
 		}
 	}
 
+	/**
+	 * Merge the rows of the operators of each stage
+	 * 
+	 * @param colors
+	 *            the stage of each operator
+	 * @param bits
+	 *            the operator inputs or outputs
+	 * @param ordered
+	 *            true if the colors are indexed by the operator order
+	 * @return the bits of the stages 1 to maxColor, by stage
+	 */
+	private long[][] stageBits(int[] colors, BitMatrix bits, boolean ordered) {
+		long[][] stages = new long[maxColor + 2][bits.words];
+		for (int j = 0; j < N; j++) {
+			int color = ordered ? colors[order1[j]] : colors[j];
+			if (color >= 0 && color < stages.length) {
+				bits.or(j, stages[color]);
+			}
+		}
+		return stages;
+	}
+
 	public boolean print() {
 		if (N == 0) {
 			return false;
@@ -1358,25 +1631,15 @@ public class OperatorColoring {
 	private int registerWidth(int colors[], OperatorInputs F,
 			OperatorOutputs H, VariableParameters Vs) {
 		int regW = 0;
+		long[][] stageIns = stageBits(colors, insBits, false);
+		long[][] stageOuts = stageBits(colors, outsBits, false);
 		for (int r = 0; r < M; r++) {
 			transmission[r] = outputPorts[r];
 		}
 		for (int i = maxColor; i > 1; i--) {
 			for (int r = 0; r < M; r++) {
-				ins[r] = 0;
-				outs[r] = 0;
-			}
-			for (int j = 0; j < N; j++) {
-				if (i == colors[j]) {
-					for (int k = 0; k < M; k++) {
-						if (F.objIns[j * M + k] == 1) {
-							ins[k] = 1;
-						}
-						if (H.objOuts[j * M + k] == 1) {
-							outs[k] = 1;
-						}
-					}
-				}
+				ins[r] = BitMatrix.get(stageIns[i], r) ? 1 : 0;
+				outs[r] = BitMatrix.get(stageOuts[i], r) ? 1 : 0;
 			}
 			for (int k = 0; k < M; k++) {
 				if ((transmission[k] == 1 || ins[k] == 1) && outs[k] == 0) {
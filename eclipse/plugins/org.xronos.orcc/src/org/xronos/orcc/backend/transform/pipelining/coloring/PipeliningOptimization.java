@@ -79,6 +79,21 @@ public class PipeliningOptimization {
 	 */
 	private Integer nbrStages;
 
+	/**
+	 * The number of threads searching the coloring
+	 */
+	private int threads = 1;
+
+	/**
+	 * The coloring search time budget in milliseconds
+	 */
+	private long timeBudget = 10000;
+
+	/**
+	 * The coloring search node budget, 0 for no limit
+	 */
+	private long nodeBudget = 0;
+
 	public PipeliningOptimization(TestBench testBench, String logPath) {
 		this.testBench = testBench;
 		this.logPath = logPath;
@@ -120,6 +135,22 @@ public class PipeliningOptimization {
 		return stageOutputs.get(stage);
 	}
 
+	/**
+	 * Set the threads and the budget of the coloring search, after which the
+	 * best coloring found so far is used
+	 * 
+	 * @param threads
+	 * @param timeBudget
+	 *            in milliseconds, 0 for no limit
+	 * @param nodeBudget
+	 *            0 for no limit
+	 */
+	public void setSearchBudget(int threads, long timeBudget, long nodeBudget) {
+		this.threads = threads;
+		this.timeBudget = timeBudget;
+		this.nodeBudget = nodeBudget;
+	}
+
 	public void run() {
 		try {
 			File file = new File(logPath);
@@ -163,6 +194,7 @@ public class PipeliningOptimization {
 			stageOutputs = new ArrayList<List<String>>();
 			stageOperators = new ArrayList<List<Integer>>();
 			OperatorColoring ColO = new OperatorColoring(testBench, out);
+			ColO.setSearchBudget(threads, timeBudget, nodeBudget);
 			ColO.optimizePipeline(Cop, F, H, P, Op, Vs, stageInputs,
 					stageOutputs, stageOperators);
 			nbrStages = ColO.getNbrStages();
@@ -36,6 +36,7 @@ import java.util.UUID;
 
 import net.sf.orcc.ir.BlockWhile;
 import net.sf.orcc.ir.util.AbstractIrVisitor;
+import net.sf.orcc.util.Attribute;
 import net.sf.orcc.util.Void;
 
 import org.xronos.openforge.app.EngineThread;
@@ -52,22 +53,31 @@ public class OptimizationFlags extends AbstractIrVisitor<Void> {
 	@Override
 	public Void caseBlockWhile(BlockWhile blockWhile) {
 
-		if (blockWhile.hasAttribute("xronos_unroll")) {
-			if (blockWhile.getAttribute("xronos_unroll").hasAttribute("limit")) {
-				int limit = Integer.parseInt(blockWhile
-						.getAttribute("xronos_unroll").getAttribute("limit")
-						.getStringValue());
-				if (blockWhile.hasAttribute("limLoop")) {
-					Loop loop = (Loop) blockWhile.getAttribute("limLoop")
-							.getObjectValue();
-					loop.specifySearchScope("loop_line_"
-							+ blockWhile.getLineNumber() + "_"
-							+ UUID.randomUUID());
+		if (blockWhile.hasAttribute("xronos_unroll")
+				&& blockWhile.hasAttribute("limLoop")) {
+			Attribute unroll = blockWhile.getAttribute("xronos_unroll");
+			if (unroll.hasAttribute("limit") || unroll.hasAttribute("factor")) {
+				Loop loop = (Loop) blockWhile.getAttribute("limLoop")
+						.getObjectValue();
+				loop.specifySearchScope("loop_line_"
+						+ blockWhile.getLineNumber() + "_" + UUID.randomUUID());
 
+				if (unroll.hasAttribute("limit")) {
+					int limit = Integer.parseInt(unroll.getAttribute("limit")
+							.getStringValue());
 					Option op = EngineThread.getGenericJob().getOption(
 							OptionRegistry.LOOP_UNROLLING_LIMIT);
 					op.setValue(loop.getSearchLabel(), limit);
 				}
+
+				// Unroll partially when the loop is over the limit
+				if (unroll.hasAttribute("factor")) {
+					int factor = Integer.parseInt(unroll.getAttribute("factor")
+							.getStringValue());
+					Option op = EngineThread.getGenericJob().getOption(
+							OptionRegistry.LOOP_UNROLLING_FACTOR);
+					op.setValue(loop.getSearchLabel(), factor);
+				}
 			}
 		}
 
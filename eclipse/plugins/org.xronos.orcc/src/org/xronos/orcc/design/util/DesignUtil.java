@@ -34,8 +34,10 @@ package org.xronos.orcc.design.util;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import net.sf.orcc.ir.Var;
 
@@ -52,6 +54,7 @@ import org.xronos.openforge.lim.Module;
 import org.xronos.openforge.lim.OffsetMemoryAccess;
 import org.xronos.openforge.lim.Port;
 import org.xronos.openforge.lim.Task;
+import org.xronos.openforge.lim.io.SimpleInternalPin;
 import org.xronos.openforge.lim.memory.Allocation;
 import org.xronos.openforge.lim.memory.Location;
 import org.xronos.openforge.lim.memory.LocationConstant;
@@ -242,4 +245,32 @@ public class DesignUtil {
 		call.getGoPort().setSize(1, false);
 	}
 
+	/**
+	 * Publishes the go and done signals of every called task (an action
+	 * called by the scheduler) as the output ports &lt;task&gt;_go and
+	 * &lt;task&gt;_done of the design. This must be called once the scheduler
+	 * has been built, since the internal pins carrying these signals are
+	 * created by its task calls.
+	 * 
+	 * @param design
+	 *            the design
+	 */
+	public static void publishGoDone(Design design) {
+		Set<String> names = new HashSet<String>();
+		for (Task task : design.getTasks()) {
+			String taskName = task.getCall().showIDLogical();
+			names.add(taskName + "_go");
+			names.add(taskName + "_done");
+		}
+
+		for (Component component : design.getDesignModule().getComponents()) {
+			if (component instanceof SimpleInternalPin) {
+				SimpleInternalPin pin = (SimpleInternalPin) component;
+				if (names.contains(pin.getName())) {
+					pin.setObserved(true);
+				}
+			}
+		}
+	}
+
 }
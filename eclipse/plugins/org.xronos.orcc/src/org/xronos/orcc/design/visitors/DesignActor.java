@@ -44,6 +44,8 @@ import net.sf.orcc.df.util.DfVisitor;
 import net.sf.orcc.ir.Procedure;
 import net.sf.orcc.ir.Var;
 
+import org.xronos.openforge.app.EngineThread;
+import org.xronos.openforge.app.OptionRegistry;
 import org.xronos.openforge.lim.Block;
 import org.xronos.openforge.lim.Bus;
 import org.xronos.openforge.lim.Call;
@@ -246,6 +248,11 @@ public class DesignActor extends DfVisitor<Object> {
 			}
 		}
 
+		if (EngineThread.getGenericJob().getUnscopedBooleanOptionValue(
+				OptionRegistry.GO_DONE_PORTS)) {
+			DesignUtil.publishGoDone(design);
+		}
+
 		return null;
 	}
 }
@@ -44,6 +44,7 @@ import org.xronos.openforge.lim.Design;
 import org.xronos.openforge.lim.Exit;
 import org.xronos.openforge.lim.Task;
 import org.xronos.orcc.backend.debug.XronosDebug;
+import org.xronos.orcc.design.util.DesignUtil;
 import org.xronos.orcc.forge.scheduler.ActionScheduler;
 
 /**
@@ -126,6 +127,11 @@ public class DesignActor extends DfVisitor<Design> {
 				call.getProcedure().getBody().setConsumesGo(true);
 			}
 		}
+
+		// Observe the GO/Done of each action from outside the design
+		if (job.getUnscopedBooleanOptionValue(OptionRegistry.GO_DONE_PORTS)) {
+			DesignUtil.publishGoDone(design);
+		}
 		//new org.xronos.openforge.schedule.Normalizer().visit(design);
 		return design;
 	}
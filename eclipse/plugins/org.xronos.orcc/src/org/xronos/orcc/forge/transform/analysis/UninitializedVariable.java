@@ -46,9 +46,10 @@ import net.sf.orcc.ir.Procedure;
 import net.sf.orcc.ir.Type;
 import net.sf.orcc.ir.Var;
 import net.sf.orcc.ir.util.AbstractIrVisitor;
-import net.sf.orcc.util.OrccLogger;
 import net.sf.orcc.util.Void;
 
+import org.xronos.orcc.backend.InstanceLog;
+
 /**
  * This transformation finds out which variable is not initialized and it
  * initialize them with 0, it uses CFG and Liveness.
@@ -85,7 +86,7 @@ public class UninitializedVariable extends AbstractIrVisitor<Void> {
 			for (Var var : liveOut) {
 				if (!varKill.contains(var)) {
 					if (debug) {
-						OrccLogger.warnln("Variable: " + var.getName()
+						InstanceLog.warnln("Variable: " + var.getName()
 								+ ", line : " + procedure.getLineNumber()
 								+ ", is not initialized, initializing !!!");
 					}